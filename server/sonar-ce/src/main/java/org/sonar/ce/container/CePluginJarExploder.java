@@ -20,16 +20,16 @@
 package org.sonar.ce.container;
 
 import java.io.File;
-import org.apache.commons.io.FileUtils;
+import java.util.Optional;
 import org.sonar.server.platform.ServerFileSystem;
-import org.sonar.api.utils.ZipUtils;
 import org.sonar.core.platform.ExplodedPlugin;
 import org.sonar.core.platform.PluginInfo;
 import org.sonar.core.platform.PluginJarExploder;
 
 /**
- * Explodes the plugin JARs of extensions/plugins/ into a temporary directory
- * dedicated to compute engine.
+ * Reuses the plugins exploded by web server into web/deploy/plugins when they are up-to-date, which is
+ * the case on a normal startup as web server is started first. Otherwise explodes the plugin JARs of
+ * extensions/plugins/ into a temporary directory dedicated to compute engine.
  */
 public class CePluginJarExploder extends PluginJarExploder {
 
@@ -45,13 +45,13 @@ public class CePluginJarExploder extends PluginJarExploder {
     File tempDir = new File(fs.getTempDir(), TEMP_RELATIVE_PATH);
     File toDir = new File(tempDir, pluginInfo.getKey());
     try {
-      org.sonar.core.util.FileUtils.cleanDirectory(toDir);
-
-      File jarSource = pluginInfo.getNonNullJarFile();
-      File jarTarget = new File(toDir, jarSource.getName());
-      FileUtils.copyFile(jarSource, jarTarget);
-      ZipUtils.unzip(jarSource, toDir, newLibFilter());
-      return explodeFromUnzippedDir(pluginInfo.getKey(), jarTarget, toDir);
+      String hash = hash(pluginInfo.getNonNullJarFile());
+      File webServerDir = new File(fs.getDeployedPluginsDir(), pluginInfo.getKey());
+      Optional<ExplodedPlugin> explodedByWebServer = getUpToDateExplosion(pluginInfo, webServerDir, hash);
+      if (explodedByWebServer.isPresent()) {
+        return explodedByWebServer.get();
+      }
+      return explodeIfChanged(pluginInfo, toDir, hash);
     } catch (Exception e) {
       throw new IllegalStateException(String.format(
         "Fail to unzip plugin [%s] %s to %s", pluginInfo.getKey(), pluginInfo.getNonNullJarFile().getAbsolutePath(), toDir.getAbsolutePath()), e);
@@ -27,6 +27,7 @@ import org.junit.rules.TemporaryFolder;
 import org.sonar.server.platform.ServerFileSystem;
 import org.sonar.core.platform.ExplodedPlugin;
 import org.sonar.core.platform.PluginInfo;
+import org.sonar.server.plugins.ServerPluginJarExploder;
 
 import static org.apache.commons.io.FileUtils.sizeOfDirectory;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -81,6 +82,31 @@ public class CePluginJarExploderTest {
     assertThat(dirSize1).isEqualTo(dirSize2);
   }
 
+  @Test
+  public void reuse_plugin_exploded_by_web_server() throws Exception {
+    PluginInfo info = PluginInfo.create(plugin1Jar());
+    ExplodedPlugin explodedByWebServer = new ServerPluginJarExploder(fs).explode(info);
+
+    ExplodedPlugin exploded = underTest.explode(info);
+
+    assertThat(exploded.getMain()).isEqualTo(explodedByWebServer.getMain());
+    assertThat(new File(fs.getTempDir(), "ce-exploded-plugins")).doesNotExist();
+  }
+
+  @Test
+  public void do_not_reuse_plugin_exploded_by_web_server_from_another_jar() throws Exception {
+    new ServerPluginJarExploder(fs).explode(PluginInfo.create(plugin1Jar()));
+    File webServerJar = new File(fs.getDeployedPluginsDir(), "test/sonar-test-plugin-0.1-SNAPSHOT.jar");
+    File otherJar = temp.newFile("sonar-test-plugin-0.1-SNAPSHOT.jar");
+    org.apache.commons.io.FileUtils.copyFile(plugin2Jar(), otherJar);
+    PluginInfo info = PluginInfo.create(plugin1Jar()).setJarFile(otherJar);
+
+    ExplodedPlugin exploded = underTest.explode(info);
+
+    assertThat(exploded.getMain()).isNotEqualTo(webServerJar);
+    assertThat(exploded.getMain().getParentFile().getParentFile()).hasName("ce-exploded-plugins");
+  }
+
   private File plugin1Jar() {
     return new File("src/test/plugins/sonar-test-plugin/target/sonar-test-plugin-0.1-SNAPSHOT.jar");
   }
@@ -92,6 +118,7 @@ public class CePluginJarExploderTest {
   private class DumbFileSystem implements ServerFileSystem {
     private final TemporaryFolder temp;
     private File tempDir;
+    private File deployedPluginsDir;
 
     public DumbFileSystem(TemporaryFolder temp) {
       this.temp = temp;
@@ -126,7 +153,14 @@ public class CePluginJarExploderTest {
 
     @Override
     public File getDeployedPluginsDir() {
-      throw new UnsupportedOperationException();
+      if (deployedPluginsDir == null) {
+        try {
+          this.deployedPluginsDir = temp.newFolder();
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+      return deployedPluginsDir;
     }
 
     @Override
@@ -88,12 +88,13 @@ public class ComputeEngineContainerImplTest {
     assertThat(picoContainer.getComponentAdapters())
       .hasSize(
         CONTAINER_ITSELF
-          + 75 // level 4
+          + 76 // level 4
           + 4 // content of CeConfigurationModule
-          + 5 // content of CeQueueModule
+          + 6 // content of CeQueueModule
           + 3 // content of CeHttpModule
-          + 3 // content of CeTaskCommonsModule
+          + 5 // content of CeTaskCommonsModule
           + 4 // content of ProjectAnalysisTaskModule
+          + 3 // content of WebhookDeliveryModule
           + 4 // content of CeTaskProcessorModule
     );
     assertThat(picoContainer.getParent().getComponentAdapters()).hasSize(
@@ -110,7 +111,7 @@ public class ComputeEngineContainerImplTest {
         + 23 // level 1
         + 47 // content of DaoModule
         + 3 // content of EsSearchModule
-        + 57 // content of CorePropertyDefinitions
+        + 58 // content of CorePropertyDefinitions
         + 1 // content of CePropertyDefinitions
     );
     assertThat(picoContainer.getParent().getParent().getParent().getParent()).isNull();
@@ -64,6 +64,7 @@ public final class SqTables {
     "issue_changes",
     "loaded_templates",
     "manual_measures",
+    "measure_history",
     "metrics",
     "notifications",
     "organizations",
@@ -37,6 +37,7 @@ import org.sonar.db.issue.IssueChangeDao;
 import org.sonar.db.issue.IssueDao;
 import org.sonar.db.loadedtemplate.LoadedTemplateDao;
 import org.sonar.db.measure.MeasureDao;
+import org.sonar.db.measure.MeasureHistoryDao;
 import org.sonar.db.measure.custom.CustomMeasureDao;
 import org.sonar.db.metric.MetricDao;
 import org.sonar.db.notification.NotificationQueueDao;
@@ -95,6 +96,7 @@ public class DaoModule extends Module {
     IssueDao.class,
     LoadedTemplateDao.class,
     MeasureDao.class,
+    MeasureHistoryDao.class,
     MetricDao.class,
     NotificationQueueDao.class,
     OrganizationDao.class,
@@ -58,6 +58,7 @@ import org.sonar.db.issue.IssueMapper;
 import org.sonar.db.loadedtemplate.LoadedTemplateDto;
 import org.sonar.db.loadedtemplate.LoadedTemplateMapper;
 import org.sonar.db.measure.MeasureDto;
+import org.sonar.db.measure.MeasureHistoryMapper;
 import org.sonar.db.measure.MeasureMapper;
 import org.sonar.db.measure.custom.CustomMeasureDto;
 import org.sonar.db.measure.custom.CustomMeasureMapper;
@@ -207,6 +208,7 @@ public class MyBatis implements Startable {
       IssueChangeMapper.class,
       IssueMapper.class,
       LoadedTemplateMapper.class,
+      MeasureHistoryMapper.class,
       MeasureMapper.class,
       MetricMapper.class,
       NotificationQueueMapper.class,
@@ -68,6 +68,15 @@ public class CeActivityDto {
    * @see CeActivityDao#selectByUuid(DbSession, String)
    */
   private String errorStacktrace;
+  /**
+   * The profile of the execution of the task (if any), as a JSON document.
+   * <p>
+   * This property can be populated when inserting but <strong>is populated only when reading by a specific UUID.</strong>
+   * </p>
+   *
+   * @see CeActivityDao#selectByUuid(DbSession, String)
+   */
+  private String executionProfile;
   /**
    * Flag indicating whether the analysis of the current activity has a scanner context or not.
    * <p>
@@ -247,6 +256,16 @@ public class CeActivityDto {
     return this;
   }
 
+  @CheckForNull
+  public String getExecutionProfile() {
+    return executionProfile;
+  }
+
+  public CeActivityDto setExecutionProfile(@Nullable String executionProfile) {
+    this.executionProfile = executionProfile;
+    return this;
+  }
+
   public boolean isHasScannerContext() {
     return hasScannerContext;
   }
@@ -274,6 +293,7 @@ public class CeActivityDto {
       .add("executionTimeMs", executionTimeMs)
       .add("errorMessage", errorMessage)
       .add("errorStacktrace", errorStacktrace)
+      .add("executionProfile", executionProfile)
       .add("hasScannerContext", hasScannerContext)
       .toString();
   }
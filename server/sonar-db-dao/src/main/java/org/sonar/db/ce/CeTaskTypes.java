@@ -23,6 +23,12 @@ public final class CeTaskTypes {
   
   public static final String REPORT = "REPORT";
 
+  /**
+   * Purge of the history of a project, when it is not done by the analysis itself.
+   * See property sonar.dbcleaner.backgroundPurge.
+   */
+  public static final String PROJECT_PURGE = "PROJECT_PURGE";
+
   private CeTaskTypes() {
     // only statics
   }
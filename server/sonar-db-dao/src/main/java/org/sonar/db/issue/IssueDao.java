@@ -90,6 +90,13 @@ public class IssueDao implements Dao {
     return mapper(session).selectComponentUuidsOfOpenIssuesForProjectUuid(projectUuid);
   }
 
+  /**
+   * Number of issues of the project, including the closed ones, which relate to existing rule and component.
+   */
+  public int countByProjectUuid(DbSession session, String projectUuid) {
+    return mapper(session).countByProjectUuid(projectUuid);
+  }
+
   public void insert(DbSession session, IssueDto dto) {
     mapper(session).insert(dto);
   }
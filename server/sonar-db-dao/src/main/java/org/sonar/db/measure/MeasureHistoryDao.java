@@ -0,0 +1,49 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.measure;
+
+import java.util.Collection;
+import java.util.List;
+import org.sonar.db.Dao;
+import org.sonar.db.DbSession;
+
+import static org.sonar.db.DatabaseUtils.executeLargeInputs;
+
+public class MeasureHistoryDao implements Dao {
+
+  public List<MeasureHistoryDto> selectByComponentUuidAndMetricIds(DbSession dbSession, String componentUuid, Collection<Integer> metricIds) {
+    return executeLargeInputs(metricIds, ids -> mapper(dbSession).selectByComponentUuidAndMetricIds(componentUuid, ids));
+  }
+
+  public void insert(DbSession dbSession, MeasureHistoryDto dto) {
+    mapper(dbSession).insert(dto);
+  }
+
+  /**
+   * Replaces the history of an existing row
+   */
+  public void update(DbSession dbSession, MeasureHistoryDto dto) {
+    mapper(dbSession).update(dto);
+  }
+
+  private static MeasureHistoryMapper mapper(DbSession dbSession) {
+    return dbSession.getMapper(MeasureHistoryMapper.class);
+  }
+}
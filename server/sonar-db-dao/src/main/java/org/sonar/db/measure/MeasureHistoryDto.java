@@ -0,0 +1,252 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.measure;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.concurrent.Immutable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static org.sonar.api.measures.Metric.ValueType.BOOL;
+import static org.sonar.api.measures.Metric.ValueType.FLOAT;
+import static org.sonar.api.measures.Metric.ValueType.INT;
+import static org.sonar.api.measures.Metric.ValueType.MILLISEC;
+import static org.sonar.api.measures.Metric.ValueType.PERCENT;
+import static org.sonar.api.measures.Metric.ValueType.RATING;
+import static org.sonar.api.measures.Metric.ValueType.WORK_DUR;
+
+/**
+ * Values of a numeric metric on a root component (project or view), one point per analysis.
+ * The series is stored as a single blob in the column MEASURE_HISTORY.HISTORY_DATA, so that
+ * the whole history of a metric is read in a single row.
+ */
+public class MeasureHistoryDto {
+
+  private static final byte FORMAT_VERSION = 1;
+  private static final String NEW_METRIC_PREFIX = "new_";
+
+  /**
+   * Value types of the metrics which history is stored
+   */
+  private static final Set<String> VALUE_TYPES = ImmutableSet.of(INT.name(), MILLISEC.name(), RATING.name(), WORK_DUR.name(),
+    FLOAT.name(), PERCENT.name(), BOOL.name());
+
+  private static final Comparator<Point> POINT_ORDER = Comparator.comparingLong(Point::getDate).thenComparing(Point::getAnalysisUuid);
+
+  private String componentUuid;
+  private int metricId;
+  private byte[] historyData;
+  private long updatedAt;
+
+  public String getComponentUuid() {
+    return componentUuid;
+  }
+
+  public MeasureHistoryDto setComponentUuid(String componentUuid) {
+    this.componentUuid = componentUuid;
+    return this;
+  }
+
+  public int getMetricId() {
+    return metricId;
+  }
+
+  public MeasureHistoryDto setMetricId(int metricId) {
+    this.metricId = metricId;
+    return this;
+  }
+
+  /**
+   * Encoded value of the column HISTORY_DATA. See {@link #encodeHistory(Collection)}.
+   */
+  public byte[] getHistoryData() {
+    return historyData;
+  }
+
+  public MeasureHistoryDto setHistoryData(byte[] historyData) {
+    this.historyData = historyData;
+    return this;
+  }
+
+  /**
+   * Points ordered by ascending date of analysis
+   */
+  public List<Point> getHistory() {
+    return decodeHistory(historyData);
+  }
+
+  public MeasureHistoryDto setHistory(Collection<Point> history) {
+    this.historyData = encodeHistory(history);
+    return this;
+  }
+
+  public long getUpdatedAt() {
+    return updatedAt;
+  }
+
+  public MeasureHistoryDto setUpdatedAt(long updatedAt) {
+    this.updatedAt = updatedAt;
+    return this;
+  }
+
+  /**
+   * Whether the history of metrics of the specified value type (see {@link org.sonar.api.measures.Metric.ValueType})
+   * is stored in table MEASURE_HISTORY.
+   */
+  public static boolean isSupportedValueType(String valueType) {
+    return VALUE_TYPES.contains(valueType);
+  }
+
+  /**
+   * The value kept in history, i.e. the variation for the metrics on new code
+   */
+  @CheckForNull
+  public static Double historyValueOf(String metricKey, MeasureDto measure) {
+    return metricKey.startsWith(NEW_METRIC_PREFIX) ? measure.getVariation() : measure.getValue();
+  }
+
+  /**
+   * Reverse of {@link #historyValueOf(String, MeasureDto)}
+   */
+  public static MeasureDto setHistoryValue(String metricKey, MeasureDto measure, double value) {
+    if (metricKey.startsWith(NEW_METRIC_PREFIX)) {
+      return measure.setVariation(value);
+    }
+    return measure.setValue(value);
+  }
+
+  /**
+   * Points are ordered by date. Dates are stored as deltas with the previous point. Values are stored as
+   * the XOR of their IEEE 754 representation with the one of the previous point. Both are written as varints,
+   * so that series which do not change much from one analysis to another use a couple of bytes per point,
+   * in addition to the UUID of the analysis.
+   */
+  public static byte[] encodeHistory(Collection<Point> history) {
+    List<Point> points = new ArrayList<>(history);
+    points.sort(POINT_ORDER);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+    try {
+      output.writeRawByte(FORMAT_VERSION);
+      output.writeUInt32NoTag(points.size());
+      long previousDate = 0L;
+      long previousBits = 0L;
+      for (Point point : points) {
+        long date = point.getDate();
+        checkArgument(date >= 0L, "Date of measure must be positive: %s", date);
+        long bits = Double.doubleToLongBits(point.getValue());
+        output.writeStringNoTag(point.getAnalysisUuid());
+        output.writeUInt64NoTag(date - previousDate);
+        // XOR of close values has leading and trailing zeros. Reversing bits
+        // moves the trailing zeros of round values to the most significant bits.
+        output.writeUInt64NoTag(Long.reverse(bits ^ previousBits));
+        previousDate = date;
+        previousBits = bits;
+      }
+      output.flush();
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to encode measure history", e);
+    }
+  }
+
+  public static List<Point> decodeHistory(byte[] historyData) {
+    try {
+      CodedInputStream input = CodedInputStream.newInstance(historyData);
+      byte version = input.readRawByte();
+      checkArgument(version == FORMAT_VERSION, "Unsupported format of measure history: %s", version);
+      int size = input.readUInt32();
+      List<Point> history = new ArrayList<>(size);
+      long date = 0L;
+      long bits = 0L;
+      for (int i = 0; i < size; i++) {
+        String analysisUuid = input.readString();
+        date += input.readUInt64();
+        bits ^= Long.reverse(input.readUInt64());
+        history.add(new Point(analysisUuid, date, Double.longBitsToDouble(bits)));
+      }
+      return history;
+    } catch (IOException e) {
+      throw new IllegalStateException(format("Fail to decode measure history of %d bytes", historyData.length), e);
+    }
+  }
+
+  /**
+   * Value of the metric on an analysis. Several analyses can share the same date.
+   */
+  @Immutable
+  public static final class Point {
+    private final String analysisUuid;
+    private final long date;
+    private final double value;
+
+    public Point(String analysisUuid, long date, double value) {
+      this.analysisUuid = requireNonNull(analysisUuid, "Analysis UUID can't be null");
+      this.date = date;
+      this.value = value;
+    }
+
+    public String getAnalysisUuid() {
+      return analysisUuid;
+    }
+
+    public long getDate() {
+      return date;
+    }
+
+    public double getValue() {
+      return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Point point = (Point) o;
+      return date == point.date && Double.compare(point.value, value) == 0 && analysisUuid.equals(point.analysisUuid);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(analysisUuid, date, value);
+    }
+
+    @Override
+    public String toString() {
+      return "Point{analysisUuid=" + analysisUuid + ", date=" + date + ", value=" + value + '}';
+    }
+  }
+}
@@ -63,8 +63,9 @@ public class ProjectMeasuresIndexerIterator extends CloseableIterator<ProjectMea
 
   private static final Joiner METRICS_JOINER = Joiner.on("','");
 
-  private static final String SQL_PROJECTS = "SELECT p.organization_uuid, p.uuid, p.kee, p.name, s.uuid, s.created_at, p.tags " +
+  private static final String SQL_PROJECTS = "SELECT p.organization_uuid, p.uuid, p.kee, p.name, s.uuid, s.created_at, p.tags, o.kee " +
     "FROM projects p " +
+    "LEFT OUTER JOIN organizations o ON o.uuid=p.organization_uuid " +
     "LEFT OUTER JOIN snapshots s ON s.component_uuid=p.uuid AND s.islast=? " +
     "WHERE p.enabled=? AND p.scope=? AND p.qualifier=?";
 
@@ -133,7 +134,8 @@ public class ProjectMeasuresIndexerIterator extends CloseableIterator<ProjectMea
         String analysisUuid = DatabaseUtils.getString(rs, 5);
         Long analysisDate = DatabaseUtils.getLong(rs, 6);
         List<String> tags = readDbTags(DatabaseUtils.getString(rs, 7));
-        Project project = new Project(orgUuid, uuid, key, name, tags, analysisUuid, analysisDate);
+        String orgKey = DatabaseUtils.getString(rs, 8);
+        Project project = new Project(orgUuid, orgKey, uuid, key, name, tags, analysisUuid, analysisDate);
         projects.add(project);
       }
       return projects;
@@ -251,6 +253,7 @@ public class ProjectMeasuresIndexerIterator extends CloseableIterator<ProjectMea
 
   public static class Project {
     private final String organizationUuid;
+    private final String organizationKey;
     private final String uuid;
     private final String key;
     private final String name;
@@ -258,8 +261,10 @@ public class ProjectMeasuresIndexerIterator extends CloseableIterator<ProjectMea
     private final Long analysisDate;
     private final List<String> tags;
 
-    public Project(String organizationUuid, String uuid, String key, String name, List<String> tags, @Nullable String analysisUuid, @Nullable Long analysisDate) {
+    public Project(String organizationUuid, @Nullable String organizationKey, String uuid, String key, String name, List<String> tags, @Nullable String analysisUuid,
+      @Nullable Long analysisDate) {
       this.organizationUuid = organizationUuid;
+      this.organizationKey = organizationKey;
       this.uuid = uuid;
       this.key = key;
       this.name = name;
@@ -272,6 +277,11 @@ public class ProjectMeasuresIndexerIterator extends CloseableIterator<ProjectMea
       return organizationUuid;
     }
 
+    @CheckForNull
+    public String getOrganizationKey() {
+      return organizationKey;
+    }
+
     public String getUuid() {
       return uuid;
     }
@@ -30,6 +30,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 public class InternalPropertiesDao implements Dao {
 
+  private static final int KEY_MAX_LENGTH = 20;
   private static final int TEXT_VALUE_MAX_LENGTH = 4000;
   private static final Optional<String> OPTIONAL_OF_EMPTY_STRING = Optional.of("");
 
@@ -105,6 +106,7 @@ public class InternalPropertiesDao implements Dao {
 
   private static void checkKey(@Nullable String key) {
     checkArgument(key != null && !key.isEmpty(), "key can't be null nor empty");
+    checkArgument(key.length() <= KEY_MAX_LENGTH, "key length (%s) is longer than the maximum authorized (%s)", key.length(), KEY_MAX_LENGTH);
   }
 
   private static InternalPropertiesMapper getMapper(DbSession dbSession) {
@@ -22,6 +22,7 @@ package org.sonar.db.purge;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.sonar.db.DbSession;
 
@@ -36,16 +37,22 @@ class PurgeCommands {
   private final DbSession session;
   private final PurgeMapper purgeMapper;
   private final PurgeProfiler profiler;
+  private final PurgeThrottler throttler;
 
-  PurgeCommands(DbSession session, PurgeMapper purgeMapper, PurgeProfiler profiler) {
+  PurgeCommands(DbSession session, PurgeMapper purgeMapper, PurgeProfiler profiler, PurgeThrottler throttler) {
     this.session = session;
     this.purgeMapper = purgeMapper;
     this.profiler = profiler;
+    this.throttler = throttler;
+  }
+
+  PurgeCommands(DbSession session, PurgeProfiler profiler, PurgeThrottler throttler) {
+    this(session, session.getMapper(PurgeMapper.class), profiler, throttler);
   }
 
   @VisibleForTesting
   PurgeCommands(DbSession session, PurgeProfiler profiler) {
-    this(session, session.getMapper(PurgeMapper.class), profiler);
+    this(session, profiler, PurgeThrottler.NONE);
   }
 
   List<String> selectSnapshotUuids(PurgeSnapshotQuery query) {
@@ -69,55 +76,16 @@ class PurgeCommands {
 
     // possible missing optimization: filter requests according to resource scope
 
-    profiler.start("deleteResourceLinks (project_links)");
-    componentUuidsPartitions.forEach(purgeMapper::deleteComponentLinks);
-    session.commit();
-    profiler.stop();
-
-    profiler.start("deleteResourceProperties (properties)");
-    componentIdPartitions.forEach(purgeMapper::deleteComponentProperties);
-    session.commit();
-    profiler.stop();
-
-    profiler.start("deleteResourceGroupRoles (group_roles)");
-    componentIdPartitions.forEach(purgeMapper::deleteComponentGroupRoles);
-    session.commit();
-    profiler.stop();
-
-    profiler.start("deleteResourceUserRoles (user_roles)");
-    componentIdPartitions.forEach(purgeMapper::deleteComponentUserRoles);
-    session.commit();
-    profiler.stop();
-
-    profiler.start("deleteResourceManualMeasures (manual_measures)");
-    componentUuidsPartitions.forEach(purgeMapper::deleteComponentManualMeasures);
-    session.commit();
-    profiler.stop();
-
-    profiler.start("deleteComponentIssueChanges (issue_changes)");
-    componentUuidsPartitions.forEach(purgeMapper::deleteComponentIssueChanges);
-    session.commit();
-    profiler.stop();
-
-    profiler.start("deleteComponentIssues (issues)");
-    componentUuidsPartitions.forEach(purgeMapper::deleteComponentIssues);
-    session.commit();
-    profiler.stop();
-
-    profiler.start("deleteComponentEvents (events)");
-    componentUuidsPartitions.forEach(purgeMapper::deleteComponentEvents);
-    session.commit();
-    profiler.stop();
-
-    profiler.start("deleteResource (projects)");
-    componentUuidsPartitions.forEach(purgeMapper::deleteComponents);
-    session.commit();
-    profiler.stop();
-
-    profiler.start("deleteAuthors (authors)");
-    componentIdPartitions.forEach(purgeMapper::deleteAuthors);
-    session.commit();
-    profiler.stop();
+    deleteByChunks("deleteResourceLinks (project_links)", componentUuidsPartitions, purgeMapper::deleteComponentLinks);
+    deleteByChunks("deleteResourceProperties (properties)", componentIdPartitions, purgeMapper::deleteComponentProperties);
+    deleteByChunks("deleteResourceGroupRoles (group_roles)", componentIdPartitions, purgeMapper::deleteComponentGroupRoles);
+    deleteByChunks("deleteResourceUserRoles (user_roles)", componentIdPartitions, purgeMapper::deleteComponentUserRoles);
+    deleteByChunks("deleteResourceManualMeasures (manual_measures)", componentUuidsPartitions, purgeMapper::deleteComponentManualMeasures);
+    deleteByChunks("deleteComponentIssueChanges (issue_changes)", componentUuidsPartitions, purgeMapper::deleteComponentIssueChanges);
+    deleteByChunks("deleteComponentIssues (issues)", componentUuidsPartitions, purgeMapper::deleteComponentIssues);
+    deleteByChunks("deleteComponentEvents (events)", componentUuidsPartitions, purgeMapper::deleteComponentEvents);
+    deleteByChunks("deleteResource (projects)", componentUuidsPartitions, purgeMapper::deleteComponents);
+    deleteByChunks("deleteAuthors (authors)", componentIdPartitions, purgeMapper::deleteAuthors);
   }
 
   public void deleteComponentMeasures(List<String> analysisUuids, List<String> componentUuids) {
@@ -128,14 +96,11 @@ class PurgeCommands {
     List<List<String>> analysisUuidsPartitions = Lists.partition(analysisUuids, MAX_SNAPSHOTS_PER_QUERY);
     List<List<String>> componentUuidsPartitions = Lists.partition(componentUuids, MAX_RESOURCES_PER_QUERY);
 
-    profiler.start("deleteComponentMeasures");
-    for (List<String> analysisUuidsPartition : analysisUuidsPartitions) {
+    deleteByChunks("deleteComponentMeasures", analysisUuidsPartitions, analysisUuidsPartition -> {
       for (List<String> componentUuidsPartition : componentUuidsPartitions) {
         purgeMapper.deleteComponentMeasures(analysisUuidsPartition, componentUuidsPartition);
       }
-    }
-    session.commit();
-    profiler.stop();
+    });
   }
 
   void deleteAnalyses(PurgeSnapshotQuery... queries) {
@@ -151,20 +116,9 @@ class PurgeCommands {
 
     deleteAnalysisDuplications(analysisUuidsPartitions);
 
-    profiler.start("deleteAnalyses (events)");
-    analysisUuidsPartitions.forEach(purgeMapper::deleteAnalysisEvents);
-    session.commit();
-    profiler.stop();
-
-    profiler.start("deleteAnalyses (project_measures)");
-    analysisUuidsPartitions.forEach(purgeMapper::deleteAnalysisMeasures);
-    session.commit();
-    profiler.stop();
-
-    profiler.start("deleteAnalyses (snapshots)");
-    analysisUuidsPartitions.forEach(purgeMapper::deleteAnalyses);
-    session.commit();
-    profiler.stop();
+    deleteByChunks("deleteAnalyses (events)", analysisUuidsPartitions, purgeMapper::deleteAnalysisEvents);
+    deleteByChunks("deleteAnalyses (project_measures)", analysisUuidsPartitions, purgeMapper::deleteAnalysisMeasures);
+    deleteByChunks("deleteAnalyses (snapshots)", analysisUuidsPartitions, purgeMapper::deleteAnalyses);
   }
 
   public void purgeAnalyses(List<IdUuidPair> analysisUuids) {
@@ -172,22 +126,30 @@ class PurgeCommands {
 
     deleteAnalysisDuplications(analysisUuidsPartitions);
 
-    profiler.start("deleteSnapshotWastedMeasures (project_measures)");
     List<Long> metricIdsWithoutHistoricalData = purgeMapper.selectMetricIdsWithoutHistoricalData();
-    analysisUuidsPartitions.stream()
-      .forEach(analysisUuidsPartition -> purgeMapper.deleteAnalysisWastedMeasures(analysisUuidsPartition, metricIdsWithoutHistoricalData));
-    session.commit();
-    profiler.stop();
+    deleteByChunks("deleteSnapshotWastedMeasures (project_measures)", analysisUuidsPartitions,
+      analysisUuidsPartition -> purgeMapper.deleteAnalysisWastedMeasures(analysisUuidsPartition, metricIdsWithoutHistoricalData));
 
-    profiler.start("updatePurgeStatusToOne (snapshots)");
-    analysisUuidsPartitions.forEach(purgeMapper::updatePurgeStatusToOne);
-    session.commit();
-    profiler.stop();
+    deleteByChunks("updatePurgeStatusToOne (snapshots)", analysisUuidsPartitions, purgeMapper::updatePurgeStatusToOne);
   }
 
   private void deleteAnalysisDuplications(List<List<String>> snapshotUuidsPartitions) {
-    profiler.start("deleteAnalysisDuplications (duplications_index)");
-    snapshotUuidsPartitions.forEach(purgeMapper::deleteAnalysisDuplications);
+    deleteByChunks("deleteAnalysisDuplications (duplications_index)", snapshotUuidsPartitions, purgeMapper::deleteAnalysisDuplications);
+  }
+
+  /**
+   * When a throttler is defined, executes the deletion of each partition in its own transaction, so that locks
+   * are not held during the whole purge of a table. Otherwise the step is committed at once.
+   */
+  private <T> void deleteByChunks(String step, List<List<T>> partitions, Consumer<List<T>> deletion) {
+    profiler.start(step);
+    for (List<T> partition : partitions) {
+      deletion.accept(partition);
+      if (throttler != PurgeThrottler.NONE) {
+        session.commit();
+        throttler.chunkCommitted(step);
+      }
+    }
     session.commit();
     profiler.stop();
   }
@@ -219,4 +181,11 @@ class PurgeCommands {
     session.commit();
     profiler.stop();
   }
+
+  public void deleteMeasureHistory(String rootUuid) {
+    profiler.start("deleteMeasureHistory (measure_history)");
+    purgeMapper.deleteMeasureHistoryByProjectUuid(rootUuid);
+    session.commit();
+    profiler.stop();
+  }
 }
@@ -45,6 +45,7 @@ import static org.sonar.db.DatabaseUtils.executeLargeInputs;
 public class PurgeDao implements Dao {
   private static final Logger LOG = Loggers.get(PurgeDao.class);
   private static final String[] UNPROCESSED_STATUS = new String[] {"U"};
+  private static final int MAX_ISSUES_PER_CHUNK = 1000;
 
   private final ComponentDao componentDao;
   private final System2 system2;
@@ -55,14 +56,24 @@ public class PurgeDao implements Dao {
   }
 
   public void purge(DbSession session, PurgeConfiguration conf, PurgeListener listener, PurgeProfiler profiler) {
+    purge(session, conf, listener, profiler, PurgeThrottler.NONE);
+  }
+
+  /**
+   * Same as {@link #purge(DbSession, PurgeConfiguration, PurgeListener, PurgeProfiler)}, the deletions being committed
+   * by chunks. {@code throttler} is called after each commit.
+   *
+   * @since 6.4
+   */
+  public void purge(DbSession session, PurgeConfiguration conf, PurgeListener listener, PurgeProfiler profiler, PurgeThrottler throttler) {
     PurgeMapper mapper = session.getMapper(PurgeMapper.class);
-    PurgeCommands commands = new PurgeCommands(session, mapper, profiler);
+    PurgeCommands commands = new PurgeCommands(session, mapper, profiler, throttler);
     String rootUuid = conf.rootProjectIdUuid().getUuid();
     deleteAbortedAnalyses(rootUuid, commands);
     deleteDataOfComponentsWithoutHistoricalData(session, rootUuid, conf.scopesWithoutHistoricalData(), commands);
     purgeAnalyses(commands, rootUuid);
     purgeDisabledComponents(session, conf, listener);
-    deleteOldClosedIssues(conf, mapper, listener);
+    deleteOldClosedIssues(session, conf, mapper, listener, throttler);
   }
 
   private static void purgeAnalyses(PurgeCommands commands, String rootUuid) {
@@ -74,18 +85,25 @@ public class PurgeDao implements Dao {
     commands.purgeAnalyses(analysisUuids);
   }
 
-  private static void deleteOldClosedIssues(PurgeConfiguration conf, PurgeMapper mapper, PurgeListener listener) {
+  private static void deleteOldClosedIssues(DbSession session, PurgeConfiguration conf, PurgeMapper mapper, PurgeListener listener,
+    PurgeThrottler throttler) {
     Date toDate = conf.maxLiveDateOfClosedIssues();
     String rootUuid = conf.rootProjectIdUuid().getUuid();
     List<String> issueKeys = mapper.selectOldClosedIssueKeys(rootUuid, dateToLong(toDate));
-    executeLargeInputs(issueKeys, input -> {
-      mapper.deleteIssueChangesFromIssueKeys(input);
-      return emptyList();
-    });
-    executeLargeInputs(issueKeys, input -> {
-      mapper.deleteIssuesFromKeys(input);
-      return emptyList();
-    });
+    for (List<String> partition : Lists.partition(issueKeys, MAX_ISSUES_PER_CHUNK)) {
+      executeLargeInputs(partition, input -> {
+        mapper.deleteIssueChangesFromIssueKeys(input);
+        return emptyList();
+      });
+      executeLargeInputs(partition, input -> {
+        mapper.deleteIssuesFromKeys(input);
+        return emptyList();
+      });
+      if (throttler != PurgeThrottler.NONE) {
+        session.commit();
+        throttler.chunkCommitted("deleteOldClosedIssues (issues)");
+      }
+    }
     listener.onIssuesRemoval(rootUuid, issueKeys);
   }
 
@@ -122,7 +140,13 @@ public class PurgeDao implements Dao {
     purgeCommands.deleteComponentMeasures(analysisUuids, componentWithoutHistoricalDataUuids);
   }
 
-  private void purgeDisabledComponents(DbSession session, PurgeConfiguration conf, PurgeListener listener) {
+  /**
+   * Deletes the sources and closes the issues of the components disabled by the last analysis. This method
+   * is also called by {@link #purge(DbSession, PurgeConfiguration, PurgeListener, PurgeProfiler)}.
+   *
+   * @since 6.4
+   */
+  public void purgeDisabledComponents(DbSession session, PurgeConfiguration conf, PurgeListener listener) {
     PurgeMapper mapper = mapper(session);
     executeLargeInputs(conf.getDisabledComponentUuids(),
       input -> {
@@ -160,6 +184,7 @@ public class PurgeDao implements Dao {
     commands.deleteCeActivity(rootUuid);
     commands.deleteCeQueue(rootUuid);
     commands.deleteWebhookDeliveries(rootUuid);
+    commands.deleteMeasureHistory(rootUuid);
   }
 
   public void deleteAnalyses(DbSession session, PurgeProfiler profiler, List<IdUuidPair> analysisIdUuids) {
@@ -0,0 +1,43 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.purge;
+
+/**
+ * Called by the purge each time a chunk of rows has been deleted and committed. Implementations
+ * can pause the purge in order to let concurrent transactions acquire locks on the purged tables,
+ * and report progress.
+ *
+ * @since 6.4
+ */
+@FunctionalInterface
+public interface PurgeThrottler {
+
+  /**
+   * Deletions are not committed by chunks but once per step of the purge
+   */
+  PurgeThrottler NONE = step -> {
+    // no pause
+  };
+
+  /**
+   * @param step the step of the purge, for example "deleteAnalyses (project_measures)"
+   */
+  void chunkCommitted(String step);
+}
@@ -44,6 +44,15 @@ public class FileSourceDao implements Dao {
     return mapper(session).select(fileUuid, Type.SOURCE);
   }
 
+  /**
+   * Hash of the source data of a file, without loading the data itself.
+   * Returns {@code null} if the file has no source or if the hash is missing.
+   */
+  @CheckForNull
+  public String selectSourceDataHash(DbSession session, String fileUuid) {
+    return mapper(session).selectDataHash(fileUuid, Type.SOURCE);
+  }
+
   @CheckForNull
   public FileSourceDto selectTest(DbSession dbSession, String fileUuid) {
     return mapper(dbSession).select(fileUuid, Type.TEST);
@@ -25,7 +25,9 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
@@ -38,6 +40,14 @@ import static java.lang.String.format;
 
 public class FileSourceDto {
 
+  /**
+   * Number of lines compressed together in the chunked format of source data.
+   * @see #encodeSourceData(DbFileSources.Data)
+   */
+  static final int LINES_PER_CHUNK = 200;
+  private static final byte[] CHUNKED_MAGIC = {'S', 'Q', 'C', '1'};
+  private static final int CHUNK_ENTRY_BYTES = 2 * Integer.BYTES;
+
   private static final String SIZE_LIMIT_EXCEEDED_EXCEPTION_MESSAGE = "Protocol message was too large.  May be malicious.  " +
     "Use CodedInputStream.setSizeLimit() to increase the size limit.";
 
@@ -94,15 +104,57 @@ public class FileSourceDto {
   }
 
   public DbFileSources.Data decodeSourceData(byte[] binaryData) {
+    return decodeSourceData(binaryData, 1, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Decode only the chunks of source data which contain the lines between {@code from} and {@code toInclusive}.
+   * The returned message can contain lines out of this range, up to the boundaries of the chunks. All the lines
+   * are returned when data has been stored in the former format, without chunks.
+   */
+  public DbFileSources.Data decodeSourceData(byte[] binaryData, int from, int toInclusive) {
     try {
+      if (isChunked(binaryData)) {
+        return decodeChunkedSourceData(binaryData, from, toInclusive);
+      }
       return decodeRegularSourceData(binaryData);
-    } catch (IOException e) {
+    } catch (IOException | RuntimeException e) {
       throw new IllegalStateException(
         format("Fail to decompress and deserialize source data [id=%s,fileUuid=%s,projectUuid=%s]", id, fileUuid, projectUuid),
         e);
     }
   }
 
+  private static boolean isChunked(byte[] binaryData) {
+    return binaryData.length >= CHUNKED_MAGIC.length
+      && Arrays.equals(CHUNKED_MAGIC, Arrays.copyOf(binaryData, CHUNKED_MAGIC.length));
+  }
+
+  private static DbFileSources.Data decodeChunkedSourceData(byte[] binaryData, int from, int toInclusive) throws IOException {
+    ByteBuffer header = ByteBuffer.wrap(binaryData);
+    header.position(CHUNKED_MAGIC.length);
+    int nbOfChunks = header.getInt();
+    int[] firstLines = new int[nbOfChunks];
+    int[] offsets = new int[nbOfChunks];
+    for (int i = 0; i < nbOfChunks; i++) {
+      firstLines[i] = header.getInt();
+      offsets[i] = header.getInt();
+    }
+
+    DbFileSources.Data.Builder data = DbFileSources.Data.newBuilder();
+    for (int i = 0; i < nbOfChunks; i++) {
+      boolean lastChunk = i == nbOfChunks - 1;
+      boolean startsAfterRange = firstLines[i] > toInclusive;
+      boolean endsBeforeRange = !lastChunk && firstLines[i + 1] <= from;
+      if (!startsAfterRange && !endsBeforeRange) {
+        int end = lastChunk ? binaryData.length : offsets[i + 1];
+        byte[] chunk = Arrays.copyOfRange(binaryData, offsets[i], end);
+        data.addAllLines(decodeRegularSourceData(chunk).getLinesList());
+      }
+    }
+    return data.build();
+  }
+
   private static DbFileSources.Data decodeRegularSourceData(byte[] binaryData) throws IOException {
     try (LZ4BlockInputStream lz4Input = new LZ4BlockInputStream(new ByteArrayInputStream(binaryData))) {
       return DbFileSources.Data.parseFrom(lz4Input);
@@ -125,8 +177,47 @@ public class FileSourceDto {
   /**
    * Serialize and compress protobuf message {@link org.sonar.db.protobuf.DbFileSources.Data}
    * in the column BINARY_DATA.
+   * <p>
+   * Lines are split into chunks of {@link #LINES_PER_CHUNK} lines which are compressed separately, so that
+   * a range of lines can be read without decompressing the whole file:
+   * <pre>
+   * magic number "SQC1" (4 bytes)
+   * number of chunks (int)
+   * for each chunk: number of its first line (int) and offset of its data in the array (int)
+   * for each chunk: LZ4-compressed protobuf message {@link org.sonar.db.protobuf.DbFileSources.Data}
+   * </pre>
+   * Data stored in the former format, a single LZ4-compressed message, is still decoded.
    */
   public static byte[] encodeSourceData(DbFileSources.Data data) {
+    List<DbFileSources.Line> lines = data.getLinesList();
+    int nbOfChunks = (lines.size() + LINES_PER_CHUNK - 1) / LINES_PER_CHUNK;
+    List<byte[]> chunks = new ArrayList<>(nbOfChunks);
+    int[] firstLines = new int[nbOfChunks];
+    for (int i = 0; i < nbOfChunks; i++) {
+      List<DbFileSources.Line> chunkLines = lines.subList(i * LINES_PER_CHUNK, Math.min(lines.size(), (i + 1) * LINES_PER_CHUNK));
+      firstLines[i] = chunkLines.get(0).getLine();
+      chunks.add(encodeRegularSourceData(DbFileSources.Data.newBuilder().addAllLines(chunkLines).build()));
+    }
+
+    int headerSize = CHUNKED_MAGIC.length + Integer.BYTES + nbOfChunks * CHUNK_ENTRY_BYTES;
+    int totalSize = headerSize + chunks.stream().mapToInt(chunk -> chunk.length).sum();
+    ByteBuffer output = ByteBuffer.allocate(totalSize);
+    output.put(CHUNKED_MAGIC);
+    output.putInt(nbOfChunks);
+    int offset = headerSize;
+    for (int i = 0; i < nbOfChunks; i++) {
+      output.putInt(firstLines[i]);
+      output.putInt(offset);
+      offset += chunks.get(i).length;
+    }
+    chunks.forEach(output::put);
+    return output.array();
+  }
+
+  /**
+   * Former format of column BINARY_DATA, used for each chunk of {@link #encodeSourceData(DbFileSources.Data)}.
+   */
+  static byte[] encodeRegularSourceData(DbFileSources.Data data) {
     ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
     LZ4BlockOutputStream compressedOutput = new LZ4BlockOutputStream(byteOutput);
     try {
@@ -212,6 +303,14 @@ public class FileSourceDto {
     return decodeSourceData(binaryData);
   }
 
+  /**
+   * Decode the lines between {@code from} and {@code toInclusive}, possibly with some surrounding lines.
+   * @see #decodeSourceData(byte[], int, int)
+   */
+  public DbFileSources.Data getSourceData(int from, int toInclusive) {
+    return decodeSourceData(binaryData, from, toInclusive);
+  }
+
   public FileSourceDto setSourceData(DbFileSources.Data data) {
     this.dataType = Type.SOURCE;
     this.binaryData = encodeSourceData(data);
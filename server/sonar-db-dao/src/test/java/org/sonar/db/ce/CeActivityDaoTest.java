@@ -120,6 +120,25 @@ public class CeActivityDaoTest {
     assertThat(read.getErrorStacktrace()).isNull();
   }
 
+  @Test
+  public void test_insert_execution_profile() {
+    CeActivityDto dto = createActivityDto("TASK_1", REPORT, "PROJECT_1", SUCCESS)
+      .setExecutionProfile("[{\"step\":\"Load report\",\"wallTimeMs\":12}]");
+    underTest.insert(db.getSession(), dto);
+
+    CeActivityDto read = underTest.selectByUuid(db.getSession(), "TASK_1").get();
+    assertThat(read.getExecutionProfile()).isEqualTo(dto.getExecutionProfile());
+  }
+
+  @Test
+  public void selectByQuery_does_not_populate_executionProfile_field() {
+    underTest.insert(db.getSession(), createActivityDto("TASK_1", REPORT, "PROJECT_1", SUCCESS).setExecutionProfile("[]"));
+
+    List<CeActivityDto> dtos = underTest.selectByQuery(db.getSession(), new CeTaskQuery(), 0, 10);
+
+    assertThat(dtos).extracting("executionProfile").containsOnly((String) null);
+  }
+
   @Test
   public void insert_must_set_relevant_is_last_field() {
     // only a single task on PROJECT_1 -> is_last=true
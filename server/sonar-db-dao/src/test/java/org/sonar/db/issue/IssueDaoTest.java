@@ -122,6 +122,15 @@ public class IssueDaoTest {
     assertThat(issues).extracting("key").containsExactly("I2", "I1");
   }
 
+  @Test
+  public void countByProjectUuid() {
+    // contains I1 and I2
+    prepareTables();
+
+    assertThat(underTest.countByProjectUuid(dbTester.getSession(), PROJECT_UUID)).isEqualTo(2);
+    assertThat(underTest.countByProjectUuid(dbTester.getSession(), "unknown")).isEqualTo(0);
+  }
+
   private static IssueDto newIssueDto(String key) {
     IssueDto dto = new IssueDto();
     dto.setComponent(new ComponentDto().setKey("struts:Action").setId(123L).setUuid("component-uuid"));
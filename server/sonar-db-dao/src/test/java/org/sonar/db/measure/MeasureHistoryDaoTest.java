@@ -0,0 +1,106 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.measure;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MeasureHistoryDaoTest {
+
+  private static final int NCLOC_METRIC_ID = 10;
+  private static final int COVERAGE_METRIC_ID = 11;
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+  private DbSession dbSession = db.getSession();
+
+  private MeasureHistoryDao underTest = db.getDbClient().measureHistoryDao();
+
+  @Test
+  public void insert_and_select_history() {
+    List<MeasureHistoryDto.Point> history = history(1_000L, 10d, 2_000L, 12d);
+    underTest.insert(dbSession, new MeasureHistoryDto().setComponentUuid("P1").setMetricId(NCLOC_METRIC_ID).setHistory(history).setUpdatedAt(2_000L));
+
+    List<MeasureHistoryDto> result = underTest.selectByComponentUuidAndMetricIds(dbSession, "P1", singletonList(NCLOC_METRIC_ID));
+
+    assertThat(result).hasSize(1);
+    MeasureHistoryDto dto = result.get(0);
+    assertThat(dto.getComponentUuid()).isEqualTo("P1");
+    assertThat(dto.getMetricId()).isEqualTo(NCLOC_METRIC_ID);
+    assertThat(dto.getHistory()).isEqualTo(history);
+    assertThat(dto.getUpdatedAt()).isEqualTo(2_000L);
+  }
+
+  @Test
+  public void update_replaces_existing_history() {
+    underTest.insert(dbSession, new MeasureHistoryDto().setComponentUuid("P1").setMetricId(NCLOC_METRIC_ID).setHistory(history(1_000L, 10d)).setUpdatedAt(1_000L));
+    List<MeasureHistoryDto.Point> updated = history(1_000L, 10d, 2_000L, 15d);
+
+    underTest.update(dbSession, new MeasureHistoryDto().setComponentUuid("P1").setMetricId(NCLOC_METRIC_ID).setHistory(updated).setUpdatedAt(2_000L));
+
+    List<MeasureHistoryDto> result = underTest.selectByComponentUuidAndMetricIds(dbSession, "P1", singletonList(NCLOC_METRIC_ID));
+    assertThat(result).hasSize(1);
+    assertThat(result.get(0).getHistory()).isEqualTo(updated);
+    assertThat(result.get(0).getUpdatedAt()).isEqualTo(2_000L);
+    assertThat(db.countRowsOfTable(dbSession, "measure_history")).isEqualTo(1);
+  }
+
+  @Test
+  public void update_does_nothing_if_row_does_not_exist() {
+    underTest.update(dbSession, new MeasureHistoryDto().setComponentUuid("P1").setMetricId(NCLOC_METRIC_ID).setHistory(history(1_000L, 10d)).setUpdatedAt(1_000L));
+
+    assertThat(db.countRowsOfTable(dbSession, "measure_history")).isZero();
+  }
+
+  @Test
+  public void select_filters_on_component_and_metrics() {
+    underTest.insert(dbSession, new MeasureHistoryDto().setComponentUuid("P1").setMetricId(NCLOC_METRIC_ID).setHistory(history(1_000L, 10d)).setUpdatedAt(1_000L));
+    underTest.insert(dbSession, new MeasureHistoryDto().setComponentUuid("P1").setMetricId(COVERAGE_METRIC_ID).setHistory(history(1_000L, 80d)).setUpdatedAt(1_000L));
+    underTest.insert(dbSession, new MeasureHistoryDto().setComponentUuid("P2").setMetricId(NCLOC_METRIC_ID).setHistory(history(1_000L, 20d)).setUpdatedAt(1_000L));
+
+    assertThat(underTest.selectByComponentUuidAndMetricIds(dbSession, "P1", asList(NCLOC_METRIC_ID, COVERAGE_METRIC_ID)))
+      .extracting(MeasureHistoryDto::getMetricId)
+      .containsOnly(NCLOC_METRIC_ID, COVERAGE_METRIC_ID);
+    assertThat(underTest.selectByComponentUuidAndMetricIds(dbSession, "P2", asList(NCLOC_METRIC_ID, COVERAGE_METRIC_ID)))
+      .extracting(MeasureHistoryDto::getMetricId)
+      .containsOnly(NCLOC_METRIC_ID);
+    assertThat(underTest.selectByComponentUuidAndMetricIds(dbSession, "P3", singletonList(NCLOC_METRIC_ID))).isEmpty();
+    assertThat(underTest.selectByComponentUuidAndMetricIds(dbSession, "P1", emptyList())).isEmpty();
+  }
+
+  private static List<MeasureHistoryDto.Point> history(Object... datesAndValues) {
+    List<MeasureHistoryDto.Point> history = new ArrayList<>();
+    for (int i = 0; i < datesAndValues.length; i += 2) {
+      long date = (Long) datesAndValues[i];
+      history.add(new MeasureHistoryDto.Point("A" + date, date, (Double) datesAndValues[i + 1]));
+    }
+    return history;
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.measure;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MeasureHistoryDtoTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void encode_and_decode_history() {
+    List<MeasureHistoryDto.Point> history = asList(
+      new MeasureHistoryDto.Point("A1", 1_480_000_000_000L, 120d),
+      new MeasureHistoryDto.Point("A2", 1_480_000_500_000L, 125d),
+      new MeasureHistoryDto.Point("A3", 1_490_000_000_000L, 0.123456789d),
+      new MeasureHistoryDto.Point("A4", 1_490_000_000_001L, -3.5d),
+      new MeasureHistoryDto.Point("A5", 1_500_000_000_000L, Double.MAX_VALUE));
+
+    assertThat(MeasureHistoryDto.decodeHistory(MeasureHistoryDto.encodeHistory(history))).isEqualTo(history);
+  }
+
+  @Test
+  public void analyses_with_same_date_are_kept() {
+    MeasureHistoryDto.Point point1 = new MeasureHistoryDto.Point("A1", 1_480_000_000_000L, 120d);
+    MeasureHistoryDto.Point point2 = new MeasureHistoryDto.Point("A2", 1_480_000_000_000L, 125d);
+
+    assertThat(MeasureHistoryDto.decodeHistory(MeasureHistoryDto.encodeHistory(asList(point2, point1)))).containsExactly(point1, point2);
+  }
+
+  @Test
+  public void points_are_ordered_by_date() {
+    MeasureHistoryDto.Point point1 = new MeasureHistoryDto.Point("B", 1_000L, 1d);
+    MeasureHistoryDto.Point point2 = new MeasureHistoryDto.Point("A", 2_000L, 2d);
+
+    assertThat(MeasureHistoryDto.decodeHistory(MeasureHistoryDto.encodeHistory(asList(point2, point1)))).containsExactly(point1, point2);
+  }
+
+  @Test
+  public void encode_and_decode_empty_history() {
+    assertThat(MeasureHistoryDto.decodeHistory(MeasureHistoryDto.encodeHistory(emptyList()))).isEmpty();
+  }
+
+  @Test
+  public void stable_series_use_a_few_bytes_per_point() {
+    List<MeasureHistoryDto.Point> history = new ArrayList<>();
+    for (int i = 0; i < 1_000; i++) {
+      history.add(new MeasureHistoryDto.Point("AVrqSsDSBT1Y3Z-oP9sQ" + i, 1_480_000_000_000L + i * 86_400_000L, 1_000d + (i % 10)));
+    }
+
+    // UUIDs of analyses take up to 24 bytes per point
+    assertThat(MeasureHistoryDto.encodeHistory(history).length).isLessThan(1_000 * (24 + 8));
+  }
+
+  @Test
+  public void getHistory_decodes_data_set_by_setHistory() {
+    List<MeasureHistoryDto.Point> history = singletonList(new MeasureHistoryDto.Point("A1", 1_000L, 2d));
+
+    MeasureHistoryDto dto = new MeasureHistoryDto().setHistory(history);
+
+    assertThat(dto.getHistory()).isEqualTo(history);
+    assertThat(dto.getHistoryData()).isEqualTo(MeasureHistoryDto.encodeHistory(history));
+  }
+
+  @Test
+  public void fail_to_decode_unsupported_format() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Unsupported format of measure history: 2");
+
+    MeasureHistoryDto.decodeHistory(new byte[] {2, 0});
+  }
+
+  @Test
+  public void history_is_stored_for_numeric_metrics_only() {
+    assertThat(MeasureHistoryDto.isSupportedValueType("INT")).isTrue();
+    assertThat(MeasureHistoryDto.isSupportedValueType("PERCENT")).isTrue();
+    assertThat(MeasureHistoryDto.isSupportedValueType("RATING")).isTrue();
+    assertThat(MeasureHistoryDto.isSupportedValueType("DATA")).isFalse();
+    assertThat(MeasureHistoryDto.isSupportedValueType("LEVEL")).isFalse();
+  }
+
+  @Test
+  public void history_value_of_metrics_on_new_code_is_the_variation() {
+    MeasureDto measure = new MeasureDto().setValue(10d).setVariation(3d);
+
+    assertThat(MeasureHistoryDto.historyValueOf("ncloc", measure)).isEqualTo(10d);
+    assertThat(MeasureHistoryDto.historyValueOf("new_violations", measure)).isEqualTo(3d);
+    assertThat(MeasureHistoryDto.setHistoryValue("ncloc", new MeasureDto(), 5d).getValue()).isEqualTo(5d);
+    assertThat(MeasureHistoryDto.setHistoryValue("new_violations", new MeasureDto(), 5d).getVariation()).isEqualTo(5d);
+  }
+}
@@ -77,6 +77,7 @@ public class ProjectMeasuresIndexerIteratorTest {
     ProjectMeasures doc = docsById.get(project.uuid());
     assertThat(doc).isNotNull();
     assertThat(doc.getProject().getUuid()).isEqualTo(project.uuid());
+    assertThat(doc.getProject().getOrganizationKey()).isEqualTo(dbTester.getDefaultOrganization().getKey());
     assertThat(doc.getProject().getKey()).isEqualTo("Project-Key");
     assertThat(doc.getProject().getName()).isEqualTo("Project Name");
     assertThat(doc.getProject().getTags()).containsExactly("platform", "java");
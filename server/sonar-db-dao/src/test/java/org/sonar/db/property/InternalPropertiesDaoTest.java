@@ -74,6 +74,14 @@ public class InternalPropertiesDaoTest {
     underTest.save(dbSession, EMPTY_STRING, VALUE_SMALL);
   }
 
+  @Test
+  public void save_throws_IAE_if_key_is_longer_than_20_characters() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("key length (21) is longer than the maximum authorized (20)");
+
+    underTest.save(dbSession, "rules.abcdefghijklmno", VALUE_SMALL);
+  }
+
   @Test
   public void save_throws_IAE_if_value_is_null() {
     expectValueNullOrEmptyIAE();
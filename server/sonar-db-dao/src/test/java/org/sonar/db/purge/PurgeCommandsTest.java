@@ -23,11 +23,15 @@ import java.util.List;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.utils.System2;
+import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 
 public class PurgeCommandsTest {
@@ -116,6 +120,27 @@ public class PurgeCommandsTest {
     // The goal of this test is only to check that the query do no fail, not to check result
   }
 
+  @Test
+  public void throttler_is_called_after_each_committed_chunk() {
+    List<String> committedChunks = newArrayList();
+
+    new PurgeCommands(dbTester.getSession(), profiler, committedChunks::add).deleteAnalyses(getHugeNumberOfIdUuidPairs());
+
+    // 4500 analyses are deleted by chunks of 1000
+    assertThat(committedChunks.stream().filter("deleteAnalyses (snapshots)"::equals)).hasSize(5);
+    assertThat(committedChunks.stream().filter("deleteAnalyses (project_measures)"::equals)).hasSize(5);
+  }
+
+  @Test
+  public void steps_are_committed_at_once_if_no_throttler() {
+    DbSession session = mock(DbSession.class);
+
+    new PurgeCommands(session, mock(PurgeMapper.class), profiler, PurgeThrottler.NONE).deleteAnalyses(getHugeNumberOfIdUuidPairs());
+
+    // duplications, events, measures and snapshots
+    verify(session, times(4)).commit();
+  }
+
   private List<IdUuidPair> getHugeNumberOfIdUuids() {
     List<IdUuidPair> hugeNbOfSnapshotIds = newArrayList();
     for (long i = 0; i < 4500; i++) {
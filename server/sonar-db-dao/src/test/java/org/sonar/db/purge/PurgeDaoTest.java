@@ -39,7 +39,9 @@ import org.sonar.db.ce.CeQueueDto;
 import org.sonar.db.ce.CeQueueDto.Status;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
+import org.sonar.db.measure.MeasureHistoryDto;
 
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -243,6 +245,17 @@ public class PurgeDaoTest {
     assertThat(selectAllDeliveryUuids(dbTester, dbSession)).containsOnly("D2");
   }
 
+  @Test
+  public void deleteProject_deletes_measure_history() {
+    dbClient.measureHistoryDao().insert(dbSession, new MeasureHistoryDto().setComponentUuid("P1").setMetricId(1).setHistory(Collections.emptyList()).setUpdatedAt(1_000L));
+    dbClient.measureHistoryDao().insert(dbSession, new MeasureHistoryDto().setComponentUuid("P2").setMetricId(1).setHistory(Collections.emptyList()).setUpdatedAt(1_000L));
+
+    underTest.deleteProject(dbSession, "P1");
+
+    assertThat(dbClient.measureHistoryDao().selectByComponentUuidAndMetricIds(dbSession, "P1", singletonList(1))).isEmpty();
+    assertThat(dbClient.measureHistoryDao().selectByComponentUuidAndMetricIds(dbSession, "P2", singletonList(1))).hasSize(1);
+  }
+
   private CeQueueDto createCeQueue(ComponentDto component, Status status) {
     CeQueueDto queueDto = new CeQueueDto();
     queueDto.setUuid(Uuids.create());
@@ -71,15 +71,69 @@ public class FileSourceDtoTest {
     underTest.getSourceData();
   }
 
+  @Test
+  public void encode_and_decode_source_data() {
+    DbFileSources.Data data = createData(450);
+
+    FileSourceDto underTest = new FileSourceDto().setSourceData(data);
+
+    assertThat(underTest.getSourceData()).isEqualTo(data);
+  }
+
+  @Test
+  public void encode_and_decode_empty_source_data() {
+    DbFileSources.Data data = DbFileSources.Data.newBuilder().build();
+
+    FileSourceDto underTest = new FileSourceDto().setSourceData(data);
+
+    assertThat(underTest.getSourceData()).isEqualTo(data);
+    assertThat(underTest.getSourceData(1, 10).getLinesCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void getSourceData_of_range_decodes_only_the_chunks_containing_the_range() {
+    FileSourceDto underTest = new FileSourceDto().setSourceData(createData(1_000));
+
+    assertThat(lineNumbers(underTest.getSourceData(1, 1))).containsExactly(1, FileSourceDto.LINES_PER_CHUNK);
+    assertThat(lineNumbers(underTest.getSourceData(250, 260))).containsExactly(201, 400);
+    assertThat(lineNumbers(underTest.getSourceData(399, 401))).containsExactly(201, 600);
+    assertThat(lineNumbers(underTest.getSourceData(950, 2_000))).containsExactly(801, 1_000);
+    assertThat(underTest.getSourceData(1_001, 2_000).getLinesCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void getSourceData_of_range_returns_all_lines_of_data_stored_in_former_format() {
+    DbFileSources.Data data = createData(1_000);
+    FileSourceDto underTest = new FileSourceDto().setBinaryData(FileSourceDto.encodeRegularSourceData(data));
+
+    assertThat(underTest.getSourceData()).isEqualTo(data);
+    assertThat(underTest.getSourceData(399, 401)).isEqualTo(data);
+  }
+
   @Test
   public void getSourceData_reads_Data_object_bigger_than_default_size_limit() {
     DbFileSources.Data build = createOver64MBDataStructure();
-    byte[] bytes = FileSourceDto.encodeSourceData(build);
+    byte[] bytes = FileSourceDto.encodeRegularSourceData(build);
 
     DbFileSources.Data data = new FileSourceDto().decodeSourceData(bytes);
     assertThat(data.getLinesCount()).isEqualTo(build.getLinesCount());
   }
 
+  private static DbFileSources.Data createData(int numberOfLines) {
+    DbFileSources.Data.Builder dataBuilder = DbFileSources.Data.newBuilder();
+    for (int i = 1; i <= numberOfLines; i++) {
+      dataBuilder.addLinesBuilder().setLine(i).setSource("line " + i);
+    }
+    return dataBuilder.build();
+  }
+
+  /**
+   * First and last line numbers of the decoded data
+   */
+  private static int[] lineNumbers(DbFileSources.Data data) {
+    return new int[] {data.getLines(0).getLine(), data.getLines(data.getLinesCount() - 1).getLine()};
+  }
+
   private static DbFileSources.Data createOver64MBDataStructure() {
     DbFileSources.Data.Builder dataBuilder = DbFileSources.Data.newBuilder();
     DbFileSources.Line.Builder lineBuilder = DbFileSources.Line.newBuilder();
@@ -79,6 +79,14 @@ public abstract class DataChange implements MigrationStep {
     public MassUpdate prepareMassUpdate() throws SQLException {
       return new MassUpdate(db, readConnection, writeConnection);
     }
+
+    /**
+     * @param progressKey unique identifier of the step, used to resume processing if migration failed
+     * @see PartitionedMassUpdate
+     */
+    public PartitionedMassUpdate preparePartitionedMassUpdate(String progressKey) {
+      return new PartitionedMassUpdate(db, progressKey);
+    }
   }
 
 }
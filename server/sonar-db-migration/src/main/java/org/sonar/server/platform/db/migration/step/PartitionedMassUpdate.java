@@ -0,0 +1,349 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.db.migration.step;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.CheckForNull;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.util.ProgressLogger;
+import org.sonar.db.Database;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Variant of {@link MassUpdate} for very large tables. The range of keys (usually the technical id) is split into
+ * partitions which are processed concurrently, each on its own pair of read and write connections.
+ * <p>
+ * Each partition is processed by chunks of {@link #chunkSize(long)} keys. Updates of a chunk are committed together with
+ * the progress of its partition, which is recorded in table INTERNAL_PROPERTIES (one row for the number of partitions,
+ * one row per partition, all keyed by a hash of the progress key). If the migration fails, the next
+ * execution resumes the step from the last committed chunk of each partition. Consequently the handler must be
+ * idempotent, as the rows of a non-committed chunk may be processed again.
+ * <p>
+ * The SELECT request must have exactly two parameters, which are the lower and upper bounds (both included) of the
+ * keys of the chunk. For example {@code select id, kee from issues where id >= ? and id <= ?}.
+ * <p>
+ * Table INTERNAL_PROPERTIES must exist, so this class can be used only by steps of versions 6.1+.
+ */
+public class PartitionedMassUpdate {
+
+  private static final Logger LOG = Loggers.get(PartitionedMassUpdate.class);
+  // keys of INTERNAL_PROPERTIES are limited to 20 characters
+  private static final String PROGRESS_KEY_PREFIX = "mu";
+  private static final int PROGRESS_KEY_HASH_LENGTH = 18;
+
+  private final Database db;
+  private final String progressKey;
+  private final System2 system2;
+  private final AtomicLong counter = new AtomicLong(0L);
+  private final ProgressLogger progress = ProgressLogger.create(getClass(), counter);
+
+  private String selectSql;
+  private String updateSql;
+  private int workers = 4;
+  private long chunkSize = 10_000L;
+
+  public PartitionedMassUpdate(Database db, String progressKey) {
+    this(db, progressKey, System2.INSTANCE);
+  }
+
+  PartitionedMassUpdate(Database db, String progressKey, System2 system2) {
+    checkArgument(!progressKey.isEmpty(), "Progress key must not be empty");
+    this.db = db;
+    this.progressKey = progressKey;
+    this.system2 = system2;
+  }
+
+  public PartitionedMassUpdate select(String sql) {
+    this.selectSql = sql;
+    return this;
+  }
+
+  public PartitionedMassUpdate update(String sql) {
+    this.updateSql = sql;
+    return this;
+  }
+
+  /**
+   * Number of partitions processed concurrently. Default is 4.
+   */
+  public PartitionedMassUpdate workers(int i) {
+    checkArgument(i > 0, "Number of workers must be positive: %s", i);
+    this.workers = i;
+    return this;
+  }
+
+  /**
+   * Number of keys processed between two commits. Default is 10'000.
+   */
+  public PartitionedMassUpdate chunkSize(long l) {
+    checkArgument(l > 0L, "Chunk size must be positive: %s", l);
+    this.chunkSize = l;
+    return this;
+  }
+
+  public PartitionedMassUpdate rowPluralName(String s) {
+    this.progress.setPluralLabel(s);
+    return this;
+  }
+
+  /**
+   * @param minKey lowest key of the rows to be processed, included
+   * @param maxKey highest key of the rows to be processed, included
+   */
+  public void execute(long minKey, long maxKey, MassUpdate.Handler handler) throws SQLException {
+    checkState(selectSql != null && updateSql != null, "SELECT or UPDATE requests are not defined");
+
+    List<Partition> partitions = loadPartitions();
+    if (partitions.isEmpty()) {
+      partitions = createPartitions(minKey, maxKey);
+    } else {
+      LOG.info("Resume processing of {} partitions", partitions.size());
+    }
+    if (partitions.isEmpty()) {
+      return;
+    }
+
+    progress.start();
+    ExecutorService executorService = Executors.newFixedThreadPool(partitions.size(),
+      new ThreadFactoryBuilder().setNameFormat("MassUpdate-" + progressKey + "-%d").build());
+    try {
+      List<Future<Void>> tasks = new ArrayList<>();
+      for (Partition partition : partitions) {
+        tasks.add(executorService.submit(() -> {
+          process(partition, handler);
+          return null;
+        }));
+      }
+      waitFor(tasks);
+      deleteProgress(partitions.size());
+
+      // log the total number of processed rows
+      progress.log();
+    } finally {
+      executorService.shutdownNow();
+      progress.stop();
+    }
+  }
+
+  private List<Partition> createPartitions(long minKey, long maxKey) throws SQLException {
+    List<Partition> partitions = new ArrayList<>();
+    if (minKey > maxKey) {
+      return partitions;
+    }
+    long partitionSize = Math.max(1L, (maxKey - minKey) / workers + 1L);
+    long from = minKey;
+    int index = 0;
+    while (from <= maxKey) {
+      long to = Math.min(maxKey, from + partitionSize - 1L);
+      partitions.add(new Partition(index, from, to, from));
+      from = to + 1L;
+      index++;
+    }
+    try (Connection connection = createWriteConnection()) {
+      saveProperty(connection, partitionsKey(), String.valueOf(partitions.size()));
+      for (Partition partition : partitions) {
+        saveProgress(connection, partition, partition.from);
+      }
+      connection.commit();
+    }
+    return partitions;
+  }
+
+  private void process(Partition partition, MassUpdate.Handler handler) throws SQLException {
+    try (Connection readConnection = createReadUncommittedConnection();
+      Connection writeConnection = createWriteConnection()) {
+      UpsertImpl update = UpsertImpl.create(writeConnection, updateSql);
+      try {
+        long chunkStart = partition.next;
+        while (chunkStart <= partition.to) {
+          long chunkEnd = Math.min(partition.to, chunkStart + chunkSize - 1L);
+          long batchCountBeforeChunk = update.getBatchCount();
+          Select select = SelectImpl.create(db, readConnection, selectSql)
+            .setLong(1, chunkStart)
+            .setLong(2, chunkEnd);
+          select.scroll(row -> {
+            if (handler.handle(row, update)) {
+              // committed below, together with progress
+              update.addBatchWithoutCommit();
+            }
+            counter.getAndIncrement();
+          });
+          if (update.getBatchCount() > batchCountBeforeChunk) {
+            update.execute();
+          }
+          saveProgress(writeConnection, partition, chunkEnd + 1L);
+          writeConnection.commit();
+          chunkStart = chunkEnd + 1L;
+        }
+      } finally {
+        update.close();
+      }
+    }
+  }
+
+  private List<Partition> loadPartitions() throws SQLException {
+    List<Partition> partitions = new ArrayList<>();
+    try (Connection connection = createReadUncommittedConnection()) {
+      String count = loadProperty(connection, partitionsKey());
+      if (count == null) {
+        return partitions;
+      }
+      for (int index = 0; index < Integer.parseInt(count); index++) {
+        String key = partitionKey(index);
+        String value = loadProperty(connection, key);
+        checkState(value != null, "Progress of partition %s of mass update %s is missing", index, progressKey);
+        partitions.add(Partition.parse(index, key, value));
+      }
+    }
+    return partitions;
+  }
+
+  @CheckForNull
+  private String loadProperty(Connection connection, String key) throws SQLException {
+    return SelectImpl.create(db, connection, "select text_value from internal_properties where kee=?")
+      .setString(1, key)
+      .get(row -> row.getString(1));
+  }
+
+  private void saveProgress(Connection connection, Partition partition, long next) throws SQLException {
+    saveProperty(connection, partitionKey(partition.index), partition.from + "," + partition.to + "," + next);
+  }
+
+  private void saveProperty(Connection connection, String key, String value) throws SQLException {
+    deleteProperty(connection, key);
+    UpsertImpl.create(connection, "insert into internal_properties (kee, is_empty, text_value, created_at) values (?, ?, ?, ?)")
+      .setString(1, key)
+      .setBoolean(2, false)
+      .setString(3, value)
+      .setLong(4, system2.now())
+      .execute()
+      .close();
+  }
+
+  private static void deleteProperty(Connection connection, String key) throws SQLException {
+    UpsertImpl.create(connection, "delete from internal_properties where kee=?")
+      .setString(1, key)
+      .execute()
+      .close();
+  }
+
+  private void deleteProgress(int partitions) throws SQLException {
+    try (Connection connection = createWriteConnection()) {
+      for (int index = 0; index < partitions; index++) {
+        deleteProperty(connection, partitionKey(index));
+      }
+      deleteProperty(connection, partitionsKey());
+      connection.commit();
+    }
+  }
+
+  private String partitionsKey() {
+    return partitionsKey(progressKey);
+  }
+
+  private String partitionKey(int index) {
+    return partitionKey(progressKey, index);
+  }
+
+  /**
+   * Key of the property storing the number of partitions
+   */
+  @VisibleForTesting
+  static String partitionsKey(String progressKey) {
+    return hashKey(progressKey);
+  }
+
+  @VisibleForTesting
+  static String partitionKey(String progressKey, int index) {
+    return hashKey(progressKey + "#" + index);
+  }
+
+  private static String hashKey(String s) {
+    return PROGRESS_KEY_PREFIX + Hashing.sha1().hashString(s, UTF_8).toString().substring(0, PROGRESS_KEY_HASH_LENGTH);
+  }
+
+  private static void waitFor(List<Future<Void>> tasks) throws SQLException {
+    for (Future<Void> task : tasks) {
+      try {
+        task.get();
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof SQLException) {
+          throw (SQLException) cause;
+        }
+        throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  private Connection createReadUncommittedConnection() throws SQLException {
+    Connection connection = db.getDataSource().getConnection();
+    connection.setAutoCommit(false);
+    if (connection.getMetaData().supportsTransactionIsolationLevel(Connection.TRANSACTION_READ_UNCOMMITTED)) {
+      connection.setTransactionIsolation(Connection.TRANSACTION_READ_UNCOMMITTED);
+    }
+    return connection;
+  }
+
+  private Connection createWriteConnection() throws SQLException {
+    Connection connection = db.getDataSource().getConnection();
+    connection.setAutoCommit(false);
+    return connection;
+  }
+
+  private static class Partition {
+    private final int index;
+    private final long from;
+    private final long to;
+    private final long next;
+
+    private Partition(int index, long from, long to, long next) {
+      this.index = index;
+      this.from = from;
+      this.to = to;
+      this.next = next;
+    }
+
+    private static Partition parse(int index, String key, String value) {
+      String[] bounds = value.split(",");
+      checkState(bounds.length == 3, "Invalid progress of mass update %s: %s", key, value);
+      return new Partition(index, Long.parseLong(bounds[0]), Long.parseLong(bounds[1]), Long.parseLong(bounds[2]));
+    }
+  }
+}
@@ -35,12 +35,23 @@ public class UpsertImpl extends BaseSqlStatement<Upsert> implements Upsert {
 
   @Override
   public Upsert addBatch() throws SQLException {
+    addBatchWithoutCommit();
+    if (batchCount % MAX_BATCH_SIZE == 0L) {
+      pstmt.getConnection().commit();
+    }
+    return this;
+  }
+
+  /**
+   * Same as {@link #addBatch()}, except that the executed batches are not committed. The caller
+   * is responsible for committing the connection.
+   */
+  public Upsert addBatchWithoutCommit() throws SQLException {
     pstmt.addBatch();
     pstmt.clearParameters();
     batchCount++;
     if (batchCount % MAX_BATCH_SIZE == 0L) {
       pstmt.executeBatch();
-      pstmt.getConnection().commit();
     }
     return this;
   }
@@ -33,6 +33,8 @@ public class DbVersion64 implements DbVersion {
       .add(1603, "Set RULES_PROFILES.ORGANIZATION_UUID to default", SetQualityProfileOrganizationUuidToDefault.class)
       .add(1604, "Make RULES_PROFILES.ORGANIZATION_UUID not nullable", MakeQualityProfileOrganizationUuidNotNullable.class)
       .add(1605, "Drop unique index on RULES_PROFILES.KEE", DropUniqueIndexOnQualityProfileKey.class)
-      .add(1606, "Make RULES_PROFILES.ORGANIZATION_UUID and KEE unique", MakeQualityProfileOrganizationUuidAndKeyUnique.class);
+      .add(1606, "Make RULES_PROFILES.ORGANIZATION_UUID and KEE unique", MakeQualityProfileOrganizationUuidAndKeyUnique.class)
+      .add(1607, "Add CE_ACTIVITY.EXECUTION_PROFILE", AddExecutionProfileToCeActivity.class)
+      .add(1608, "Create table MEASURE_HISTORY", CreateTableMeasureHistory.class);
   }
 }
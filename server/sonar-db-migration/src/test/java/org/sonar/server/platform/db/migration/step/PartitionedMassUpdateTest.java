@@ -0,0 +1,181 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.db.migration.step;
+
+import java.sql.SQLException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.db.CoreDbTester;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PartitionedMassUpdateTest {
+
+  private static final String SELECT_SQL = "select id from persons where id >= ? and id <= ?";
+  private static final String UPDATE_SQL = "update persons set login=? where id=?";
+
+  @Rule
+  public CoreDbTester db = CoreDbTester.createForSchema(PartitionedMassUpdateTest.class, "schema.sql");
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private TestSystem2 system2 = new TestSystem2().setNow(1_500_000_000L);
+
+  @Test
+  public void update_rows_of_all_partitions() throws Exception {
+    insertPersons(50);
+
+    newMassUpdate().workers(3).chunkSize(4L).execute(1L, 50L, PartitionedMassUpdateTest::setLogin);
+
+    assertThat(db.countSql("select count(id) from persons where login is null")).isEqualTo(0);
+    assertThat(db.selectFirst("select login as \"LOGIN\" from persons where id=37").get("LOGIN")).isEqualTo("login_37");
+    assertThat(db.countRowsOfTable("internal_properties")).isEqualTo(0);
+  }
+
+  @Test
+  public void do_nothing_if_key_range_is_empty() throws Exception {
+    newMassUpdate().execute(1L, 0L, PartitionedMassUpdateTest::setLogin);
+
+    assertThat(db.countRowsOfTable("internal_properties")).isEqualTo(0);
+  }
+
+  @Test
+  public void record_progress_of_partitions_when_processing_fails() throws Exception {
+    insertPersons(20);
+
+    try {
+      newMassUpdate().workers(2).chunkSize(5L).execute(1L, 20L, (row, update) -> {
+        if (row.getLong(1) == 13L) {
+          throw new IllegalStateException("failure");
+        }
+        return setLogin(row, update);
+      });
+    } catch (IllegalStateException e) {
+      // expected
+    }
+
+    assertThat(db.countRowsOfTable("internal_properties")).isEqualTo(3);
+    assertThat(selectProperty(PartitionedMassUpdate.partitionsKey("test"))).isEqualTo("2");
+    assertThat(selectProperty(PartitionedMassUpdate.partitionKey("test", 0))).isEqualTo("1,10,11");
+    assertThat(selectProperty(PartitionedMassUpdate.partitionKey("test", 1))).isEqualTo("11,20,11");
+  }
+
+  @Test
+  public void updates_of_chunk_are_not_committed_when_processing_fails() throws Exception {
+    // more rows than the size of JDBC batches
+    insertPersons(600);
+
+    try {
+      newMassUpdate().workers(1).chunkSize(600L).execute(1L, 600L, (row, update) -> {
+        if (row.getLong(1) == 550L) {
+          throw new IllegalStateException("failure");
+        }
+        return setLogin(row, update);
+      });
+    } catch (IllegalStateException e) {
+      // expected
+    }
+
+    assertThat(db.countSql("select count(id) from persons where login is not null")).isEqualTo(0);
+    assertThat(selectProperty(PartitionedMassUpdate.partitionKey("test", 0))).isEqualTo("1,600,1");
+  }
+
+  @Test
+  public void resume_from_recorded_progress() throws Exception {
+    insertPersons(20);
+    insertProperty(PartitionedMassUpdate.partitionsKey("test"), "2");
+    insertProperty(PartitionedMassUpdate.partitionKey("test", 0), "1,10,11");
+    insertProperty(PartitionedMassUpdate.partitionKey("test", 1), "11,20,16");
+
+    // bounds are ignored as partitions are loaded from progress
+    newMassUpdate().execute(1L, 1000L, PartitionedMassUpdateTest::setLogin);
+
+    assertThat(db.countSql("select count(id) from persons where login is not null")).isEqualTo(5);
+    assertThat(db.countSql("select count(id) from persons where login is not null and id >= 16")).isEqualTo(5);
+    assertThat(db.countRowsOfTable("internal_properties")).isEqualTo(0);
+  }
+
+  @Test
+  public void ignore_progress_of_other_mass_updates() throws Exception {
+    insertPersons(20);
+    insertProperty(PartitionedMassUpdate.partitionsKey("test.other"), "1");
+    insertProperty(PartitionedMassUpdate.partitionKey("test.other", 0), "1,20,16");
+
+    newMassUpdate().execute(1L, 20L, PartitionedMassUpdateTest::setLogin);
+
+    assertThat(db.countSql("select count(id) from persons where login is not null")).isEqualTo(20);
+    assertThat(db.countRowsOfTable("internal_properties")).isEqualTo(2);
+  }
+
+  @Test
+  public void progress_keys_fit_in_column_of_internal_properties() {
+    String longKey = "a_progress_key_which_is_longer_than_20_characters";
+
+    assertThat(PartitionedMassUpdate.partitionsKey(longKey)).hasSize(20);
+    assertThat(PartitionedMassUpdate.partitionKey(longKey, 123)).hasSize(20)
+      .isNotEqualTo(PartitionedMassUpdate.partitionKey(longKey, 12));
+  }
+
+  @Test
+  public void fail_if_progress_key_is_empty() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Progress key must not be empty");
+
+    new PartitionedMassUpdate(db.database(), "");
+  }
+
+  @Test
+  public void fail_if_requests_are_not_defined() throws Exception {
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("SELECT or UPDATE requests are not defined");
+
+    new PartitionedMassUpdate(db.database(), "test").execute(1L, 10L, PartitionedMassUpdateTest::setLogin);
+  }
+
+  private PartitionedMassUpdate newMassUpdate() {
+    return new PartitionedMassUpdate(db.database(), "test", system2)
+      .select(SELECT_SQL)
+      .update(UPDATE_SQL)
+      .rowPluralName("persons");
+  }
+
+  private static boolean setLogin(Select.Row row, SqlStatement update) throws SQLException {
+    long id = row.getLong(1);
+    update.setString(1, "login_" + id);
+    update.setLong(2, id);
+    return true;
+  }
+
+  private String selectProperty(String key) {
+    return (String) db.selectFirst("select text_value as \"VALUE\" from internal_properties where kee='" + key + "'").get("VALUE");
+  }
+
+  private void insertProperty(String key, String value) {
+    db.executeInsert("internal_properties", "KEE", key, "IS_EMPTY", false, "TEXT_VALUE", value, "CREATED_AT", 1L);
+  }
+
+  private void insertPersons(int count) {
+    for (int i = 1; i <= count; i++) {
+      db.executeInsert("persons", "ID", i, "AGE", i);
+    }
+  }
+}
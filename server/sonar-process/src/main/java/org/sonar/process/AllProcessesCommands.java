@@ -60,6 +60,9 @@ import static org.sonar.process.ProcessCommands.MAX_PROCESSES;
  *   <li>Fourth byte will always contain {@link #EMPTY} unless process declares that it is operational by writing {@link #OPERATIONAL}.
  *       This does not imply that is done starting.</li>
  *   <li>The next 8 bytes contains a long (value of {@link System#currentTimeMillis()}) which represents the date of the last ping</li>
+ *   <li>The next {@link #SYSTEM_INFO_URL_SIZE_IN_BYTES} bytes contains the URL of the System Info web service of the process</li>
+ *   <li>The next {@link #MAX_METRICS} groups of 8 bytes contains the values of {@link ProcessMetric}, each one being
+ *       written by the process itself and read by any other process</li>
  * </ul>
  * </p>
  */
@@ -72,8 +75,12 @@ public class AllProcessesCommands implements AutoCloseable {
   private static final int SYSTEM_INFO_URL_BYTE_OFFSET = PING_BYTE_OFFSET + 8;
 
   private static final int SYSTEM_INFO_URL_SIZE_IN_BYTES = 500;
+  private static final int METRICS_BYTE_OFFSET = SYSTEM_INFO_URL_BYTE_OFFSET + SYSTEM_INFO_URL_SIZE_IN_BYTES;
 
-  private static final int BYTE_LENGTH_FOR_ONE_PROCESS = 1 + 1 + 1 + 1 + 8 + SYSTEM_INFO_URL_SIZE_IN_BYTES;
+  // VisibleForTesting
+  static final int MAX_METRICS = 16;
+
+  private static final int BYTE_LENGTH_FOR_ONE_PROCESS = 1 + 1 + 1 + 1 + 8 + SYSTEM_INFO_URL_SIZE_IN_BYTES + 8 * MAX_METRICS;
 
   // With this shared memory we can handle up to MAX_PROCESSES processes
   private static final int MAX_SHARED_MEMORY = BYTE_LENGTH_FOR_ONE_PROCESS * MAX_PROCESSES;
@@ -167,6 +174,21 @@ public class AllProcessesCommands implements AutoCloseable {
     writeBytes(processNumber, SYSTEM_INFO_URL_BYTE_OFFSET, urlBytes);
   }
 
+  /**
+   * Metrics are 8-byte aligned longs written by a single process, so they don't require any lock.
+   */
+  void setMetric(int processNumber, ProcessMetric metric, long value) {
+    writeLong(processNumber, metricOffset(metric), value);
+  }
+
+  long getMetric(int processNumber, ProcessMetric metric) {
+    return readLong(processNumber, metricOffset(metric));
+  }
+
+  private static int metricOffset(ProcessMetric metric) {
+    return METRICS_BYTE_OFFSET + 8 * metric.ordinal();
+  }
+
   /**
    * To be executed by monitor process to ask for child process termination
    */
@@ -292,6 +314,16 @@ public class AllProcessesCommands implements AutoCloseable {
       return AllProcessesCommands.this.getSystemInfoUrl(processNumber);
     }
 
+    @Override
+    public void setMetric(ProcessMetric metric, long value) {
+      AllProcessesCommands.this.setMetric(processNumber, metric, value);
+    }
+
+    @Override
+    public long getMetric(ProcessMetric metric) {
+      return AllProcessesCommands.this.getMetric(processNumber, metric);
+    }
+
     @Override
     public void askForStop() {
       AllProcessesCommands.this.askForStop(processNumber);
@@ -0,0 +1,84 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.process;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * Periodically publishes the memory, garbage collection and thread metrics of the current JVM
+ * into the shared memory. Other processes read them with {@link ProcessCommands#getMetric(ProcessMetric)}.
+ */
+public class JvmMetricsPublisher extends Thread {
+
+  private final ProcessCommands commands;
+  private final long delayMs;
+  private volatile boolean publishing = true;
+
+  public JvmMetricsPublisher(ProcessCommands commands) {
+    this(commands, 1_000L);
+  }
+
+  JvmMetricsPublisher(ProcessCommands commands, long delayMs) {
+    super("JVM Metrics Publisher");
+    this.commands = commands;
+    this.delayMs = delayMs;
+    setDaemon(true);
+  }
+
+  @Override
+  public void run() {
+    while (publishing) {
+      publish();
+      try {
+        Thread.sleep(delayMs);
+      } catch (InterruptedException ignored) {
+        publishing = false;
+        // restore interrupted flag
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  void publish() {
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    commands.setMetric(ProcessMetric.HEAP_USED_BYTES, memory.getHeapMemoryUsage().getUsed());
+    commands.setMetric(ProcessMetric.HEAP_MAX_BYTES, memory.getHeapMemoryUsage().getMax());
+    commands.setMetric(ProcessMetric.NON_HEAP_USED_BYTES, memory.getNonHeapMemoryUsage().getUsed());
+
+    long gcCount = 0L;
+    long gcTime = 0L;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      // -1 if undefined
+      gcCount += Math.max(0L, gc.getCollectionCount());
+      gcTime += Math.max(0L, gc.getCollectionTime());
+    }
+    commands.setMetric(ProcessMetric.GC_COUNT, gcCount);
+    commands.setMetric(ProcessMetric.GC_TIME_MS, gcTime);
+    commands.setMetric(ProcessMetric.THREADS, ManagementFactory.getThreadMXBean().getThreadCount());
+    commands.setMetric(ProcessMetric.UPDATED_AT, System.currentTimeMillis());
+  }
+
+  public void stopPublishing() {
+    publishing = false;
+    interrupt();
+  }
+}
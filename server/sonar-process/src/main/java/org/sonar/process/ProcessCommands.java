@@ -59,6 +59,16 @@ public interface ProcessCommands extends AutoCloseable {
 
   String getHttpUrl();
 
+  /**
+   * To be executed by child process to publish the current value of a metric. It does not wait for any lock.
+   */
+  void setMetric(ProcessMetric metric, long value);
+
+  /**
+   * Last value published by the process, or 0 if never published.
+   */
+  long getMetric(ProcessMetric metric);
+
   /**
    * To be executed by monitor process to ask for child process termination
    */
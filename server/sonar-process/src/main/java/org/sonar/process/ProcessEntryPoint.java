@@ -40,6 +40,7 @@ public class ProcessEntryPoint implements Stoppable {
   private volatile Monitored monitored;
   private volatile StopperThread stopperThread;
   private final StopWatcher stopWatcher;
+  private final JvmMetricsPublisher metricsPublisher;
 
   // new Runnable() is important to avoid conflict of call to ProcessEntryPoint#stop() with Thread#stop()
   private Thread shutdownHook = new Thread(new Runnable() {
@@ -62,6 +63,7 @@ public class ProcessEntryPoint implements Stoppable {
     this.exit = exit;
     this.commands = commands;
     this.stopWatcher = new StopWatcher(commands, this);
+    this.metricsPublisher = new JvmMetricsPublisher(commands);
   }
 
   public ProcessCommands getCommands() {
@@ -107,6 +109,7 @@ public class ProcessEntryPoint implements Stoppable {
     logger.info("Starting " + getKey());
     Runtime.getRuntime().addShutdownHook(shutdownHook);
     stopWatcher.start();
+    metricsPublisher.start();
 
     monitored.start();
     Monitored.Status status = waitForNotDownStatus();
@@ -172,6 +175,7 @@ public class ProcessEntryPoint implements Stoppable {
       stopperThread = new StopperThread(monitored, commands, Long.parseLong(props.nonNullValue(PROPERTY_TERMINATION_TIMEOUT)));
       stopperThread.start();
       stopWatcher.stopWatching();
+      metricsPublisher.stopPublishing();
     }
   }
 
@@ -0,0 +1,42 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.process;
+
+/**
+ * Metrics that a process publishes into the shared memory so that other processes can read them
+ * without any HTTP or JMX call.
+ *
+ * @see ProcessCommands#setMetric(ProcessMetric, long)
+ */
+public enum ProcessMetric {
+  /**
+   * Date, as returned by {@link System#currentTimeMillis()}, of the last publication of metrics
+   */
+  UPDATED_AT,
+  HEAP_USED_BYTES,
+  HEAP_MAX_BYTES,
+  NON_HEAP_USED_BYTES,
+  GC_COUNT,
+  GC_TIME_MS,
+  THREADS;
+
+  // new metrics must be added at the end in order to keep the position of the existing ones
+  // in shared memory, up to AllProcessesCommands#MAX_METRICS
+}
@@ -114,6 +114,28 @@ public class AllProcessesCommandsTest {
     }
   }
 
+  @Test
+  public void write_and_read_metrics() throws IOException {
+    try (AllProcessesCommands commands = new AllProcessesCommands(temp.newFolder())) {
+      int offset = 512;
+      assertThat(commands.getMetric(PROCESS_NUMBER, ProcessMetric.UPDATED_AT)).isEqualTo(0L);
+
+      commands.setMetric(PROCESS_NUMBER, ProcessMetric.UPDATED_AT, 123L);
+      commands.setMetric(PROCESS_NUMBER, ProcessMetric.HEAP_USED_BYTES, 456L);
+      assertThat(commands.getMetric(PROCESS_NUMBER, ProcessMetric.UPDATED_AT)).isEqualTo(123L);
+      assertThat(commands.getMetric(PROCESS_NUMBER, ProcessMetric.HEAP_USED_BYTES)).isEqualTo(456L);
+      assertThat(readLong(commands, offset)).isEqualTo(123L);
+      assertThat(readLong(commands, offset + 8)).isEqualTo(456L);
+      // other processes are not impacted
+      assertThat(commands.getMetric(PROCESS_NUMBER + 1, ProcessMetric.UPDATED_AT)).isEqualTo(0L);
+    }
+  }
+
+  @Test
+  public void all_metrics_fit_in_shared_memory() {
+    assertThat(ProcessMetric.values().length).isLessThanOrEqualTo(AllProcessesCommands.MAX_METRICS);
+  }
+
   @Test
   public void ask_for_stop() throws Exception {
     try (AllProcessesCommands commands = new AllProcessesCommands(temp.newFolder())) {
@@ -0,0 +1,58 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.process;
+
+import org.junit.Test;
+
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.gt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class JvmMetricsPublisherTest {
+
+  private ProcessCommands commands = mock(ProcessCommands.class);
+
+  @Test
+  public void publish_jvm_metrics() {
+    new JvmMetricsPublisher(commands).publish();
+
+    verify(commands).setMetric(eq(ProcessMetric.HEAP_USED_BYTES), gt(0L));
+    verify(commands).setMetric(eq(ProcessMetric.HEAP_MAX_BYTES), anyLong());
+    verify(commands).setMetric(eq(ProcessMetric.NON_HEAP_USED_BYTES), gt(0L));
+    verify(commands).setMetric(eq(ProcessMetric.GC_COUNT), anyLong());
+    verify(commands).setMetric(eq(ProcessMetric.GC_TIME_MS), anyLong());
+    verify(commands).setMetric(eq(ProcessMetric.THREADS), gt(0L));
+    verify(commands).setMetric(eq(ProcessMetric.UPDATED_AT), gt(0L));
+  }
+
+  @Test(timeout = 5000)
+  public void publish_periodically_until_stopped() throws InterruptedException {
+    JvmMetricsPublisher publisher = new JvmMetricsPublisher(commands, 1L);
+    publisher.start();
+
+    verify(commands, timeout(5000).atLeast(2)).setMetric(eq(ProcessMetric.UPDATED_AT), anyLong());
+
+    publisher.stopPublishing();
+    publisher.join();
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.authentication;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.sonar.api.config.Settings;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.System2;
+import org.sonar.db.user.UserDto;
+
+/**
+ * Short-lived cache of the authentication data loaded from database on each request: logins
+ * of user tokens and active users. Only successful lookups are cached, so that unknown tokens or
+ * users are always verified against database.
+ * <p>
+ * Entries expire after {@link #PROPERTY_TTL_IN_SECONDS} seconds, and are invalidated explicitly
+ * when a token is revoked or a user is updated. Setting the TTL to zero disables the cache.
+ * Groups and permissions are not cached, they are still loaded by the user session.
+ */
+@ServerSide
+public class AuthenticationCache {
+
+  public static final String PROPERTY_TTL_IN_SECONDS = "sonar.web.authenticationCache.ttlInSeconds";
+  private static final long DEFAULT_TTL_IN_SECONDS = 60L;
+  private static final long MAX_SIZE = 10_000L;
+
+  private final boolean enabled;
+  private final Cache<String, String> loginsByTokenHash;
+  private final Cache<String, UserDto> activeUsersByLogin;
+
+  public AuthenticationCache(Settings settings, System2 system2) {
+    String ttlProperty = settings.getString(PROPERTY_TTL_IN_SECONDS);
+    long ttlInSeconds = ttlProperty == null ? DEFAULT_TTL_IN_SECONDS : Long.parseLong(ttlProperty);
+    this.enabled = ttlInSeconds > 0L;
+    Ticker ticker = new SystemTicker(system2);
+    this.loginsByTokenHash = CacheBuilder.newBuilder()
+      .maximumSize(MAX_SIZE)
+      .expireAfterWrite(Math.max(ttlInSeconds, 0L), TimeUnit.SECONDS)
+      .ticker(ticker)
+      .build();
+    this.activeUsersByLogin = CacheBuilder.newBuilder()
+      .maximumSize(MAX_SIZE)
+      .expireAfterWrite(Math.max(ttlInSeconds, 0L), TimeUnit.SECONDS)
+      .ticker(ticker)
+      .build();
+  }
+
+  /**
+   * Login of the user owning the token, loaded by {@code loader} if it is not cached.
+   */
+  public Optional<String> getLoginOfToken(String tokenHash, Supplier<Optional<String>> loader) {
+    return get(loginsByTokenHash, tokenHash, loader);
+  }
+
+  /**
+   * Active user, loaded by {@code loader} if it is not cached.
+   */
+  public Optional<UserDto> getActiveUser(String login, Supplier<Optional<UserDto>> loader) {
+    return get(activeUsersByLogin, login, loader);
+  }
+
+  /**
+   * To be called when a token of the user is revoked. Only the hashes of tokens are known,
+   * so all the tokens of the user are evicted.
+   */
+  public void invalidateTokensOf(String login) {
+    loginsByTokenHash.asMap().values().removeIf(login::equals);
+  }
+
+  /**
+   * To be called after any change of the row of the user in table USERS, for example when the user
+   * is deactivated, flagged as root or when its name is updated.
+   */
+  public void invalidateUser(String login) {
+    invalidateTokensOf(login);
+    activeUsersByLogin.invalidate(login);
+  }
+
+  private <V> Optional<V> get(Cache<String, V> cache, String key, Supplier<Optional<V>> loader) {
+    if (!enabled) {
+      return loader.get();
+    }
+    V cached = cache.getIfPresent(key);
+    if (cached != null) {
+      return Optional.of(cached);
+    }
+    Optional<V> loaded = loader.get();
+    loaded.ifPresent(value -> cache.put(key, value));
+    return loaded;
+  }
+
+  private static class SystemTicker extends Ticker {
+    private final System2 system2;
+
+    private SystemTicker(System2 system2) {
+      this.system2 = system2;
+    }
+
+    @Override
+    public long read() {
+      return TimeUnit.MILLISECONDS.toNanos(system2.now());
+    }
+  }
+}
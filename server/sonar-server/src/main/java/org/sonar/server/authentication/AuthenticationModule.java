@@ -31,6 +31,7 @@ public class AuthenticationModule extends Module {
   protected void configureModule() {
     add(
       AuthenticationEventImpl.class,
+      AuthenticationCache.class,
       AuthenticationWs.class,
       InitFilter.class,
       OAuth2CallbackFilter.class,
@@ -46,13 +46,15 @@ public class BasicAuthenticator {
   private final CredentialsAuthenticator credentialsAuthenticator;
   private final UserTokenAuthenticator userTokenAuthenticator;
   private final AuthenticationEvent authenticationEvent;
+  private final AuthenticationCache authenticationCache;
 
   public BasicAuthenticator(DbClient dbClient, CredentialsAuthenticator credentialsAuthenticator,
-    UserTokenAuthenticator userTokenAuthenticator, AuthenticationEvent authenticationEvent) {
+    UserTokenAuthenticator userTokenAuthenticator, AuthenticationEvent authenticationEvent, AuthenticationCache authenticationCache) {
     this.dbClient = dbClient;
     this.credentialsAuthenticator = credentialsAuthenticator;
     this.userTokenAuthenticator = userTokenAuthenticator;
     this.authenticationEvent = authenticationEvent;
+    this.authenticationCache = authenticationCache;
   }
 
   public Optional<UserDto> authenticate(HttpServletRequest request) {
@@ -113,15 +115,17 @@ public class BasicAuthenticator {
         .setMessage("Token doesn't exist")
         .build();
     }
+    String login = authenticatedLogin.get();
+    return authenticationCache.getActiveUser(login, () -> selectActiveUser(login))
+      .orElseThrow(() -> AuthenticationException.newBuilder()
+        .setSource(Source.local(Method.BASIC_TOKEN))
+        .setMessage("User doesn't exist")
+        .build());
+  }
+
+  private Optional<UserDto> selectActiveUser(String login) {
     try (DbSession dbSession = dbClient.openSession(false)) {
-      UserDto userDto = dbClient.userDao().selectActiveUserByLogin(dbSession, authenticatedLogin.get());
-      if (userDto == null) {
-        throw AuthenticationException.newBuilder()
-          .setSource(Source.local(Method.BASIC_TOKEN))
-          .setMessage("User doesn't exist")
-          .build();
-      }
-      return userDto;
+      return Optional.ofNullable(dbClient.userDao().selectActiveUserByLogin(dbSession, login));
     }
   }
 
@@ -69,13 +69,16 @@ public class JwtHttpHandler {
   // This timeout is used to disconnect the user we he has not browse any page for a while
   private final int sessionTimeoutInSeconds;
   private final JwtCsrfVerifier jwtCsrfVerifier;
+  private final AuthenticationCache authenticationCache;
 
-  public JwtHttpHandler(System2 system2, DbClient dbClient, Settings settings, JwtSerializer jwtSerializer, JwtCsrfVerifier jwtCsrfVerifier) {
+  public JwtHttpHandler(System2 system2, DbClient dbClient, Settings settings, JwtSerializer jwtSerializer, JwtCsrfVerifier jwtCsrfVerifier,
+    AuthenticationCache authenticationCache) {
     this.jwtSerializer = jwtSerializer;
     this.dbClient = dbClient;
     this.system2 = system2;
     this.sessionTimeoutInSeconds = getSessionTimeoutInSeconds(settings);
     this.jwtCsrfVerifier = jwtCsrfVerifier;
+    this.authenticationCache = authenticationCache;
   }
 
   public void generateToken(UserDto user, Map<String, Object> properties, HttpServletRequest request, HttpServletResponse response) {
@@ -171,6 +174,10 @@ public class JwtHttpHandler {
   }
 
   private Optional<UserDto> selectUserFromDb(String userLogin) {
+    return authenticationCache.getActiveUser(userLogin, () -> selectActiveUser(userLogin));
+  }
+
+  private Optional<UserDto> selectActiveUser(String userLogin) {
     try (DbSession dbSession = dbClient.openSession(false)) {
       return Optional.ofNullable(dbClient.userDao().selectActiveUserByLogin(dbSession, userLogin));
     }
@@ -19,20 +19,27 @@
  */
 package org.sonar.server.batch;
 
+import com.google.common.net.HttpHeaders;
+import java.security.MessageDigest;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.sonar.api.server.ws.Request;
 import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
 import org.sonar.scanner.protocol.input.FileData;
 import org.sonar.scanner.protocol.input.ProjectRepositories;
+import org.sonar.server.ws.StreamingProtobufWriter;
 import org.sonarqube.ws.WsBatch.WsProjectResponse;
 import org.sonarqube.ws.WsBatch.WsProjectResponse.FileData.Builder;
 
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.sonar.core.util.Protobuf.setNullable;
 import static org.sonar.server.ws.KeyExamples.KEY_PROJECT_EXAMPLE_001;
-import static org.sonar.server.ws.WsUtils.writeProtobuf;
 
 public class ProjectAction implements BatchWsAction {
 
@@ -80,31 +87,66 @@ public class ProjectAction implements BatchWsAction {
       .setProfileName(wsRequest.param(PARAM_PROFILE))
       .setIssuesMode(wsRequest.mandatoryParamAsBoolean(PARAM_ISSUES_MODE)));
 
-    WsProjectResponse projectResponse = buildResponse(data);
-    writeProtobuf(projectResponse, wsRequest, wsResponse);
-  }
+    // scanners keep the previous response in cache and download it again only if it changed
+    String eTag = computeETag(data, wsRequest.getMediaType());
+    wsResponse.setHeader(HttpHeaders.ETAG, eTag);
+    if (wsRequest.header(HttpHeaders.IF_NONE_MATCH).filter(eTag::equals).isPresent()) {
+      wsResponse.stream().setStatus(HTTP_NOT_MODIFIED);
+      return;
+    }
 
-  private static WsProjectResponse buildResponse(ProjectRepositories data) {
-    WsProjectResponse.Builder response = WsProjectResponse.newBuilder();
-    setNullable(data.lastAnalysisDate(), response::setLastAnalysisDate, Date::getTime);
-    response.setTimestamp(data.timestamp());
-    response.getMutableFileDataByModuleAndPath()
-      .putAll(buildFileDataByModuleAndPath(data));
-    response.getMutableSettingsByModule()
-      .putAll(buildSettingsByModule(data));
+    // files of large projects are streamed in order to not load the whole response in memory
+    try (StreamingProtobufWriter writer = StreamingProtobufWriter.create(WsProjectResponse.getDescriptor(), wsRequest, wsResponse)) {
+      WsProjectResponse.Builder response = WsProjectResponse.newBuilder();
+      setNullable(data.lastAnalysisDate(), response::setLastAnalysisDate, Date::getTime);
+      response.setTimestamp(data.timestamp());
+      writer.writeFields(response.build());
+
+      writer.beginRepeated(WsProjectResponse.FILEDATABYMODULEANDPATH_FIELD_NUMBER);
+      for (Map.Entry<String, Map<String, FileData>> moduleAndFileDataByPathEntry : data.fileDataByModuleAndPath().entrySet()) {
+        writer.writeMapEntry(moduleAndFileDataByPathEntry.getKey(), buildFileDataByPath(moduleAndFileDataByPathEntry.getValue()));
+      }
+      writer.endRepeated();
+
+      writer.beginRepeated(WsProjectResponse.SETTINGSBYMODULE_FIELD_NUMBER);
+      for (Map.Entry<String, Map<String, String>> moduleSettingsEntry : data.settings().entrySet()) {
+        writer.writeMapEntry(moduleSettingsEntry.getKey(), toSettingsResponse(moduleSettingsEntry.getValue()));
+      }
+      writer.endRepeated();
+    }
+  }
 
-    return response.build();
+  /**
+   * The timestamp and the last analysis date of response are ignored, as they change on each call. The last
+   * analysis date is only used by scanners to know whether the project has already been analyzed.
+   */
+  private static String computeETag(ProjectRepositories data, String mediaType) {
+    MessageDigest digest = DigestUtils.getSha1Digest();
+    update(digest, mediaType);
+    new TreeMap<>(data.fileDataByModuleAndPath()).forEach((moduleKey, fileDataByPath) -> {
+      update(digest, moduleKey);
+      new TreeMap<>(fileDataByPath).forEach((path, fileData) -> {
+        update(digest, path);
+        update(digest, fileData.hash());
+        update(digest, fileData.revision());
+      });
+    });
+    new TreeMap<>(data.settings()).forEach((moduleKey, settings) -> {
+      update(digest, moduleKey);
+      new TreeMap<>(settings).forEach((key, value) -> {
+        update(digest, key);
+        update(digest, value);
+      });
+    });
+    return "\"" + Hex.encodeHexString(digest.digest()) + "\"";
   }
 
-  private static Map<String, WsProjectResponse.FileDataByPath> buildFileDataByModuleAndPath(ProjectRepositories data) {
-    Map<String, WsProjectResponse.FileDataByPath> fileDataByModuleAndPathResponse = new HashMap<>();
-    for (Map.Entry<String, Map<String, FileData>> moduleAndFileDataByPathEntry : data.fileDataByModuleAndPath().entrySet()) {
-      fileDataByModuleAndPathResponse.put(
-        moduleAndFileDataByPathEntry.getKey(),
-        buildFileDataByPath(moduleAndFileDataByPathEntry.getValue()));
+  private static void update(MessageDigest digest, @Nullable String s) {
+    if (s != null) {
+      digest.update(s.getBytes(UTF_8));
     }
-
-    return fileDataByModuleAndPathResponse;
+    // separator, so that ("ab", "c") and ("a", "bc") have different digests
+    digest.update((byte) 0);
   }
 
   private static WsProjectResponse.FileDataByPath buildFileDataByPath(Map<String, FileData> fileDataByPath) {
@@ -120,18 +162,6 @@ public class ProjectAction implements BatchWsAction {
     return response.build();
   }
 
-  private static Map<String, WsProjectResponse.Settings> buildSettingsByModule(ProjectRepositories data) {
-    Map<String, WsProjectResponse.Settings> settingsByModuleResponse = new HashMap<>();
-    for (Map.Entry<String, Map<String, String>> moduleSettingsEntry : data.settings().entrySet()) {
-      settingsByModuleResponse.put(
-        moduleSettingsEntry.getKey(),
-        toSettingsResponse(moduleSettingsEntry.getValue())
-        );
-    }
-
-    return settingsByModuleResponse;
-  }
-
   private static WsProjectResponse.Settings toSettingsResponse(Map<String, String> settings) {
     WsProjectResponse.Settings.Builder settingsResponse = WsProjectResponse.Settings
       .newBuilder();
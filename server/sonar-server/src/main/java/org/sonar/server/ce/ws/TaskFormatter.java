@@ -38,6 +38,7 @@ import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeQueueDto;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.organization.OrganizationDto;
+import org.sonar.server.computation.monitoring.StepProfile;
 import org.sonarqube.ws.WsCe;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -133,9 +134,25 @@ public class TaskFormatter {
     setNullable(dto.getErrorStacktrace(), builder::setErrorStacktrace);
     setNullable(scannerContext, builder::setScannerContext);
     builder.setHasScannerContext(dto.isHasScannerContext());
+    String executionProfile = dto.getExecutionProfile();
+    if (executionProfile != null) {
+      StepProfile.fromJson(executionProfile).forEach(step -> addStep(builder, step));
+    }
     return builder.build();
   }
 
+  private static void addStep(WsCe.Task.Builder builder, StepProfile step) {
+    WsCe.TaskStep.Builder stepBuilder = builder.addStepsBuilder()
+      .setDescription(step.getDescription())
+      .setWallTimeMs(step.getWallTimeMs());
+    if (step.getCpuTimeMs() != StepProfile.NOT_MEASURED) {
+      stepBuilder.setCpuTimeMs(step.getCpuTimeMs());
+    }
+    if (step.getAllocatedBytes() != StepProfile.NOT_MEASURED) {
+      stepBuilder.setAllocatedBytes(step.getAllocatedBytes());
+    }
+  }
+
   private static void buildComponent(WsCe.Task.Builder builder, @Nullable ComponentDto componentDto) {
     if (componentDto != null) {
       builder.setComponentKey(componentDto.getKey());
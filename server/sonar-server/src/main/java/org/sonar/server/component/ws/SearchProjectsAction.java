@@ -19,9 +19,8 @@
  */
 package org.sonar.server.component.ws;
 
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Ordering;
 import java.util.Collections;
+import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -43,15 +42,15 @@ import org.sonar.core.util.stream.Collectors;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
-import org.sonar.db.component.SnapshotDto;
 import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.property.PropertyDto;
 import org.sonar.db.property.PropertyQuery;
 import org.sonar.server.component.ws.FilterParser.Criterion;
 import org.sonar.server.es.Facets;
-import org.sonar.server.es.SearchIdResult;
 import org.sonar.server.es.SearchOptions;
+import org.sonar.server.es.SearchResult;
 import org.sonar.server.exceptions.NotFoundException;
+import org.sonar.server.measure.index.ProjectMeasuresDoc;
 import org.sonar.server.measure.index.ProjectMeasuresIndex;
 import org.sonar.server.measure.index.ProjectMeasuresQuery;
 import org.sonar.server.user.UserSession;
@@ -63,11 +62,9 @@ import org.sonarqube.ws.client.component.SearchProjectsRequest;
 import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.collect.Sets.newHashSet;
 import static java.lang.String.format;
-import static java.util.Collections.emptyMap;
 import static org.sonar.api.measures.CoreMetrics.ALERT_STATUS_KEY;
 import static org.sonar.api.measures.CoreMetrics.NCLOC_KEY;
 import static org.sonar.api.server.ws.WebService.Param.FIELDS;
-import static org.sonar.core.util.stream.Collectors.toSet;
 import static org.sonar.server.component.ws.ProjectMeasuresQueryFactory.IS_FAVORITE_CRITERION;
 import static org.sonar.server.component.ws.ProjectMeasuresQueryFactory.newProjectMeasuresQuery;
 import static org.sonar.server.measure.index.ProjectMeasuresIndex.SUPPORTED_FACETS;
@@ -184,31 +181,16 @@ public class SearchProjectsAction implements ComponentsWsAction {
   private SearchProjectsWsResponse doHandle(SearchProjectsRequest request) {
     try (DbSession dbSession = dbClient.openSession(false)) {
       String organizationKey = request.getOrganization();
-      if (organizationKey == null) {
-        return handleForAnyOrganization(dbSession, request);
-      } else {
-        OrganizationDto organization = checkFoundWithOptional(
+      OrganizationDto organization = null;
+      if (organizationKey != null) {
+        organization = checkFoundWithOptional(
           dbClient.organizationDao().selectByKey(dbSession, organizationKey),
           "No organization for key '%s'", organizationKey);
-        return handleForOrganization(dbSession, request, organization);
       }
+      return buildResponse(request, searchData(dbSession, request, organization));
     }
   }
 
-  private SearchProjectsWsResponse handleForAnyOrganization(DbSession dbSession, SearchProjectsRequest request) {
-    SearchResults searchResults = searchData(dbSession, request, null);
-    Set<String> organizationUuids = searchResults.projects.stream().map(ComponentDto::getOrganizationUuid).collect(toSet());
-    Map<String, OrganizationDto> organizationsByUuid = dbClient.organizationDao().selectByUuids(dbSession, organizationUuids)
-      .stream()
-      .collect(Collectors.uniqueIndex(OrganizationDto::getUuid));
-    return buildResponse(request, searchResults, organizationsByUuid);
-  }
-
-  private SearchProjectsWsResponse handleForOrganization(DbSession dbSession, SearchProjectsRequest request, OrganizationDto organization) {
-    SearchResults searchResults = searchData(dbSession, request, organization);
-    return buildResponse(request, searchResults, ImmutableMap.of(organization.getUuid(), organization));
-  }
-
   private SearchResults searchData(DbSession dbSession, SearchProjectsRequest request, @Nullable OrganizationDto organization) {
     Set<String> favoriteProjectUuids = loadFavoriteProjectUuids(dbSession);
     List<Criterion> criteria = FilterParser.parse(firstNonNull(request.getFilter(), ""));
@@ -221,15 +203,12 @@ public class SearchProjectsAction implements ComponentsWsAction {
 
     queryValidator.validate(dbSession, query);
 
-    SearchIdResult<String> esResults = index.search(query, new SearchOptions()
+    // displayed fields are denormalized in index, so that projects are not loaded from database
+    SearchResult<ProjectMeasuresDoc> esResults = index.search(query, new SearchOptions()
       .addFacets(request.getFacets())
       .setPage(request.getPage(), request.getPageSize()));
 
-    List<String> projectUuids = esResults.getIds();
-    Ordering<ComponentDto> ordering = Ordering.explicit(projectUuids).onResultOf(ComponentDto::uuid);
-    List<ComponentDto> projects = ordering.immutableSortedCopy(dbClient.componentDao().selectByUuids(dbSession, projectUuids));
-    Map<String, SnapshotDto> analysisByProjectUuid = getSnapshots(dbSession, request, projectUuids);
-    return new SearchResults(projects, favoriteProjectUuids, esResults, analysisByProjectUuid, query);
+    return new SearchResults(favoriteProjectUuids, esResults, query);
   }
 
   private static boolean hasFavoriteFilter(List<Criterion> criteria) {
@@ -261,15 +240,6 @@ public class SearchProjectsAction implements ComponentsWsAction {
       .collect(Collectors.toSet());
   }
 
-  private Map<String, SnapshotDto> getSnapshots(DbSession dbSession, SearchProjectsRequest request, List<String> projectUuids) {
-    if (request.getAdditionalFields().contains(ANALYSIS_DATE)) {
-      return dbClient.snapshotDao().selectLastAnalysesByRootComponentUuids(dbSession, projectUuids)
-        .stream()
-        .collect(Collectors.uniqueIndex(SnapshotDto::getComponentUuid));
-    }
-    return emptyMap();
-  }
-
   private static SearchProjectsRequest toRequest(Request httpRequest) {
     SearchProjectsRequest.Builder request = SearchProjectsRequest.builder()
       .setOrganization(httpRequest.param(PARAM_ORGANIZATION))
@@ -287,9 +257,9 @@ public class SearchProjectsAction implements ComponentsWsAction {
     return request.build();
   }
 
-  private SearchProjectsWsResponse buildResponse(SearchProjectsRequest request, SearchResults searchResults, Map<String, OrganizationDto> organizationsByUuid) {
-    Function<ComponentDto, Component> dbToWsComponent = new DbToWsComponent(organizationsByUuid, searchResults.favoriteProjectUuids, searchResults.analysisByProjectUuid,
-      userSession.isLoggedIn());
+  private SearchProjectsWsResponse buildResponse(SearchProjectsRequest request, SearchResults searchResults) {
+    Function<ProjectMeasuresDoc, Component> docToWsComponent = new DocToWsComponent(searchResults.favoriteProjectUuids,
+      request.getAdditionalFields().contains(ANALYSIS_DATE), userSession.isLoggedIn());
 
     return Stream.of(SearchProjectsWsResponse.newBuilder())
       .map(response -> response.setPaging(Common.Paging.newBuilder()
@@ -298,7 +268,7 @@ public class SearchProjectsAction implements ComponentsWsAction {
         .setTotal(searchResults.total)))
       .map(response -> {
         searchResults.projects.stream()
-          .map(dbToWsComponent)
+          .map(docToWsComponent)
           .forEach(response::addComponents);
         return response;
       })
@@ -381,43 +351,40 @@ public class SearchProjectsAction implements ComponentsWsAction {
     }
   }
 
-  private static class DbToWsComponent implements Function<ComponentDto, Component> {
+  private static class DocToWsComponent implements Function<ProjectMeasuresDoc, Component> {
     private final Component.Builder wsComponent;
-    private final Map<String, OrganizationDto> organizationsByUuid;
     private final Set<String> favoriteProjectUuids;
+    private final boolean isAnalysisDateRequested;
     private final boolean isUserLoggedIn;
-    private final Map<String, SnapshotDto> analysisByProjectUuid;
 
-    private DbToWsComponent(Map<String, OrganizationDto> organizationsByUuid, Set<String> favoriteProjectUuids, Map<String, SnapshotDto> analysisByProjectUuid,
-      boolean isUserLoggedIn) {
-      this.analysisByProjectUuid = analysisByProjectUuid;
+    private DocToWsComponent(Set<String> favoriteProjectUuids, boolean isAnalysisDateRequested, boolean isUserLoggedIn) {
       this.wsComponent = Component.newBuilder();
-      this.organizationsByUuid = organizationsByUuid;
       this.favoriteProjectUuids = favoriteProjectUuids;
+      this.isAnalysisDateRequested = isAnalysisDateRequested;
       this.isUserLoggedIn = isUserLoggedIn;
     }
 
     @Override
-    public Component apply(ComponentDto dbComponent) {
-      OrganizationDto organizationDto = organizationsByUuid.get(dbComponent.getOrganizationUuid());
-      if (organizationDto == null) {
-        throw new NotFoundException(format("Organization with uuid '%s' not found", dbComponent.getOrganizationUuid()));
+    public Component apply(ProjectMeasuresDoc doc) {
+      String organizationKey = doc.getOrganizationKey();
+      if (organizationKey == null) {
+        throw new NotFoundException(format("Organization of project '%s' not found", doc.getKey()));
       }
       wsComponent
         .clear()
-        .setOrganization(organizationDto.getKey())
-        .setId(dbComponent.uuid())
-        .setKey(dbComponent.key())
-        .setName(dbComponent.name());
-      wsComponent.getTagsBuilder().addAllTags(dbComponent.getTags());
-
-      SnapshotDto snapshotDto = analysisByProjectUuid.get(dbComponent.uuid());
-      if (snapshotDto != null) {
-        wsComponent.setAnalysisDate(DateUtils.formatDateTime(snapshotDto.getCreatedAt()));
+        .setOrganization(organizationKey)
+        .setId(doc.getId())
+        .setKey(doc.getKey())
+        .setName(doc.getName());
+      wsComponent.getTagsBuilder().addAllTags(doc.getTags());
+
+      Date analysisDate = doc.getAnalysedAt();
+      if (isAnalysisDateRequested && analysisDate != null) {
+        wsComponent.setAnalysisDate(DateUtils.formatDateTime(analysisDate));
       }
 
       if (isUserLoggedIn) {
-        wsComponent.setIsFavorite(favoriteProjectUuids.contains(dbComponent.uuid()));
+        wsComponent.setIsFavorite(favoriteProjectUuids.contains(doc.getId()));
       }
 
       return wsComponent.build();
@@ -425,20 +392,17 @@ public class SearchProjectsAction implements ComponentsWsAction {
   }
 
   private static class SearchResults {
-    private final List<ComponentDto> projects;
+    private final List<ProjectMeasuresDoc> projects;
     private final Set<String> favoriteProjectUuids;
     private final Facets facets;
-    private final Map<String, SnapshotDto> analysisByProjectUuid;
     private final ProjectMeasuresQuery query;
     private final int total;
 
-    private SearchResults(List<ComponentDto> projects, Set<String> favoriteProjectUuids, SearchIdResult<String> searchResults, Map<String, SnapshotDto> analysisByProjectUuid,
-      ProjectMeasuresQuery query) {
-      this.projects = projects;
+    private SearchResults(Set<String> favoriteProjectUuids, SearchResult<ProjectMeasuresDoc> searchResults, ProjectMeasuresQuery query) {
+      this.projects = searchResults.getDocs();
       this.favoriteProjectUuids = favoriteProjectUuids;
       this.total = (int) searchResults.getTotal();
       this.facets = searchResults.getFacets();
-      this.analysisByProjectUuid = analysisByProjectUuid;
       this.query = query;
     }
   }
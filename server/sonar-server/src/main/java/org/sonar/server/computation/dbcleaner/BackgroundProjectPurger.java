@@ -0,0 +1,75 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.dbcleaner;
+
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.queue.CeQueue;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeTaskTypes;
+import org.sonar.db.purge.IdUuidPair;
+
+/**
+ * Purges the history of projects outside the analysis tasks, when property
+ * {@link org.sonar.core.config.PurgeConstants#BACKGROUND_PURGE} is enabled.
+ * <p>
+ * The purge is a Compute Engine task of type {@link CeTaskTypes#PROJECT_PURGE}, executed by
+ * {@link ProjectPurgeTaskProcessor}. As the Compute Engine never processes two tasks of the same
+ * component at the same time, the purge can't delete the data of an analysis in progress.
+ * </p>
+ */
+@ComputeEngineSide
+public class BackgroundProjectPurger {
+
+  private static final Logger LOG = Loggers.get(BackgroundProjectPurger.class);
+
+  private final DbClient dbClient;
+  private final CeQueue ceQueue;
+
+  public BackgroundProjectPurger(DbClient dbClient, CeQueue ceQueue) {
+    this.dbClient = dbClient;
+    this.ceQueue = ceQueue;
+  }
+
+  /**
+   * Requests the purge of the history of the specified project. The request is ignored if a purge
+   * of the same project is already pending, as it will be based on the same data.
+   */
+  public void submit(IdUuidPair root) {
+    if (isPurgePending(root.getUuid())) {
+      LOG.debug("Background purge of project {} is already pending", root.getUuid());
+      return;
+    }
+    ceQueue.submit(ceQueue.prepareSubmit()
+      .setType(CeTaskTypes.PROJECT_PURGE)
+      .setComponentUuid(root.getUuid())
+      .build());
+  }
+
+  private boolean isPurgePending(String rootUuid) {
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      return dbClient.ceQueueDao().selectByComponentUuid(dbSession, rootUuid).stream()
+        .anyMatch(task -> CeTaskTypes.PROJECT_PURGE.equals(task.getTaskType()) && task.getStatus() == CeQueueDto.Status.PENDING);
+    }
+  }
+}
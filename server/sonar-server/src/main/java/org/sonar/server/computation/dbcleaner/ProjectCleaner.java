@@ -33,6 +33,7 @@ import org.sonar.db.purge.PurgeConfiguration;
 import org.sonar.db.purge.PurgeDao;
 import org.sonar.db.purge.PurgeListener;
 import org.sonar.db.purge.PurgeProfiler;
+import org.sonar.db.purge.PurgeThrottler;
 import org.sonar.db.purge.period.DefaultPeriodCleaner;
 
 import static org.sonar.db.purge.PurgeConfiguration.newDefaultPurgeConfiguration;
@@ -55,19 +56,54 @@ public class ProjectCleaner {
   }
 
   public ProjectCleaner purge(DbSession session, IdUuidPair idUuidPair, Settings projectSettings, Collection<String> disabledComponentUuids) {
+    return purge(session, idUuidPair, projectSettings, disabledComponentUuids, PurgeThrottler.NONE, false);
+  }
+
+  /**
+   * Same as {@link #purge(DbSession, IdUuidPair, Settings, Collection)}, deletions being committed by chunks.
+   * {@code throttler} is called after each commit. Errors are not logged but propagated to the caller.
+   */
+  public ProjectCleaner purgeOrFail(DbSession session, IdUuidPair idUuidPair, Settings projectSettings, Collection<String> disabledComponentUuids,
+    PurgeThrottler throttler) {
+    return purge(session, idUuidPair, projectSettings, disabledComponentUuids, throttler, true);
+  }
+
+  private ProjectCleaner purge(DbSession session, IdUuidPair idUuidPair, Settings projectSettings, Collection<String> disabledComponentUuids,
+    PurgeThrottler throttler, boolean failOnError) {
     long start = System.currentTimeMillis();
     profiler.reset();
 
     PurgeConfiguration configuration = newDefaultPurgeConfiguration(projectSettings, idUuidPair, disabledComponentUuids);
 
-    cleanHistoricalData(session, configuration.rootProjectIdUuid().getUuid(), projectSettings);
-    doPurge(session, configuration);
+    if (failOnError) {
+      periodCleaner.clean(session, configuration.rootProjectIdUuid().getUuid(), projectSettings);
+      purgeDao.purge(session, configuration, purgeListener, profiler, throttler);
+    } else {
+      cleanHistoricalData(session, configuration.rootProjectIdUuid().getUuid(), projectSettings);
+      doPurge(session, configuration, throttler);
+    }
 
     session.commit();
     logProfiling(start, projectSettings);
     return this;
   }
 
+  /**
+   * Only cleans the data of the components disabled by the analysis. History is purged later,
+   * by {@link BackgroundProjectPurger}.
+   */
+  public ProjectCleaner purgeDisabledComponents(DbSession session, IdUuidPair idUuidPair, Settings projectSettings, Collection<String> disabledComponentUuids) {
+    PurgeConfiguration configuration = newDefaultPurgeConfiguration(projectSettings, idUuidPair, disabledComponentUuids);
+    try {
+      purgeDao.purgeDisabledComponents(session, configuration, purgeListener);
+    } catch (Exception e) {
+      // purge errors must no fail the report analysis
+      LOG.error("Fail to purge disabled components [id=" + idUuidPair.getId() + "]", e);
+    }
+    session.commit();
+    return this;
+  }
+
   private void logProfiling(long start, Settings settings) {
     if (settings.getBoolean(CoreProperties.PROFILING_LOG_PROPERTY)) {
       long duration = System.currentTimeMillis() - start;
@@ -86,9 +122,9 @@ public class ProjectCleaner {
     }
   }
 
-  private void doPurge(DbSession session, PurgeConfiguration configuration) {
+  private void doPurge(DbSession session, PurgeConfiguration configuration, PurgeThrottler throttler) {
     try {
-      purgeDao.purge(session, configuration, purgeListener, profiler);
+      purgeDao.purge(session, configuration, purgeListener, profiler, throttler);
     } catch (Exception e) {
       // purge errors must no fail the report analysis
       LOG.error("Fail to purge data [id=" + configuration.rootProjectIdUuid().getId() + "]", e);
@@ -0,0 +1,129 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.dbcleaner;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import java.util.Collections;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.queue.CeTask;
+import org.sonar.ce.queue.CeTaskResult;
+import org.sonar.ce.settings.ProjectSettingsFactory;
+import org.sonar.ce.taskprocessor.CeTaskProcessor;
+import org.sonar.core.util.logs.Profiler;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.ce.CeTaskTypes;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.purge.IdUuidPair;
+import org.sonar.db.purge.PurgeThrottler;
+
+/**
+ * Purges the history of a project, as requested by {@link BackgroundProjectPurger}.
+ * <p>
+ * Deletions are committed by chunks and the worker pauses between two chunks, so that
+ * the analyses of other projects are not blocked by locks on the purged tables.
+ * </p>
+ */
+public class ProjectPurgeTaskProcessor implements CeTaskProcessor {
+
+  private static final Logger LOG = Loggers.get(ProjectPurgeTaskProcessor.class);
+  private static final Set<String> HANDLED_TYPES = Collections.singleton(CeTaskTypes.PROJECT_PURGE);
+  private static final long PAUSE_BETWEEN_CHUNKS_MS = 50L;
+  private static final int CHUNKS_BETWEEN_PROGRESS_LOGS = 100;
+
+  private final DbClient dbClient;
+  private final ProjectCleaner projectCleaner;
+  private final ProjectSettingsFactory projectSettingsFactory;
+  private final long pauseBetweenChunksMs;
+
+  public ProjectPurgeTaskProcessor(DbClient dbClient, ProjectCleaner projectCleaner, ProjectSettingsFactory projectSettingsFactory) {
+    this(dbClient, projectCleaner, projectSettingsFactory, PAUSE_BETWEEN_CHUNKS_MS);
+  }
+
+  @VisibleForTesting
+  ProjectPurgeTaskProcessor(DbClient dbClient, ProjectCleaner projectCleaner, ProjectSettingsFactory projectSettingsFactory, long pauseBetweenChunksMs) {
+    this.dbClient = dbClient;
+    this.projectCleaner = projectCleaner;
+    this.projectSettingsFactory = projectSettingsFactory;
+    this.pauseBetweenChunksMs = pauseBetweenChunksMs;
+  }
+
+  @Override
+  public Set<String> getHandledCeTaskTypes() {
+    return HANDLED_TYPES;
+  }
+
+  @Override
+  @CheckForNull
+  public CeTaskResult process(CeTask task) {
+    String rootUuid = task.getComponentUuid();
+    try (DbSession dbSession = dbClient.openSession(true)) {
+      Optional<ComponentDto> root = dbClient.componentDao().selectByUuid(dbSession, rootUuid);
+      if (!root.isPresent()) {
+        LOG.info("Project {} does not exist anymore. Its history is not purged.", rootUuid);
+        return null;
+      }
+      Settings settings = projectSettingsFactory.newProjectSettings(root.get().getKey());
+      Profiler profiler = Profiler.create(LOG).startInfo("Background purge of project " + rootUuid);
+      ChunkThrottler throttler = new ChunkThrottler(rootUuid, pauseBetweenChunksMs);
+      try {
+        // failures are propagated, so that the task is marked as failed
+        projectCleaner.purgeOrFail(dbSession, new IdUuidPair(root.get().getId(), rootUuid), settings, Collections.emptyList(), throttler);
+        dbSession.commit();
+      } finally {
+        profiler.addContext("chunks", throttler.chunks).stopInfo("Background purge of project " + rootUuid);
+      }
+    }
+    return null;
+  }
+
+  @VisibleForTesting
+  static final class ChunkThrottler implements PurgeThrottler {
+    private final String rootUuid;
+    private final long pauseMs;
+    private int chunks = 0;
+
+    ChunkThrottler(String rootUuid, long pauseMs) {
+      this.rootUuid = rootUuid;
+      this.pauseMs = pauseMs;
+    }
+
+    @Override
+    public void chunkCommitted(String step) {
+      chunks++;
+      if (chunks % CHUNKS_BETWEEN_PROGRESS_LOGS == 0) {
+        LOG.info("Background purge of project {} in progress | chunks={} | step={}", rootUuid, chunks, step);
+      }
+      if (pauseMs > 0) {
+        try {
+          Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException("Background purge of project " + rootUuid + " is interrupted", e);
+        }
+      }
+    }
+  }
+}
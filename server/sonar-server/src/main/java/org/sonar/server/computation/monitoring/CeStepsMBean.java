@@ -0,0 +1,49 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.monitoring;
+
+import java.util.Map;
+
+public interface CeStepsMBean {
+
+  String OBJECT_NAME = "SonarQube:name=ComputeEngineSteps";
+
+  /**
+   * Count of executions of each step since startup, by step description.
+   */
+  Map<String, Long> getExecutionCount();
+
+  /**
+   * Average elapsed time of each step since startup, in milliseconds, by step description.
+   */
+  Map<String, Long> getAverageWallTimeMs();
+
+  /**
+   * Average CPU time of each step since startup, in milliseconds, by step description.
+   * Empty if the JVM does not support measurement of thread CPU time.
+   */
+  Map<String, Long> getAverageCpuTimeMs();
+
+  /**
+   * Average number of bytes allocated in heap by each step since startup, by step description.
+   * Empty if the JVM does not support measurement of thread allocated memory.
+   */
+  Map<String, Long> getAverageAllocatedBytes();
+}
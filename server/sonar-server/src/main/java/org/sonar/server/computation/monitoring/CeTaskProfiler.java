@@ -0,0 +1,184 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.picocontainer.Startable;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.process.Jmx;
+
+import static org.sonar.server.computation.monitoring.StepProfile.NOT_MEASURED;
+
+/**
+ * Measures the resources consumed by each step of the Compute Engine tasks.
+ * <p>
+ * Tasks are executed by a single worker thread, so the profile of the task under
+ * execution is bound to the current thread, from {@link #startTask()} to {@link #stopTask()}.
+ * The measures of all tasks are also aggregated by step and exposed through JMX.
+ * </p>
+ */
+@ComputeEngineSide
+public class CeTaskProfiler implements CeStepsMBean, Startable {
+
+  private final ThreadMXBean threadMXBean;
+  private final boolean cpuTimeMeasured;
+  private final boolean allocatedBytesMeasured;
+  private final ThreadLocal<List<StepProfile>> currentTask = new ThreadLocal<>();
+  private final ConcurrentMap<String, StepStatistics> statisticsByStep = new ConcurrentHashMap<>();
+
+  public CeTaskProfiler() {
+    this(ManagementFactory.getThreadMXBean());
+  }
+
+  CeTaskProfiler(ThreadMXBean threadMXBean) {
+    this.threadMXBean = threadMXBean;
+    this.cpuTimeMeasured = threadMXBean.isCurrentThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled();
+    this.allocatedBytesMeasured = threadMXBean instanceof com.sun.management.ThreadMXBean
+      && ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported()
+      && ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemoryEnabled();
+  }
+
+  @Override
+  public void start() {
+    Jmx.register(OBJECT_NAME, this);
+  }
+
+  @Override
+  public void stop() {
+    Jmx.unregister(OBJECT_NAME);
+  }
+
+  /**
+   * Starts the profile of a task executed by the current thread.
+   */
+  public void startTask() {
+    currentTask.set(new ArrayList<>());
+  }
+
+  /**
+   * Ends the profile of the task executed by the current thread.
+   *
+   * @return the profiles of the steps executed since {@link #startTask()}, empty if the profile was not started
+   */
+  public List<StepProfile> stopTask() {
+    List<StepProfile> profiles = currentTask.get();
+    currentTask.remove();
+    return profiles == null ? Collections.emptyList() : profiles;
+  }
+
+  public StepMeasure startStep() {
+    return new StepMeasure(System.nanoTime(), currentThreadCpuTime(), currentThreadAllocatedBytes());
+  }
+
+  public StepProfile stopStep(StepMeasure measure, String description) {
+    long cpuTime = currentThreadCpuTime();
+    long allocatedBytes = currentThreadAllocatedBytes();
+    StepProfile profile = new StepProfile(description,
+      TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - measure.startNanoTime),
+      cpuTime == NOT_MEASURED ? NOT_MEASURED : TimeUnit.NANOSECONDS.toMillis(cpuTime - measure.startCpuTime),
+      allocatedBytes == NOT_MEASURED ? NOT_MEASURED : (allocatedBytes - measure.startAllocatedBytes));
+
+    List<StepProfile> profiles = currentTask.get();
+    if (profiles != null) {
+      profiles.add(profile);
+    }
+    statisticsByStep.computeIfAbsent(description, d -> new StepStatistics()).add(profile);
+    return profile;
+  }
+
+  private long currentThreadCpuTime() {
+    return cpuTimeMeasured ? threadMXBean.getCurrentThreadCpuTime() : NOT_MEASURED;
+  }
+
+  private long currentThreadAllocatedBytes() {
+    if (allocatedBytesMeasured) {
+      return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return NOT_MEASURED;
+  }
+
+  @Override
+  public Map<String, Long> getExecutionCount() {
+    return toMap(s -> s.count.sum());
+  }
+
+  @Override
+  public Map<String, Long> getAverageWallTimeMs() {
+    return toMap(s -> s.average(s.wallTimeMs));
+  }
+
+  @Override
+  public Map<String, Long> getAverageCpuTimeMs() {
+    return cpuTimeMeasured ? toMap(s -> s.average(s.cpuTimeMs)) : Collections.emptyMap();
+  }
+
+  @Override
+  public Map<String, Long> getAverageAllocatedBytes() {
+    return allocatedBytesMeasured ? toMap(s -> s.average(s.allocatedBytes)) : Collections.emptyMap();
+  }
+
+  private Map<String, Long> toMap(Function<StepStatistics, Long> valueFunction) {
+    Map<String, Long> result = new TreeMap<>();
+    statisticsByStep.forEach((description, statistics) -> result.put(description, valueFunction.apply(statistics)));
+    return result;
+  }
+
+  public static final class StepMeasure {
+    private final long startNanoTime;
+    private final long startCpuTime;
+    private final long startAllocatedBytes;
+
+    private StepMeasure(long startNanoTime, long startCpuTime, long startAllocatedBytes) {
+      this.startNanoTime = startNanoTime;
+      this.startCpuTime = startCpuTime;
+      this.startAllocatedBytes = startAllocatedBytes;
+    }
+  }
+
+  private static final class StepStatistics {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder wallTimeMs = new LongAdder();
+    private final LongAdder cpuTimeMs = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    private void add(StepProfile profile) {
+      count.increment();
+      wallTimeMs.add(profile.getWallTimeMs());
+      cpuTimeMs.add(Math.max(0L, profile.getCpuTimeMs()));
+      allocatedBytes.add(Math.max(0L, profile.getAllocatedBytes()));
+    }
+
+    private long average(LongAdder total) {
+      long c = count.sum();
+      return c == 0 ? 0L : (total.sum() / c);
+    }
+  }
+}
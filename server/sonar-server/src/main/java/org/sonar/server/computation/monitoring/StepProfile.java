@@ -0,0 +1,124 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.monitoring;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import javax.annotation.concurrent.Immutable;
+import org.sonar.api.utils.text.JsonWriter;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Resources consumed by the execution of a step of a Compute Engine task. Values
+ * that can't be measured by the JVM are {@link #NOT_MEASURED}.
+ */
+@Immutable
+public class StepProfile {
+
+  public static final long NOT_MEASURED = -1L;
+
+  private static final String FIELD_STEP = "step";
+  private static final String FIELD_WALL_TIME = "wallTimeMs";
+  private static final String FIELD_CPU_TIME = "cpuTimeMs";
+  private static final String FIELD_ALLOCATED_BYTES = "allocatedBytes";
+
+  private final String description;
+  private final long wallTimeMs;
+  private final long cpuTimeMs;
+  private final long allocatedBytes;
+
+  public StepProfile(String description, long wallTimeMs, long cpuTimeMs, long allocatedBytes) {
+    this.description = requireNonNull(description, "description can't be null");
+    this.wallTimeMs = wallTimeMs;
+    this.cpuTimeMs = cpuTimeMs;
+    this.allocatedBytes = allocatedBytes;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+
+  public long getWallTimeMs() {
+    return wallTimeMs;
+  }
+
+  public long getCpuTimeMs() {
+    return cpuTimeMs;
+  }
+
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  public static String toJson(List<StepProfile> profiles) {
+    StringWriter json = new StringWriter();
+    try (JsonWriter writer = JsonWriter.of(json)) {
+      writer.beginArray();
+      for (StepProfile profile : profiles) {
+        writer
+          .beginObject()
+          .prop(FIELD_STEP, profile.description)
+          .prop(FIELD_WALL_TIME, profile.wallTimeMs);
+        if (profile.cpuTimeMs != NOT_MEASURED) {
+          writer.prop(FIELD_CPU_TIME, profile.cpuTimeMs);
+        }
+        if (profile.allocatedBytes != NOT_MEASURED) {
+          writer.prop(FIELD_ALLOCATED_BYTES, profile.allocatedBytes);
+        }
+        writer.endObject();
+      }
+      writer.endArray();
+    }
+    return json.toString();
+  }
+
+  public static List<StepProfile> fromJson(String json) {
+    return StreamSupport.stream(new JsonParser().parse(json).getAsJsonArray().spliterator(), false)
+      .map(jsonElement -> {
+        JsonObject jsonStep = jsonElement.getAsJsonObject();
+        return new StepProfile(
+          jsonStep.get(FIELD_STEP).getAsString(),
+          jsonStep.get(FIELD_WALL_TIME).getAsLong(),
+          getLong(jsonStep, FIELD_CPU_TIME),
+          getLong(jsonStep, FIELD_ALLOCATED_BYTES));
+      }).collect(Collectors.toList());
+  }
+
+  private static long getLong(JsonObject json, String field) {
+    JsonElement element = json.get(field);
+    return element == null || element.isJsonNull() ? NOT_MEASURED : element.getAsLong();
+  }
+
+  @Override
+  public String toString() {
+    return "StepProfile{" +
+      "description='" + description + '\'' +
+      ", wallTimeMs=" + wallTimeMs +
+      ", cpuTimeMs=" + cpuTimeMs +
+      ", allocatedBytes=" + allocatedBytes +
+      '}';
+  }
+}
@@ -20,6 +20,8 @@
 package org.sonar.server.computation.queue;
 
 import com.google.common.base.Optional;
+import java.util.Collections;
+import java.util.List;
 import javax.annotation.Nullable;
 import org.sonar.ce.queue.CeQueue;
 import org.sonar.ce.queue.CeTask;
@@ -27,6 +29,7 @@ import org.sonar.ce.queue.CeTaskResult;
 import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeActivityDto.Status;
 import org.sonar.db.ce.CeQueueDto;
+import org.sonar.server.computation.monitoring.StepProfile;
 
 /**
  * Queue of pending Compute Engine tasks. Both producer and consumer actions
@@ -65,7 +68,15 @@ public interface InternalCeQueue extends CeQueue {
    * @throws IllegalStateException if the task does not exist in the queue
    * @throws IllegalArgumentException if {@code error} is non {@code null} but {@code status} is not {@link Status#FAILED}
    */
-  void remove(CeTask task, Status status, @Nullable CeTaskResult taskResult, @Nullable Throwable error);
+  default void remove(CeTask task, Status status, @Nullable CeTaskResult taskResult, @Nullable Throwable error) {
+    remove(task, status, taskResult, error, Collections.emptyList());
+  }
+
+  /**
+   * Same as {@link #remove(CeTask, Status, CeTaskResult, Throwable)}, the profile of the execution of the steps
+   * of the task being persisted along with the past activity.
+   */
+  void remove(CeTask task, Status status, @Nullable CeTaskResult taskResult, @Nullable Throwable error, List<StepProfile> stepProfiles);
 
   void cancel(DbSession dbSession, CeQueueDto ceQueueDto);
 
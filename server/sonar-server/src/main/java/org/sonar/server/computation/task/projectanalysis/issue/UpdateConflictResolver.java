@@ -35,15 +35,21 @@ public class UpdateConflictResolver {
   private static final Logger LOG = Loggers.get(UpdateConflictResolver.class);
 
   public void resolve(DefaultIssue issue, IssueMapper mapper) {
-    LOG.debug("Resolve conflict on issue {}", issue.key());
-
     IssueDto dbIssue = mapper.selectByKey(issue.key());
     if (dbIssue != null) {
-      mergeFields(dbIssue, issue);
-      mapper.update(IssueDto.toDtoForUpdate(issue, System.currentTimeMillis()));
+      resolve(issue, dbIssue, mapper);
     }
   }
 
+  /**
+   * Same as {@link #resolve(DefaultIssue, IssueMapper)} when the issue has already been loaded from database
+   */
+  public void resolve(DefaultIssue issue, IssueDto dbIssue, IssueMapper mapper) {
+    LOG.debug("Resolve conflict on issue {}", issue.key());
+    mergeFields(dbIssue, issue);
+    mapper.update(IssueDto.toDtoForUpdate(issue, System.currentTimeMillis()));
+  }
+
   @VisibleForTesting
   void mergeFields(IssueDto dbIssue, DefaultIssue issue) {
     resolveAssignee(dbIssue, issue);
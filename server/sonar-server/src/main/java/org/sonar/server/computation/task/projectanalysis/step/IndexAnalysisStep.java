@@ -19,21 +19,32 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.server.computation.task.projectanalysis.component.RelocatedComponentsHolder;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.issue.IssueCache;
 import org.sonar.server.computation.task.step.ComputationStep;
 import org.sonar.server.es.ProjectIndexer;
+import org.sonar.server.issue.index.IssueIndexer;
 
 public class IndexAnalysisStep implements ComputationStep {
 
   private static final Logger LOGGER = Loggers.get(IndexAnalysisStep.class);
 
   private final TreeRootHolder treeRootHolder;
+  private final RelocatedComponentsHolder relocatedComponentsHolder;
+  private final IssueCache issueCache;
   private final ProjectIndexer[] indexers;
 
-  public IndexAnalysisStep(TreeRootHolder treeRootHolder, ProjectIndexer... indexers) {
+  public IndexAnalysisStep(TreeRootHolder treeRootHolder, RelocatedComponentsHolder relocatedComponentsHolder, IssueCache issueCache, ProjectIndexer... indexers) {
     this.treeRootHolder = treeRootHolder;
+    this.relocatedComponentsHolder = relocatedComponentsHolder;
+    this.issueCache = issueCache;
     this.indexers = indexers;
   }
 
@@ -42,10 +53,32 @@ public class IndexAnalysisStep implements ComputationStep {
     String projectUuid = treeRootHolder.getRoot().getUuid();
     for (ProjectIndexer indexer : indexers) {
       LOGGER.debug("Call {}", indexer);
-      indexer.indexProject(projectUuid, ProjectIndexer.Cause.NEW_ANALYSIS);
+      if (indexer instanceof IssueIndexer && relocatedComponentsHolder.getUuids().isEmpty()) {
+        // only the issues persisted by the analysis have to be indexed. Otherwise the paths
+        // and modules denormalized in the documents of all the issues, including closed ones, may be stale.
+        ((IssueIndexer) indexer).indexOnAnalysis(projectUuid, selectPersistedIssueKeys());
+      } else {
+        indexer.indexProject(projectUuid, ProjectIndexer.Cause.NEW_ANALYSIS);
+      }
     }
   }
 
+  /**
+   * Keys of the issues which are inserted or updated by {@link PersistIssuesStep}
+   */
+  private List<String> selectPersistedIssueKeys() {
+    List<String> keys = new ArrayList<>();
+    try (CloseableIterator<DefaultIssue> issues = issueCache.traverse()) {
+      while (issues.hasNext()) {
+        DefaultIssue issue = issues.next();
+        if (issue.isNew() || issue.isChanged()) {
+          keys.add(issue.key());
+        }
+      }
+    }
+    return keys;
+  }
+
   @Override
   public String getDescription() {
     return "Index analysis";
@@ -0,0 +1,138 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.step;
+
+import com.google.common.collect.Lists;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.apache.ibatis.executor.BatchResult;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.db.BatchSession;
+import org.sonar.db.DbSession;
+import org.sonar.db.issue.IssueChangeDto;
+import org.sonar.db.issue.IssueChangeMapper;
+import org.sonar.db.issue.IssueDto;
+import org.sonar.db.issue.IssueMapper;
+import org.sonar.server.computation.task.projectanalysis.issue.UpdateConflictResolver;
+
+import static org.sonar.db.DatabaseUtils.executeLargeInputs;
+
+/**
+ * Buffer of the issues and issue changes to be persisted by {@link PersistIssuesStep}.
+ * <p>
+ * On {@link #flush()}, statements of the same kind are sent together in JDBC batches instead of being interleaved,
+ * so that the prepared statements are reused and that drivers can rewrite them as multi-row statements. The issues
+ * which have been updated by users since the beginning of the analysis are detected from the update counts of the
+ * batches, then resolved in a second pass with a single select.
+ */
+class IssuePersistenceBatch {
+
+  /**
+   * {@link BatchSession} commits, and so loses the update counts, as soon as {@link BatchSession#MAX_BATCH_SIZE}
+   * statements are pending.
+   */
+  private static final int STATEMENTS_PER_FLUSH = BatchSession.MAX_BATCH_SIZE - 1;
+
+  private final DbSession dbSession;
+  private final UpdateConflictResolver conflictResolver;
+  private final List<IssueDto> inserts = new ArrayList<>();
+  private final List<IssueDto> updates = new ArrayList<>();
+  private final Map<String, DefaultIssue> updatedIssuesByKey = new HashMap<>();
+  private final List<IssueChangeDto> changes = new ArrayList<>();
+
+  IssuePersistenceBatch(DbSession dbSession, UpdateConflictResolver conflictResolver) {
+    this.dbSession = dbSession;
+    this.conflictResolver = conflictResolver;
+  }
+
+  void insert(IssueDto dto) {
+    inserts.add(dto);
+  }
+
+  /**
+   * @param dto the update of {@code issue}, applied only if the issue has not been changed since the analysis selected it
+   */
+  void updateIfBeforeSelectedDate(DefaultIssue issue, IssueDto dto) {
+    updates.add(dto);
+    updatedIssuesByKey.put(issue.key(), issue);
+  }
+
+  void insertChange(IssueChangeDto dto) {
+    changes.add(dto);
+  }
+
+  /**
+   * Number of issues inserted or updated since last flush
+   */
+  int size() {
+    return inserts.size() + updates.size();
+  }
+
+  /**
+   * Executes the pending statements. The caller is responsible for committing the session.
+   */
+  void flush() {
+    IssueMapper issueMapper = dbSession.getMapper(IssueMapper.class);
+    execute(inserts, issueMapper::insert);
+    List<BatchResult> updateResults = execute(updates, issueMapper::updateIfBeforeSelectedDate);
+    resolveConflicts(issueMapper, updateResults);
+    execute(changes, dbSession.getMapper(IssueChangeMapper.class)::insert);
+
+    inserts.clear();
+    updates.clear();
+    updatedIssuesByKey.clear();
+    changes.clear();
+  }
+
+  private void resolveConflicts(IssueMapper issueMapper, List<BatchResult> updateResults) {
+    List<String> conflictingKeys = new ArrayList<>();
+    for (BatchResult result : updateResults) {
+      List<Object> parameters = result.getParameterObjects();
+      int[] updateCounts = result.getUpdateCounts();
+      for (int i = 0; i < updateCounts.length; i++) {
+        // drivers which do not return the number of updated rows (Statement.SUCCESS_NO_INFO) can't
+        // report conflicts, the update is then considered as successful
+        if (updateCounts[i] == 0) {
+          conflictingKeys.add(((IssueDto) parameters.get(i)).getKey());
+        }
+      }
+    }
+    if (conflictingKeys.isEmpty()) {
+      return;
+    }
+
+    // End-user and scan changed the issues at the same time.
+    // See https://jira.sonarsource.com/browse/SONAR-4309
+    List<IssueDto> dbIssues = executeLargeInputs(conflictingKeys, issueMapper::selectByKeys);
+    execute(dbIssues, dbIssue -> conflictResolver.resolve(updatedIssuesByKey.get(dbIssue.getKey()), dbIssue, issueMapper));
+  }
+
+  private <T> List<BatchResult> execute(List<T> dtos, Consumer<T> statement) {
+    List<BatchResult> results = new ArrayList<>();
+    for (List<T> partition : Lists.partition(dtos, STATEMENTS_PER_FLUSH)) {
+      partition.forEach(statement);
+      results.addAll(dbSession.flushStatements());
+    }
+    return results;
+  }
+}
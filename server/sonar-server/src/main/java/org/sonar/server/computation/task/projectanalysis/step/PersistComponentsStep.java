@@ -22,6 +22,7 @@ package org.sonar.server.computation.task.projectanalysis.step;
 import com.google.common.base.Predicate;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -43,6 +44,7 @@ import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthL
 import org.sonar.server.computation.task.projectanalysis.component.DbIdsRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.component.MutableDbIdsRepository;
 import org.sonar.server.computation.task.projectanalysis.component.MutableDisabledComponentsHolder;
+import org.sonar.server.computation.task.projectanalysis.component.MutableRelocatedComponentsHolder;
 import org.sonar.server.computation.task.projectanalysis.component.PathAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.PathAwareVisitor;
 import org.sonar.server.computation.task.projectanalysis.component.PathAwareVisitorAdapter;
@@ -65,16 +67,19 @@ public class PersistComponentsStep implements ComputationStep {
   private final MutableDbIdsRepository dbIdsRepository;
   private final System2 system2;
   private final MutableDisabledComponentsHolder disabledComponentsHolder;
+  private final MutableRelocatedComponentsHolder relocatedComponentsHolder;
   private final AnalysisMetadataHolder analysisMetadataHolder;
 
   public PersistComponentsStep(DbClient dbClient, TreeRootHolder treeRootHolder,
     MutableDbIdsRepository dbIdsRepository, System2 system2,
-    MutableDisabledComponentsHolder disabledComponentsHolder, AnalysisMetadataHolder analysisMetadataHolder) {
+    MutableDisabledComponentsHolder disabledComponentsHolder, MutableRelocatedComponentsHolder relocatedComponentsHolder,
+    AnalysisMetadataHolder analysisMetadataHolder) {
     this.dbClient = dbClient;
     this.treeRootHolder = treeRootHolder;
     this.dbIdsRepository = dbIdsRepository;
     this.system2 = system2;
     this.disabledComponentsHolder = disabledComponentsHolder;
+    this.relocatedComponentsHolder = relocatedComponentsHolder;
     this.analysisMetadataHolder = analysisMetadataHolder;
   }
 
@@ -94,8 +99,9 @@ public class PersistComponentsStep implements ComputationStep {
       Map<String, ComponentDto> existingDtosByKeys = indexExistingDtosByKey(dbSession);
       // Insert or update the components in database. They are removed from existingDtosByKeys
       // at the same time.
-      new PathAwareCrawler<>(new PersistComponentStepsVisitor(existingDtosByKeys, dbSession))
-        .visit(treeRootHolder.getRoot());
+      PersistComponentStepsVisitor visitor = new PersistComponentStepsVisitor(existingDtosByKeys, dbSession);
+      new PathAwareCrawler<>(visitor).visit(treeRootHolder.getRoot());
+      relocatedComponentsHolder.setUuids(visitor.relocatedUuids);
 
       disableRemainingComponents(dbSession, existingDtosByKeys.values());
 
@@ -126,6 +132,7 @@ public class PersistComponentsStep implements ComputationStep {
 
     private final Map<String, ComponentDto> existingComponentDtosByKey;
     private final DbSession dbSession;
+    private final Set<String> relocatedUuids = new HashSet<>();
 
     public PersistComponentStepsVisitor(Map<String, ComponentDto> existingComponentDtosByKey, DbSession dbSession) {
       super(
@@ -211,6 +218,10 @@ public class PersistComponentsStep implements ComputationStep {
       if (update.isPresent()) {
         ComponentUpdateDto updateDto = update.get();
         dbClient.componentDao().update(dbSession, updateDto);
+        if (!StringUtils.equals(existingComponent.path(), updateDto.getBPath()) ||
+          !StringUtils.equals(existingComponent.moduleUuidPath(), updateDto.getBModuleUuidPath())) {
+          relocatedUuids.add(existingComponent.uuid());
+        }
 
         // update the fields in memory in order the PathAwareVisitor.Path
         // to be up-to-date
@@ -28,9 +28,7 @@ import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.issue.IssueChangeDto;
-import org.sonar.db.issue.IssueChangeMapper;
 import org.sonar.db.issue.IssueDto;
-import org.sonar.db.issue.IssueMapper;
 import org.sonar.server.computation.task.projectanalysis.issue.IssueCache;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleRepository;
 import org.sonar.server.computation.task.projectanalysis.issue.UpdateConflictResolver;
@@ -38,6 +36,11 @@ import org.sonar.server.computation.task.step.ComputationStep;
 
 public class PersistIssuesStep implements ComputationStep {
 
+  /**
+   * Issues are committed by chunks in order to keep transactions reasonably small on large analyses
+   */
+  static final int ISSUES_PER_TRANSACTION = 1_000;
+
   private final DbClient dbClient;
   private final System2 system2;
   private final UpdateConflictResolver conflictResolver;
@@ -58,60 +61,59 @@ public class PersistIssuesStep implements ComputationStep {
     try (DbSession dbSession = dbClient.openSession(true);
       CloseableIterator<DefaultIssue> issues = issueCache.traverse()) {
 
-      IssueMapper mapper = dbSession.getMapper(IssueMapper.class);
-      IssueChangeMapper changeMapper = dbSession.getMapper(IssueChangeMapper.class);
+      IssuePersistenceBatch batch = new IssuePersistenceBatch(dbSession, conflictResolver);
       while (issues.hasNext()) {
         DefaultIssue issue = issues.next();
-        boolean saved = persistIssueIfRequired(mapper, issue);
+        boolean saved = persistIssueIfRequired(batch, issue);
         if (saved) {
-          insertChanges(changeMapper, issue);
+          insertChanges(batch, issue);
+        }
+        if (batch.size() >= ISSUES_PER_TRANSACTION) {
+          batch.flush();
+          dbSession.commit();
         }
       }
-      dbSession.flushStatements();
+      batch.flush();
       dbSession.commit();
     }
   }
 
-  private boolean persistIssueIfRequired(IssueMapper mapper, DefaultIssue issue) {
+  private boolean persistIssueIfRequired(IssuePersistenceBatch batch, DefaultIssue issue) {
     if (issue.isNew()) {
-      persistNewIssue(mapper, issue);
+      persistNewIssue(batch, issue);
       return true;
     }
     if (issue.isChanged()) {
-      persistChangedIssue(mapper, issue);
+      persistChangedIssue(batch, issue);
       return true;
     }
     return false;
   }
 
-  private void persistNewIssue(IssueMapper mapper, DefaultIssue issue) {
+  private void persistNewIssue(IssuePersistenceBatch batch, DefaultIssue issue) {
     Integer ruleId = ruleRepository.getByKey(issue.ruleKey()).getId();
     IssueDto dto = IssueDto.toDtoForComputationInsert(issue, ruleId, system2.now());
-    mapper.insert(dto);
+    batch.insert(dto);
   }
 
-  private void persistChangedIssue(IssueMapper mapper, DefaultIssue issue) {
+  private void persistChangedIssue(IssuePersistenceBatch batch, DefaultIssue issue) {
     IssueDto dto = IssueDto.toDtoForUpdate(issue, system2.now());
-    int updateCount = mapper.updateIfBeforeSelectedDate(dto);
-    if (updateCount == 0) {
-      // End-user and scan changed the issue at the same time.
-      // See https://jira.sonarsource.com/browse/SONAR-4309
-      conflictResolver.resolve(issue, mapper);
-    }
+    // conflicts with the changes made by end-users are resolved when the batch is flushed
+    batch.updateIfBeforeSelectedDate(issue, dto);
   }
 
-  private static void insertChanges(IssueChangeMapper mapper, DefaultIssue issue) {
+  private static void insertChanges(IssuePersistenceBatch batch, DefaultIssue issue) {
     for (IssueComment comment : issue.comments()) {
       DefaultIssueComment c = (DefaultIssueComment) comment;
       if (c.isNew()) {
         IssueChangeDto changeDto = IssueChangeDto.of(c);
-        mapper.insert(changeDto);
+        batch.insertChange(changeDto);
       }
     }
     FieldDiffs diffs = issue.currentChange();
     if (!issue.isNew() && diffs != null) {
       IssueChangeDto changeDto = IssueChangeDto.of(issue.key(), diffs);
-      mapper.insert(changeDto);
+      batch.insertChange(changeDto);
     }
   }
 
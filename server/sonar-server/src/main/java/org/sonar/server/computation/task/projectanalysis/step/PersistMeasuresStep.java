@@ -23,14 +23,23 @@ import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Multimap;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nonnull;
+import org.sonar.api.utils.System2;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
+import org.sonar.db.component.SnapshotDto;
+import org.sonar.db.component.SnapshotQuery;
 import org.sonar.db.measure.MeasureDao;
 import org.sonar.db.measure.MeasureDto;
+import org.sonar.db.measure.MeasureHistoryDao;
+import org.sonar.db.measure.MeasureHistoryDto;
+import org.sonar.db.measure.PastMeasureQuery;
+import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolder;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
 import org.sonar.server.computation.task.projectanalysis.component.DepthTraversalTypeAwareCrawler;
@@ -45,9 +54,14 @@ import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository
 import org.sonar.server.computation.task.step.ComputationStep;
 
 import static com.google.common.collect.FluentIterable.from;
+import static org.sonar.core.util.stream.Collectors.toList;
+import static org.sonar.core.util.stream.Collectors.uniqueIndex;
+import static org.sonar.db.measure.MeasureHistoryDto.historyValueOf;
+import static org.sonar.db.measure.MeasureHistoryDto.isSupportedValueType;
 import static org.sonar.api.measures.CoreMetrics.CLASS_COMPLEXITY_DISTRIBUTION_KEY;
 import static org.sonar.api.measures.CoreMetrics.FILE_COMPLEXITY_DISTRIBUTION_KEY;
 import static org.sonar.api.measures.CoreMetrics.FUNCTION_COMPLEXITY_DISTRIBUTION_KEY;
+import static org.sonar.db.component.SnapshotDto.STATUS_PROCESSED;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
 
 public class PersistMeasuresStep implements ComputationStep {
@@ -65,14 +79,18 @@ public class PersistMeasuresStep implements ComputationStep {
   private final MeasureToMeasureDto measureToMeasureDto;
   private final TreeRootHolder treeRootHolder;
   private final MeasureRepository measureRepository;
+  private final AnalysisMetadataHolder analysisMetadataHolder;
+  private final System2 system2;
 
   public PersistMeasuresStep(DbClient dbClient, MetricRepository metricRepository, MeasureToMeasureDto measureToMeasureDto,
-    TreeRootHolder treeRootHolder, MeasureRepository measureRepository) {
+    TreeRootHolder treeRootHolder, MeasureRepository measureRepository, AnalysisMetadataHolder analysisMetadataHolder, System2 system2) {
     this.dbClient = dbClient;
     this.metricRepository = metricRepository;
     this.measureToMeasureDto = measureToMeasureDto;
     this.treeRootHolder = treeRootHolder;
     this.measureRepository = measureRepository;
+    this.analysisMetadataHolder = analysisMetadataHolder;
+    this.system2 = system2;
   }
 
   @Override
@@ -84,13 +102,94 @@ public class PersistMeasuresStep implements ComputationStep {
   public void execute() {
     DbSession dbSession = dbClient.openSession(true);
     try {
-      new DepthTraversalTypeAwareCrawler(new MeasureVisitor(dbSession)).visit(treeRootHolder.getRoot());
+      Component root = treeRootHolder.getRoot();
+      new DepthTraversalTypeAwareCrawler(new MeasureVisitor(dbSession)).visit(root);
+      if (root.getType() == Component.Type.PROJECT || root.getType() == Component.Type.VIEW) {
+        persistHistory(dbSession, root);
+      }
       dbSession.commit();
     } finally {
       dbSession.close();
     }
   }
 
+  /**
+   * Appends the numeric measures of the root component to its history in table MEASURE_HISTORY, which
+   * is read by the web service api/measures/search_history instead of the measures of all the past analyses.
+   * The history of a metric is created from the existing measures the first time it is persisted.
+   */
+  private void persistHistory(DbSession dbSession, Component root) {
+    Map<Integer, Metric> metricsById = new HashMap<>();
+    Map<Integer, Double> currentValues = new HashMap<>();
+    for (Map.Entry<String, Measure> entry : measureRepository.getRawMeasures(root).entries()) {
+      Metric metric = metricRepository.getByKey(entry.getKey());
+      Measure measure = entry.getValue();
+      if (measure.getDeveloper() == null && isSupportedValueType(metric.getType().name())) {
+        Double value = historyValueOf(metric.getKey(), measureToMeasureDto.toMeasureDto(measure, metric, root));
+        if (value != null) {
+          metricsById.put(metric.getId(), metric);
+          currentValues.put(metric.getId(), value);
+        }
+      }
+    }
+    if (currentValues.isEmpty()) {
+      return;
+    }
+
+    Map<String, Long> pastAnalysisDates = dbClient.snapshotDao()
+      .selectAnalysesByQuery(dbSession, new SnapshotQuery().setComponentUuid(root.getUuid()).setStatus(STATUS_PROCESSED))
+      .stream()
+      .collect(uniqueIndex(SnapshotDto::getUuid, SnapshotDto::getCreatedAt));
+    MeasureHistoryDao historyDao = dbClient.measureHistoryDao();
+    Map<Integer, MeasureHistoryDto> existingHistories = historyDao.selectByComponentUuidAndMetricIds(dbSession, root.getUuid(), currentValues.keySet())
+      .stream()
+      .collect(uniqueIndex(MeasureHistoryDto::getMetricId));
+    Map<Integer, List<MeasureHistoryDto.Point>> pastHistories = loadPastHistories(dbSession, root, metricsById, existingHistories, pastAnalysisDates);
+
+    String analysisUuid = analysisMetadataHolder.getUuid();
+    long analysisDate = analysisMetadataHolder.getAnalysisDate();
+    long now = system2.now();
+    for (Map.Entry<Integer, Double> currentValue : currentValues.entrySet()) {
+      int metricId = currentValue.getKey();
+      MeasureHistoryDto existingHistory = existingHistories.get(metricId);
+      List<MeasureHistoryDto.Point> history = existingHistory == null ? pastHistories.get(metricId) : existingHistory.getHistory();
+      // drop the analyses deleted by the housekeeping
+      history.removeIf(point -> !pastAnalysisDates.containsKey(point.getAnalysisUuid()));
+      history.add(new MeasureHistoryDto.Point(analysisUuid, analysisDate, currentValue.getValue()));
+      MeasureHistoryDto dto = new MeasureHistoryDto()
+        .setComponentUuid(root.getUuid())
+        .setMetricId(metricId)
+        .setHistory(history)
+        .setUpdatedAt(now);
+      // session is in batch mode, so the count of updated rows can't be used to know if the row exists
+      if (existingHistory == null) {
+        historyDao.insert(dbSession, dto);
+      } else {
+        historyDao.update(dbSession, dto);
+      }
+    }
+  }
+
+  private Map<Integer, List<MeasureHistoryDto.Point>> loadPastHistories(DbSession dbSession, Component root, Map<Integer, Metric> metricsById,
+    Map<Integer, MeasureHistoryDto> existingHistories, Map<String, Long> pastAnalysisDates) {
+    List<Integer> missingMetricIds = metricsById.keySet().stream()
+      .filter(metricId -> !existingHistories.containsKey(metricId))
+      .collect(toList());
+    Map<Integer, List<MeasureHistoryDto.Point>> histories = new HashMap<>();
+    missingMetricIds.forEach(metricId -> histories.put(metricId, new ArrayList<>()));
+    if (missingMetricIds.isEmpty() || pastAnalysisDates.isEmpty()) {
+      return histories;
+    }
+    for (MeasureDto pastMeasure : dbClient.measureDao().selectPastMeasures(dbSession, new PastMeasureQuery(root.getUuid(), missingMetricIds, null, null))) {
+      Long date = pastAnalysisDates.get(pastMeasure.getAnalysisUuid());
+      Double value = historyValueOf(metricsById.get(pastMeasure.getMetricId()).getKey(), pastMeasure);
+      if (date != null && value != null) {
+        histories.get(pastMeasure.getMetricId()).add(new MeasureHistoryDto.Point(pastMeasure.getAnalysisUuid(), date, value));
+      }
+    }
+    return histories;
+  }
+
   private class MeasureVisitor extends TypeAwareVisitorAdapter {
     private final DbSession session;
 
@@ -0,0 +1,331 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.webhook;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.CheckForNull;
+import okhttp3.HttpUrl;
+import org.picocontainer.Startable;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Calls webhooks from a dedicated pool of threads, so that Compute Engine workers
+ * don't wait for the remote HTTP servers:
+ * <ul>
+ *   <li>the number of pending deliveries is bounded. When the limit is reached, the webhook
+ *   is called synchronously by the Compute Engine worker, without retry</li>
+ *   <li>the number of concurrent calls to the same host is bounded. Deliveries to a busy host
+ *   wait in a queue and are started as soon as a call to this host completes. The queues of
+ *   hosts without pending deliveries are released</li>
+ *   <li>connectivity errors and HTTP statuses 429 and 5xx are retried with an exponential backoff,
+ *   which is capped</li>
+ * </ul>
+ * Pending deliveries are kept in memory only, hence the bound. Those which are still pending when
+ * the Compute Engine stops are persisted as failed.
+ */
+@ComputeEngineSide
+public class WebhookDispatcherImpl implements WebhookDispatcher, Startable {
+
+  private static final Logger LOGGER = Loggers.get(WebhookDispatcherImpl.class);
+  private static final int WORKERS = 4;
+  private static final int MAX_PENDING_DELIVERIES = 1_000;
+  private static final int MAX_CONCURRENT_CALLS_PER_HOST = 2;
+  private static final int MAX_ATTEMPTS = 3;
+  private static final long INITIAL_BACKOFF_MS = 2_000L;
+  private static final long MAX_BACKOFF_MS = 60_000L;
+  private static final long STOP_TIMEOUT_MS = 10_000L;
+  private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+  private final WebhookCaller caller;
+  private final WebhookDeliveryStorage deliveryStorage;
+  private final System2 system;
+  private final Settings settings;
+  // guarded by itself
+  private final Map<String, HostCalls> callsByHost = new HashMap<>();
+  private final Set<DeliveryTask> pendingTasks = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger pendingCount = new AtomicInteger(0);
+  private ScheduledThreadPoolExecutor executor;
+
+  public WebhookDispatcherImpl(WebhookCaller caller, WebhookDeliveryStorage deliveryStorage, System2 system) {
+    this(caller, deliveryStorage, system, new Settings(WORKERS, MAX_PENDING_DELIVERIES, MAX_CONCURRENT_CALLS_PER_HOST, MAX_ATTEMPTS, INITIAL_BACKOFF_MS));
+  }
+
+  @VisibleForTesting
+  WebhookDispatcherImpl(WebhookCaller caller, WebhookDeliveryStorage deliveryStorage, System2 system, Settings settings) {
+    this.caller = caller;
+    this.deliveryStorage = deliveryStorage;
+    this.system = system;
+    this.settings = settings;
+  }
+
+  @Override
+  public void start() {
+    executor = new ScheduledThreadPoolExecutor(settings.workers,
+      new ThreadFactoryBuilder().setNameFormat("Webhook-%d").setDaemon(true).build());
+    executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    executor.setRemoveOnCancelPolicy(true);
+  }
+
+  @Override
+  public void stop() {
+    if (executor == null) {
+      return;
+    }
+    executor.shutdown();
+    try {
+      executor.awaitTermination(STOP_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    executor.shutdownNow();
+    List<DeliveryTask> notDelivered = new ArrayList<>(pendingTasks);
+    if (!notDelivered.isEmpty()) {
+      LOGGER.warn("{} webhook deliveries are cancelled because of shutdown", notDelivered.size());
+      notDelivered.forEach(DeliveryTask::abort);
+    }
+  }
+
+  @Override
+  public void dispatch(Webhook webhook, WebhookPayload payload) {
+    if (executor == null || executor.isShutdown() || !reservePendingDelivery(webhook)) {
+      persist(caller.call(webhook, payload));
+      return;
+    }
+    DeliveryTask task = new DeliveryTask(webhook, payload);
+    pendingTasks.add(task);
+    schedule(task, 0L);
+  }
+
+  private boolean reservePendingDelivery(Webhook webhook) {
+    if (pendingCount.incrementAndGet() > settings.maxPendingDeliveries) {
+      pendingCount.decrementAndGet();
+      LOGGER.debug("Too many pending webhook deliveries. Webhook '{}' is sent synchronously", webhook.getName());
+      return false;
+    }
+    return true;
+  }
+
+  @VisibleForTesting
+  int countPendingDeliveries() {
+    return pendingCount.get();
+  }
+
+  @VisibleForTesting
+  int countHosts() {
+    synchronized (callsByHost) {
+      return callsByHost.size();
+    }
+  }
+
+  /**
+   * @return {@code true} if the task can call its host immediately, else {@code false} if it has been
+   * queued until a call to the same host completes
+   */
+  private boolean acquireHost(DeliveryTask task) {
+    synchronized (callsByHost) {
+      HostCalls calls = callsByHost.computeIfAbsent(task.host, h -> new HostCalls());
+      if (calls.running < settings.maxConcurrentCallsPerHost) {
+        calls.running++;
+        return true;
+      }
+      calls.waiting.add(task);
+      return false;
+    }
+  }
+
+  /**
+   * Hands over the slot of a completed call to the next task waiting for the same host, if any.
+   */
+  private void releaseHost(String host) {
+    DeliveryTask next;
+    synchronized (callsByHost) {
+      HostCalls calls = callsByHost.get(host);
+      next = calls.waiting.poll();
+      if (next == null) {
+        calls.running--;
+        if (calls.running == 0) {
+          callsByHost.remove(host);
+        }
+      }
+    }
+    if (next != null) {
+      DeliveryTask task = next;
+      try {
+        executor.execute(task::call);
+      } catch (RejectedExecutionException e) {
+        // shutdown in progress
+        task.abort();
+      }
+    }
+  }
+
+  private void schedule(DeliveryTask task, long delayMs) {
+    try {
+      executor.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      // shutdown in progress
+      task.abort();
+    }
+  }
+
+  private void persist(WebhookDelivery delivery) {
+    log(delivery);
+    try {
+      deliveryStorage.persist(delivery);
+    } catch (RuntimeException e) {
+      LOGGER.error("Fail to persist delivery of webhook '{}'", delivery.getWebhook().getName(), e);
+    }
+  }
+
+  private static boolean isRetryable(WebhookDelivery delivery) {
+    if (delivery.getError().isPresent()) {
+      return true;
+    }
+    int status = delivery.getHttpStatus().orElse(0);
+    return status == HTTP_TOO_MANY_REQUESTS || status >= 500;
+  }
+
+  private static String hostOf(String url) {
+    HttpUrl httpUrl = HttpUrl.parse(url);
+    return httpUrl == null ? url : (httpUrl.host() + ":" + httpUrl.port());
+  }
+
+  private static void log(WebhookDelivery delivery) {
+    Optional<String> error = delivery.getErrorMessage();
+    if (error.isPresent()) {
+      LOGGER.debug("Failed to send webhook '{}' | url={} | message={}",
+        delivery.getWebhook().getName(), delivery.getWebhook().getUrl(), error.get());
+    } else {
+      LOGGER.debug("Sent webhook '{}' | url={} | time={}ms | status={}",
+        delivery.getWebhook().getName(), delivery.getWebhook().getUrl(), delivery.getDurationInMs().orElse(-1), delivery.getHttpStatus().orElse(-1));
+    }
+  }
+
+  private static class HostCalls {
+    private int running = 0;
+    private final Deque<DeliveryTask> waiting = new ArrayDeque<>();
+  }
+
+  private class DeliveryTask implements Runnable {
+    private final Webhook webhook;
+    private final WebhookPayload payload;
+    private final String host;
+    private final AtomicBoolean done = new AtomicBoolean(false);
+    private int attempts = 0;
+    @CheckForNull
+    private volatile WebhookDelivery lastDelivery;
+
+    private DeliveryTask(Webhook webhook, WebhookPayload payload) {
+      this.webhook = webhook;
+      this.payload = payload;
+      this.host = hostOf(webhook.getUrl());
+    }
+
+    @Override
+    public void run() {
+      if (!done.get() && acquireHost(this)) {
+        call();
+      }
+    }
+
+    /**
+     * Must be called only when a slot of the host has been acquired
+     */
+    private void call() {
+      WebhookDelivery delivery;
+      try {
+        if (done.get()) {
+          return;
+        }
+        delivery = caller.call(webhook, payload);
+      } finally {
+        releaseHost(host);
+      }
+      attempts++;
+      lastDelivery = delivery;
+      if (delivery.isSuccess() || !isRetryable(delivery) || attempts >= settings.maxAttempts) {
+        finish(delivery);
+      } else {
+        long backoffMs = Math.min(settings.initialBackoffMs << (attempts - 1), MAX_BACKOFF_MS);
+        LOGGER.debug("Webhook '{}' will be retried in {}ms", webhook.getName(), backoffMs);
+        schedule(this, backoffMs);
+      }
+    }
+
+    /**
+     * Persist the last attempt, or a failure if the webhook has never been called
+     */
+    private void abort() {
+      WebhookDelivery delivery = lastDelivery;
+      if (delivery == null) {
+        delivery = new WebhookDelivery.Builder()
+          .setWebhook(webhook)
+          .setPayload(payload)
+          .setAt(system.now())
+          .setError(new IllegalStateException("Webhook was not sent before shutdown of Compute Engine"))
+          .build();
+      }
+      finish(delivery);
+    }
+
+    private void finish(WebhookDelivery delivery) {
+      if (done.compareAndSet(false, true)) {
+        pendingTasks.remove(this);
+        pendingCount.decrementAndGet();
+        persist(delivery);
+      }
+    }
+  }
+
+  @VisibleForTesting
+  static class Settings {
+    private final int workers;
+    private final int maxPendingDeliveries;
+    private final int maxConcurrentCallsPerHost;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+
+    Settings(int workers, int maxPendingDeliveries, int maxConcurrentCallsPerHost, int maxAttempts, long initialBackoffMs) {
+      this.workers = workers;
+      this.maxPendingDeliveries = maxPendingDeliveries;
+      this.maxConcurrentCallsPerHost = maxConcurrentCallsPerHost;
+      this.maxAttempts = maxAttempts;
+      this.initialBackoffMs = initialBackoffMs;
+    }
+  }
+}
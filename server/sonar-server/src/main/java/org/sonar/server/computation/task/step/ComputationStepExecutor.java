@@ -24,6 +24,7 @@ import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.util.logs.Profiler;
+import org.sonar.server.computation.monitoring.CeTaskProfiler;
 
 public final class ComputationStepExecutor {
   private static final Logger LOGGER = Loggers.get(ComputationStepExecutor.class);
@@ -31,18 +32,35 @@ public final class ComputationStepExecutor {
   private final ComputationSteps steps;
   @CheckForNull
   private final Listener listener;
+  @CheckForNull
+  private final CeTaskProfiler taskProfiler;
 
   /**
-   * Used when no {@link ComputationStepExecutor.Listener} is available in pico
+   * Used when no {@link ComputationStepExecutor.Listener} nor {@link CeTaskProfiler} is available in pico
    * container.
    */
   public ComputationStepExecutor(ComputationSteps steps) {
-    this(steps, null);
+    this(steps, null, null);
   }
 
+  /**
+   * Used when no {@link CeTaskProfiler} is available in pico container.
+   */
   public ComputationStepExecutor(ComputationSteps steps, @Nullable Listener listener) {
+    this(steps, listener, null);
+  }
+
+  /**
+   * Used when no {@link ComputationStepExecutor.Listener} is available in pico container.
+   */
+  public ComputationStepExecutor(ComputationSteps steps, @Nullable CeTaskProfiler taskProfiler) {
+    this(steps, null, taskProfiler);
+  }
+
+  public ComputationStepExecutor(ComputationSteps steps, @Nullable Listener listener, @Nullable CeTaskProfiler taskProfiler) {
     this.steps = steps;
     this.listener = listener;
+    this.taskProfiler = taskProfiler;
   }
 
   public void execute() {
@@ -60,8 +78,15 @@ public final class ComputationStepExecutor {
 
   private void executeSteps(Profiler stepProfiler) {
     for (ComputationStep step : steps.instances()) {
+      CeTaskProfiler.StepMeasure measure = taskProfiler == null ? null : taskProfiler.startStep();
       stepProfiler.start();
-      step.execute();
+      try {
+        step.execute();
+      } finally {
+        if (measure != null) {
+          taskProfiler.stopStep(measure, step.getDescription());
+        }
+      }
       stepProfiler.stopDebug(step.getDescription());
     }
   }
@@ -24,18 +24,30 @@ import org.apache.commons.lang.StringUtils;
 import org.elasticsearch.action.admin.indices.create.CreateIndexResponse;
 import org.elasticsearch.action.admin.indices.mapping.put.PutMappingResponse;
 import org.elasticsearch.cluster.health.ClusterHealthStatus;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.common.settings.Settings;
 import org.picocontainer.Startable;
 import org.sonar.api.server.ServerSide;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.platform.ParallelStart;
 
 /**
  * Creates/deletes all indices in Elasticsearch during server startup.
+ * <p>
+ * Unless forced by the property "sonar.search.[index].shards", the number of shards of an index is increased
+ * at creation according to the number of documents that it contained before being re-created. When the
+ * property {@link #RESIZE_SHARDS_ON_STARTUP} is enabled, existing indices which have become too big
+ * for their number of shards are re-created, then re-populated by {@link IndexerStartupTask}.
  */
 @ServerSide
+@ParallelStart
 public class IndexCreator implements Startable {
 
+  static final String RESIZE_SHARDS_ON_STARTUP = "sonar.search.resizeShardsOnStartup";
+  static final long DOCUMENTS_PER_SHARD = 5_000_000L;
+  static final int MAX_AUTO_SIZED_SHARDS = 20;
+
   private static final Logger LOGGER = Loggers.get(IndexCreator.class);
 
   /**
@@ -46,10 +58,12 @@ public class IndexCreator implements Startable {
 
   private final EsClient client;
   private final IndexDefinitions definitions;
+  private final org.sonar.api.config.Settings settings;
 
-  public IndexCreator(EsClient client, IndexDefinitions definitions) {
+  public IndexCreator(EsClient client, IndexDefinitions definitions, org.sonar.api.config.Settings settings) {
     this.client = client;
     this.definitions = definitions;
+    this.settings = settings;
   }
 
   @Override
@@ -57,13 +71,21 @@ public class IndexCreator implements Startable {
     // create indices that do not exist or that have a new definition (different mapping, cluster enabled, ...)
     for (IndexDefinitions.Index index : definitions.getIndices().values()) {
       boolean exists = client.prepareIndicesExist(index.getName()).get().isExists();
-      if (exists && needsToDeleteIndex(index)) {
-        LOGGER.info(String.format("Delete index %s (settings changed)", index.getName()));
-        deleteIndex(index.getName());
-        exists = false;
+      long nbOfDocuments = 0L;
+      if (exists) {
+        nbOfDocuments = countDocuments(index.getName());
+        if (needsToDeleteIndex(index)) {
+          LOGGER.info(String.format("Delete index %s (settings changed)", index.getName()));
+          deleteIndex(index.getName());
+          exists = false;
+        } else if (needsToResizeShards(index, nbOfDocuments)) {
+          LOGGER.info(String.format("Delete index %s (%d documents are too many for its shards)", index.getName(), nbOfDocuments));
+          deleteIndex(index.getName());
+          exists = false;
+        }
       }
       if (!exists) {
-        createIndex(index);
+        createIndex(index, nbOfDocuments);
       }
     }
   }
@@ -73,11 +95,27 @@ public class IndexCreator implements Startable {
     // nothing to do
   }
 
-  private void createIndex(IndexDefinitions.Index index) {
-    LOGGER.info(String.format("Create index %s", index.getName()));
+  /**
+   * Number of shards required by the specified number of documents. It's never less than
+   * the default number of shards of the index.
+   */
+  static int numberOfShards(int defaultNbOfShards, long nbOfDocuments) {
+    long requiredShards = (nbOfDocuments + DOCUMENTS_PER_SHARD - 1) / DOCUMENTS_PER_SHARD;
+    return (int) Math.max(defaultNbOfShards, Math.min(MAX_AUTO_SIZED_SHARDS, requiredShards));
+  }
+
+  private static int defaultNumberOfShards(IndexDefinitions.Index index) {
+    return index.getSettings().getAsInt(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1);
+  }
+
+  private void createIndex(IndexDefinitions.Index index, long nbOfDocuments) {
     Settings.Builder settings = Settings.builder();
     settings.put(index.getSettings());
+    if (index.isShardsAutoSized()) {
+      settings.put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, numberOfShards(defaultNumberOfShards(index), nbOfDocuments));
+    }
     settings.put(SETTING_HASH, new IndexDefinitionHash().of(index));
+    LOGGER.info(String.format("Create index %s (%s shards)", index.getName(), settings.get(IndexMetaData.SETTING_NUMBER_OF_SHARDS)));
     CreateIndexResponse indexResponse = client
       .prepareCreate(index.getName())
       .setSettings(settings)
@@ -105,13 +143,36 @@ public class IndexCreator implements Startable {
     client.nativeClient().admin().indices().prepareDelete(indexName).get();
   }
 
+  private long countDocuments(String indexName) {
+    return client.prepareSearch(indexName).setSize(0).get().getHits().getTotalHits();
+  }
+
   private boolean needsToDeleteIndex(IndexDefinitions.Index index) {
     boolean toBeDeleted = false;
-    String hash = client.nativeClient().admin().indices().prepareGetSettings(index.getName()).get().getSetting(index.getName(), "index." + SETTING_HASH);
+    String hash = getSetting(index.getName(), "index." + SETTING_HASH);
     if (hash != null) {
       String defHash = new IndexDefinitionHash().of(index);
       toBeDeleted = !StringUtils.equals(hash, defHash);
     }
     return toBeDeleted;
   }
+
+  /**
+   * Re-creating an index implies to re-index all its documents, so it's done only when the number of
+   * shards has to be at least doubled.
+   */
+  private boolean needsToResizeShards(IndexDefinitions.Index index, long nbOfDocuments) {
+    if (!index.isShardsAutoSized() || !settings.getBoolean(RESIZE_SHARDS_ON_STARTUP)) {
+      return false;
+    }
+    String currentShards = getSetting(index.getName(), IndexMetaData.SETTING_NUMBER_OF_SHARDS);
+    if (currentShards == null) {
+      return false;
+    }
+    return numberOfShards(defaultNumberOfShards(index), nbOfDocuments) >= 2 * Integer.parseInt(currentShards);
+  }
+
+  private String getSetting(String indexName, String settingKey) {
+    return client.nativeClient().admin().indices().prepareGetSettings(indexName).get().getSetting(indexName, settingKey);
+  }
 }
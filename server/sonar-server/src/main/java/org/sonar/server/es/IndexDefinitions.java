@@ -39,10 +39,12 @@ public class IndexDefinitions implements Startable {
     private final String name;
     private final Settings settings;
     private final Map<String, IndexType> types;
+    private final boolean shardsAutoSized;
 
     Index(NewIndex newIndex) {
       this.name = newIndex.getName();
       this.settings = newIndex.getSettings().build();
+      this.shardsAutoSized = newIndex.isShardsAutoSized();
       ImmutableMap.Builder<String, IndexType> builder = ImmutableMap.builder();
       for (NewIndex.NewIndexType newIndexType : newIndex.getTypes().values()) {
         IndexType type = new IndexType(newIndexType);
@@ -62,6 +64,10 @@ public class IndexDefinitions implements Startable {
     public Map<String, IndexType> getTypes() {
       return types;
     }
+
+    public boolean isShardsAutoSized() {
+      return shardsAutoSized;
+    }
   }
 
   /**
@@ -46,9 +46,12 @@ import static org.sonar.server.es.DefaultIndexSettingsElement.UUID_MODULE_ANALYZ
 
 public class NewIndex {
 
+  private static final String REFRESH_INTERVAL = "index.refresh_interval";
+
   private final String indexName;
   private final Settings.Builder settings = DefaultIndexSettings.defaults();
   private final Map<String, NewIndexType> types = new LinkedHashMap<>();
+  private boolean shardsAutoSized = false;
 
   NewIndex(String indexName) {
     Preconditions.checkArgument(StringUtils.isAllLowerCase(indexName), "Index name must be lower-case: " + indexName);
@@ -56,7 +59,7 @@ public class NewIndex {
   }
 
   public void refreshHandledByIndexer() {
-    getSettings().put("index.refresh_interval", "-1");
+    getSettings().put(REFRESH_INTERVAL, "-1");
   }
 
   public String getName() {
@@ -82,6 +85,7 @@ public class NewIndex {
     int shards = settings.getInt(format("sonar.search.%s.shards", indexName));
     if (shards == 0) {
       shards = defaultNbOfShards;
+      shardsAutoSized = true;
     }
     int replicas = settings.getInt(format("sonar.search.%s.replicas", indexName));
     if (replicas == 0) {
@@ -89,6 +93,19 @@ public class NewIndex {
     }
     getSettings().put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, shards);
     getSettings().put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, replicas);
+    String refreshInterval = settings.getString(format("sonar.search.%s.refreshInterval", indexName));
+    if (refreshInterval != null) {
+      getSettings().put(REFRESH_INTERVAL, refreshInterval);
+    }
+  }
+
+  /**
+   * Whether the number of shards can be increased by {@link IndexCreator} according to the number
+   * of documents of the index. It's not the case when the number of shards is forced by
+   * the property "sonar.search.[index].shards".
+   */
+  public boolean isShardsAutoSized() {
+    return shardsAutoSized;
   }
 
   public static class NewIndexType {
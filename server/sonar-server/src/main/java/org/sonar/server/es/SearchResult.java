@@ -37,6 +37,15 @@ public class SearchResult<DOC extends BaseDoc> {
     this.docs = EsUtils.convertToDocs(response.getHits(), converter);
   }
 
+  /**
+   * Facets are not loaded from the response of the request, for example because they have been cached.
+   */
+  public SearchResult(List<DOC> docs, Facets facets, long total) {
+    this.docs = docs;
+    this.facets = facets;
+    this.total = total;
+  }
+
   public List<DOC> getDocs() {
     return docs;
   }
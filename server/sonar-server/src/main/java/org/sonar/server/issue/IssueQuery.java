@@ -63,6 +63,7 @@ public class IssueQuery {
   private final Collection<String> directories;
   private final Collection<String> files;
   private final Collection<String> views;
+  private final Collection<String> routingProjects;
   private final Collection<RuleKey> rules;
   private final Collection<String> assignees;
   private final Collection<String> authors;
@@ -94,6 +95,7 @@ public class IssueQuery {
     this.directories = defaultCollection(builder.directories);
     this.files = defaultCollection(builder.files);
     this.views = defaultCollection(builder.views);
+    this.routingProjects = defaultCollection(builder.routingProjects);
     this.rules = defaultCollection(builder.rules);
     this.assignees = defaultCollection(builder.assignees);
     this.authors = defaultCollection(builder.authors);
@@ -158,6 +160,14 @@ public class IssueQuery {
     return views;
   }
 
+  /**
+   * UUIDs of the projects containing the components the query is restricted to. They do not filter
+   * issues, but allow to send the request to only the shards of the index which contain these projects.
+   */
+  public Collection<String> routingProjectUuids() {
+    return routingProjects;
+  }
+
   public Collection<RuleKey> rules() {
     return rules;
   }
@@ -267,6 +277,7 @@ public class IssueQuery {
     private Collection<String> directories;
     private Collection<String> files;
     private Collection<String> views;
+    private Collection<String> routingProjects;
     private Collection<RuleKey> rules;
     private Collection<String> assignees;
     private Collection<String> authors;
@@ -345,6 +356,11 @@ public class IssueQuery {
       return this;
     }
 
+    public Builder routingProjectUuids(@Nullable Collection<String> l) {
+      this.routingProjects = l;
+      return this;
+    }
+
     public Builder rules(@Nullable Collection<RuleKey> rules) {
       this.rules = rules;
       return this;
@@ -370,6 +370,7 @@ public class IssueQueryService {
         break;
       case Qualifiers.MODULE:
         builder.moduleRootUuids(componentUuids);
+        addRoutingProjects(builder, componentService.getByUuids(session, componentUuids));
         break;
       case Qualifiers.DIRECTORY:
         addDirectories(builder, session, componentUuids);
@@ -377,6 +378,7 @@ public class IssueQueryService {
       case Qualifiers.FILE:
       case Qualifiers.UNIT_TEST_FILE:
         builder.fileUuids(componentUuids);
+        addRoutingProjects(builder, componentService.getByUuids(session, componentUuids));
         break;
       default:
         throw new IllegalArgumentException("Unable to set search root context for components " + Joiner.on(',').join(componentUuids));
@@ -414,12 +416,18 @@ public class IssueQueryService {
   private void addDirectories(IssueQuery.Builder builder, DbSession session, Collection<String> componentUuids) {
     Collection<String> directoryModuleUuids = Sets.newHashSet();
     Collection<String> directoryPaths = Sets.newHashSet();
-    for (ComponentDto directory : componentService.getByUuids(session, componentUuids)) {
+    Collection<ComponentDto> directories = componentService.getByUuids(session, componentUuids);
+    for (ComponentDto directory : directories) {
       directoryModuleUuids.add(directory.moduleUuid());
       directoryPaths.add(directory.path());
     }
     builder.moduleUuids(directoryModuleUuids);
     builder.directories(directoryPaths);
+    addRoutingProjects(builder, directories);
+  }
+
+  private static void addRoutingProjects(IssueQuery.Builder builder, Collection<ComponentDto> components) {
+    builder.routingProjectUuids(Sets.newHashSet(Collections2.transform(components, ComponentDto::projectUuid)));
   }
 
   private Collection<String> componentUuids(DbSession session, @Nullable Collection<String> componentKeys) {
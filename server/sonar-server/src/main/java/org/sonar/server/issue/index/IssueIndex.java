@@ -197,7 +197,7 @@ public class IssueIndex extends BaseIndex {
 
     configureSorting(query, requestBuilder);
     configurePagination(options, requestBuilder);
-    configureRouting(query, options, requestBuilder);
+    configureRouting(query, options.getFacets(), requestBuilder);
 
     QueryBuilder esQuery = matchAllQuery();
     BoolQueryBuilder esFilter = boolQuery();
@@ -221,16 +221,30 @@ public class IssueIndex extends BaseIndex {
    * Optimization - do not send ES request to all shards when scope is restricted
    * to a set of projects. Because project UUID is used for routing, the request
    * can be sent to only the shards containing the specified projects.
-   * Note that sticky facets may involve all projects, so this optimization must be
-   * disabled when facets are enabled.
+   * Note that a sticky facet ignores the filter on its own field, so this optimization
+   * is disabled when such a facet may involve issues of other projects.
    */
-  private static void configureRouting(IssueQuery query, SearchOptions options, SearchRequestBuilder requestBuilder) {
-    Collection<String> uuids = query.projectUuids();
-    if (!uuids.isEmpty() && options.getFacets().isEmpty()) {
+  private static void configureRouting(IssueQuery query, Collection<String> facets, SearchRequestBuilder requestBuilder) {
+    Collection<String> uuids = getRoutingProjectUuids(query, facets);
+    if (!uuids.isEmpty()) {
       requestBuilder.setRouting(uuids.toArray(new String[uuids.size()]));
     }
   }
 
+  private static Collection<String> getRoutingProjectUuids(IssueQuery query, Collection<String> facets) {
+    if (BooleanUtils.isTrue(query.onComponentOnly())) {
+      return Collections.emptyList();
+    }
+    if (!query.projectUuids().isEmpty() && !facets.contains(PARAM_PROJECT_UUIDS)) {
+      return query.projectUuids();
+    }
+    boolean componentFilterIgnoredByFacet = facets.contains(PARAM_MODULE_UUIDS) || facets.contains(PARAM_DIRECTORIES) || facets.contains(PARAM_FILE_UUIDS);
+    if (!componentFilterIgnoredByFacet) {
+      return query.routingProjectUuids();
+    }
+    return Collections.emptyList();
+  }
+
   private void configureSorting(IssueQuery query, SearchRequestBuilder esRequest) {
     String sortField = query.sort();
     if (sortField != null) {
@@ -438,7 +452,7 @@ public class IssueIndex extends BaseIndex {
     long startTime;
     Date createdAfter = query.createdAfter();
     if (createdAfter == null) {
-      Optional<Long> minDate = getMinCreatedAt(filters, esQuery);
+      Optional<Long> minDate = getMinCreatedAt(query, filters, esQuery);
       if (!minDate.isPresent()) {
         return Optional.empty();
       }
@@ -475,11 +489,13 @@ public class IssueIndex extends BaseIndex {
     return Optional.of(dateHistogram);
   }
 
-  private Optional<Long> getMinCreatedAt(Map<String, QueryBuilder> filters, QueryBuilder esQuery) {
+  private Optional<Long> getMinCreatedAt(IssueQuery query, Map<String, QueryBuilder> filters, QueryBuilder esQuery) {
     String facetNameAndField = IssueIndexDefinition.FIELD_ISSUE_FUNC_CREATED_AT;
     SearchRequestBuilder esRequest = getClient()
       .prepareSearch(IssueIndexDefinition.INDEX_TYPE_ISSUE)
-      .setSize(0);
+      .setSize(0)
+      .setRequestCache(true);
+    configureRouting(query, Collections.emptyList(), esRequest);
     BoolQueryBuilder esFilter = boolQuery();
     filters.values().stream().filter(Objects::nonNull).forEach(esFilter::must);
     if (esFilter.hasClauses()) {
@@ -638,7 +654,9 @@ public class IssueIndex extends BaseIndex {
     SearchRequestBuilder requestBuilder = getClient()
       .prepareSearch(IssueIndexDefinition.INDEX_TYPE_ISSUE)
       // Avoids returning search hits
-      .setSize(0);
+      .setSize(0)
+      .setRequestCache(true);
+    configureRouting(query, Collections.emptyList(), requestBuilder);
 
     requestBuilder.setQuery(boolQuery().must(QueryBuilders.matchAllQuery()).filter(createBoolFilter(query)));
 
@@ -687,6 +705,8 @@ public class IssueIndex extends BaseIndex {
 
     SearchRequestBuilder requestBuilder = getClient()
       .prepareSearch(IssueIndexDefinition.INDEX_TYPE_ISSUE)
+      // issues of the component are all stored on the shard of its project
+      .setRouting(component.projectUuid())
       .setSearchType(SearchType.SCAN)
       .setScroll(TimeValue.timeValueMinutes(EsUtils.SCROLL_TIME_IN_MINUTES))
       .setSize(10_000)
@@ -29,6 +29,10 @@ import org.elasticsearch.action.bulk.BulkRequestBuilder;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.sonar.api.resources.Qualifiers;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
 import org.sonar.server.es.BulkIndexer;
 import org.sonar.server.es.BulkIndexer.Size;
 import org.sonar.server.es.EsClient;
@@ -46,15 +50,18 @@ import static org.sonar.server.issue.index.IssueIndexDefinition.INDEX_TYPE_ISSUE
 
 public class IssueIndexer implements ProjectIndexer, NeedAuthorizationIndexer, StartupIndexer {
 
+  private static final Logger LOGGER = Loggers.get(IssueIndexer.class);
   private static final String DELETE_ERROR_MESSAGE = "Fail to delete some issues of project [%s]";
   private static final int MAX_BATCH_SIZE = 1000;
   private static final AuthorizationScope AUTHORIZATION_SCOPE = new AuthorizationScope(INDEX_TYPE_ISSUE, project -> Qualifiers.PROJECT.equals(project.getQualifier()));
 
   private final EsClient esClient;
+  private final DbClient dbClient;
   private final IssueIteratorFactory issueIteratorFactory;
 
-  public IssueIndexer(EsClient esClient, IssueIteratorFactory issueIteratorFactory) {
+  public IssueIndexer(EsClient esClient, DbClient dbClient, IssueIteratorFactory issueIteratorFactory) {
     this.esClient = esClient;
+    this.dbClient = dbClient;
     this.issueIteratorFactory = issueIteratorFactory;
   }
 
@@ -102,6 +109,40 @@ public class IssueIndexer implements ProjectIndexer, NeedAuthorizationIndexer, S
     doIndex(createBulkIndexer(Size.REGULAR), issueKeys);
   }
 
+  /**
+   * Indexes only the issues created or updated by the analysis of a project, instead of all
+   * the issues of the project. The project is fully re-indexed if its issues in index are then not
+   * consistent with database, for example because a previous indexing failed.
+   */
+  public void indexOnAnalysis(String projectUuid, Collection<String> issueKeys) {
+    if (!issueKeys.isEmpty()) {
+      doIndex(createBulkIndexer(Size.REGULAR), issueKeys);
+    }
+    long indexedIssues = countIndexedIssues(projectUuid);
+    long dbIssues = countDbIssues(projectUuid);
+    if (indexedIssues != dbIssues) {
+      LOGGER.info("Index all issues of project {} ({} issues in index, {} in database)", projectUuid, indexedIssues, dbIssues);
+      deleteProject(projectUuid);
+      doIndex(createBulkIndexer(Size.REGULAR), projectUuid);
+    }
+  }
+
+  private long countIndexedIssues(String projectUuid) {
+    return esClient.prepareSearch(INDEX_TYPE_ISSUE)
+      .setRouting(projectUuid)
+      .setSize(0)
+      .setQuery(boolQuery().must(termQuery(FIELD_ISSUE_PROJECT_UUID, projectUuid)))
+      .get()
+      .getHits()
+      .getTotalHits();
+  }
+
+  private long countDbIssues(String projectUuid) {
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      return dbClient.issueDao().countByProjectUuid(dbSession, projectUuid);
+    }
+  }
+
   private void doIndex(BulkIndexer bulk, Collection<String> issueKeys) {
     try (IssueIterator issues = issueIteratorFactory.createForIssueKeys(issueKeys)) {
       doIndex(bulk, issues);
@@ -40,6 +40,7 @@ import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIEL
 import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURES_KEY;
 import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURES_VALUE;
 import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_NAME;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_ORGANIZATION_KEY;
 import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_ORGANIZATION_UUID;
 import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_QUALITY_GATE_STATUS;
 import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_TAGS;
@@ -49,7 +50,11 @@ public class ProjectMeasuresDoc extends BaseDoc {
   public static final Map<String, Integer> QUALITY_GATE_STATUS = ImmutableMap.of(OK.name(), 1, WARN.name(), 2, ERROR.name(), 3);
 
   public ProjectMeasuresDoc() {
-    super(new HashMap<>(7));
+    super(new HashMap<>(8));
+  }
+
+  public ProjectMeasuresDoc(Map<String, Object> fields) {
+    super(fields);
   }
 
   @Override
@@ -81,6 +86,16 @@ public class ProjectMeasuresDoc extends BaseDoc {
     return this;
   }
 
+  @CheckForNull
+  public String getOrganizationKey() {
+    return getNullableField(FIELD_ORGANIZATION_KEY);
+  }
+
+  public ProjectMeasuresDoc setOrganizationKey(@Nullable String s) {
+    setField(FIELD_ORGANIZATION_KEY, s);
+    return this;
+  }
+
   public String getKey() {
     return getField(FIELD_KEY);
   }
@@ -101,7 +116,7 @@ public class ProjectMeasuresDoc extends BaseDoc {
 
   @CheckForNull
   public Date getAnalysedAt() {
-    return getNullableField(FIELD_ANALYSED_AT);
+    return getNullableFieldAsDate(FIELD_ANALYSED_AT);
   }
 
   public ProjectMeasuresDoc setAnalysedAt(@Nullable Date d) {
@@ -138,6 +153,10 @@ public class ProjectMeasuresDoc extends BaseDoc {
     return this;
   }
 
+  public List<String> getTags() {
+    return getField(FIELD_TAGS);
+  }
+
   public ProjectMeasuresDoc setTags(List<String> tags) {
     setField(FIELD_TAGS, tags);
     return this;
@@ -0,0 +1,98 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure.index;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import javax.annotation.CheckForNull;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.sonar.server.es.Facets;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Facets computed by {@link ProjectMeasuresIndex}, which are requested again by the projects page each time
+ * a filter is changed.
+ * <p>
+ * Projects and permissions are indexed by the Compute Engine as well as by the web server, so entries
+ * are not invalidated on indexing but expire after {@link #TTL_SECONDS} seconds. Keys contain the filters
+ * of the request, including the authorization filter of the user, so that facets are cached per user.
+ * As a consequence the number of entries is bounded, and keys are hashed so that their size does not depend
+ * on the number of groups of the user.
+ */
+class ProjectMeasuresFacetCache {
+
+  private static final int MAX_ENTRIES = 1_000;
+  static final long TTL_SECONDS = 30L;
+
+  private final Cache<String, Facets> cache;
+
+  ProjectMeasuresFacetCache() {
+    this(Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  ProjectMeasuresFacetCache(Ticker ticker) {
+    this.cache = CacheBuilder.newBuilder()
+      .maximumSize(MAX_ENTRIES)
+      .expireAfterWrite(TTL_SECONDS, SECONDS)
+      .ticker(ticker)
+      .build();
+  }
+
+  static String createKey(Collection<String> facets, Map<String, QueryBuilder> filters) {
+    StringBuilder key = new StringBuilder();
+    key.append(new TreeSet<>(facets));
+    new TreeMap<>(filters).forEach((name, filter) -> key.append('|').append(name).append('=').append(filter));
+    return Hashing.sha256().hashString(key, UTF_8).toString();
+  }
+
+  @CheckForNull
+  Facets get(String key) {
+    Facets facets = cache.getIfPresent(key);
+    return facets == null ? null : copy(facets);
+  }
+
+  void put(String key, Facets facets) {
+    cache.put(key, copy(facets));
+  }
+
+  long size() {
+    return cache.size();
+  }
+
+  /**
+   * Facets are mutable, for example web services add the selected values which have no results
+   */
+  private static Facets copy(Facets facets) {
+    LinkedHashMap<String, LinkedHashMap<String, Long>> copy = new LinkedHashMap<>();
+    facets.getAll().forEach((name, buckets) -> copy.put(name, buckets == null ? null : new LinkedHashMap<>(buckets)));
+    return new Facets(copy);
+  }
+}
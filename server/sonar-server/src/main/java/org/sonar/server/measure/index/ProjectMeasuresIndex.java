@@ -23,6 +23,7 @@ import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Multimap;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,8 +32,11 @@ import java.util.Set;
 import java.util.stream.IntStream;
 import javax.annotation.Nullable;
 import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.aggregations.AbstractAggregationBuilder;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation.Bucket;
@@ -45,8 +49,9 @@ import org.sonar.core.util.stream.Collectors;
 import org.sonar.server.es.BaseIndex;
 import org.sonar.server.es.DefaultIndexSettingsElement;
 import org.sonar.server.es.EsClient;
-import org.sonar.server.es.SearchIdResult;
+import org.sonar.server.es.Facets;
 import org.sonar.server.es.SearchOptions;
+import org.sonar.server.es.SearchResult;
 import org.sonar.server.es.StickyFacetBuilder;
 import org.sonar.server.es.textsearch.ComponentTextSearchFeature;
 import org.sonar.server.es.textsearch.ComponentTextSearchQueryFactory;
@@ -73,10 +78,12 @@ import static org.sonar.api.measures.CoreMetrics.SECURITY_RATING_KEY;
 import static org.sonar.api.measures.CoreMetrics.SQALE_RATING_KEY;
 import static org.sonar.server.es.EsUtils.escapeSpecialRegexChars;
 import static org.sonar.server.measure.index.ProjectMeasuresDoc.QUALITY_GATE_STATUS;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_ANALYSED_AT;
 import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_KEY;
 import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_LANGUAGES;
 import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURES;
 import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_NAME;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_ORGANIZATION_KEY;
 import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_ORGANIZATION_UUID;
 import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_QUALITY_GATE_STATUS;
 import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_TAGS;
@@ -113,17 +120,25 @@ public class ProjectMeasuresIndex extends BaseIndex {
     .put(FIELD_TAGS, ProjectMeasuresIndex::addTagsFacet)
     .build();
 
+  private static final String[] DISPLAYED_FIELDS = {FIELD_ORGANIZATION_KEY, FIELD_KEY, FIELD_NAME, FIELD_TAGS, FIELD_ANALYSED_AT};
+
   private final AuthorizationTypeSupport authorizationTypeSupport;
+  private final ProjectMeasuresFacetCache facetCache;
 
   public ProjectMeasuresIndex(EsClient client, AuthorizationTypeSupport authorizationTypeSupport) {
     super(client);
     this.authorizationTypeSupport = authorizationTypeSupport;
+    this.facetCache = new ProjectMeasuresFacetCache();
   }
 
-  public SearchIdResult<String> search(ProjectMeasuresQuery query, SearchOptions searchOptions) {
+  /**
+   * Documents contain only the fields required to display the projects: organization key, key, name, tags
+   * and date of last analysis.
+   */
+  public SearchResult<ProjectMeasuresDoc> search(ProjectMeasuresQuery query, SearchOptions searchOptions) {
     SearchRequestBuilder requestBuilder = getClient()
       .prepareSearch(INDEX_TYPE_PROJECT_MEASURES)
-      .setFetchSource(false)
+      .setFetchSource(DISPLAYED_FIELDS, null)
       .setFrom(searchOptions.getOffset())
       .setSize(searchOptions.getLimit());
 
@@ -132,9 +147,37 @@ public class ProjectMeasuresIndex extends BaseIndex {
     filters.values().forEach(esFilter::must);
     requestBuilder.setQuery(esFilter);
 
-    addFacets(requestBuilder, searchOptions, filters, query);
+    String facetCacheKey = null;
+    Facets cachedFacets = null;
+    if (!searchOptions.getFacets().isEmpty()) {
+      facetCacheKey = ProjectMeasuresFacetCache.createKey(searchOptions.getFacets(), filters);
+      cachedFacets = facetCache.get(facetCacheKey);
+      if (cachedFacets == null) {
+        addFacets(requestBuilder, searchOptions, filters, query);
+      }
+    }
     addSort(query, requestBuilder);
-    return new SearchIdResult<>(requestBuilder.get(), id -> id);
+
+    SearchResponse response = requestBuilder.get();
+    Facets facets = cachedFacets;
+    if (facets == null) {
+      facets = new Facets(response);
+      if (facetCacheKey != null) {
+        facetCache.put(facetCacheKey, facets);
+      }
+    }
+    SearchHits hits = response.getHits();
+    List<ProjectMeasuresDoc> docs = Arrays.stream(hits.getHits())
+      .map(ProjectMeasuresIndex::toDoc)
+      .collect(Collectors.toList(hits.getHits().length));
+    return new SearchResult<>(docs, facets, hits.getTotalHits());
+  }
+
+  private static ProjectMeasuresDoc toDoc(SearchHit hit) {
+    Map<String, Object> fields = new HashMap<>();
+    Arrays.stream(DISPLAYED_FIELDS).forEach(field -> fields.put(field, null));
+    Optional.ofNullable(hit.getSource()).ifPresent(fields::putAll);
+    return new ProjectMeasuresDoc(fields).setId(hit.getId());
   }
 
   private static void addSort(ProjectMeasuresQuery query, SearchRequestBuilder requestBuilder) {
@@ -19,6 +19,8 @@
  */
 package org.sonar.server.measure.index;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
 import org.sonar.api.config.Settings;
 import org.sonar.server.es.IndexDefinition;
 import org.sonar.server.es.IndexType;
@@ -31,6 +33,7 @@ public class ProjectMeasuresIndexDefinition implements IndexDefinition {
 
   public static final IndexType INDEX_TYPE_PROJECT_MEASURES = new IndexType("projectmeasures", "projectmeasure");
   public static final String FIELD_ORGANIZATION_UUID = "organizationUuid";
+  public static final String FIELD_ORGANIZATION_KEY = "organizationKey";
   public static final String FIELD_KEY = "key";
   public static final String FIELD_NAME = "name";
   public static final String FIELD_ANALYSED_AT = "analysedAt";
@@ -57,6 +60,7 @@ public class ProjectMeasuresIndexDefinition implements IndexDefinition {
       .requireProjectAuthorization();
 
     mapping.stringFieldBuilder(FIELD_ORGANIZATION_UUID).build();
+    mapping.stringFieldBuilder(FIELD_ORGANIZATION_KEY).disableSearch().build();
     mapping.stringFieldBuilder(FIELD_KEY).disableNorms().addSubFields(SORTABLE_ANALYZER).build();
     mapping.stringFieldBuilder(FIELD_NAME).addSubFields(SORTABLE_ANALYZER, SEARCH_GRAMS_ANALYZER).build();
     mapping.stringFieldBuilder(FIELD_QUALITY_GATE_STATUS).build();
@@ -67,6 +71,7 @@ public class ProjectMeasuresIndexDefinition implements IndexDefinition {
       .addDoubleField(FIELD_MEASURES_VALUE)
       .build();
     mapping.createDateTimeField(FIELD_ANALYSED_AT);
-    mapping.setEnableSource(false);
+    // the fields displayed by api/components/search_projects are loaded from source. Measures are only used for search.
+    mapping.setAttribute("_source", ImmutableSortedMap.<String, Object>of("enabled", true, "excludes", ImmutableList.of(FIELD_MEASURES)));
   }
 }
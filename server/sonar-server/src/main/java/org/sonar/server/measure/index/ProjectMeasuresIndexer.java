@@ -129,6 +129,7 @@ public class ProjectMeasuresIndexer implements ProjectIndexer, NeedAuthorization
     return new ProjectMeasuresDoc()
       .setId(project.getUuid())
       .setOrganizationUuid(project.getOrganizationUuid())
+      .setOrganizationKey(project.getOrganizationKey())
       .setKey(project.getKey())
       .setName(project.getName())
       .setQualityGateStatus(projectMeasures.getMeasures().getQualityGateStatus())
@@ -52,6 +52,7 @@ import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTreeQuery;
 import org.sonar.db.component.SnapshotDto;
 import org.sonar.db.measure.MeasureDto;
+import org.sonar.db.measure.MeasureQuery;
 import org.sonar.db.measure.MeasureTreeQuery;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.db.metric.MetricDtoFunctions;
@@ -69,6 +70,8 @@ import static org.sonar.api.utils.Paging.offset;
 import static org.sonar.server.component.ComponentFinder.ParamNames.BASE_COMPONENT_ID_AND_KEY;
 import static org.sonar.server.component.ComponentFinder.ParamNames.DEVELOPER_ID_AND_KEY;
 import static org.sonar.server.measure.ws.ComponentTreeAction.LEAVES_STRATEGY;
+import static org.sonar.server.measure.ws.ComponentTreeAction.METRIC_PERIOD_SORT;
+import static org.sonar.server.measure.ws.ComponentTreeAction.METRIC_SORT;
 import static org.sonar.server.measure.ws.ComponentTreeAction.STRATEGIES;
 import static org.sonar.server.measure.ws.ComponentTreeAction.WITH_MEASURES_ONLY_METRIC_SORT_FILTER;
 import static org.sonar.server.measure.ws.SnapshotDtoToWsPeriods.snapshotToWsPeriods;
@@ -103,14 +106,16 @@ public class ComponentTreeDataLoader {
       ComponentTreeQuery componentTreeQuery = toComponentTreeQuery(wsRequest, baseComponent);
       List<ComponentDto> components = searchComponents(dbSession, componentTreeQuery);
       List<MetricDto> metrics = searchMetrics(dbSession, wsRequest);
+      List<MetricDto> sortMetrics = selectSortMetrics(metrics, wsRequest);
       Table<String, MetricDto, MeasureDto> measuresByComponentUuidAndMetric = searchMeasuresByComponentUuidAndMetric(dbSession, baseComponent, componentTreeQuery, components,
-        metrics, developerId);
+        sortMetrics, developerId);
 
       components = filterComponents(components, measuresByComponentUuidAndMetric, metrics, wsRequest);
       components = sortComponents(components, wsRequest, metrics, measuresByComponentUuidAndMetric);
 
       int componentCount = components.size();
       components = paginateComponents(components, wsRequest);
+      addMeasuresOfPage(dbSession, baseComponent, components, metrics, sortMetrics, developerId, measuresByComponentUuidAndMetric);
 
       return ComponentTreeData.builder()
         .setBaseComponent(baseComponent)
@@ -169,8 +174,27 @@ public class ComponentTreeDataLoader {
     return metrics;
   }
 
+  /**
+   * Metrics which measures are required on all the components of the tree in order to filter and sort them. Measures of
+   * the other metrics are loaded only for the components of the requested page (see {@link #addMeasuresOfPage}).
+   */
+  private static List<MetricDto> selectSortMetrics(List<MetricDto> metrics, ComponentTreeWsRequest wsRequest) {
+    String metricKeyToSort = wsRequest.getMetricSort();
+    List<String> sortParameters = wsRequest.getSort();
+    boolean sortOnMetric = sortParameters != null && (sortParameters.contains(METRIC_SORT) || sortParameters.contains(METRIC_PERIOD_SORT));
+    if (metricKeyToSort == null || !(sortOnMetric || componentWithMeasuresOnly(wsRequest))) {
+      return Collections.emptyList();
+    }
+    return metrics.stream()
+      .filter(metric -> metricKeyToSort.equals(metric.getKey()))
+      .collect(Collectors.toList());
+  }
+
   private Table<String, MetricDto, MeasureDto> searchMeasuresByComponentUuidAndMetric(DbSession dbSession, ComponentDto baseComponent, ComponentTreeQuery componentTreeQuery,
     List<ComponentDto> components, List<MetricDto> metrics, @Nullable Long developerId) {
+    if (metrics.isEmpty()) {
+      return HashBasedTable.create();
+    }
 
     Map<Integer, MetricDto> metricsById = Maps.uniqueIndex(metrics, MetricDto::getId);
     MeasureTreeQuery measureQuery = MeasureTreeQuery.builder()
@@ -195,6 +219,34 @@ public class ComponentTreeDataLoader {
     return measuresByComponentUuidAndMetric;
   }
 
+  private void addMeasuresOfPage(DbSession dbSession, ComponentDto baseComponent, List<ComponentDto> components, List<MetricDto> metrics, List<MetricDto> sortMetrics,
+    @Nullable Long developerId, Table<String, MetricDto, MeasureDto> measuresByComponentUuidAndMetric) {
+    List<MetricDto> otherMetrics = metrics.stream()
+      .filter(metric -> !sortMetrics.contains(metric))
+      .collect(Collectors.toList(metrics.size()));
+    if (otherMetrics.isEmpty()) {
+      return;
+    }
+
+    Map<Integer, MetricDto> metricsById = Maps.uniqueIndex(otherMetrics, MetricDto::getId);
+    List<String> componentUuids = Stream.concat(Stream.of(baseComponent), components.stream())
+      .map(ComponentDto::uuid)
+      .collect(Collectors.toList(components.size() + 1));
+    MeasureQuery measureQuery = MeasureQuery.builder()
+      .setComponentUuids(baseComponent.projectUuid(), componentUuids)
+      .setMetricIds(new ArrayList<>(metricsById.keySet()))
+      .setPersonId(developerId)
+      .build();
+    for (MeasureDto measureDto : dbClient.measureDao().selectByQuery(dbSession, measureQuery)) {
+      measuresByComponentUuidAndMetric.put(
+        measureDto.getComponentUuid(),
+        metricsById.get(measureDto.getMetricId()),
+        measureDto);
+    }
+
+    addBestValuesToMeasures(measuresByComponentUuidAndMetric, components, otherMetrics);
+  }
+
   /**
    * Conditions for best value measure:
    * <ul>
@@ -20,8 +20,11 @@
 package org.sonar.server.measure.ws;
 
 import com.google.common.collect.Sets;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -39,6 +42,7 @@ import org.sonar.db.component.SnapshotQuery;
 import org.sonar.db.component.SnapshotQuery.SORT_FIELD;
 import org.sonar.db.component.SnapshotQuery.SORT_ORDER;
 import org.sonar.db.measure.MeasureDto;
+import org.sonar.db.measure.MeasureHistoryDto;
 import org.sonar.db.measure.PastMeasureQuery;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.server.component.ComponentFinder;
@@ -48,6 +52,7 @@ import org.sonarqube.ws.WsMeasures.SearchHistoryResponse;
 import org.sonarqube.ws.client.measure.SearchHistoryRequest;
 
 import static java.lang.String.format;
+import static java.util.Collections.emptySet;
 import static org.sonar.api.utils.DateUtils.parseEndingDateOrDateTime;
 import static org.sonar.api.utils.DateUtils.parseStartingDateOrDateTime;
 import static org.sonar.core.util.Protobuf.setNullable;
@@ -147,14 +152,62 @@ public class SearchHistoryAction implements MeasuresWsAction {
   }
 
   private List<MeasureDto> searchMeasures(DbSession dbSession, SearchHistoryRequest request, SearchHistoryResult result) {
+    List<MeasureDto> measures = new ArrayList<>();
+    Set<Integer> metricIdsWithHistory = searchMeasuresFromHistory(dbSession, result, measures);
+    List<Integer> otherMetricIds = result.getMetrics().stream()
+      .map(MetricDto::getId)
+      .filter(metricId -> !metricIdsWithHistory.contains(metricId))
+      .collect(Collectors.toList());
+    if (otherMetricIds.isEmpty()) {
+      return measures;
+    }
+
     Date from = parseStartingDateOrDateTime(request.getFrom());
     Date to = parseEndingDateOrDateTime(request.getTo());
     PastMeasureQuery dbQuery = new PastMeasureQuery(
       result.getComponent().uuid(),
-      result.getMetrics().stream().map(MetricDto::getId).collect(Collectors.toList()),
+      otherMetricIds,
       from == null ? null : from.getTime(),
       to == null ? null : (to.getTime() + 1_000L));
-    return dbClient.measureDao().selectPastMeasures(dbSession, dbQuery);
+    measures.addAll(dbClient.measureDao().selectPastMeasures(dbSession, dbQuery));
+    return measures;
+  }
+
+  /**
+   * The history of the numeric metrics of projects and views is read from a single row per metric, without
+   * loading the measures of all the past analyses.
+   *
+   * @return ids of the metrics which history has been found
+   */
+  private Set<Integer> searchMeasuresFromHistory(DbSession dbSession, SearchHistoryResult result, List<MeasureDto> measures) {
+    ComponentDto component = result.getComponent();
+    List<Integer> metricIds = result.getMetrics().stream()
+      .filter(metric -> MeasureHistoryDto.isSupportedValueType(metric.getValueType()))
+      .map(MetricDto::getId)
+      .collect(Collectors.toList());
+    if (!component.isRoot() || metricIds.isEmpty()) {
+      return emptySet();
+    }
+
+    Set<String> analysisUuids = result.getAnalyses().stream().map(SnapshotDto::getUuid).collect(Collectors.toSet());
+    Map<Integer, MetricDto> metricsById = result.getMetrics().stream().collect(Collectors.uniqueIndex(MetricDto::getId));
+    Set<Integer> metricIdsWithHistory = new HashSet<>();
+    for (MeasureHistoryDto history : dbClient.measureHistoryDao().selectByComponentUuidAndMetricIds(dbSession, component.uuid(), metricIds)) {
+      MetricDto metric = metricsById.get(history.getMetricId());
+      metricIdsWithHistory.add(metric.getId());
+      history.getHistory().stream()
+        .filter(point -> analysisUuids.contains(point.getAnalysisUuid()))
+        .forEach(point -> measures.add(toMeasure(component, metric, point)));
+    }
+    return metricIdsWithHistory;
+  }
+
+  private static MeasureDto toMeasure(ComponentDto component, MetricDto metric, MeasureHistoryDto.Point point) {
+    MeasureDto measure = new MeasureDto()
+      .setComponentUuid(component.uuid())
+      .setMetricId(metric.getId())
+      .setAnalysisUuid(point.getAnalysisUuid());
+    return MeasureHistoryDto.setHistoryValue(metric.getKey(), measure, point.getValue());
   }
 
   private List<SnapshotDto> searchAnalyses(DbSession dbSession, SearchHistoryRequest request, ComponentDto component) {
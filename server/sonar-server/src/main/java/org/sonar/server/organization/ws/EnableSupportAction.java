@@ -24,6 +24,7 @@ import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
+import org.sonar.server.authentication.AuthenticationCache;
 import org.sonar.server.organization.DefaultOrganizationProvider;
 import org.sonar.server.organization.OrganizationFlags;
 import org.sonar.db.permission.OrganizationPermission;
@@ -38,13 +39,15 @@ public class EnableSupportAction implements OrganizationsAction {
   private final DbClient dbClient;
   private final DefaultOrganizationProvider defaultOrganizationProvider;
   private final OrganizationFlags organizationFlags;
+  private final AuthenticationCache authenticationCache;
 
   public EnableSupportAction(UserSession userSession, DbClient dbClient, DefaultOrganizationProvider defaultOrganizationProvider,
-    OrganizationFlags organizationFlags) {
+    OrganizationFlags organizationFlags, AuthenticationCache authenticationCache) {
     this.userSession = userSession;
     this.dbClient = dbClient;
     this.defaultOrganizationProvider = defaultOrganizationProvider;
     this.organizationFlags = organizationFlags;
+    this.authenticationCache = authenticationCache;
   }
 
   @Override
@@ -67,6 +70,7 @@ public class EnableSupportAction implements OrganizationsAction {
         flagCurrentUserAsRoot(dbSession);
         enableFeature(dbSession);
         dbSession.commit();
+        authenticationCache.invalidateUser(requireNonNull(userSession.getLogin()));
       }
     }
     response.noContent();
@@ -122,6 +122,7 @@ public class Platform {
           // switch current container last to avoid giving access to a partially initialized container
           runIfNotAborted(() -> {
             currentLevel = level4;
+            logSlowestStartedComponents();
             LOGGER.info("WebServer is operational");
           });
 
@@ -205,6 +206,10 @@ public class Platform {
     level4 = start(new PlatformLevel4(level3, level4AddedComponents));
   }
 
+  private void logSlowestStartedComponents() {
+    LOGGER.info("Slowest components to start: {}", level4.getContainer().getStartupTimeline().getSlowest(5));
+  }
+
   public void executeStartupTasks() {
     executeStartupTasks(Startup.ALL);
   }
@@ -0,0 +1,74 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.sonar.api.config.Settings;
+import org.sonar.process.DefaultProcessCommands;
+import org.sonar.process.ProcessId;
+import org.sonar.process.ProcessMetric;
+
+import static org.sonar.process.ProcessEntryPoint.PROPERTY_SHARED_PATH;
+
+/**
+ * Live JVM metrics of the processes, as they publish them into the shared memory.
+ */
+public class ProcessMetricsMonitor implements Monitor {
+
+  private static final ProcessId[] PROCESSES = {ProcessId.WEB_SERVER, ProcessId.COMPUTE_ENGINE, ProcessId.ELASTICSEARCH};
+
+  private final Settings settings;
+
+  public ProcessMetricsMonitor(Settings settings) {
+    this.settings = settings;
+  }
+
+  @Override
+  public String name() {
+    return "Processes";
+  }
+
+  @Override
+  public Map<String, Object> attributes() {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    String sharedPath = settings.getString(PROPERTY_SHARED_PATH);
+    if (sharedPath == null) {
+      return attributes;
+    }
+    for (ProcessId processId : PROCESSES) {
+      try (DefaultProcessCommands commands = DefaultProcessCommands.secondary(new File(sharedPath), processId.getIpcIndex())) {
+        if (commands.getMetric(ProcessMetric.UPDATED_AT) > 0L) {
+          attributes.put(processId.getKey(), metrics(commands));
+        }
+      }
+    }
+    return attributes;
+  }
+
+  private static Map<String, Object> metrics(DefaultProcessCommands commands) {
+    Map<String, Object> metrics = new LinkedHashMap<>();
+    for (ProcessMetric metric : ProcessMetric.values()) {
+      metrics.put(metric.name(), commands.getMetric(metric));
+    }
+    return metrics;
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.sonar.core.platform.ComponentContainer;
+import org.sonar.core.platform.StartupTimeline;
+
+/**
+ * Components which took the longest to start, as recorded by {@link ComponentContainer#getStartupTimeline()}.
+ */
+public class StartupMonitor implements Monitor {
+
+  static final int MAX_COMPONENTS = 20;
+
+  private final ComponentContainer container;
+
+  public StartupMonitor(ComponentContainer container) {
+    this.container = container;
+  }
+
+  @Override
+  public String name() {
+    return "Startup";
+  }
+
+  @Override
+  public Map<String, Object> attributes() {
+    StartupTimeline timeline = container.getStartupTimeline();
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("Started Components", timeline.size());
+    for (StartupTimeline.Entry entry : timeline.getSlowest(MAX_COMPONENTS)) {
+      attributes.put(entry.getComponent(), entry.getDurationMs() + (entry.isParallel() ? " ms (parallel)" : " ms"));
+    }
+    return attributes;
+  }
+}
@@ -20,10 +20,8 @@
 package org.sonar.server.plugins;
 
 import java.io.File;
-import org.apache.commons.io.FileUtils;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.server.ServerSide;
-import org.sonar.api.utils.ZipUtils;
 import org.sonar.core.platform.ExplodedPlugin;
 import org.sonar.core.platform.PluginInfo;
 import org.sonar.core.platform.PluginJarExploder;
@@ -45,19 +43,15 @@ public class ServerPluginJarExploder extends PluginJarExploder {
    * JAR files of directory extensions/plugins can be moved when server is up and plugins are uninstalled.
    * For this reason these files must not be locked by classloaders. They are copied to the directory
    * web/deploy/plugins in order to be loaded by {@link org.sonar.core.platform.PluginLoader}.
+   * The directory of a plugin is kept as long as its JAR does not change, so that plugins are not exploded
+   * again on each startup.
    */
   @Override
   public ExplodedPlugin explode(PluginInfo pluginInfo) {
     File toDir = new File(fs.getDeployedPluginsDir(), pluginInfo.getKey());
     try {
       forceMkdir(toDir);
-      org.sonar.core.util.FileUtils.cleanDirectory(toDir);
-
-      File jarSource = pluginInfo.getNonNullJarFile();
-      File jarTarget = new File(toDir, jarSource.getName());
-      FileUtils.copyFile(jarSource, jarTarget);
-      ZipUtils.unzip(jarSource, toDir, newLibFilter());
-      return explodeFromUnzippedDir(pluginInfo.getKey(), jarTarget, toDir);
+      return explodeIfChanged(pluginInfo, toDir);
     } catch (Exception e) {
       throw new IllegalStateException(String.format(
         "Fail to unzip plugin [%s] %s to %s", pluginInfo.getKey(), pluginInfo.getNonNullJarFile().getAbsolutePath(), toDir.getAbsolutePath()), e);
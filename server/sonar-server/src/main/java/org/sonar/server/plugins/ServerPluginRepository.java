@@ -45,6 +45,7 @@ import org.sonar.api.platform.ServerUpgradeStatus;
 import org.sonar.api.utils.MessageException;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.api.utils.log.Profiler;
 import org.sonar.core.platform.PluginInfo;
 import org.sonar.core.platform.PluginLoader;
 import org.sonar.core.platform.PluginRepository;
@@ -285,7 +286,9 @@ public class ServerPluginRepository implements PluginRepository, Startable {
   }
 
   private void loadInstances() {
+    Profiler profiler = Profiler.create(LOG).startInfo("Load plugins");
     pluginInstancesByKeys.putAll(loader.load(pluginInfosByKeys));
+    profiler.stopInfo();
   }
 
   /**
@@ -34,6 +34,11 @@ public interface InternalProperties {
 
   String ORGANIZATION_ENABLED = "organization.enabled";
 
+  /**
+   * Fingerprints of the rule repositories registered at last startup.
+   */
+  String RULE_REPOSITORY_FINGERPRINTS = "rules.fingerprints";
+
   /**
    * Read the value of the specified property.
    *
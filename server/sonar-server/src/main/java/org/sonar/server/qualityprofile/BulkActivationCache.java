@@ -0,0 +1,159 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.qualityprofile;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.qualityprofile.ActiveRuleDto;
+import org.sonar.db.qualityprofile.ActiveRuleKey;
+import org.sonar.db.qualityprofile.ActiveRuleParamDto;
+import org.sonar.db.qualityprofile.QualityProfileDto;
+import org.sonar.db.rule.RuleDto;
+import org.sonar.db.rule.RuleParamDto;
+
+import static org.sonar.core.util.stream.Collectors.toList;
+
+/**
+ * Data required by a bulk change of rules on a Quality profile and on its descendants. It is loaded
+ * with a few queries, instead of being loaded for each rule and each profile of the hierarchy.
+ * <p>
+ * {@link RuleActivator} keeps it up-to-date with the changes it persists, so that the activation on
+ * a child profile sees the values just activated on its parent. Profiles which are changed are
+ * recorded, so that their dates are updated only once at the end of the bulk change.
+ * </p>
+ */
+class BulkActivationCache {
+
+  private final Map<String, QualityProfileDto> profilesByKey = new LinkedHashMap<>();
+  private final ListMultimap<String, QualityProfileDto> childrenByKey = ArrayListMultimap.create();
+  private final Map<RuleKey, RuleDto> rulesByKey = new HashMap<>();
+  private final ListMultimap<Integer, RuleParamDto> ruleParamsByRuleId = ArrayListMultimap.create();
+  private final Map<ActiveRuleKey, ActiveRuleDto> activeRulesByKey = new HashMap<>();
+  private final ListMultimap<Integer, ActiveRuleParamDto> activeRuleParamsByActiveRuleId = ArrayListMultimap.create();
+  private final Map<String, QualityProfileDto> updatedProfilesByKey = new LinkedHashMap<>();
+
+  private BulkActivationCache() {
+    // use load()
+  }
+
+  /**
+   * Loads the profile, its parent, all its descendants, the specified rules and their active rules on these profiles.
+   */
+  static BulkActivationCache load(DbClient db, DbSession dbSession, QualityProfileDto profile, Collection<RuleKey> ruleKeys) {
+    BulkActivationCache cache = new BulkActivationCache();
+    cache.profilesByKey.put(profile.getKey(), profile);
+    String parentKey = profile.getParentKee();
+    if (parentKey != null) {
+      QualityProfileDto parent = db.qualityProfileDao().selectByKey(dbSession, parentKey);
+      if (parent != null) {
+        cache.profilesByKey.put(parentKey, parent);
+      }
+    }
+    cache.loadDescendants(db, dbSession, profile.getKey());
+
+    for (RuleDto rule : db.ruleDao().selectByKeys(dbSession, ruleKeys)) {
+      cache.rulesByKey.put(rule.getKey(), rule);
+    }
+    List<Integer> ruleIds = cache.rulesByKey.values().stream().map(RuleDto::getId).collect(toList());
+    for (RuleParamDto ruleParam : db.ruleDao().selectRuleParamsByRuleIds(dbSession, ruleIds)) {
+      cache.ruleParamsByRuleId.put(ruleParam.getRuleId(), ruleParam);
+    }
+
+    List<ActiveRuleKey> activeRuleKeys = new ArrayList<>();
+    for (String profileKey : cache.profilesByKey.keySet()) {
+      for (RuleKey ruleKey : cache.rulesByKey.keySet()) {
+        activeRuleKeys.add(ActiveRuleKey.of(profileKey, ruleKey));
+      }
+    }
+    for (ActiveRuleDto activeRule : db.activeRuleDao().selectByKeys(dbSession, activeRuleKeys)) {
+      cache.activeRulesByKey.put(activeRule.getKey(), activeRule);
+    }
+    List<Integer> activeRuleIds = cache.activeRulesByKey.values().stream().map(ActiveRuleDto::getId).collect(toList());
+    for (ActiveRuleParamDto activeRuleParam : db.activeRuleDao().selectParamsByActiveRuleIds(dbSession, activeRuleIds)) {
+      cache.activeRuleParamsByActiveRuleId.put(activeRuleParam.getActiveRuleId(), activeRuleParam);
+    }
+    return cache;
+  }
+
+  private void loadDescendants(DbClient db, DbSession dbSession, String profileKey) {
+    for (QualityProfileDto child : db.qualityProfileDao().selectChildren(dbSession, profileKey)) {
+      profilesByKey.put(child.getKey(), child);
+      childrenByKey.put(profileKey, child);
+      loadDescendants(db, dbSession, child.getKey());
+    }
+  }
+
+  @CheckForNull
+  QualityProfileDto profile(String profileKey) {
+    return profilesByKey.get(profileKey);
+  }
+
+  List<QualityProfileDto> children(String profileKey) {
+    return childrenByKey.get(profileKey);
+  }
+
+  @CheckForNull
+  RuleDto rule(RuleKey ruleKey) {
+    return rulesByKey.get(ruleKey);
+  }
+
+  List<RuleParamDto> ruleParams(RuleDto rule) {
+    return ruleParamsByRuleId.get(rule.getId());
+  }
+
+  @CheckForNull
+  ActiveRuleDto activeRule(ActiveRuleKey key) {
+    return activeRulesByKey.get(key);
+  }
+
+  List<ActiveRuleParamDto> activeRuleParams(ActiveRuleDto activeRule) {
+    return activeRuleParamsByActiveRuleId.get(activeRule.getId());
+  }
+
+  void putActiveRule(ActiveRuleDto activeRule, Collection<ActiveRuleParamDto> params) {
+    activeRulesByKey.put(activeRule.getKey(), activeRule);
+    activeRuleParamsByActiveRuleId.replaceValues(activeRule.getId(), params);
+  }
+
+  void removeActiveRule(ActiveRuleKey key) {
+    ActiveRuleDto activeRule = activeRulesByKey.remove(key);
+    if (activeRule != null) {
+      activeRuleParamsByActiveRuleId.removeAll(activeRule.getId());
+    }
+  }
+
+  void markAsUpdated(QualityProfileDto profile) {
+    updatedProfilesByKey.put(profile.getKey(), profile);
+  }
+
+  Collection<QualityProfileDto> updatedProfiles() {
+    return updatedProfilesByKey.values();
+  }
+}
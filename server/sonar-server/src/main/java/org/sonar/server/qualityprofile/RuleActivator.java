@@ -23,7 +23,8 @@ import com.google.common.base.Splitter;
 import com.google.common.collect.Lists;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Iterator;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.CheckForNull;
@@ -32,6 +33,7 @@ import org.sonar.api.rule.RuleKey;
 import org.sonar.api.server.ServerSide;
 import org.sonar.api.server.rule.RuleParamType;
 import org.sonar.api.utils.System2;
+import org.sonar.core.util.stream.Collectors;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.qualityprofile.ActiveRuleDao;
@@ -79,20 +81,20 @@ public class RuleActivator {
 
   public List<ActiveRuleChange> activate(DbSession dbSession, RuleActivation activation, String profileKey) {
     RuleActivatorContext context = contextFactory.create(profileKey, activation.getRuleKey(), dbSession);
-    return doActivate(dbSession, activation, context);
+    return doActivate(dbSession, activation, context, null);
   }
 
   public List<ActiveRuleChange> activate(DbSession dbSession, RuleActivation activation, QProfileName profileName) {
     RuleActivatorContext context = contextFactory.create(profileName, activation.getRuleKey(), dbSession);
-    return doActivate(dbSession, activation, context);
+    return doActivate(dbSession, activation, context, null);
   }
 
   List<ActiveRuleChange> activate(DbSession dbSession, RuleActivation activation, QualityProfileDto profileDto) {
     RuleActivatorContext context = contextFactory.create(profileDto, activation.getRuleKey(), dbSession);
-    return doActivate(dbSession, activation, context);
+    return doActivate(dbSession, activation, context, null);
   }
 
-  private List<ActiveRuleChange> doActivate(DbSession dbSession, RuleActivation activation, RuleActivatorContext context) {
+  private List<ActiveRuleChange> doActivate(DbSession dbSession, RuleActivation activation, RuleActivatorContext context, @Nullable BulkActivationCache cache) {
     context.verifyForActivation();
     List<ActiveRuleChange> changes = Lists.newArrayList();
     ActiveRuleChange change;
@@ -137,24 +139,39 @@ public class RuleActivator {
 
     if (change != null) {
       changes.add(change);
-      persist(change, context, dbSession);
+      persist(change, context, dbSession, cache);
     }
 
     if (!stopPropagation) {
-      changes.addAll(cascadeActivation(dbSession, activation, context.profile().getKey()));
+      changes.addAll(cascadeActivation(dbSession, activation, context.profile().getKey(), cache));
     }
 
     if (!changes.isEmpty()) {
-      updateProfileDates(dbSession, context);
+      updateProfileDates(dbSession, context, cache);
     }
     return changes;
   }
 
-  private void updateProfileDates(DbSession dbSession, RuleActivatorContext context) {
-    QualityProfileDto profile = context.profile();
-    profile.setRulesUpdatedAtAsDate(context.getInitDate());
+  private void updateProfileDates(DbSession dbSession, RuleActivatorContext context, @Nullable BulkActivationCache cache) {
+    if (cache == null) {
+      updateProfileDates(dbSession, context.profile(), context.getInitDate());
+    } else {
+      // dates are updated once at the end of the bulk change
+      cache.markAsUpdated(context.profile());
+    }
+  }
+
+  private void updateProfileDates(DbSession dbSession, BulkActivationCache cache) {
+    Date now = new Date(system2.now());
+    for (QualityProfileDto profile : cache.updatedProfiles()) {
+      updateProfileDates(dbSession, profile, now);
+    }
+  }
+
+  private void updateProfileDates(DbSession dbSession, QualityProfileDto profile, Date date) {
+    profile.setRulesUpdatedAtAsDate(date);
     if (userSession.isLoggedIn()) {
-      profile.setUserUpdatedAt(context.getInitDate().getTime());
+      profile.setUserUpdatedAt(date.getTime());
     }
     db.qualityProfileDao().update(dbSession, profile);
   }
@@ -229,35 +246,42 @@ public class RuleActivator {
     return null;
   }
 
-  private List<ActiveRuleChange> cascadeActivation(DbSession session, RuleActivation activation, String profileKey) {
+  private List<ActiveRuleChange> cascadeActivation(DbSession session, RuleActivation activation, String profileKey, @Nullable BulkActivationCache cache) {
     List<ActiveRuleChange> changes = Lists.newArrayList();
 
     // get all inherited profiles
-    List<QualityProfileDto> children = db.qualityProfileDao().selectChildren(session, profileKey);
+    List<QualityProfileDto> children = cache == null ? db.qualityProfileDao().selectChildren(session, profileKey) : cache.children(profileKey);
     for (QualityProfileDto child : children) {
       RuleActivation childActivation = new RuleActivation(activation).setCascade(true);
-      changes.addAll(activate(session, childActivation, child.getKey()));
+      if (cache == null) {
+        changes.addAll(activate(session, childActivation, child.getKey()));
+      } else {
+        changes.addAll(doActivate(session, childActivation, contextFactory.create(child, activation.getRuleKey(), cache), cache));
+      }
     }
     return changes;
   }
 
-  private ActiveRuleDto persist(ActiveRuleChange change, RuleActivatorContext context, DbSession dbSession) {
+  private ActiveRuleDto persist(ActiveRuleChange change, RuleActivatorContext context, DbSession dbSession, @Nullable BulkActivationCache cache) {
     ActiveRuleDto activeRule = null;
     if (change.getType() == ActiveRuleChange.Type.ACTIVATED) {
-      activeRule = doInsert(change, context, dbSession);
+      activeRule = doInsert(change, context, dbSession, cache);
     } else if (change.getType() == ActiveRuleChange.Type.DEACTIVATED) {
       ActiveRuleDao dao = db.activeRuleDao();
       dao.delete(dbSession, change.getKey());
+      if (cache != null) {
+        cache.removeActiveRule(change.getKey());
+      }
 
     } else if (change.getType() == ActiveRuleChange.Type.UPDATED) {
-      activeRule = doUpdate(change, context, dbSession);
+      activeRule = doUpdate(change, context, dbSession, cache);
     }
 
     db.qProfileChangeDao().insert(dbSession, change.toDto(userSession.getLogin()));
     return activeRule;
   }
 
-  private ActiveRuleDto doInsert(ActiveRuleChange change, RuleActivatorContext context, DbSession dbSession) {
+  private ActiveRuleDto doInsert(ActiveRuleChange change, RuleActivatorContext context, DbSession dbSession, @Nullable BulkActivationCache cache) {
     ActiveRuleDto activeRule;
     ActiveRuleDao dao = db.activeRuleDao();
     activeRule = ActiveRuleDto.createFor(context.profile(), context.rule());
@@ -272,20 +296,26 @@ public class RuleActivator {
     activeRule.setUpdatedAt(system2.now());
     activeRule.setCreatedAt(system2.now());
     dao.insert(dbSession, activeRule);
+    List<ActiveRuleParamDto> params = new ArrayList<>();
     for (Map.Entry<String, String> param : change.getParameters().entrySet()) {
       if (param.getValue() != null) {
         ActiveRuleParamDto paramDto = ActiveRuleParamDto.createFor(context.ruleParamsByKeys().get(param.getKey()));
         paramDto.setValue(param.getValue());
         dao.insertParam(dbSession, activeRule, paramDto);
+        params.add(paramDto);
       }
     }
+    if (cache != null) {
+      cache.putActiveRule(activeRule, params);
+    }
     return activeRule;
   }
 
-  private ActiveRuleDto doUpdate(ActiveRuleChange change, RuleActivatorContext context, DbSession dbSession) {
+  private ActiveRuleDto doUpdate(ActiveRuleChange change, RuleActivatorContext context, DbSession dbSession, @Nullable BulkActivationCache cache) {
     ActiveRuleDao dao = db.activeRuleDao();
     ActiveRuleDto activeRule = context.activeRule();
     if (activeRule != null) {
+      Map<String, ActiveRuleParamDto> params = new HashMap<>(context.activeRuleParamsAsMap());
       String severity = change.getSeverity();
       if (severity != null) {
         activeRule.setSeverity(severity);
@@ -305,6 +335,7 @@ public class RuleActivator {
             activeRuleParamDto = ActiveRuleParamDto.createFor(context.ruleParamsByKeys().get(param.getKey()));
             activeRuleParamDto.setValue(param.getValue());
             dao.insertParam(dbSession, activeRule, activeRuleParamDto);
+            params.put(param.getKey(), activeRuleParamDto);
           }
         } else {
           if (param.getValue() != null) {
@@ -312,9 +343,13 @@ public class RuleActivator {
             dao.updateParam(dbSession, activeRule, activeRuleParamDto);
           } else {
             dao.deleteParam(dbSession, activeRule, activeRuleParamDto);
+            params.remove(param.getKey());
           }
         }
       }
+      if (cache != null) {
+        cache.putActiveRule(activeRule, params.values());
+      }
     }
     return activeRule;
   }
@@ -358,12 +393,14 @@ public class RuleActivator {
    * @param force if true then inherited rules are deactivated
    */
   public List<ActiveRuleChange> deactivate(DbSession dbSession, ActiveRuleKey key, boolean force) {
-    return cascadeDeactivation(key, dbSession, false, force);
+    return cascadeDeactivation(key, dbSession, false, force, null);
   }
 
-  private List<ActiveRuleChange> cascadeDeactivation(ActiveRuleKey key, DbSession dbSession, boolean isCascade, boolean force) {
+  private List<ActiveRuleChange> cascadeDeactivation(ActiveRuleKey key, DbSession dbSession, boolean isCascade, boolean force, @Nullable BulkActivationCache cache) {
     List<ActiveRuleChange> changes = Lists.newArrayList();
-    RuleActivatorContext context = contextFactory.create(key.qProfile(), key.ruleKey(), dbSession);
+    QualityProfileDto cachedProfile = cache == null ? null : cache.profile(key.qProfile());
+    RuleActivatorContext context = cachedProfile == null ? contextFactory.create(key.qProfile(), key.ruleKey(), dbSession)
+      : contextFactory.create(cachedProfile, key.ruleKey(), cache);
     ActiveRuleChange change;
     ActiveRuleDto activeRuleDto = context.activeRule();
     if (activeRuleDto == null) {
@@ -372,18 +409,18 @@ public class RuleActivator {
     checkRequest(force || isCascade || activeRuleDto.getInheritance() == null, "Cannot deactivate inherited rule '%s'", key.ruleKey());
     change = ActiveRuleChange.createFor(ActiveRuleChange.Type.DEACTIVATED, key);
     changes.add(change);
-    persist(change, context, dbSession);
+    persist(change, context, dbSession, cache);
 
     // get all inherited profiles
-    List<QualityProfileDto> profiles = db.qualityProfileDao().selectChildren(dbSession, key.qProfile());
+    List<QualityProfileDto> profiles = cachedProfile == null ? db.qualityProfileDao().selectChildren(dbSession, key.qProfile()) : cache.children(key.qProfile());
 
     for (QualityProfileDto profile : profiles) {
       ActiveRuleKey activeRuleKey = ActiveRuleKey.of(profile.getKey(), key.ruleKey());
-      changes.addAll(cascadeDeactivation(activeRuleKey, dbSession, true, force));
+      changes.addAll(cascadeDeactivation(activeRuleKey, dbSession, true, force, cache));
     }
 
     if (!changes.isEmpty()) {
-      updateProfileDates(dbSession, context);
+      updateProfileDates(dbSession, context, cache);
     }
 
     return changes;
@@ -407,13 +444,14 @@ public class RuleActivator {
     DbSession dbSession = db.openSession(false);
     BulkChangeResult result = new BulkChangeResult();
     try {
-      Iterator<RuleKey> rules = ruleIndex.searchAll(ruleQuery);
-      while (rules.hasNext()) {
-        RuleKey ruleKey = rules.next();
+      List<RuleKey> ruleKeys = newArrayList(ruleIndex.searchAll(ruleQuery));
+      QualityProfileDto profile = selectProfile(dbSession, profileKey);
+      BulkActivationCache cache = BulkActivationCache.load(db, dbSession, profile, ruleKeys);
+      for (RuleKey ruleKey : ruleKeys) {
         try {
           RuleActivation activation = new RuleActivation(ruleKey);
           activation.setSeverity(severity);
-          List<ActiveRuleChange> changes = activate(dbSession, activation, profileKey);
+          List<ActiveRuleChange> changes = doActivate(dbSession, activation, contextFactory.create(profile, ruleKey, cache), cache);
           result.addChanges(changes);
           if (!changes.isEmpty()) {
             result.incrementSucceeded();
@@ -425,6 +463,7 @@ public class RuleActivator {
           result.getErrors().addAll(e.errors());
         }
       }
+      updateProfileDates(dbSession, cache);
       dbSession.commit();
       activeRuleIndexer.index(result.getChanges());
     } finally {
@@ -437,12 +476,12 @@ public class RuleActivator {
     DbSession dbSession = db.openSession(false);
     BulkChangeResult result = new BulkChangeResult();
     try {
-      Iterator<RuleKey> rules = ruleIndex.searchAll(ruleQuery);
-      while (rules.hasNext()) {
+      List<RuleKey> ruleKeys = newArrayList(ruleIndex.searchAll(ruleQuery));
+      BulkActivationCache cache = BulkActivationCache.load(db, dbSession, selectProfile(dbSession, profile), ruleKeys);
+      for (RuleKey ruleKey : ruleKeys) {
         try {
-          RuleKey ruleKey = rules.next();
           ActiveRuleKey key = ActiveRuleKey.of(profile, ruleKey);
-          List<ActiveRuleChange> changes = deactivate(dbSession, key);
+          List<ActiveRuleChange> changes = cascadeDeactivation(key, dbSession, false, false, cache);
           result.addChanges(changes);
           if (!changes.isEmpty()) {
             result.incrementSucceeded();
@@ -453,6 +492,7 @@ public class RuleActivator {
           result.getErrors().addAll(e.errors());
         }
       }
+      updateProfileDates(dbSession, cache);
       dbSession.commit();
       activeRuleIndexer.index(result.getChanges());
       return result;
@@ -476,21 +516,32 @@ public class RuleActivator {
       // set new parent
       profile.setParentKee(parentKey);
       db.qualityProfileDao().update(dbSession, profile);
-      for (ActiveRuleDto parentActiveRule : db.activeRuleDao().selectByProfileKey(dbSession, parentKey)) {
+      List<RuleKey> ruleKeys = db.activeRuleDao().selectByProfileKey(dbSession, parentKey).stream()
+        .map(parentActiveRule -> parentActiveRule.getKey().ruleKey())
+        .collect(Collectors.toList());
+      BulkActivationCache cache = BulkActivationCache.load(db, dbSession, profile, ruleKeys);
+      for (RuleKey ruleKey : ruleKeys) {
         try {
-          RuleActivation activation = new RuleActivation(parentActiveRule.getKey().ruleKey());
-          changes.addAll(activate(dbSession, activation, profileKey));
+          RuleActivation activation = new RuleActivation(ruleKey);
+          changes.addAll(doActivate(dbSession, activation, contextFactory.create(profile, ruleKey, cache), cache));
         } catch (BadRequestException e) {
           // for example because rule status is REMOVED
           // TODO return errors
         }
       }
+      updateProfileDates(dbSession, cache);
     }
     dbSession.commit();
     activeRuleIndexer.index(changes);
     return changes;
   }
 
+  private QualityProfileDto selectProfile(DbSession dbSession, String profileKey) {
+    QualityProfileDto profile = db.qualityProfileDao().selectByKey(dbSession, profileKey);
+    checkRequest(profile != null, "Quality profile not found: %s", profileKey);
+    return profile;
+  }
+
   /**
    * Does not commit
    */
@@ -62,6 +62,28 @@ public class RuleActivatorContextFactory {
     return create(ruleKey, session, new RuleActivatorContext().setProfile(profile));
   }
 
+  /**
+   * Same as {@link #create(QualityProfileDto, RuleKey, DbSession)}, but without any db request. Data is read from the cache
+   * loaded at the beginning of a bulk change.
+   */
+  RuleActivatorContext create(QualityProfileDto profile, RuleKey ruleKey, BulkActivationCache cache) {
+    RuleActivatorContext context = new RuleActivatorContext().setProfile(profile);
+    RuleDto rule = cache.rule(ruleKey);
+    checkRequest(rule != null, "Rule not found: %s", ruleKey);
+    context.setRule(rule);
+    context.setRuleParams(cache.ruleParams(rule));
+    ActiveRuleDto activeRule = cache.activeRule(ActiveRuleKey.of(profile.getKey(), ruleKey));
+    context.setActiveRule(activeRule);
+    context.setActiveRuleParams(activeRule != null ? cache.activeRuleParams(activeRule) : null);
+    String parentKee = profile.getParentKee();
+    if (parentKee != null) {
+      ActiveRuleDto parentActiveRule = cache.activeRule(ActiveRuleKey.of(parentKee, ruleKey));
+      context.setParentActiveRule(parentActiveRule);
+      context.setParentActiveRuleParams(parentActiveRule != null ? cache.activeRuleParams(parentActiveRule) : null);
+    }
+    return context;
+  }
+
   private RuleActivatorContext create(RuleKey ruleKey, DbSession session, RuleActivatorContext context) {
     initRule(ruleKey, context, session);
     initActiveRules(context.profile().getKey(), ruleKey, context, session, false);
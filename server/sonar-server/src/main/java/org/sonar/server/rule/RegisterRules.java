@@ -23,11 +23,14 @@ import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Multimaps;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nonnull;
@@ -35,6 +38,7 @@ import javax.annotation.Nullable;
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
 import org.picocontainer.Startable;
+import org.sonar.api.platform.Server;
 import org.sonar.api.resources.Languages;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rule.RuleStatus;
@@ -54,6 +58,7 @@ import org.sonar.db.rule.RuleDto;
 import org.sonar.db.rule.RuleDto.Format;
 import org.sonar.db.rule.RuleParamDto;
 import org.sonar.db.rule.RuleRepositoryDto;
+import org.sonar.server.property.InternalProperties;
 import org.sonar.server.qualityprofile.ActiveRuleChange;
 import org.sonar.server.qualityprofile.RuleActivator;
 import org.sonar.server.qualityprofile.index.ActiveRuleIndexer;
@@ -62,6 +67,7 @@ import org.sonar.server.rule.index.RuleIndexer;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Sets.intersection;
+import static org.sonar.db.DatabaseUtils.executeLargeInputs;
 
 /**
  * Register rules at server startup
@@ -77,9 +83,10 @@ public class RegisterRules implements Startable {
   private final ActiveRuleIndexer activeRuleIndexer;
   private final Languages languages;
   private final System2 system2;
+  private final Server server;
 
   public RegisterRules(RuleDefinitionsLoader defLoader, RuleActivator ruleActivator, DbClient dbClient, RuleIndexer ruleIndexer,
-    ActiveRuleIndexer activeRuleIndexer, Languages languages, System2 system2) {
+    ActiveRuleIndexer activeRuleIndexer, Languages languages, System2 system2, Server server) {
     this.defLoader = defLoader;
     this.ruleActivator = ruleActivator;
     this.dbClient = dbClient;
@@ -87,6 +94,7 @@ public class RegisterRules implements Startable {
     this.activeRuleIndexer = activeRuleIndexer;
     this.languages = languages;
     this.system2 = system2;
+    this.server = server;
   }
 
   @Override
@@ -95,14 +103,20 @@ public class RegisterRules implements Startable {
     DbSession session = dbClient.openSession(false);
     try {
       Map<RuleKey, RuleDto> allRules = loadRules(session);
+      Map<String, String> previousFingerprints = RuleRepositoryFingerprints.parse(
+        dbClient.internalPropertiesDao().selectByKey(session, InternalProperties.RULE_REPOSITORY_FINGERPRINTS));
+      Map<String, String> fingerprints = new HashMap<>();
 
       RulesDefinition.Context context = defLoader.load();
-      for (RulesDefinition.ExtendedRepository repoDef : getRepositories(context)) {
-        if (languages.get(repoDef.language()) != null) {
-          for (RulesDefinition.Rule ruleDef : repoDef.rules()) {
-            registerRule(ruleDef, allRules, session);
-          }
-          session.commit();
+      for (Map.Entry<String, List<RulesDefinition.ExtendedRepository>> entry : getRepositoriesByKey(context).entrySet()) {
+        String repositoryKey = entry.getKey();
+        String fingerprint = RuleRepositoryFingerprints.compute(server.getVersion(), entry.getValue());
+        fingerprints.put(repositoryKey, fingerprint);
+        if (fingerprint.equals(previousFingerprints.get(repositoryKey))) {
+          LOG.debug("Rules of repository {} did not change", repositoryKey);
+          keepUnchangedRules(repositoryKey, allRules);
+        } else {
+          registerRepository(repositoryKey, entry.getValue(), allRules, session);
         }
       }
       List<RuleDto> activeRules = processRemainingDbRules(allRules.values(), session);
@@ -112,6 +126,7 @@ public class RegisterRules implements Startable {
       persistRepositories(session, context.repositories());
       ruleIndexer.index();
       activeRuleIndexer.index(changes);
+      persistFingerprints(session, fingerprints);
       profiler.stopDebug();
     } finally {
       session.close();
@@ -128,12 +143,45 @@ public class RegisterRules implements Startable {
     dbSession.commit();
   }
 
+  private void persistFingerprints(DbSession dbSession, Map<String, String> fingerprints) {
+    if (fingerprints.isEmpty()) {
+      dbClient.internalPropertiesDao().saveAsEmpty(dbSession, InternalProperties.RULE_REPOSITORY_FINGERPRINTS);
+    } else {
+      dbClient.internalPropertiesDao().save(dbSession, InternalProperties.RULE_REPOSITORY_FINGERPRINTS, RuleRepositoryFingerprints.format(fingerprints));
+    }
+    dbSession.commit();
+  }
+
   @Override
   public void stop() {
     // nothing
   }
 
-  private void registerRule(RulesDefinition.Rule ruleDef, Map<RuleKey, RuleDto> allRules, DbSession session) {
+  /**
+   * Rules of a repository which did not change since last startup are already up-to-date in db. They
+   * must not be considered as removed. Custom rules are kept as they are synchronized with their templates.
+   */
+  private static void keepUnchangedRules(String repositoryKey, Map<RuleKey, RuleDto> allRules) {
+    allRules.values().removeIf(rule -> repositoryKey.equals(rule.getRepositoryKey()) && rule.getTemplateId() == null);
+  }
+
+  private void registerRepository(String repositoryKey, List<RulesDefinition.ExtendedRepository> repoDefs, Map<RuleKey, RuleDto> allRules, DbSession session) {
+    List<Integer> existingRuleIds = allRules.values().stream()
+      .filter(rule -> repositoryKey.equals(rule.getRepositoryKey()))
+      .map(RuleDto::getId)
+      .collect(Collectors.toList());
+    ListMultimap<Integer, RuleParamDto> paramsByRuleId = Multimaps.index(
+      executeLargeInputs(existingRuleIds, ids -> dbClient.ruleDao().selectRuleParamsByRuleIds(session, ids)),
+      RuleParamDto::getRuleId);
+    for (RulesDefinition.ExtendedRepository repoDef : repoDefs) {
+      for (RulesDefinition.Rule ruleDef : repoDef.rules()) {
+        registerRule(ruleDef, allRules, paramsByRuleId, session);
+      }
+    }
+    session.commit();
+  }
+
+  private void registerRule(RulesDefinition.Rule ruleDef, Map<RuleKey, RuleDto> allRules, ListMultimap<Integer, RuleParamDto> paramsByRuleId, DbSession session) {
     RuleKey ruleKey = RuleKey.of(ruleDef.repository().key(), ruleDef.key());
 
     RuleDto rule = allRules.containsKey(ruleKey) ? allRules.remove(ruleKey) : createRuleDto(ruleDef, session);
@@ -155,7 +203,7 @@ public class RegisterRules implements Startable {
       update(session, rule);
     }
 
-    mergeParams(ruleDef, rule, session);
+    mergeParams(ruleDef, rule, paramsByRuleId.get(rule.getId()), session);
   }
 
   private Map<RuleKey, RuleDto> loadRules(DbSession session) {
@@ -166,21 +214,31 @@ public class RegisterRules implements Startable {
     return rules;
   }
 
-  private List<RulesDefinition.ExtendedRepository> getRepositories(RulesDefinition.Context context) {
-    List<RulesDefinition.ExtendedRepository> repositories = new ArrayList<>();
+  /**
+   * Repositories and their extensions, grouped by repository key. Repositories of languages
+   * which are not installed are ignored.
+   */
+  private Map<String, List<RulesDefinition.ExtendedRepository>> getRepositoriesByKey(RulesDefinition.Context context) {
+    Map<String, List<RulesDefinition.ExtendedRepository>> repositories = new LinkedHashMap<>();
     for (RulesDefinition.Repository repoDef : context.repositories()) {
-      repositories.add(repoDef);
+      addIfLanguageInstalled(repositories, repoDef);
     }
     for (RulesDefinition.ExtendedRepository extendedRepoDef : context.extendedRepositories()) {
       if (context.repository(extendedRepoDef.key()) == null) {
         LOG.warn(String.format("Extension is ignored, repository %s does not exist", extendedRepoDef.key()));
       } else {
-        repositories.add(extendedRepoDef);
+        addIfLanguageInstalled(repositories, extendedRepoDef);
       }
     }
     return repositories;
   }
 
+  private void addIfLanguageInstalled(Map<String, List<RulesDefinition.ExtendedRepository>> repositories, RulesDefinition.ExtendedRepository repoDef) {
+    if (languages.get(repoDef.language()) != null) {
+      repositories.computeIfAbsent(repoDef.key(), k -> new ArrayList<>()).add(repoDef);
+    }
+  }
+
   private RuleDto createRuleDto(RulesDefinition.Rule ruleDef, DbSession session) {
     RuleDto ruleDto = RuleDto.createFor(RuleKey.of(ruleDef.repository().key(), ruleDef.key()))
       .setIsTemplate(ruleDef.template())
@@ -296,8 +354,7 @@ public class RegisterRules implements Startable {
     return changed;
   }
 
-  private void mergeParams(RulesDefinition.Rule ruleDef, RuleDto rule, DbSession session) {
-    List<RuleParamDto> paramDtos = dbClient.ruleDao().selectRuleParamsByRuleKey(session, rule.getKey());
+  private void mergeParams(RulesDefinition.Rule ruleDef, RuleDto rule, List<RuleParamDto> paramDtos, DbSession session) {
     Map<String, RuleParamDto> existingParamsByName = Maps.newHashMap();
 
     for (RuleParamDto paramDto : paramDtos) {
@@ -0,0 +1,113 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.rule;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.server.debt.DebtRemediationFunction;
+import org.sonar.api.server.rule.RulesDefinition;
+
+import static org.sonar.core.util.stream.Collectors.toList;
+
+/**
+ * Fingerprints of the definitions of rule repositories. A repository whose fingerprint did not change
+ * since the previous startup does not need to be synchronized again with database.
+ */
+class RuleRepositoryFingerprints {
+
+  private static final char FIELD_SEPARATOR = '\u001F';
+  private static final char RULE_SEPARATOR = '\u001E';
+  private static final String ENTRY_SEPARATOR = "\n";
+  private static final String KEY_SEPARATOR = "=";
+
+  private RuleRepositoryFingerprints() {
+    // only static methods
+  }
+
+  /**
+   * Fingerprint of a repository and of its extensions. All the repositories must share the same key.
+   * The version of server is part of the fingerprint, as the way rules are registered can change
+   * from one version to another.
+   */
+  static String compute(String serverVersion, Collection<? extends RulesDefinition.ExtendedRepository> repositories) {
+    List<RulesDefinition.Rule> rules = repositories.stream()
+      .flatMap(repository -> repository.rules().stream())
+      .sorted(Comparator.comparing(RulesDefinition.Rule::key))
+      .collect(toList());
+    StringBuilder sb = new StringBuilder();
+    append(sb, serverVersion);
+    sb.append(RULE_SEPARATOR);
+    for (RulesDefinition.Rule rule : rules) {
+      append(sb, rule.key(), rule.repository().language(), rule.name(), rule.htmlDescription(), rule.markdownDescription(), rule.internalKey(),
+        rule.severity(), String.valueOf(rule.template()), rule.status().name(), rule.type().name(), rule.gapDescription());
+      appendDebt(sb, rule.debtRemediationFunction());
+      rule.tags().stream().sorted().forEach(tag -> append(sb, tag));
+      rule.params().stream()
+        .sorted(Comparator.comparing(RulesDefinition.Param::key))
+        .forEach(param -> append(sb, param.key(), param.type().toString(), param.defaultValue(), param.description()));
+      sb.append(RULE_SEPARATOR);
+    }
+    return DigestUtils.md5Hex(sb.toString());
+  }
+
+  private static void appendDebt(StringBuilder sb, @Nullable DebtRemediationFunction function) {
+    if (function != null) {
+      append(sb, function.type().name(), function.gapMultiplier(), function.baseEffort());
+    }
+  }
+
+  private static void append(StringBuilder sb, @Nullable String... fields) {
+    for (String field : fields) {
+      sb.append(StringUtils.defaultString(field)).append(FIELD_SEPARATOR);
+    }
+  }
+
+  /**
+   * Parses the value stored by {@link #format(Map)}. Unexpected lines are ignored.
+   */
+  static Map<String, String> parse(Optional<String> value) {
+    Map<String, String> fingerprints = new HashMap<>();
+    if (value.isPresent()) {
+      for (String entry : StringUtils.split(value.get(), ENTRY_SEPARATOR)) {
+        int separatorIndex = entry.lastIndexOf(KEY_SEPARATOR);
+        if (separatorIndex > 0) {
+          fingerprints.put(entry.substring(0, separatorIndex), entry.substring(separatorIndex + 1));
+        }
+      }
+    }
+    return fingerprints;
+  }
+
+  static String format(Map<String, String> fingerprintsByRepositoryKey) {
+    StringBuilder sb = new StringBuilder();
+    for (Map.Entry<String, String> entry : new TreeMap<>(fingerprintsByRepositoryKey).entrySet()) {
+      sb.append(entry.getKey()).append(KEY_SEPARATOR).append(entry.getValue()).append(ENTRY_SEPARATOR);
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.source;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.List;
+import java.util.Objects;
+import javax.annotation.CheckForNull;
+import org.sonar.api.config.Settings;
+import org.sonar.db.protobuf.DbFileSources;
+
+/**
+ * Bounded cache of the decoded lines of files, along with their HTML decoration which is computed on demand.
+ * Entries are identified by the file and the hash of its source data, so a new analysis of the file,
+ * which changes the hash, makes its previous entry unreachable until it is evicted.
+ */
+public class SourceCache {
+
+  static final String PROPERTY_SIZE_IN_MB = "sonar.web.sourceCache.sizeInMb";
+  private static final int DEFAULT_SIZE_IN_MB = 32;
+
+  /**
+   * Rough ratio between the heap retained by decoded lines and the size of the compressed source data
+   */
+  private static final int HEAP_TO_COMPRESSED_RATIO = 30;
+
+  private final long maxWeight;
+  private final Cache<Key, DecodedSource> cache;
+
+  public SourceCache(Settings settings) {
+    String sizeInMb = settings.getString(PROPERTY_SIZE_IN_MB);
+    this.maxWeight = (sizeInMb == null ? DEFAULT_SIZE_IN_MB : Long.parseLong(sizeInMb)) * 1024L * 1024L;
+    this.cache = CacheBuilder.newBuilder()
+      .maximumWeight(maxWeight)
+      .weigher((Key key, DecodedSource source) -> source.weight())
+      .recordStats()
+      .build();
+  }
+
+  @CheckForNull
+  DecodedSource get(String fileUuid, String dataHash) {
+    return cache.getIfPresent(new Key(fileUuid, dataHash));
+  }
+
+  void put(String fileUuid, String dataHash, DecodedSource source) {
+    cache.put(new Key(fileUuid, dataHash), source);
+  }
+
+  /**
+   * Whether the source data of a file is small enough to be decoded entirely and cached. A file
+   * must not take more than a tenth of the cache once decoded.
+   */
+  boolean accepts(int compressedSize) {
+    // computed in long, as the estimation of large files overflows int
+    long estimatedWeight = Math.min((long) compressedSize * HEAP_TO_COMPRESSED_RATIO, Integer.MAX_VALUE);
+    return estimatedWeight * 10L <= maxWeight;
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  public long size() {
+    return cache.size();
+  }
+
+  public long maxWeight() {
+    return maxWeight;
+  }
+
+  private static final class Key {
+    private final String fileUuid;
+    private final String dataHash;
+
+    private Key(String fileUuid, String dataHash) {
+      this.fileUuid = fileUuid;
+      this.dataHash = dataHash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key key = (Key) o;
+      return fileUuid.equals(key.fileUuid) && dataHash.equals(key.dataHash);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(fileUuid, dataHash);
+    }
+  }
+
+  /**
+   * Lines of a file, or of a range of a file, with their HTML decoration memoized.
+   */
+  static class DecodedSource {
+    // object header, array or list slot and fields of a line, including the references to its texts
+    private static final int LINE_OVERHEAD = 384;
+    // object header and fields of a String and of its array of chars
+    private static final int STRING_OVERHEAD = 40;
+
+    private final List<DbFileSources.Line> lines;
+    private final String[] htmlLines;
+    private final int weight;
+
+    DecodedSource(List<DbFileSources.Line> lines) {
+      this.lines = lines;
+      this.htmlLines = new String[lines.size()];
+      this.weight = estimateWeight(lines);
+    }
+
+    int size() {
+      return lines.size();
+    }
+
+    DbFileSources.Line getLine(int index) {
+      return lines.get(index);
+    }
+
+    /**
+     * Concurrent calls may decorate the same line more than once, which is harmless as the result is the same.
+     */
+    String getHtml(int index, HtmlSourceDecorator decorator) {
+      String html = htmlLines[index];
+      if (html == null) {
+        DbFileSources.Line line = lines.get(index);
+        html = decorator.getDecoratedSourceAsHtml(line.getSource(), line.getHighlighting(), line.getSymbols());
+        htmlLines[index] = html;
+      }
+      return html;
+    }
+
+    int weight() {
+      return weight;
+    }
+
+    /**
+     * Estimation of the heap retained by the lines, in bytes. Texts are serialized in UTF-8 but are kept
+     * in memory as UTF-16 strings, and each line has a constant overhead which can be bigger than
+     * its serialized size. Room is reserved for the HTML decoration, which is the source
+     * of the line with its markup.
+     */
+    private static int estimateWeight(List<DbFileSources.Line> lines) {
+      long weight = 0L;
+      for (DbFileSources.Line line : lines) {
+        weight += LINE_OVERHEAD + 2L * line.getSerializedSize() + STRING_OVERHEAD + 4L * line.getSourceBytes().size();
+      }
+      return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+  }
+}
@@ -20,12 +20,14 @@
 package org.sonar.server.source;
 
 import java.util.Optional;
-import java.util.function.Function;
+import java.util.function.BiFunction;
+import java.util.stream.IntStream;
 import org.sonar.core.util.stream.Collectors;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.protobuf.DbFileSources;
 import org.sonar.db.source.FileSourceDto;
+import org.sonar.server.source.SourceCache.DecodedSource;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
@@ -33,10 +35,12 @@ public class SourceService {
 
   private final DbClient dbClient;
   private final HtmlSourceDecorator htmlDecorator;
+  private final SourceCache sourceCache;
 
-  public SourceService(DbClient dbClient, HtmlSourceDecorator htmlDecorator) {
+  public SourceService(DbClient dbClient, HtmlSourceDecorator htmlDecorator, SourceCache sourceCache) {
     this.dbClient = dbClient;
     this.htmlDecorator = htmlDecorator;
+    this.sourceCache = sourceCache;
   }
 
   /**
@@ -45,7 +49,16 @@ public class SourceService {
    * @param toInclusive starts from 1, must be greater than or equal param {@code from}
    */
   public Optional<Iterable<DbFileSources.Line>> getLines(DbSession dbSession, String fileUuid, int from, int toInclusive) {
-    return getLines(dbSession, fileUuid, from, toInclusive, Function.identity());
+    return getLines(dbSession, fileUuid, from, toInclusive, DecodedSource::getLine);
+  }
+
+  /**
+   * Returns a range of lines as raw db data, each one along with its source decorated as HTML.
+   * @see #getLines(DbSession, String, int, int)
+   */
+  public <E> Optional<Iterable<E>> getLinesWithHtml(DbSession dbSession, String fileUuid, int from, int toInclusive,
+    BiFunction<DbFileSources.Line, String, E> function) {
+    return getLines(dbSession, fileUuid, from, toInclusive, (source, index) -> function.apply(source.getLine(index), source.getHtml(index, htmlDecorator)));
   }
 
   /**
@@ -53,33 +66,58 @@ public class SourceService {
    * @see #getLines(DbSession, String, int, int)
    */
   public Optional<Iterable<String>> getLinesAsRawText(DbSession dbSession, String fileUuid, int from, int toInclusive) {
-    return getLines(dbSession, fileUuid, from, toInclusive, DbFileSources.Line::getSource);
+    return getLines(dbSession, fileUuid, from, toInclusive, (source, index) -> source.getLine(index).getSource());
   }
 
   public Optional<Iterable<String>> getLinesAsHtml(DbSession dbSession, String fileUuid, int from, int toInclusive) {
-    return getLines(dbSession, fileUuid, from, toInclusive, lineToHtml());
+    return getLines(dbSession, fileUuid, from, toInclusive, (source, index) -> source.getHtml(index, htmlDecorator));
   }
 
-  private <E> Optional<Iterable<E>> getLines(DbSession dbSession, String fileUuid, int from, int toInclusive, Function<DbFileSources.Line, E> function) {
+  private <E> Optional<Iterable<E>> getLines(DbSession dbSession, String fileUuid, int from, int toInclusive, BiFunction<DecodedSource, Integer, E> function) {
     verifyLine(from);
     checkArgument(toInclusive >= from, String.format("Line number must greater than or equal to %d, got %d", from, toInclusive));
-    FileSourceDto dto = dbClient.fileSourceDao().selectSourceByFileUuid(dbSession, fileUuid);
-    if (dto == null) {
+    Optional<DecodedSource> source = getSource(dbSession, fileUuid, from, toInclusive);
+    if (!source.isPresent()) {
       return Optional.empty();
     }
-    return Optional.of(dto.getSourceData().getLinesList().stream()
-      .filter(line -> line.hasLine() && line.getLine() >= from)
+    DecodedSource decodedSource = source.get();
+    return Optional.of(IntStream.range(0, decodedSource.size())
+      .filter(index -> {
+        DbFileSources.Line line = decodedSource.getLine(index);
+        return line.hasLine() && line.getLine() >= from;
+      })
       .limit((toInclusive - from) + 1L)
-      .map(function)
+      .mapToObj(index -> function.apply(decodedSource, index))
       .collect(Collectors.toList()));
   }
 
-  private static void verifyLine(int line) {
-    checkArgument(line >= 1, String.format("Line number must start at 1, got %d", line));
+  /**
+   * Lines of the file are taken from {@link SourceCache} when the file has not been analyzed since they have been
+   * cached. Otherwise the whole file is decoded and cached, unless it is too big, in which case only the chunks
+   * containing the requested range are decoded.
+   */
+  private Optional<DecodedSource> getSource(DbSession dbSession, String fileUuid, int from, int toInclusive) {
+    String dataHash = dbClient.fileSourceDao().selectSourceDataHash(dbSession, fileUuid);
+    if (dataHash != null) {
+      DecodedSource cached = sourceCache.get(fileUuid, dataHash);
+      if (cached != null) {
+        return Optional.of(cached);
+      }
+    }
+    FileSourceDto dto = dbClient.fileSourceDao().selectSourceByFileUuid(dbSession, fileUuid);
+    if (dto == null) {
+      return Optional.empty();
+    }
+    if (dto.getDataHash() != null && sourceCache.accepts(dto.getBinaryData().length)) {
+      DecodedSource decodedSource = new DecodedSource(dto.getSourceData().getLinesList());
+      sourceCache.put(fileUuid, dto.getDataHash(), decodedSource);
+      return Optional.of(decodedSource);
+    }
+    return Optional.of(new DecodedSource(dto.getSourceData(from, toInclusive).getLinesList()));
   }
 
-  private Function<DbFileSources.Line, String> lineToHtml() {
-    return line -> htmlDecorator.getDecoratedSourceAsHtml(line.getSource(), line.getHighlighting(), line.getSymbols());
+  private static void verifyLine(int line) {
+    checkArgument(line >= 1, String.format("Line number must start at 1, got %d", line));
   }
 
 }
@@ -34,7 +34,6 @@ import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.protobuf.DbFileSources;
 import org.sonar.server.component.ComponentFinder;
-import org.sonar.server.source.HtmlSourceDecorator;
 import org.sonar.server.source.SourceService;
 import org.sonar.server.user.UserSession;
 
@@ -51,15 +50,12 @@ public class LinesAction implements SourcesWsAction {
 
   private final ComponentFinder componentFinder;
   private final SourceService sourceService;
-  private final HtmlSourceDecorator htmlSourceDecorator;
   private final DbClient dbClient;
   private final UserSession userSession;
 
-  public LinesAction(ComponentFinder componentFinder, DbClient dbClient, SourceService sourceService,
-    HtmlSourceDecorator htmlSourceDecorator, UserSession userSession) {
+  public LinesAction(ComponentFinder componentFinder, DbClient dbClient, SourceService sourceService, UserSession userSession) {
     this.componentFinder = componentFinder;
     this.sourceService = sourceService;
-    this.htmlSourceDecorator = htmlSourceDecorator;
     this.dbClient = dbClient;
     this.userSession = userSession;
   }
@@ -119,19 +115,21 @@ public class LinesAction implements SourcesWsAction {
       int from = request.mandatoryParamAsInt(PARAM_FROM);
       int to = MoreObjects.firstNonNull(request.paramAsInt(PARAM_TO), Integer.MAX_VALUE);
 
-      Iterable<DbFileSources.Line> lines = checkFoundWithOptional(sourceService.getLines(dbSession, file.uuid(), from, to), "No source found for file '%s'", file.key());
+      Iterable<DecoratedLine> lines = checkFoundWithOptional(sourceService.getLinesWithHtml(dbSession, file.uuid(), from, to, DecoratedLine::new),
+        "No source found for file '%s'", file.key());
       JsonWriter json = response.newJsonWriter().beginObject();
       writeSource(lines, json);
       json.endObject().close();
     }
   }
 
-  private void writeSource(Iterable<DbFileSources.Line> lines, JsonWriter json) {
+  private static void writeSource(Iterable<DecoratedLine> lines, JsonWriter json) {
     json.name("sources").beginArray();
-    for (DbFileSources.Line line : lines) {
+    for (DecoratedLine decoratedLine : lines) {
+      DbFileSources.Line line = decoratedLine.line;
       json.beginObject()
         .prop("line", line.getLine())
-        .prop("code", htmlSourceDecorator.getDecoratedSourceAsHtml(line.getSource(), line.getHighlighting(), line.getSymbols()))
+        .prop("code", decoratedLine.html)
         .prop("scmAuthor", line.getScmAuthor())
         .prop("scmRevision", line.getScmRevision());
       if (line.hasScmDate()) {
@@ -197,4 +195,13 @@ public class LinesAction implements SourcesWsAction {
     return Optional.empty();
   }
 
+  private static class DecoratedLine {
+    private final DbFileSources.Line line;
+    private final String html;
+
+    private DecoratedLine(DbFileSources.Line line, String html) {
+      this.line = line;
+      this.html = html;
+    }
+  }
 }
@@ -41,6 +41,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.user.GroupDto;
 import org.sonar.db.user.UserDto;
 import org.sonar.db.user.UserGroupDto;
+import org.sonar.server.authentication.AuthenticationCache;
 import org.sonar.server.exceptions.ServerException;
 import org.sonar.server.organization.DefaultOrganizationProvider;
 import org.sonar.server.organization.OrganizationCreation;
@@ -77,9 +78,10 @@ public class UserUpdater {
   private final System2 system2;
   private final DefaultOrganizationProvider defaultOrganizationProvider;
   private final OrganizationCreation organizationCreation;
+  private final AuthenticationCache authenticationCache;
 
   public UserUpdater(NewUserNotifier newUserNotifier, Settings settings, DbClient dbClient, UserIndexer userIndexer, System2 system2,
-    DefaultOrganizationProvider defaultOrganizationProvider, OrganizationCreation organizationCreation) {
+    DefaultOrganizationProvider defaultOrganizationProvider, OrganizationCreation organizationCreation, AuthenticationCache authenticationCache) {
     this.newUserNotifier = newUserNotifier;
     this.settings = settings;
     this.dbClient = dbClient;
@@ -87,6 +89,7 @@ public class UserUpdater {
     this.system2 = system2;
     this.defaultOrganizationProvider = defaultOrganizationProvider;
     this.organizationCreation = organizationCreation;
+    this.authenticationCache = authenticationCache;
   }
 
   public UserDto create(NewUser newUser) {
@@ -367,6 +370,7 @@ public class UserUpdater {
     userDto.setActive(true).setUpdatedAt(now);
     dbClient.userDao().update(dbSession, userDto);
     dbSession.commit();
+    authenticationCache.invalidateUser(userDto.getLogin());
     userIndexer.index(userDto.getLogin());
   }
 
@@ -24,6 +24,7 @@ import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
+import org.sonar.server.authentication.AuthenticationCache;
 import org.sonar.server.user.UserSession;
 import org.sonarqube.ws.client.usertoken.RevokeWsRequest;
 
@@ -34,10 +35,12 @@ import static org.sonarqube.ws.client.usertoken.UserTokensWsParameters.PARAM_NAM
 public class RevokeAction implements UserTokensWsAction {
   private final DbClient dbClient;
   private final UserSession userSession;
+  private final AuthenticationCache authenticationCache;
 
-  public RevokeAction(DbClient dbClient, UserSession userSession) {
+  public RevokeAction(DbClient dbClient, UserSession userSession, AuthenticationCache authenticationCache) {
     this.dbClient = dbClient;
     this.userSession = userSession;
+    this.authenticationCache = authenticationCache;
   }
 
   @Override
@@ -72,6 +75,7 @@ public class RevokeAction implements UserTokensWsAction {
       dbClient.userTokenDao().deleteByLoginAndName(dbSession, request.getLogin(), request.getName());
       dbSession.commit();
     }
+    authenticationCache.invalidateTokensOf(request.getLogin());
   }
 
   private RevokeWsRequest toRevokeWsRequest(Request request) {
@@ -0,0 +1,246 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.Message;
+import com.google.protobuf.WireFormat;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.commons.io.IOUtils;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.core.util.ProtobufJsonFormat;
+import org.sonarqube.ws.MediaTypes;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes a protobuf message to the response without building it entirely in memory. Unlike
+ * {@link WsUtils#writeProtobuf(Message, Request, Response)}, the elements of repeated and map fields are
+ * written one by one as soon as they are available, so that the memory used by large responses
+ * does not depend on their number of elements.
+ * <p>
+ * The output is the same as if the whole message was written at once: binary protobuf (the fields of a
+ * message can be serialized in any order, elements of repeated fields are appended) or JSON in the format of
+ * {@link ProtobufJsonFormat}. Clients do not see the difference.
+ * </p>
+ * <pre>
+ * try (StreamingProtobufWriter writer = StreamingProtobufWriter.create(WsProjectResponse.getDescriptor(), request, response)) {
+ *   writer.writeFields(WsProjectResponse.newBuilder().setTimestamp(now).build());
+ *   writer.beginRepeated(WsProjectResponse.SETTINGSBYMODULE_FIELD_NUMBER);
+ *   for (...) {
+ *     writer.writeMapEntry(moduleKey, settings);
+ *   }
+ *   writer.endRepeated();
+ * }
+ * </pre>
+ * Each field must be written only once, either by {@link #writeFields(Message)} or by {@link #beginRepeated(int)}.
+ *
+ * @since 6.4
+ */
+public class StreamingProtobufWriter implements AutoCloseable {
+
+  private final Descriptors.Descriptor descriptor;
+  private final OutputStream output;
+  private final CodedOutputStream protobuf;
+  private final JsonWriter json;
+  private final Set<Integer> writtenRepeatedFields = new HashSet<>();
+  private Descriptors.FieldDescriptor currentRepeatedField;
+
+  private StreamingProtobufWriter(Descriptors.Descriptor descriptor, OutputStream output, boolean isProtobuf) {
+    this.descriptor = descriptor;
+    this.output = output;
+    if (isProtobuf) {
+      this.protobuf = CodedOutputStream.newInstance(output);
+      this.json = null;
+    } else {
+      this.protobuf = null;
+      this.json = JsonWriter.of(new OutputStreamWriter(output, UTF_8));
+      this.json.setSerializeNulls(false).setSerializeEmptys(true);
+      this.json.beginObject();
+    }
+  }
+
+  /**
+   * @param descriptor the descriptor of the root message of the response, for example {@code WsProjectResponse.getDescriptor()}
+   */
+  public static StreamingProtobufWriter create(Descriptors.Descriptor descriptor, Request request, Response response) {
+    boolean isProtobuf = MediaTypes.PROTOBUF.equals(request.getMediaType());
+    response.stream().setMediaType(isProtobuf ? MediaTypes.PROTOBUF : MediaTypes.JSON);
+    return new StreamingProtobufWriter(descriptor, response.stream().output(), isProtobuf);
+  }
+
+  /**
+   * Writes the fields set in a partial root message, for example its scalar fields. Repeated fields
+   * which are empty in this message are not written, so they can be streamed later with
+   * {@link #beginRepeated(int)}.
+   */
+  public StreamingProtobufWriter writeFields(Message message) {
+    checkArgument(message.getDescriptorForType().equals(descriptor), "Message %s is not of type %s", message.getDescriptorForType().getFullName(),
+      descriptor.getFullName());
+    checkState(currentRepeatedField == null, "Repeated field '%s' is not ended", currentRepeatedField);
+    for (Descriptors.FieldDescriptor field : descriptor.getFields()) {
+      if (field.isRepeated() && message.getRepeatedFieldCount(field) > 0) {
+        checkState(writtenRepeatedFields.add(field.getNumber()), "Field '%s' is already written", field.getName());
+        if (json != null) {
+          ProtobufJsonFormat.writeField(message, field, json);
+        }
+      } else if (!field.isRepeated() && json != null) {
+        ProtobufJsonFormat.writeField(message, field, json);
+      }
+    }
+    if (protobuf != null) {
+      try {
+        message.writeTo(protobuf);
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to write protobuf message", e);
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Starts streaming the elements of a repeated or map field of the root message.
+   */
+  public StreamingProtobufWriter beginRepeated(int fieldNumber) {
+    checkState(currentRepeatedField == null, "Repeated field '%s' is not ended", currentRepeatedField);
+    Descriptors.FieldDescriptor field = descriptor.findFieldByNumber(fieldNumber);
+    checkArgument(field != null && field.isRepeated(), "Field %s of %s is not a repeated field", fieldNumber, descriptor.getFullName());
+    checkState(writtenRepeatedFields.add(fieldNumber), "Field '%s' is already written", field.getName());
+    currentRepeatedField = field;
+    if (json != null) {
+      json.name(field.getName());
+      if (field.isMapField()) {
+        json.beginObject();
+      } else {
+        json.beginArray();
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Writes an element of the current repeated field. Only fields of message type are supported.
+   */
+  public StreamingProtobufWriter writeElement(Message element) {
+    Descriptors.FieldDescriptor field = checkCurrentRepeatedField(false);
+    checkArgument(field.getJavaType() == Descriptors.FieldDescriptor.JavaType.MESSAGE && field.getMessageType().equals(element.getDescriptorForType()),
+      "Message %s can't be added to field '%s'", element.getDescriptorForType().getFullName(), field.getName());
+    if (json != null) {
+      ProtobufJsonFormat.writeFieldValue(field, element, json);
+    } else {
+      try {
+        protobuf.writeMessage(field.getNumber(), element);
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to write protobuf message", e);
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Writes an entry of the current map field. Only maps with string keys and message values are supported.
+   */
+  public StreamingProtobufWriter writeMapEntry(String key, Message value) {
+    Descriptors.FieldDescriptor field = checkCurrentRepeatedField(true);
+    Descriptors.FieldDescriptor keyField = field.getMessageType().findFieldByName("key");
+    Descriptors.FieldDescriptor valueField = field.getMessageType().findFieldByName("value");
+    checkArgument(keyField.getJavaType() == Descriptors.FieldDescriptor.JavaType.STRING
+      && valueField.getJavaType() == Descriptors.FieldDescriptor.JavaType.MESSAGE
+      && valueField.getMessageType().equals(value.getDescriptorForType()),
+      "Entry with value %s can't be added to map '%s'", value.getDescriptorForType().getFullName(), field.getName());
+    if (json != null) {
+      json.name(key);
+      ProtobufJsonFormat.writeFieldValue(valueField, value, json);
+    } else {
+      // an entry is serialized as a message with the key as field 1 and the value as field 2
+      try {
+        protobuf.writeTag(field.getNumber(), WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        protobuf.writeUInt32NoTag(CodedOutputStream.computeStringSize(keyField.getNumber(), key)
+          + CodedOutputStream.computeMessageSize(valueField.getNumber(), value));
+        protobuf.writeString(keyField.getNumber(), key);
+        protobuf.writeMessage(valueField.getNumber(), value);
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to write protobuf message", e);
+      }
+    }
+    return this;
+  }
+
+  public StreamingProtobufWriter endRepeated() {
+    Descriptors.FieldDescriptor field = currentRepeatedField;
+    checkState(field != null, "No repeated field is started");
+    if (json != null) {
+      if (field.isMapField()) {
+        json.endObject();
+      } else {
+        json.endArray();
+      }
+    }
+    currentRepeatedField = null;
+    return this;
+  }
+
+  private Descriptors.FieldDescriptor checkCurrentRepeatedField(boolean isMap) {
+    Descriptors.FieldDescriptor field = currentRepeatedField;
+    checkState(field != null, "No repeated field is started");
+    checkState(field.isMapField() == isMap, "Field '%s' is %s map field", field.getName(), isMap ? "not a" : "a");
+    return field;
+  }
+
+  /**
+   * Completes the message and closes the output stream. In JSON, repeated fields which have not been
+   * written are added as empty arrays or objects, as done by {@link ProtobufJsonFormat}.
+   */
+  @Override
+  public void close() {
+    try {
+      if (json != null) {
+        closeJson();
+      } else {
+        protobuf.flush();
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to write protobuf message", e);
+    } finally {
+      IOUtils.closeQuietly(output);
+    }
+  }
+
+  private void closeJson() {
+    if (currentRepeatedField == null) {
+      for (Descriptors.FieldDescriptor field : descriptor.getFields()) {
+        if (field.isRepeated() && !writtenRepeatedFields.contains(field.getNumber())) {
+          beginRepeated(field.getNumber()).endRepeated();
+        }
+      }
+      json.endObject();
+    }
+    json.close();
+  }
+}
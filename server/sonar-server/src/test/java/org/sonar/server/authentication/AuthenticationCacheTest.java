@@ -0,0 +1,113 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.authentication;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.Test;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.db.user.UserDto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.db.user.UserTesting.newUserDto;
+
+public class AuthenticationCacheTest {
+
+  private MapSettings settings = new MapSettings();
+  private TestSystem2 system2 = new TestSystem2().setNow(1_000_000L);
+  private AuthenticationCache underTest = new AuthenticationCache(settings, system2);
+
+  private AtomicInteger loads = new AtomicInteger();
+
+  @Test
+  public void login_of_token_is_loaded_once() {
+    assertThat(underTest.getLoginOfToken("hash", loader(Optional.of("john")))).contains("john");
+    assertThat(underTest.getLoginOfToken("hash", loader(Optional.of("john")))).contains("john");
+
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void unknown_token_is_not_cached() {
+    assertThat(underTest.getLoginOfToken("hash", loader(Optional.empty()))).isEmpty();
+    assertThat(underTest.getLoginOfToken("hash", loader(Optional.of("john")))).contains("john");
+
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void entries_expire_after_ttl() {
+    UserDto user = newUserDto();
+    underTest.getActiveUser(user.getLogin(), loader(Optional.of(user)));
+
+    system2.setNow(1_000_000L + 59_000L);
+    underTest.getActiveUser(user.getLogin(), loader(Optional.of(user)));
+    assertThat(loads.get()).isEqualTo(1);
+
+    system2.setNow(1_000_000L + 61_000L);
+    underTest.getActiveUser(user.getLogin(), loader(Optional.of(user)));
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void invalidateTokensOf_evicts_all_tokens_of_user() {
+    underTest.getLoginOfToken("hash1", loader(Optional.of("john")));
+    underTest.getLoginOfToken("hash2", loader(Optional.of("john")));
+    underTest.getLoginOfToken("hash3", loader(Optional.of("jane")));
+
+    underTest.invalidateTokensOf("john");
+
+    assertThat(underTest.getLoginOfToken("hash1", loader(Optional.empty()))).isEmpty();
+    assertThat(underTest.getLoginOfToken("hash2", loader(Optional.empty()))).isEmpty();
+    assertThat(underTest.getLoginOfToken("hash3", loader(Optional.empty()))).contains("jane");
+  }
+
+  @Test
+  public void invalidateUser_evicts_user_and_its_tokens() {
+    UserDto user = newUserDto();
+    underTest.getActiveUser(user.getLogin(), loader(Optional.of(user)));
+    underTest.getLoginOfToken("hash", loader(Optional.of(user.getLogin())));
+
+    underTest.invalidateUser(user.getLogin());
+
+    assertThat(underTest.getActiveUser(user.getLogin(), loader(Optional.empty()))).isEmpty();
+    assertThat(underTest.getLoginOfToken("hash", loader(Optional.empty()))).isEmpty();
+  }
+
+  @Test
+  public void cache_is_disabled_when_ttl_is_zero() {
+    settings.setProperty(AuthenticationCache.PROPERTY_TTL_IN_SECONDS, "0");
+    underTest = new AuthenticationCache(settings, system2);
+
+    underTest.getLoginOfToken("hash", loader(Optional.of("john")));
+    underTest.getLoginOfToken("hash", loader(Optional.of("john")));
+
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  private <T> Supplier<Optional<T>> loader(Optional<T> result) {
+    return () -> {
+      loads.incrementAndGet();
+      return result;
+    };
+  }
+}
@@ -84,7 +84,8 @@ public class UserIdentityAuthenticatorTest {
     mock(UserIndexer.class),
     System2.INSTANCE,
     defaultOrganizationProvider,
-      organizationCreation);
+      organizationCreation,
+    mock(AuthenticationCache.class));
   private UserIdentityAuthenticator underTest = new UserIdentityAuthenticator(db.getDbClient(), userUpdater, defaultOrganizationProvider);
   private GroupDto defaultGroup;
 
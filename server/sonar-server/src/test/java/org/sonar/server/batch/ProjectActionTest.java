@@ -20,10 +20,17 @@
 package org.sonar.server.batch;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.source.FileSourceDto;
+import org.sonar.db.source.FileSourceDto.Type;
 import org.sonar.scanner.protocol.input.FileData;
 import org.sonar.scanner.protocol.input.ProjectRepositories;
+import org.sonar.server.tester.UserSessionRule;
 import org.sonar.server.ws.TestResponse;
 import org.sonar.server.ws.WsActionTester;
 import org.sonarqube.ws.MediaTypes;
@@ -33,10 +40,17 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.sonar.core.permission.GlobalPermissions.SCAN_EXECUTION;
+import static org.sonar.db.component.ComponentTesting.newFileDto;
 import static org.sonar.test.JsonAssert.assertJson;
 
 public class ProjectActionTest {
 
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+  @Rule
+  public UserSessionRule userSession = UserSessionRule.standalone();
+
   private ProjectDataLoader projectDataLoader = mock(ProjectDataLoader.class);
   private WsActionTester ws;
 
@@ -86,4 +100,81 @@ public class ProjectActionTest {
     WsProjectResponse wsProjectResponse = WsProjectResponse.parseFrom(result.getInputStream());
     assertThat(wsProjectResponse.getFileDataByModuleAndPath()).isEmpty();
   }
+
+  @Test
+  public void answer_not_modified_if_etag_did_not_change() throws Exception {
+    ProjectRepositories projectRepositories = new ProjectRepositories().addFileData("module-1", "src/Foo.java", new FileData("h1", "r1"));
+    when(projectDataLoader.load(any(ProjectDataQuery.class))).thenReturn(projectRepositories);
+
+    TestResponse first = ws.newRequest()
+      .setMediaType(MediaTypes.PROTOBUF)
+      .setParam("key", "module-1")
+      .execute();
+    String eTag = first.getHeader("ETag");
+    assertThat(eTag).isNotEmpty();
+    assertThat(WsProjectResponse.parseFrom(first.getInputStream()).getFileDataByModuleAndPath()).containsKey("module-1");
+
+    TestResponse second = ws.newRequest()
+      .setMediaType(MediaTypes.PROTOBUF)
+      .setHeader("If-None-Match", eTag)
+      .setParam("key", "module-1")
+      .execute();
+    assertThat(second.getStatus()).isEqualTo(304);
+    assertThat(second.getHeader("ETag")).isEqualTo(eTag);
+    assertThat(second.getInput()).isEmpty();
+  }
+
+  @Test
+  public void return_data_if_etag_changed() throws Exception {
+    when(projectDataLoader.load(any(ProjectDataQuery.class))).thenReturn(
+      new ProjectRepositories().addFileData("module-1", "src/Foo.java", new FileData("h1", "r1")),
+      new ProjectRepositories().addFileData("module-1", "src/Foo.java", new FileData("h2", "r2")));
+
+    String eTag = ws.newRequest()
+      .setMediaType(MediaTypes.PROTOBUF)
+      .setParam("key", "module-1")
+      .execute()
+      .getHeader("ETag");
+    TestResponse response = ws.newRequest()
+      .setMediaType(MediaTypes.PROTOBUF)
+      .setHeader("If-None-Match", eTag)
+      .setParam("key", "module-1")
+      .execute();
+
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.getHeader("ETag")).isNotEqualTo(eTag);
+    WsProjectResponse wsProjectResponse = WsProjectResponse.parseFrom(response.getInputStream());
+    assertThat(wsProjectResponse.getFileDataByModuleAndPath().get("module-1").getFileDataByPath().get("src/Foo.java").getHash()).isEqualTo("h2");
+  }
+
+  @Test
+  public void answer_not_modified_if_project_did_not_change() throws Exception {
+    ComponentDto project = db.components().insertProject();
+    ComponentDto file = db.components().insertComponent(newFileDto(project));
+    db.getDbClient().fileSourceDao().insert(db.getSession(), new FileSourceDto()
+      .setFileUuid(file.uuid())
+      .setProjectUuid(project.uuid())
+      .setDataType(Type.SOURCE)
+      .setSrcHash("h1")
+      .setRevision("r1")
+      .setCreatedAt(1_000L)
+      .setUpdatedAt(1_000L));
+    db.commit();
+    userSession.logIn().addProjectUuidPermissions(SCAN_EXECUTION, project.uuid());
+    WsActionTester wsWithDb = new WsActionTester(new ProjectAction(new ProjectDataLoader(db.getDbClient(), userSession)));
+
+    String eTag = wsWithDb.newRequest()
+      .setMediaType(MediaTypes.PROTOBUF)
+      .setParam("key", project.key())
+      .execute()
+      .getHeader("ETag");
+    TestResponse response = wsWithDb.newRequest()
+      .setMediaType(MediaTypes.PROTOBUF)
+      .setHeader("If-None-Match", eTag)
+      .setParam("key", project.key())
+      .execute();
+
+    assertThat(response.getStatus()).isEqualTo(304);
+    assertThat(response.getHeader("ETag")).isEqualTo(eTag);
+  }
 }
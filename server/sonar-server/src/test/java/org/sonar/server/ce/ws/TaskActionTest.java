@@ -169,6 +169,45 @@ public class TaskActionTest {
     assertThat(task.hasErrorStacktrace()).isFalse();
   }
 
+  @Test
+  public void return_steps_of_activity_when_additionalField_is_set() {
+    logInAsRoot();
+
+    CeActivityDto activityDto = createActivityDto(SOME_TASK_UUID)
+      .setExecutionProfile("[{\"step\":\"Load report\",\"wallTimeMs\":12,\"cpuTimeMs\":10,\"allocatedBytes\":2048},{\"step\":\"Persist\",\"wallTimeMs\":4}]");
+    persist(activityDto);
+
+    TestResponse wsResponse = ws.newRequest()
+      .setMediaType(PROTOBUF)
+      .setParam("id", SOME_TASK_UUID)
+      .setParam("additionalFields", "steps")
+      .execute();
+
+    WsCe.Task task = Protobuf.read(wsResponse.getInputStream(), WsCe.TaskResponse.PARSER).getTask();
+    assertThat(task.getStepsList()).extracting(WsCe.TaskStep::getDescription).containsExactly("Load report", "Persist");
+    WsCe.TaskStep step = task.getSteps(0);
+    assertThat(step.getWallTimeMs()).isEqualTo(12L);
+    assertThat(step.getCpuTimeMs()).isEqualTo(10L);
+    assertThat(step.getAllocatedBytes()).isEqualTo(2048L);
+    assertThat(task.getSteps(1).hasCpuTimeMs()).isFalse();
+    assertThat(task.getSteps(1).hasAllocatedBytes()).isFalse();
+  }
+
+  @Test
+  public void do_not_return_steps_of_activity_when_additionalField_is_not_set() {
+    logInAsRoot();
+
+    persist(createActivityDto(SOME_TASK_UUID).setExecutionProfile("[{\"step\":\"Load report\",\"wallTimeMs\":12}]"));
+
+    TestResponse wsResponse = ws.newRequest()
+      .setMediaType(PROTOBUF)
+      .setParam("id", SOME_TASK_UUID)
+      .execute();
+
+    WsCe.Task task = Protobuf.read(wsResponse.getInputStream(), WsCe.TaskResponse.PARSER).getTask();
+    assertThat(task.getStepsList()).isEmpty();
+  }
+
   @Test
   public void return_scannerContext_of_activity_with_scannerContext_when_additionalField_is_set() {
     logInAsRoot();
@@ -614,6 +614,7 @@ public class SearchProjectsActionTest {
     db.components().insertSnapshot(newAnalysis(project2).setCreatedAt(30_000_000_000L).setLast(true));
     // No snapshot on project 3
     insertProjectInDbAndEs(newProjectDto(organizationDto));
+    new ProjectMeasuresIndexer(dbClient, es.client()).indexOnStartup(null);
 
     SearchProjectsWsResponse result = call(request.setAdditionalFields(singletonList("analysisDate")));
 
@@ -621,6 +622,18 @@ public class SearchProjectsActionTest {
       .containsOnly(formatDateTime(new Date(20_000_000_000L)), formatDateTime(new Date(30_000_000_000L)), "");
   }
 
+  @Test
+  public void do_not_return_last_analysis_date_if_not_requested() {
+    OrganizationDto organizationDto = db.organizations().insert();
+    ComponentDto project = insertProjectInDbAndEs(newProjectDto(organizationDto));
+    db.components().insertSnapshot(newAnalysis(project).setCreatedAt(20_000_000_000L).setLast(true));
+    new ProjectMeasuresIndexer(dbClient, es.client()).indexOnStartup(null);
+
+    SearchProjectsWsResponse result = call(request);
+
+    assertThat(result.getComponentsList()).extracting(Component::hasAnalysisDate).containsExactly(false);
+  }
+
   @Test
   public void fail_when_metrics_are_unknown() {
     expectedException.expect(IllegalArgumentException.class);
@@ -676,6 +689,7 @@ public class SearchProjectsActionTest {
       es.putDocuments(INDEX_TYPE_PROJECT_MEASURES,
         new ProjectMeasuresDoc()
           .setOrganizationUuid(project.getOrganizationUuid())
+          .setOrganizationKey(dbClient.organizationDao().selectByUuid(dbSession, project.getOrganizationUuid()).map(OrganizationDto::getKey).orElse(null))
           .setId(project.uuid())
           .setKey(project.key())
           .setName(project.name())
@@ -0,0 +1,104 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.dbcleaner;
+
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.ce.queue.CeQueueImpl;
+import org.sonar.core.util.UuidFactoryImpl;
+import org.sonar.db.DbTester;
+import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeTaskTypes;
+import org.sonar.db.purge.IdUuidPair;
+import org.sonar.server.organization.TestDefaultOrganizationProvider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class BackgroundProjectPurgerTest {
+
+  private static final IdUuidPair PROJECT = new IdUuidPair(10L, "P1");
+
+  private System2 system2 = new TestSystem2().setNow(1_450_000_000_000L);
+
+  @Rule
+  public DbTester db = DbTester.create(system2);
+
+  private CeQueueImpl ceQueue = new CeQueueImpl(db.getDbClient(), UuidFactoryImpl.INSTANCE, TestDefaultOrganizationProvider.from(db));
+  private BackgroundProjectPurger underTest = new BackgroundProjectPurger(db.getDbClient(), ceQueue);
+
+  @Test
+  public void submit_purge_task_of_project() {
+    underTest.submit(PROJECT);
+
+    assertThat(selectTasks())
+      .extracting(CeQueueDto::getTaskType, CeQueueDto::getStatus)
+      .containsExactly(tuple(CeTaskTypes.PROJECT_PURGE, CeQueueDto.Status.PENDING));
+  }
+
+  @Test
+  public void purge_is_not_submitted_twice_while_pending() {
+    underTest.submit(PROJECT);
+    underTest.submit(PROJECT);
+
+    assertThat(selectTasks()).hasSize(1);
+  }
+
+  @Test
+  public void purge_is_submitted_if_previous_purge_is_in_progress() {
+    insertTask(CeTaskTypes.PROJECT_PURGE, CeQueueDto.Status.IN_PROGRESS);
+
+    underTest.submit(PROJECT);
+
+    assertThat(selectTasks())
+      .extracting(CeQueueDto::getTaskType, CeQueueDto::getStatus)
+      .containsOnly(
+        tuple(CeTaskTypes.PROJECT_PURGE, CeQueueDto.Status.IN_PROGRESS),
+        tuple(CeTaskTypes.PROJECT_PURGE, CeQueueDto.Status.PENDING));
+  }
+
+  @Test
+  public void pending_tasks_of_other_types_are_ignored() {
+    insertTask(CeTaskTypes.REPORT, CeQueueDto.Status.PENDING);
+
+    underTest.submit(PROJECT);
+
+    assertThat(selectTasks())
+      .extracting(CeQueueDto::getTaskType)
+      .containsOnly(CeTaskTypes.REPORT, CeTaskTypes.PROJECT_PURGE);
+  }
+
+  private void insertTask(String type, CeQueueDto.Status status) {
+    CeQueueDto dto = new CeQueueDto()
+      .setUuid(UuidFactoryImpl.INSTANCE.create())
+      .setTaskType(type)
+      .setComponentUuid(PROJECT.getUuid())
+      .setStatus(status);
+    db.getDbClient().ceQueueDao().insert(db.getSession(), dto);
+    db.commit();
+  }
+
+  private List<CeQueueDto> selectTasks() {
+    return db.getDbClient().ceQueueDao().selectByComponentUuid(db.getSession(), PROJECT.getUuid());
+  }
+}
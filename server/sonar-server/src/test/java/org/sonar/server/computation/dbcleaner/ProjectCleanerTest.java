@@ -20,7 +20,9 @@
 package org.sonar.server.computation.dbcleaner;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.config.Settings;
 import org.sonar.api.config.MapSettings;
@@ -32,6 +34,7 @@ import org.sonar.db.purge.PurgeConfiguration;
 import org.sonar.db.purge.PurgeDao;
 import org.sonar.db.purge.PurgeListener;
 import org.sonar.db.purge.PurgeProfiler;
+import org.sonar.db.purge.PurgeThrottler;
 import org.sonar.db.purge.period.DefaultPeriodCleaner;
 
 import static java.util.Collections.emptyList;
@@ -45,6 +48,9 @@ import static org.mockito.Mockito.verify;
 
 public class ProjectCleanerTest {
 
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
   private ProjectCleaner underTest;
   private PurgeDao dao = mock(PurgeDao.class);
   private PurgeProfiler profiler = mock(PurgeProfiler.class);
@@ -82,16 +88,16 @@ public class ProjectCleanerTest {
     underTest.purge(mock(DbSession.class), mock(IdUuidPair.class), settings, emptyList());
 
     verify(periodCleaner).clean(any(DbSession.class), anyString(), any(Settings.class));
-    verify(dao).purge(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
+    verify(dao).purge(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class), any(PurgeThrottler.class));
   }
 
   @Test
   public void if_dao_purge_fails_it_should_not_interrupt_program_execution() {
-    doThrow(RuntimeException.class).when(dao).purge(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
+    doThrow(RuntimeException.class).when(dao).purge(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class), any(PurgeThrottler.class));
 
     underTest.purge(mock(DbSession.class), mock(IdUuidPair.class), settings, emptyList());
 
-    verify(dao).purge(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
+    verify(dao).purge(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class), any(PurgeThrottler.class));
   }
 
   @Test
@@ -102,4 +108,34 @@ public class ProjectCleanerTest {
 
     verify(periodCleaner).clean(any(DbSession.class), anyString(), any(Settings.class));
   }
+
+  @Test
+  public void purgeOrFail_propagates_failure_of_dao() {
+    doThrow(new IllegalStateException("interrupted")).when(dao).purge(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class),
+      any(PurgeThrottler.class));
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("interrupted");
+
+    underTest.purgeOrFail(mock(DbSession.class), mock(IdUuidPair.class), settings, emptyList(), PurgeThrottler.NONE);
+  }
+
+  @Test
+  public void purgeOrFail_propagates_failure_of_period_cleaner() {
+    doThrow(new IllegalStateException("db failure")).when(periodCleaner).clean(any(DbSession.class), anyString(), any(Settings.class));
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("db failure");
+
+    underTest.purgeOrFail(mock(DbSession.class), mock(IdUuidPair.class), settings, emptyList(), PurgeThrottler.NONE);
+  }
+
+  @Test
+  public void purgeDisabledComponents_does_not_purge_history() {
+    underTest.purgeDisabledComponents(mock(DbSession.class), mock(IdUuidPair.class), settings, emptyList());
+
+    verify(dao).purgeDisabledComponents(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class));
+    verify(dao, never()).purge(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class), any(PurgeThrottler.class));
+    verify(periodCleaner, never()).clean(any(DbSession.class), anyString(), any(Settings.class));
+  }
 }
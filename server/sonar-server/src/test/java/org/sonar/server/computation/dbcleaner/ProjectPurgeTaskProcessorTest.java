@@ -0,0 +1,120 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.dbcleaner;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.System2;
+import org.sonar.ce.queue.CeTask;
+import org.sonar.ce.settings.ProjectSettingsFactory;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+import org.sonar.db.ce.CeTaskTypes;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.purge.IdUuidPair;
+import org.sonar.db.purge.PurgeThrottler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollection;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class ProjectPurgeTaskProcessorTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+
+  private ProjectCleaner projectCleaner = mock(ProjectCleaner.class);
+  private ProjectSettingsFactory projectSettingsFactory = mock(ProjectSettingsFactory.class);
+  private Settings settings = new MapSettings();
+  private ProjectPurgeTaskProcessor underTest = new ProjectPurgeTaskProcessor(db.getDbClient(), projectCleaner, projectSettingsFactory, 0L);
+
+  @Test
+  public void handles_PROJECT_PURGE_tasks() {
+    assertThat(underTest.getHandledCeTaskTypes()).containsOnly(CeTaskTypes.PROJECT_PURGE);
+  }
+
+  @Test
+  public void purge_history_of_project_with_throttler() {
+    ComponentDto project = db.components().insertProject();
+    when(projectSettingsFactory.newProjectSettings(project.getKey())).thenReturn(settings);
+
+    assertThat(underTest.process(newTask(project.uuid()))).isNull();
+
+    ArgumentCaptor<IdUuidPair> root = ArgumentCaptor.forClass(IdUuidPair.class);
+    verify(projectCleaner).purgeOrFail(any(DbSession.class), root.capture(), eq(settings), anyCollection(), any(PurgeThrottler.class));
+    assertThat(root.getValue().getId()).isEqualTo(project.getId());
+    assertThat(root.getValue().getUuid()).isEqualTo(project.uuid());
+  }
+
+  @Test
+  public void fail_if_purge_fails() {
+    ComponentDto project = db.components().insertProject();
+    when(projectSettingsFactory.newProjectSettings(project.getKey())).thenReturn(settings);
+    when(projectCleaner.purgeOrFail(any(DbSession.class), any(IdUuidPair.class), eq(settings), anyCollection(), any(PurgeThrottler.class)))
+      .thenThrow(new IllegalStateException("Background purge of project is interrupted"));
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Background purge of project is interrupted");
+
+    underTest.process(newTask(project.uuid()));
+  }
+
+  @Test
+  public void do_nothing_if_project_does_not_exist_anymore() {
+    assertThat(underTest.process(newTask("DELETED"))).isNull();
+
+    verifyZeroInteractions(projectCleaner);
+  }
+
+  @Test
+  public void throttler_fails_if_thread_is_interrupted_while_pausing() {
+    PurgeThrottler throttler = new ProjectPurgeTaskProcessor.ChunkThrottler("P1", 1_000L);
+
+    Thread.currentThread().interrupt();
+    try {
+      expectedException.expect(IllegalStateException.class);
+      expectedException.expectMessage("Background purge of project P1 is interrupted");
+
+      throttler.chunkCommitted("step");
+    } finally {
+      assertThat(Thread.interrupted()).isTrue();
+    }
+  }
+
+  private static CeTask newTask(String componentUuid) {
+    return new CeTask.Builder()
+      .setOrganizationUuid("org1")
+      .setUuid("TASK_1")
+      .setType(CeTaskTypes.PROJECT_PURGE)
+      .setComponentUuid(componentUuid)
+      .build();
+  }
+}
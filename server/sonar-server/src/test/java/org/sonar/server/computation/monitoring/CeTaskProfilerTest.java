@@ -0,0 +1,113 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import javax.annotation.CheckForNull;
+import javax.management.InstanceNotFoundException;
+import javax.management.ObjectInstance;
+import javax.management.ObjectName;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonar.server.computation.monitoring.StepProfile.NOT_MEASURED;
+
+public class CeTaskProfilerTest {
+
+  private CeTaskProfiler underTest = new CeTaskProfiler();
+
+  @Test
+  public void record_steps_of_current_task() {
+    underTest.startTask();
+    underTest.stopStep(underTest.startStep(), "step1");
+    underTest.stopStep(underTest.startStep(), "step2");
+
+    List<StepProfile> profiles = underTest.stopTask();
+
+    assertThat(profiles).extracting(StepProfile::getDescription).containsExactly("step1", "step2");
+    assertThat(profiles.get(0).getWallTimeMs()).isGreaterThanOrEqualTo(0L);
+  }
+
+  @Test
+  public void stopTask_resets_the_profile_of_current_thread() {
+    underTest.startTask();
+    underTest.stopStep(underTest.startStep(), "step1");
+    underTest.stopTask();
+
+    assertThat(underTest.stopTask()).isEmpty();
+  }
+
+  @Test
+  public void steps_are_not_recorded_if_task_is_not_started() {
+    StepProfile profile = underTest.stopStep(underTest.startStep(), "step1");
+
+    assertThat(profile.getDescription()).isEqualTo("step1");
+    assertThat(underTest.stopTask()).isEmpty();
+    assertThat(underTest.getExecutionCount()).containsEntry("step1", 1L);
+  }
+
+  @Test
+  public void aggregate_statistics_of_all_tasks() {
+    underTest.stopStep(underTest.startStep(), "step1");
+    underTest.stopStep(underTest.startStep(), "step1");
+    underTest.stopStep(underTest.startStep(), "step2");
+
+    assertThat(underTest.getExecutionCount()).containsEntry("step1", 2L).containsEntry("step2", 1L);
+    assertThat(underTest.getAverageWallTimeMs()).containsOnlyKeys("step1", "step2");
+  }
+
+  @Test
+  public void cpu_time_and_allocated_bytes_are_not_measured_if_not_supported_by_jvm() {
+    ThreadMXBean threadMXBean = mock(ThreadMXBean.class);
+    when(threadMXBean.isCurrentThreadCpuTimeSupported()).thenReturn(false);
+    CeTaskProfiler profiler = new CeTaskProfiler(threadMXBean);
+
+    StepProfile profile = profiler.stopStep(profiler.startStep(), "step1");
+
+    assertThat(profile.getCpuTimeMs()).isEqualTo(NOT_MEASURED);
+    assertThat(profile.getAllocatedBytes()).isEqualTo(NOT_MEASURED);
+    assertThat(profiler.getAverageCpuTimeMs()).isEmpty();
+    assertThat(profiler.getAverageAllocatedBytes()).isEmpty();
+  }
+
+  @Test
+  public void register_and_unregister() throws Exception {
+    assertThat(getMBean()).isNull();
+
+    underTest.start();
+    assertThat(getMBean()).isNotNull();
+
+    underTest.stop();
+    assertThat(getMBean()).isNull();
+  }
+
+  @CheckForNull
+  private ObjectInstance getMBean() throws Exception {
+    try {
+      return ManagementFactory.getPlatformMBeanServer().getObjectInstance(new ObjectName(CeStepsMBean.OBJECT_NAME));
+    } catch (InstanceNotFoundException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.monitoring;
+
+import java.util.List;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.server.computation.monitoring.StepProfile.NOT_MEASURED;
+
+public class StepProfileTest {
+
+  @Test
+  public void serialize_to_json() {
+    String json = StepProfile.toJson(asList(
+      new StepProfile("Load report", 12L, 10L, 2_048L),
+      new StepProfile("Persist", 4L, NOT_MEASURED, NOT_MEASURED)));
+
+    assertThat(json).isEqualTo("[{\"step\":\"Load report\",\"wallTimeMs\":12,\"cpuTimeMs\":10,\"allocatedBytes\":2048}," +
+      "{\"step\":\"Persist\",\"wallTimeMs\":4}]");
+  }
+
+  @Test
+  public void deserialize_from_json() {
+    List<StepProfile> profiles = StepProfile.fromJson("[{\"step\":\"Load report\",\"wallTimeMs\":12,\"cpuTimeMs\":10,\"allocatedBytes\":2048}," +
+      "{\"step\":\"Persist\",\"wallTimeMs\":4}]");
+
+    assertThat(profiles).hasSize(2);
+    assertThat(profiles.get(0).getDescription()).isEqualTo("Load report");
+    assertThat(profiles.get(0).getWallTimeMs()).isEqualTo(12L);
+    assertThat(profiles.get(0).getCpuTimeMs()).isEqualTo(10L);
+    assertThat(profiles.get(0).getAllocatedBytes()).isEqualTo(2_048L);
+    assertThat(profiles.get(1).getDescription()).isEqualTo("Persist");
+    assertThat(profiles.get(1).getCpuTimeMs()).isEqualTo(NOT_MEASURED);
+    assertThat(profiles.get(1).getAllocatedBytes()).isEqualTo(NOT_MEASURED);
+  }
+
+  @Test
+  public void empty_profile() {
+    assertThat(StepProfile.toJson(asList())).isEqualTo("[]");
+    assertThat(StepProfile.fromJson("[]")).isEmpty();
+  }
+}
@@ -19,17 +19,34 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import java.io.IOException;
+import java.util.Collection;
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.utils.System2;
+import org.sonar.core.issue.DefaultIssue;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.RelocatedComponentsHolderImpl;
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.projectanalysis.component.ViewsComponent;
+import org.sonar.server.computation.task.projectanalysis.issue.IssueCache;
 import org.sonar.server.computation.task.step.ComputationStep;
 import org.sonar.server.es.ProjectIndexer;
+import org.sonar.server.issue.index.IssueIndexer;
 
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyCollection;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.PROJECT;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.VIEW;
@@ -43,12 +60,24 @@ public class IndexAnalysisStepTest extends BaseStepTest {
   public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule();
   @Rule
   public BatchReportReaderRule reportReader = new BatchReportReaderRule();
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
 
   private ProjectIndexer componentIndexer = mock(ProjectIndexer.class);
-  private IndexAnalysisStep underTest = new IndexAnalysisStep(treeRootHolder, componentIndexer);
+  private IssueIndexer issueIndexer = mock(IssueIndexer.class);
+  private RelocatedComponentsHolderImpl relocatedComponentsHolder = new RelocatedComponentsHolderImpl();
+  private IssueCache issueCache;
+  private IndexAnalysisStep underTest;
+
+  @Before
+  public void setUp() throws IOException {
+    issueCache = new IssueCache(temp.newFile(), System2.INSTANCE);
+    underTest = new IndexAnalysisStep(treeRootHolder, relocatedComponentsHolder, issueCache, componentIndexer, issueIndexer);
+  }
 
   @Test
   public void call_indexByProjectUuid_of_indexer_for_project() {
+    relocatedComponentsHolder.setUuids(emptyList());
     Component project = ReportComponent.builder(PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).build();
     treeRootHolder.setRoot(project);
 
@@ -59,6 +88,7 @@ public class IndexAnalysisStepTest extends BaseStepTest {
 
   @Test
   public void call_indexByProjectUuid_of_indexer_for_view() {
+    relocatedComponentsHolder.setUuids(emptyList());
     Component view = ViewsComponent.builder(VIEW, PROJECT_KEY).setUuid(PROJECT_UUID).build();
     treeRootHolder.setRoot(view);
 
@@ -67,6 +97,40 @@ public class IndexAnalysisStepTest extends BaseStepTest {
     verify(componentIndexer).indexProject(PROJECT_UUID, ProjectIndexer.Cause.NEW_ANALYSIS);
   }
 
+  @Test
+  public void index_only_new_and_changed_issues() {
+    relocatedComponentsHolder.setUuids(emptyList());
+    Component project = ReportComponent.builder(PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).build();
+    treeRootHolder.setRoot(project);
+    issueCache.newAppender()
+      .append(new DefaultIssue().setKey("NEW").setNew(true))
+      .append(new DefaultIssue().setKey("CHANGED").setNew(false).setChanged(true))
+      .append(new DefaultIssue().setKey("UNCHANGED").setNew(false).setChanged(false))
+      .close();
+
+    underTest.execute();
+
+    ArgumentCaptor<Collection<String>> keys = ArgumentCaptor.forClass(Collection.class);
+    verify(issueIndexer).indexOnAnalysis(eq(PROJECT_UUID), keys.capture());
+    assertThat(keys.getValue()).containsOnly("NEW", "CHANGED");
+    verify(issueIndexer, never()).indexProject(anyString(), eq(ProjectIndexer.Cause.NEW_ANALYSIS));
+  }
+
+  @Test
+  public void index_all_issues_of_project_if_components_are_relocated() {
+    relocatedComponentsHolder.setUuids(singletonList("MODULE_UUID"));
+    Component project = ReportComponent.builder(PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).build();
+    treeRootHolder.setRoot(project);
+    issueCache.newAppender()
+      .append(new DefaultIssue().setKey("NEW").setNew(true))
+      .close();
+
+    underTest.execute();
+
+    verify(issueIndexer).indexProject(PROJECT_UUID, ProjectIndexer.Cause.NEW_ANALYSIS);
+    verify(issueIndexer, never()).indexOnAnalysis(anyString(), anyCollection());
+  }
+
   @Override
   protected ComputationStep step() {
     return underTest;
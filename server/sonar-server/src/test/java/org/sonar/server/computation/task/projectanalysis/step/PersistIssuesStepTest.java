@@ -32,12 +32,14 @@ import org.sonar.api.utils.System2;
 import org.sonar.core.issue.DefaultIssue;
 import org.sonar.core.issue.DefaultIssueComment;
 import org.sonar.core.issue.FieldDiffs;
+import org.sonar.db.BatchSession;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
 import org.sonar.db.issue.IssueDto;
+import org.sonar.db.issue.IssueTesting;
 import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.rule.RuleDto;
 import org.sonar.db.rule.RuleTesting;
@@ -47,6 +49,7 @@ import org.sonar.server.computation.task.projectanalysis.issue.IssueCache;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.issue.UpdateConflictResolver;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.util.cache.DiskCache;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
@@ -209,4 +212,85 @@ public class PersistIssuesStepTest extends BaseStepTest {
     dbTester.assertDbUnit(getClass(), "add_change-result.xml", new String[] {"id", "created_at", "updated_at"}, "issue_changes");
   }
 
+  @Test
+  public void insert_new_issues_by_chunks() {
+    RuleDto rule = dbTester.rules().insertRule(RuleTesting.newDto(RuleKey.of("xoo", "S01")));
+    ComponentDto project = dbTester.components().insertProject();
+    ComponentDto file = dbTester.components().insertComponent(ComponentTesting.newFileDto(project, null));
+    int nbIssues = PersistIssuesStep.ISSUES_PER_TRANSACTION + BatchSession.MAX_BATCH_SIZE + 1;
+    DiskCache<DefaultIssue>.DiskAppender appender = issueCache.newAppender();
+    for (int i = 0; i < nbIssues; i++) {
+      appender.append(new DefaultIssue()
+        .setKey("ISSUE_" + i)
+        .setType(RuleType.CODE_SMELL)
+        .setRuleKey(rule.getKey())
+        .setComponentUuid(file.uuid())
+        .setProjectUuid(project.uuid())
+        .setSeverity(Severity.BLOCKER)
+        .setStatus(Issue.STATUS_OPEN)
+        .setNew(true));
+    }
+    appender.close();
+
+    step.execute();
+
+    assertThat(dbTester.countRowsOfTable("issues")).isEqualTo(nbIssues);
+  }
+
+  @Test
+  public void resolve_conflict_when_issue_has_been_changed_by_user_during_analysis() {
+    RuleDto rule = dbTester.rules().insertRule(RuleTesting.newDto(RuleKey.of("xoo", "S01")));
+    ComponentDto project = dbTester.components().insertProject();
+    ComponentDto file = dbTester.components().insertComponent(ComponentTesting.newFileDto(project, null));
+    IssueDto dbIssue = dbTester.issues().insertIssue(IssueTesting.newDto(rule, file, project)
+      .setAssignee("john")
+      .setUpdatedAt(NOW));
+
+    issueCache.newAppender().append(new DefaultIssue()
+      .setKey(dbIssue.getKey())
+      .setType(RuleType.CODE_SMELL)
+      .setRuleKey(rule.getKey())
+      .setComponentUuid(file.uuid())
+      .setProjectUuid(project.uuid())
+      .setSeverity(Severity.BLOCKER)
+      .setStatus(Issue.STATUS_OPEN)
+      .setSelectedAt(NOW - 1_000L)
+      .setNew(false)
+      .setChanged(true)).close();
+
+    step.execute();
+
+    IssueDto result = dbClient.issueDao().selectOrFailByKey(session, dbIssue.getKey());
+    assertThat(result.getAssignee()).isEqualTo("john");
+    assertThat(result.getSeverity()).isEqualTo(Severity.BLOCKER);
+  }
+
+  @Test
+  public void do_not_resolve_conflict_when_issue_has_not_been_changed_during_analysis() {
+    RuleDto rule = dbTester.rules().insertRule(RuleTesting.newDto(RuleKey.of("xoo", "S01")));
+    ComponentDto project = dbTester.components().insertProject();
+    ComponentDto file = dbTester.components().insertComponent(ComponentTesting.newFileDto(project, null));
+    IssueDto dbIssue = dbTester.issues().insertIssue(IssueTesting.newDto(rule, file, project)
+      .setAssignee("john")
+      .setUpdatedAt(NOW - 1_000L));
+
+    issueCache.newAppender().append(new DefaultIssue()
+      .setKey(dbIssue.getKey())
+      .setType(RuleType.CODE_SMELL)
+      .setRuleKey(rule.getKey())
+      .setComponentUuid(file.uuid())
+      .setProjectUuid(project.uuid())
+      .setSeverity(Severity.BLOCKER)
+      .setStatus(Issue.STATUS_OPEN)
+      .setAssignee("jane")
+      .setSelectedAt(NOW)
+      .setNew(false)
+      .setChanged(true)).close();
+
+    step.execute();
+
+    IssueDto result = dbClient.issueDao().selectOrFailByKey(session, dbIssue.getKey());
+    assertThat(result.getAssignee()).isEqualTo("jane");
+    assertThat(result.getUpdatedAt()).isEqualTo(NOW);
+  }
 }
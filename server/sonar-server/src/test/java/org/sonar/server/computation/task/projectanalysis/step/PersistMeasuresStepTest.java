@@ -29,6 +29,9 @@ import org.sonar.api.utils.System2;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbTester;
 import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.SnapshotDto;
+import org.sonar.db.measure.MeasureDto;
+import org.sonar.db.measure.MeasureHistoryDto;
 import org.sonar.db.rule.RuleDto;
 import org.sonar.server.computation.task.projectanalysis.analysis.MutableAnalysisMetadataHolderRule;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
@@ -43,6 +46,8 @@ import org.sonar.server.computation.task.projectanalysis.measure.MeasureToMeasur
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepositoryRule;
 import org.sonar.server.computation.task.step.ComputationStep;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.sonar.api.measures.CoreMetrics.CLASS_COMPLEXITY_DISTRIBUTION;
 import static org.sonar.api.measures.CoreMetrics.CLASS_COMPLEXITY_DISTRIBUTION_KEY;
@@ -50,6 +55,7 @@ import static org.sonar.api.measures.CoreMetrics.FILE_COMPLEXITY_DISTRIBUTION;
 import static org.sonar.api.measures.CoreMetrics.FILE_COMPLEXITY_DISTRIBUTION_KEY;
 import static org.sonar.api.measures.CoreMetrics.FUNCTION_COMPLEXITY_DISTRIBUTION;
 import static org.sonar.api.measures.CoreMetrics.FUNCTION_COMPLEXITY_DISTRIBUTION_KEY;
+import static org.sonar.db.component.SnapshotDto.STATUS_PROCESSED;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.DIRECTORY;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.FILE;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.MODULE;
@@ -66,17 +72,20 @@ public class PersistMeasuresStepTest extends BaseStepTest {
   private static final String INT_METRIC_KEY = "int-metric-key";
   private static final String LONG_METRIC_KEY = "long-metric-key";
   private static final String OPTIMIZED_METRIC_KEY = "optimized-metric-key";
+  private static final String NEW_METRIC_KEY = "new_metric_key";
 
   private static final Metric STRING_METRIC = new Metric.Builder(STRING_METRIC_KEY, "String metric", Metric.ValueType.STRING).create();
   private static final Metric DOUBLE_METRIC = new Metric.Builder(DOUBLE_METRIC_KEY, "Double metric", Metric.ValueType.FLOAT).create();
   private static final Metric INT_METRIC = new Metric.Builder(INT_METRIC_KEY, "int metric", Metric.ValueType.INT).create();
   private static final Metric LONG_METRIC = new Metric.Builder(LONG_METRIC_KEY, "long metric", Metric.ValueType.WORK_DUR).create();
+  private static final Metric NEW_METRIC = new Metric.Builder(NEW_METRIC_KEY, "new metric", Metric.ValueType.INT).create();
 
   private static final int ROOT_REF = 1;
   private static final int INTERMEDIATE_1_REF = 2;
   private static final int INTERMEDIATE_2_REF = 3;
   private static final int LEAF_REF = 4;
   private static final String ANALYSIS_UUID = "a1";
+  private static final long ANALYSIS_DATE = 1_500_000_000_000L;
 
   @Rule
   public DbTester dbTester = DbTester.create(System2.INSTANCE);
@@ -103,8 +112,10 @@ public class PersistMeasuresStepTest extends BaseStepTest {
 
   @Before
   public void setUp() {
-    underTest = new PersistMeasuresStep(dbClient, metricRepository, new MeasureToMeasureDto(dbIdsRepository, analysisMetadataHolder), treeRootHolder, measureRepository);
+    underTest = new PersistMeasuresStep(dbClient, metricRepository, new MeasureToMeasureDto(dbIdsRepository, analysisMetadataHolder), treeRootHolder, measureRepository,
+      analysisMetadataHolder, System2.INSTANCE);
     analysisMetadataHolder.setUuid(ANALYSIS_UUID);
+    analysisMetadataHolder.setAnalysisDate(ANALYSIS_DATE);
   }
 
   private void setupReportComponents() {
@@ -379,6 +390,154 @@ public class PersistMeasuresStepTest extends BaseStepTest {
     assertThat(dto.get("developerId")).isEqualTo(10L);
   }
 
+  @Test
+  public void insert_history_of_numeric_measures_of_root_from_report() {
+    setupReportComponents();
+
+    insertHistory();
+  }
+
+  @Test
+  public void insert_history_of_numeric_measures_of_root_from_views() {
+    setupViewsComponents();
+
+    insertHistory();
+  }
+
+  private void insertHistory() {
+    metricRepository.add(1, STRING_METRIC);
+    metricRepository.add(2, INT_METRIC);
+    metricRepository.add(3, NEW_METRIC);
+    metricRepository.add(4, LONG_METRIC);
+    measureRepository.addRawMeasure(ROOT_REF, STRING_METRIC_KEY, newMeasureBuilder().create("measure-data"));
+    measureRepository.addRawMeasure(ROOT_REF, INT_METRIC_KEY, newMeasureBuilder().create(12));
+    measureRepository.addRawMeasure(ROOT_REF, NEW_METRIC_KEY, newMeasureBuilder().setVariation(3d).createNoValue());
+    measureRepository.addRawMeasure(INTERMEDIATE_1_REF, LONG_METRIC_KEY, newMeasureBuilder().create(9635L));
+
+    underTest.execute();
+
+    assertThat(dbTester.countRowsOfTable("measure_history")).isEqualTo(2);
+    assertThat(selectHistory(2)).containsExactly(new MeasureHistoryDto.Point(ANALYSIS_UUID, ANALYSIS_DATE, 12d));
+    assertThat(selectHistory(3)).containsExactly(new MeasureHistoryDto.Point(ANALYSIS_UUID, ANALYSIS_DATE, 3d));
+  }
+
+  @Test
+  public void history_is_created_from_measures_of_past_analyses() {
+    setupReportComponents();
+    metricRepository.add(2, INT_METRIC);
+    insertPastAnalysis("past1", 1_000L);
+    insertPastAnalysis("past2", 2_000L);
+    insertPastMeasure("past1", 2, 10d);
+    insertPastMeasure("past2", 2, 11d);
+    measureRepository.addRawMeasure(ROOT_REF, INT_METRIC_KEY, newMeasureBuilder().create(12));
+
+    underTest.execute();
+
+    assertThat(selectHistory(2)).containsExactly(
+      new MeasureHistoryDto.Point("past1", 1_000L, 10d),
+      new MeasureHistoryDto.Point("past2", 2_000L, 11d),
+      new MeasureHistoryDto.Point(ANALYSIS_UUID, ANALYSIS_DATE, 12d));
+  }
+
+  @Test
+  public void history_keeps_past_analyses_with_same_date() {
+    setupReportComponents();
+    metricRepository.add(2, INT_METRIC);
+    insertPastAnalysis("past1", 1_000L);
+    insertPastAnalysis("past2", 1_000L);
+    insertPastMeasure("past1", 2, 10d);
+    insertPastMeasure("past2", 2, 11d);
+    measureRepository.addRawMeasure(ROOT_REF, INT_METRIC_KEY, newMeasureBuilder().create(12));
+
+    underTest.execute();
+
+    assertThat(selectHistory(2)).containsExactly(
+      new MeasureHistoryDto.Point("past1", 1_000L, 10d),
+      new MeasureHistoryDto.Point("past2", 1_000L, 11d),
+      new MeasureHistoryDto.Point(ANALYSIS_UUID, ANALYSIS_DATE, 12d));
+  }
+
+  @Test
+  public void existing_history_is_appended_and_purged_analyses_are_removed() {
+    setupReportComponents();
+    metricRepository.add(2, INT_METRIC);
+    insertPastAnalysis("past2", 2_000L);
+    dbClient.measureHistoryDao().insert(dbTester.getSession(), new MeasureHistoryDto()
+      .setComponentUuid(rootDto.uuid())
+      .setMetricId(2)
+      .setHistory(asList(new MeasureHistoryDto.Point("past1", 1_000L, 10d), new MeasureHistoryDto.Point("past2", 2_000L, 11d)))
+      .setUpdatedAt(2_000L));
+    dbTester.commit();
+    measureRepository.addRawMeasure(ROOT_REF, INT_METRIC_KEY, newMeasureBuilder().create(12));
+
+    underTest.execute();
+
+    assertThat(selectHistory(2)).containsExactly(new MeasureHistoryDto.Point("past2", 2_000L, 11d), new MeasureHistoryDto.Point(ANALYSIS_UUID, ANALYSIS_DATE, 12d));
+  }
+
+  /**
+   * Step persists in a batch session, which does not return the count of updated rows
+   */
+  @Test
+  public void history_rows_are_inserted_and_updated_in_same_batch_session() {
+    setupReportComponents();
+    metricRepository.add(2, INT_METRIC);
+    metricRepository.add(3, NEW_METRIC);
+    insertPastAnalysis("past1", 1_000L);
+    dbClient.measureHistoryDao().insert(dbTester.getSession(), new MeasureHistoryDto()
+      .setComponentUuid(rootDto.uuid())
+      .setMetricId(2)
+      .setHistory(singletonList(new MeasureHistoryDto.Point("past1", 1_000L, 10d)))
+      .setUpdatedAt(1_000L));
+    dbTester.commit();
+    measureRepository.addRawMeasure(ROOT_REF, INT_METRIC_KEY, newMeasureBuilder().create(12));
+    measureRepository.addRawMeasure(ROOT_REF, NEW_METRIC_KEY, newMeasureBuilder().setVariation(3d).createNoValue());
+
+    underTest.execute();
+
+    assertThat(dbTester.countRowsOfTable("measure_history")).isEqualTo(2);
+    assertThat(selectHistory(2)).containsExactly(new MeasureHistoryDto.Point("past1", 1_000L, 10d), new MeasureHistoryDto.Point(ANALYSIS_UUID, ANALYSIS_DATE, 12d));
+    assertThat(selectHistory(3)).containsExactly(new MeasureHistoryDto.Point(ANALYSIS_UUID, ANALYSIS_DATE, 3d));
+  }
+
+  @Test
+  public void history_does_not_contain_developer_measures() {
+    setupReportComponents();
+    metricRepository.add(1, INT_METRIC);
+    Developer developer = new DumbDeveloper("DEV1");
+    dbIdsRepository.setDeveloperId(developer, 10);
+    measureRepository.addRawMeasure(ROOT_REF, INT_METRIC_KEY, newMeasureBuilder().forDeveloper(developer).create(1));
+
+    underTest.execute();
+
+    assertThat(dbTester.countRowsOfTable("measure_history")).isZero();
+  }
+
+  private void insertPastAnalysis(String uuid, long date) {
+    dbClient.snapshotDao().insert(dbTester.getSession(), new SnapshotDto()
+      .setUuid(uuid)
+      .setComponentUuid(rootDto.uuid())
+      .setCreatedAt(date)
+      .setStatus(STATUS_PROCESSED)
+      .setLast(false));
+    dbTester.commit();
+  }
+
+  private void insertPastMeasure(String analysisUuid, int metricId, double value) {
+    dbClient.measureDao().insert(dbTester.getSession(), new MeasureDto()
+      .setAnalysisUuid(analysisUuid)
+      .setComponentUuid(rootDto.uuid())
+      .setMetricId(metricId)
+      .setValue(value));
+    dbTester.commit();
+  }
+
+  private List<MeasureHistoryDto.Point> selectHistory(int metricId) {
+    List<MeasureHistoryDto> histories = dbClient.measureHistoryDao().selectByComponentUuidAndMetricIds(dbTester.getSession(), rootDto.uuid(), singletonList(metricId));
+    assertThat(histories).hasSize(1);
+    return histories.get(0).getHistory();
+  }
+
   private ComponentDto addComponent(String key, String uuid) {
     ComponentDto componentDto = new ComponentDto()
       .setOrganizationUuid("org1")
@@ -36,6 +36,7 @@ import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.FileAttributes;
 import org.sonar.server.computation.task.projectanalysis.component.MutableDbIdsRepositoryRule;
 import org.sonar.server.computation.task.projectanalysis.component.MutableDisabledComponentsHolder;
+import org.sonar.server.computation.task.projectanalysis.component.RelocatedComponentsHolderImpl;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.step.ComputationStep;
 
@@ -72,6 +73,7 @@ public class ReportPersistComponentsStepTest extends BaseStepTest {
   private DbClient dbClient = dbTester.getDbClient();
   private Date now;
   private MutableDisabledComponentsHolder disabledComponentsHolder = mock(MutableDisabledComponentsHolder.class, RETURNS_DEEP_STUBS);
+  private RelocatedComponentsHolderImpl relocatedComponentsHolder = new RelocatedComponentsHolderImpl();
   private PersistComponentsStep underTest;
 
   @Before
@@ -80,7 +82,7 @@ public class ReportPersistComponentsStepTest extends BaseStepTest {
     when(system2.now()).thenReturn(now.getTime());
 
     dbTester.organizations().insertForUuid(ORGANIZATION_UUID);
-    underTest = new PersistComponentsStep(dbClient, treeRootHolder, dbIdsRepository, system2, disabledComponentsHolder, analysisMetadataHolder);
+    underTest = new PersistComponentsStep(dbClient, treeRootHolder, dbIdsRepository, system2, disabledComponentsHolder, relocatedComponentsHolder, analysisMetadataHolder);
   }
 
   @Override
@@ -520,6 +522,7 @@ public class ReportPersistComponentsStepTest extends BaseStepTest {
     underTest.execute();
 
     assertThat(dbClient.componentDao().selectByKey(dbTester.getSession(), MODULE_KEY).get().path()).isEqualTo("path");
+    assertThat(relocatedComponentsHolder.getUuids()).containsOnly("BCDE");
 
     // commit the functional transaction
     dbClient.componentDao().applyBChangesForRootComponentUuid(dbTester.getSession(), project.uuid());
@@ -571,6 +574,7 @@ public class ReportPersistComponentsStepTest extends BaseStepTest {
     dbTester.commit();
 
     assertThat(dbTester.countRowsOfTable("projects")).isEqualTo(5);
+    assertThat(relocatedComponentsHolder.getUuids()).contains(moduleB.uuid(), directory.uuid(), file.uuid());
 
     ComponentDto moduleAreloaded = dbClient.componentDao().selectByKey(dbTester.getSession(), "MODULE_A").get();
 
@@ -0,0 +1,273 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.webhook;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class WebhookDispatcherImplTest {
+
+  private static final long NOW = 1_500_000_000_000L;
+  private static final Webhook WEBHOOK = new Webhook("P1_UUID", "CE_TASK_UUID", "First", "http://url1");
+  private static final WebhookPayload PAYLOAD = new WebhookPayload("P1", "{json}");
+
+  @Rule
+  public LogTester logTester = new LogTester().setLevel(LoggerLevel.DEBUG);
+  @Rule
+  public MockWebServer server = new MockWebServer();
+
+  private TestWebhookCaller caller = new TestWebhookCaller();
+  private WebhookDeliveryStorage deliveryStorage = mock(WebhookDeliveryStorage.class);
+  private TestSystem2 system = new TestSystem2().setNow(NOW);
+  private WebhookDispatcherImpl underTest;
+
+  @After
+  public void tearDown() {
+    if (underTest != null) {
+      underTest.stop();
+    }
+  }
+
+  @Test
+  public void send_webhook_asynchronously() {
+    caller.enqueueSuccess(NOW, 200, 1_234);
+    underTest = newDispatcher(1_000, 3);
+
+    underTest.dispatch(WEBHOOK, PAYLOAD);
+
+    WebhookDelivery delivery = waitForPersistedDelivery();
+    assertThat(delivery.getHttpStatus()).hasValue(200);
+    assertThat(caller.countSent()).isEqualTo(1);
+    assertThat(underTest.countPendingDeliveries()).isEqualTo(0);
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Sent webhook 'First' | url=http://url1 | time=1234ms | status=200");
+  }
+
+  @Test
+  public void retry_on_connectivity_error_and_server_error() {
+    caller.enqueueFailure(NOW, new IOException("Fail to connect"));
+    caller.enqueueSuccess(NOW, 503, 10);
+    caller.enqueueSuccess(NOW, 200, 10);
+    underTest = newDispatcher(1_000, 3);
+
+    underTest.dispatch(WEBHOOK, PAYLOAD);
+
+    WebhookDelivery delivery = waitForPersistedDelivery();
+    assertThat(delivery.getHttpStatus()).hasValue(200);
+    assertThat(caller.countSent()).isEqualTo(3);
+  }
+
+  @Test
+  public void persist_last_failure_when_max_attempts_is_reached() {
+    caller.enqueueSuccess(NOW, 500, 10);
+    caller.enqueueSuccess(NOW, 502, 10);
+    underTest = newDispatcher(1_000, 2);
+
+    underTest.dispatch(WEBHOOK, PAYLOAD);
+
+    WebhookDelivery delivery = waitForPersistedDelivery();
+    assertThat(delivery.getHttpStatus()).hasValue(502);
+    assertThat(caller.countSent()).isEqualTo(2);
+  }
+
+  @Test
+  public void do_not_retry_on_client_error() {
+    caller.enqueueSuccess(NOW, 404, 10);
+    underTest = newDispatcher(1_000, 3);
+
+    underTest.dispatch(WEBHOOK, PAYLOAD);
+
+    WebhookDelivery delivery = waitForPersistedDelivery();
+    assertThat(delivery.getHttpStatus()).hasValue(404);
+    assertThat(caller.countSent()).isEqualTo(1);
+  }
+
+  @Test
+  public void queue_deliveries_to_busy_host_and_release_host_when_idle() {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    AtomicInteger sent = new AtomicInteger();
+    WebhookCaller slowCaller = (webhook, payload) -> {
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(20L);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      running.decrementAndGet();
+      sent.incrementAndGet();
+      return new WebhookDelivery.Builder().setWebhook(webhook).setPayload(payload).setAt(NOW).setHttpStatus(200).setDurationInMs(20).build();
+    };
+    underTest = new WebhookDispatcherImpl(slowCaller, deliveryStorage, system, new WebhookDispatcherImpl.Settings(4, 1_000, 2, 3, 1L));
+    underTest.start();
+
+    for (int i = 0; i < 6; i++) {
+      underTest.dispatch(WEBHOOK, PAYLOAD);
+    }
+
+    verify(deliveryStorage, timeout(5_000).times(6)).persist(any(WebhookDelivery.class));
+    assertThat(sent.get()).isEqualTo(6);
+    assertThat(maxRunning.get()).isLessThanOrEqualTo(2);
+    assertThat(underTest.countPendingDeliveries()).isEqualTo(0);
+    assertThat(underTest.countHosts()).isEqualTo(0);
+  }
+
+  @Test
+  public void send_synchronously_if_too_many_pending_deliveries() {
+    caller.enqueueSuccess(NOW, 200, 10);
+    underTest = newDispatcher(0, 3);
+
+    underTest.dispatch(WEBHOOK, PAYLOAD);
+
+    // no need to wait
+    assertThat(caller.countSent()).isEqualTo(1);
+    verify(deliveryStorage).persist(any(WebhookDelivery.class));
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Too many pending webhook deliveries. Webhook 'First' is sent synchronously");
+  }
+
+  @Test
+  public void send_synchronously_if_not_started() {
+    caller.enqueueSuccess(NOW, 200, 10);
+    WebhookDispatcherImpl notStarted = new WebhookDispatcherImpl(caller, deliveryStorage, system);
+
+    notStarted.dispatch(WEBHOOK, PAYLOAD);
+
+    assertThat(caller.countSent()).isEqualTo(1);
+    verify(deliveryStorage).persist(any(WebhookDelivery.class));
+  }
+
+  @Test
+  public void persist_pending_retries_as_failures_on_stop() throws InterruptedException {
+    caller.enqueueSuccess(NOW, 500, 10);
+    underTest = new WebhookDispatcherImpl(caller, deliveryStorage, system, new WebhookDispatcherImpl.Settings(1, 1_000, 2, 3, 60_000L));
+    underTest.start();
+
+    underTest.dispatch(WEBHOOK, PAYLOAD);
+    while (caller.countSent() == 0) {
+      Thread.sleep(10L);
+    }
+    underTest.stop();
+    underTest = null;
+
+    WebhookDelivery delivery = waitForPersistedDelivery();
+    assertThat(delivery.getHttpStatus()).hasValue(500);
+    assertThat(caller.countSent()).isEqualTo(1);
+  }
+
+  @Test
+  public void retry_server_errors_of_http_server() throws InterruptedException {
+    server.enqueue(new MockResponse().setResponseCode(503));
+    server.enqueue(new MockResponse().setResponseCode(429));
+    server.enqueue(new MockResponse().setResponseCode(200));
+    underTest = newHttpDispatcher(3);
+
+    underTest.dispatch(newHttpWebhook(), PAYLOAD);
+
+    WebhookDelivery delivery = waitForPersistedDelivery();
+    assertThat(delivery.getHttpStatus()).hasValue(200);
+    assertThat(server.getRequestCount()).isEqualTo(3);
+    assertThat(server.takeRequest().getBody().readUtf8()).isEqualTo(PAYLOAD.getJson());
+  }
+
+  @Test
+  public void do_not_retry_client_errors_of_http_server() {
+    server.enqueue(new MockResponse().setResponseCode(400));
+    underTest = newHttpDispatcher(3);
+
+    underTest.dispatch(newHttpWebhook(), PAYLOAD);
+
+    WebhookDelivery delivery = waitForPersistedDelivery();
+    assertThat(delivery.getHttpStatus()).hasValue(400);
+    assertThat(server.getRequestCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void retry_when_http_server_does_not_answer_in_time() {
+    server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+    server.enqueue(new MockResponse().setResponseCode(200));
+    underTest = newHttpDispatcher(3);
+
+    underTest.dispatch(newHttpWebhook(), PAYLOAD);
+
+    WebhookDelivery delivery = waitForPersistedDelivery();
+    assertThat(delivery.getHttpStatus()).hasValue(200);
+    assertThat(server.getRequestCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void persist_connection_failure_when_http_server_is_down() throws IOException {
+    Webhook webhook = newHttpWebhook();
+    server.shutdown();
+    underTest = newHttpDispatcher(2);
+
+    underTest.dispatch(webhook, PAYLOAD);
+
+    WebhookDelivery delivery = waitForPersistedDelivery();
+    assertThat(delivery.getHttpStatus()).isEmpty();
+    // message can be "Failed to connect" or "connect timed out"
+    assertThat(delivery.getErrorMessage().get()).contains("connect");
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Webhook 'First' will be retried in 1ms");
+  }
+
+  private Webhook newHttpWebhook() {
+    return new Webhook("P1_UUID", "CE_TASK_UUID", "First", server.url("/ping").toString());
+  }
+
+  private WebhookDispatcherImpl newHttpDispatcher(int maxAttempts) {
+    OkHttpClient okHttpClient = new OkHttpClient.Builder()
+      .connectTimeout(1, TimeUnit.SECONDS)
+      .readTimeout(500, TimeUnit.MILLISECONDS)
+      .build();
+    WebhookDispatcherImpl dispatcher = new WebhookDispatcherImpl(new WebhookCallerImpl(system, okHttpClient), deliveryStorage, system,
+      new WebhookDispatcherImpl.Settings(1, 1_000, 2, maxAttempts, 1L));
+    dispatcher.start();
+    return dispatcher;
+  }
+
+  private WebhookDispatcherImpl newDispatcher(int maxPendingDeliveries, int maxAttempts) {
+    WebhookDispatcherImpl dispatcher = new WebhookDispatcherImpl(caller, deliveryStorage, system,
+      new WebhookDispatcherImpl.Settings(1, maxPendingDeliveries, 2, maxAttempts, 1L));
+    dispatcher.start();
+    return dispatcher;
+  }
+
+  private WebhookDelivery waitForPersistedDelivery() {
+    ArgumentCaptor<WebhookDelivery> captor = ArgumentCaptor.forClass(WebhookDelivery.class);
+    verify(deliveryStorage, timeout(5_000)).persist(captor.capture());
+    return captor.getValue();
+  }
+}
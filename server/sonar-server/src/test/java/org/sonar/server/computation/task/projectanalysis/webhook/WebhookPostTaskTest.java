@@ -28,6 +28,7 @@ import org.junit.Test;
 import org.sonar.api.ce.posttask.CeTask;
 import org.sonar.api.ce.posttask.PostProjectAnalysisTaskTester;
 import org.sonar.api.config.MapSettings;
+import org.sonar.api.utils.internal.TestSystem2;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.server.computation.task.projectanalysis.component.SettingsRepository;
@@ -60,6 +61,8 @@ public class WebhookPostTaskTest {
   private final TestWebhookCaller caller = new TestWebhookCaller();
   private final WebhookPayloadFactory payloadFactory = new TestWebhookPayloadFactory();
   private final WebhookDeliveryStorage deliveryStorage = mock(WebhookDeliveryStorage.class);
+  // not started, so webhooks are sent synchronously
+  private final WebhookDispatcher dispatcher = new WebhookDispatcherImpl(caller, deliveryStorage, new TestSystem2().setNow(NOW));
 
   @Test
   public void do_nothing_if_no_webhooks() {
@@ -131,7 +134,7 @@ public class WebhookPostTaskTest {
 
   private void execute() {
     SettingsRepository settingsRepository = new TestSettingsRepository(settings);
-    WebhookPostTask task = new WebhookPostTask(rootHolder, settingsRepository, payloadFactory, caller, deliveryStorage);
+    WebhookPostTask task = new WebhookPostTask(rootHolder, settingsRepository, payloadFactory, dispatcher, deliveryStorage);
 
     PostProjectAnalysisTaskTester.of(task)
       .at(new Date())
@@ -27,6 +27,8 @@ import org.junit.rules.ExpectedException;
 import org.mockito.InOrder;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.server.computation.monitoring.CeTaskProfiler;
+import org.sonar.server.computation.monitoring.StepProfile;
 import org.sonar.server.computation.task.ChangeLogLevel;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -152,6 +154,33 @@ public class ComputationStepExecutorTest {
     new ComputationStepExecutor(mockComputationSteps(computationStep1), listener).execute();
   }
 
+  @Test
+  public void execute_profiles_each_step_of_current_task() {
+    CeTaskProfiler taskProfiler = new CeTaskProfiler();
+    taskProfiler.startTask();
+
+    new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2), listener, taskProfiler).execute();
+
+    assertThat(taskProfiler.stopTask()).extracting(StepProfile::getDescription).containsExactly("step1", "step2");
+    assertThat(taskProfiler.getExecutionCount()).containsEntry("step1", 1L).containsEntry("step2", 1L);
+  }
+
+  @Test
+  public void execute_profiles_the_failing_step() {
+    CeTaskProfiler taskProfiler = new CeTaskProfiler();
+    taskProfiler.startTask();
+    doThrow(new RuntimeException("simulating failing execute Step method"))
+      .when(computationStep2)
+      .execute();
+
+    try {
+      new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2, computationStep3), taskProfiler).execute();
+      fail("exception should have been raised");
+    } catch (RuntimeException e) {
+      assertThat(taskProfiler.stopTask()).extracting(StepProfile::getDescription).containsExactly("step1", "step2");
+    }
+  }
+
   private static ComputationSteps mockComputationSteps(ComputationStep... computationSteps) {
     ComputationSteps steps = mock(ComputationSteps.class);
     when(steps.instances()).thenReturn(Arrays.asList(computationSteps));
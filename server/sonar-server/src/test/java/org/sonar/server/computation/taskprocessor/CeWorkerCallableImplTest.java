@@ -24,21 +24,29 @@ import java.util.List;
 import javax.annotation.Nullable;
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.Mockito;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.ce.log.CeLogging;
 import org.sonar.ce.queue.CeTask;
+import org.sonar.ce.queue.CeTaskResult;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeTaskTypes;
+import org.sonar.server.computation.monitoring.CeTaskProfiler;
+import org.sonar.server.computation.monitoring.StepProfile;
 import org.sonar.server.computation.queue.InternalCeQueue;
 import org.sonar.server.computation.task.projectanalysis.taskprocessor.ReportTaskProcessor;
 
+import static java.util.Collections.emptyList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
@@ -52,7 +60,8 @@ public class CeWorkerCallableImplTest {
   private InternalCeQueue queue = mock(InternalCeQueue.class);
   private ReportTaskProcessor taskProcessor = mock(ReportTaskProcessor.class);
   private CeLogging ceLogging = spy(CeLogging.class);
-  private CeWorkerCallable underTest = new CeWorkerCallableImpl(queue, ceLogging, taskProcessorRepository);
+  private CeTaskProfiler taskProfiler = new CeTaskProfiler();
+  private CeWorkerCallable underTest = new CeWorkerCallableImpl(queue, ceLogging, taskProcessorRepository, taskProfiler);
   private InOrder inOrder = Mockito.inOrder(ceLogging, taskProcessor, queue);
 
   @Test
@@ -73,7 +82,7 @@ public class CeWorkerCallableImplTest {
     assertThat(underTest.call()).isTrue();
 
     inOrder.verify(ceLogging).initForTask(task);
-    inOrder.verify(queue).remove(task, CeActivityDto.Status.FAILED, null, null);
+    inOrder.verify(queue).remove(task, CeActivityDto.Status.FAILED, null, null, emptyList());
     inOrder.verify(ceLogging).clearForTask();
   }
 
@@ -87,7 +96,7 @@ public class CeWorkerCallableImplTest {
 
     inOrder.verify(ceLogging).initForTask(task);
     inOrder.verify(taskProcessor).process(task);
-    inOrder.verify(queue).remove(task, CeActivityDto.Status.SUCCESS, null, null);
+    inOrder.verify(queue).remove(task, CeActivityDto.Status.SUCCESS, null, null, emptyList());
     inOrder.verify(ceLogging).clearForTask();
   }
 
@@ -102,10 +111,29 @@ public class CeWorkerCallableImplTest {
 
     inOrder.verify(ceLogging).initForTask(task);
     inOrder.verify(taskProcessor).process(task);
-    inOrder.verify(queue).remove(task, CeActivityDto.Status.FAILED, null, error);
+    inOrder.verify(queue).remove(task, CeActivityDto.Status.FAILED, null, error, emptyList());
     inOrder.verify(ceLogging).clearForTask();
   }
 
+  @Test
+  public void persist_profile_of_steps_executed_by_task() throws Exception {
+    CeTask task = createCeTask(null);
+    taskProcessorRepository.setProcessorForTask(task.getType(), taskProcessor);
+    when(queue.peek()).thenReturn(Optional.of(task));
+    when(taskProcessor.process(task)).thenAnswer(invocation -> {
+      taskProfiler.stopStep(taskProfiler.startStep(), "step1");
+      return null;
+    });
+    ArgumentCaptor<List> stepProfiles = ArgumentCaptor.forClass(List.class);
+
+    assertThat(underTest.call()).isTrue();
+
+    verify(queue).remove(eq(task), eq(CeActivityDto.Status.SUCCESS), isNull(CeTaskResult.class), isNull(Throwable.class), stepProfiles.capture());
+    assertThat((List<StepProfile>) stepProfiles.getValue()).extracting(StepProfile::getDescription).containsExactly("step1");
+    // profile is not kept for the next task executed by the same thread
+    assertThat(taskProfiler.stopTask()).isEmpty();
+  }
+
   @Test
   public void do_not_display_submitter_param_in_log_when_submitterLogin_is_not_set_in_case_of_success() throws Exception {
     when(queue.peek()).thenReturn(Optional.of(createCeTask(null)));
@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.util.Map;
 import javax.annotation.CheckForNull;
 import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MappingMetaData;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.junit.Rule;
@@ -42,7 +43,7 @@ public class IndexCreatorTest {
 
     IndexDefinitions registry = new IndexDefinitions(new IndexDefinition[] {new FakeIndexDefinition()}, new MapSettings());
     registry.start();
-    IndexCreator creator = new IndexCreator(es.client(), registry);
+    IndexCreator creator = new IndexCreator(es.client(), registry, new MapSettings());
     creator.start();
 
     // check that index is created with related mapping
@@ -67,7 +68,7 @@ public class IndexCreatorTest {
     // v1
     IndexDefinitions registry = new IndexDefinitions(new IndexDefinition[] {new FakeIndexDefinition()}, new MapSettings());
     registry.start();
-    IndexCreator creator = new IndexCreator(es.client(), registry);
+    IndexCreator creator = new IndexCreator(es.client(), registry, new MapSettings());
     creator.start();
     creator.stop();
     String hashV1 = setting("fakes", "index.sonar_hash");
@@ -76,7 +77,7 @@ public class IndexCreatorTest {
     // v2
     registry = new IndexDefinitions(new IndexDefinition[] {new FakeIndexDefinitionV2()}, new MapSettings());
     registry.start();
-    creator = new IndexCreator(es.client(), registry);
+    creator = new IndexCreator(es.client(), registry, new MapSettings());
     creator.start();
     ImmutableOpenMap<String, ImmutableOpenMap<String, MappingMetaData>> mappings = mappings();
     MappingMetaData mapping = mappings.get("fakes").get("fake");
@@ -88,6 +89,27 @@ public class IndexCreatorTest {
     creator.stop();
   }
 
+  @Test
+  public void create_auto_sized_index_with_default_number_of_shards() {
+    IndexDefinitions registry = new IndexDefinitions(new IndexDefinition[] {new FakeShardedIndexDefinition()}, new MapSettings());
+    registry.start();
+    IndexCreator creator = new IndexCreator(es.client(), registry, new MapSettings());
+    creator.start();
+
+    assertThat(setting("fakes", IndexMetaData.SETTING_NUMBER_OF_SHARDS)).isEqualTo("2");
+    creator.stop();
+  }
+
+  @Test
+  public void number_of_shards_depends_on_number_of_documents() {
+    assertThat(IndexCreator.numberOfShards(5, 0L)).isEqualTo(5);
+    assertThat(IndexCreator.numberOfShards(5, 20_000_000L)).isEqualTo(5);
+    assertThat(IndexCreator.numberOfShards(1, IndexCreator.DOCUMENTS_PER_SHARD)).isEqualTo(1);
+    assertThat(IndexCreator.numberOfShards(1, IndexCreator.DOCUMENTS_PER_SHARD + 1)).isEqualTo(2);
+    assertThat(IndexCreator.numberOfShards(5, 36_000_000L)).isEqualTo(8);
+    assertThat(IndexCreator.numberOfShards(5, Long.MAX_VALUE / 2)).isEqualTo(IndexCreator.MAX_AUTO_SIZED_SHARDS);
+  }
+
   private String setting(String indexName, String settingKey) {
     GetSettingsResponse indexSettings = es.client().nativeClient().admin().indices().prepareGetSettings(indexName).get();
     return indexSettings.getSetting(indexName, settingKey);
@@ -117,6 +139,16 @@ public class IndexCreatorTest {
     }
   }
 
+  public static class FakeShardedIndexDefinition implements IndexDefinition {
+    @Override
+    public void define(IndexDefinitionContext context) {
+      NewIndex index = context.create("fakes");
+      index.configureShards(new MapSettings(), 2);
+      NewIndex.NewIndexType mapping = index.createType("fake");
+      mapping.stringFieldBuilder("key").build();
+    }
+  }
+
   public static class FakeIndexDefinitionV2 implements IndexDefinition {
     @Override
     public void define(IndexDefinitionContext context) {
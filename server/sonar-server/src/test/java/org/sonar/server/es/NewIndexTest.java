@@ -196,6 +196,28 @@ public class NewIndexTest {
     assertThat(index.getSettings().get(IndexMetaData.SETTING_NUMBER_OF_REPLICAS)).isEqualTo("1");
   }
 
+  @Test
+  public void shards_are_auto_sized_unless_forced_by_property() {
+    NewIndex index = new NewIndex("issues");
+    index.configureShards(new MapSettings(), 5);
+    assertThat(index.isShardsAutoSized()).isTrue();
+
+    index = new NewIndex("issues");
+    MapSettings settings = new MapSettings();
+    settings.setProperty("sonar.search.issues.shards", "3");
+    index.configureShards(settings, 5);
+    assertThat(index.isShardsAutoSized()).isFalse();
+  }
+
+  @Test
+  public void customize_refresh_interval() {
+    NewIndex index = new NewIndex("issues");
+    MapSettings settings = new MapSettings();
+    settings.setProperty("sonar.search.issues.refreshInterval", "30s");
+    index.configureShards(settings, 5);
+    assertThat(index.getSettings().get("index.refresh_interval")).isEqualTo("30s");
+  }
+
   @Test
   public void index_with_source() {
     NewIndex index = new NewIndex("issues");
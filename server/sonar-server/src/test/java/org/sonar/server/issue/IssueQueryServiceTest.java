@@ -409,9 +409,11 @@ public class IssueQueryServiceTest {
     map.put("componentUuids", newArrayList(fileUuid));
 
     when(componentService.getDistinctQualifiers(isA(DbSession.class), anyCollection())).thenReturn(Sets.newHashSet(Qualifiers.FILE));
+    when(componentService.getByUuids(isA(DbSession.class), anyCollection())).thenReturn(Arrays.asList(new ComponentDto().setUuid(fileUuid).setProjectUuid("PROJECT")));
 
     IssueQuery query = underTest.createFromMap(map);
     assertThat(query.fileUuids()).containsExactly(fileUuid);
+    assertThat(query.routingProjectUuids()).containsExactly("PROJECT");
   }
 
   @Test
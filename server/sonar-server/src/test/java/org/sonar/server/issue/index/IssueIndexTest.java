@@ -85,7 +85,7 @@ public class IssueIndexTest {
   public ExpectedException expectedException = ExpectedException.none();
 
   private IssueIndex underTest;
-  private IssueIndexer issueIndexer = new IssueIndexer(tester.client(), new IssueIteratorFactory(null));
+  private IssueIndexer issueIndexer = new IssueIndexer(tester.client(), null, new IssueIteratorFactory(null));
   private ViewIndexer viewIndexer = new ViewIndexer(null, tester.client());
   private PermissionIndexerTester authorizationIndexerTester = new PermissionIndexerTester(tester, issueIndexer);
 
@@ -231,6 +231,26 @@ public class IssueIndexTest {
         .isEmpty();
   }
 
+  @Test
+  public void filter_and_facets_on_files_routed_to_their_project() {
+    OrganizationDto organizationDto = newOrganizationDto();
+    ComponentDto project = newProjectDto(organizationDto, "ABCD");
+    ComponentDto project2 = newProjectDto(organizationDto, "EFGH");
+    ComponentDto file = newFileDto(project, null);
+
+    indexIssues(
+        IssueDocTesting.newDoc("ISSUE1", file).setSeverity(Severity.INFO),
+        IssueDocTesting.newDoc("ISSUE2", file).setSeverity(Severity.MAJOR),
+        IssueDocTesting.newDoc("ISSUE3", newFileDto(project, null)).setSeverity(Severity.MAJOR),
+        IssueDocTesting.newDoc("ISSUE4", newFileDto(project2, null)).setSeverity(Severity.MAJOR));
+
+    IssueQuery query = IssueQuery.builder().fileUuids(newArrayList(file.uuid())).routingProjectUuids(newArrayList(project.uuid())).build();
+    SearchResult<IssueDoc> result = underTest.search(query, new SearchOptions().addFacets(newArrayList("severities", "fileUuids")));
+    assertThat(result.getDocs()).extracting(IssueDoc::key).containsOnly("ISSUE1", "ISSUE2");
+    assertThat(result.getFacets().get("severities")).containsOnly(entry("INFO", 1L), entry("MAJOR", 1L));
+    assertThat(result.getFacets().get("fileUuids")).hasSize(3);
+  }
+
   @Test
   public void filter_by_components_on_contextualized_search() {
     ComponentDto project = newProjectDto(newOrganizationDto());
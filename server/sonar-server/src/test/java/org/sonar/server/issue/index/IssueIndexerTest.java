@@ -52,7 +52,7 @@ public class IssueIndexerTest {
   @Rule
   public DbTester dbTester = DbTester.create(system2);
 
-  private IssueIndexer underTest = new IssueIndexer(esTester.client(), new IssueIteratorFactory(dbTester.getDbClient()));
+  private IssueIndexer underTest = new IssueIndexer(esTester.client(), dbTester.getDbClient(), new IssueIteratorFactory(dbTester.getDbClient()));
 
   @Test
   public void index_on_startup() {
@@ -121,6 +121,39 @@ public class IssueIndexerTest {
     assertThat(esTester.countDocuments("issues", "issue")).isEqualTo(0);
   }
 
+  @Test
+  public void indexOnAnalysis_indexes_only_specified_issues() throws Exception {
+    dbTester.prepareDbUnit(getClass(), "index_project.xml");
+    esTester.putDocuments(IssueIndexDefinition.INDEX_TYPE_ISSUE, newDoc().setKey("ABCDE").setProjectUuid("THE_PROJECT_1").setSeverity("INFO"));
+
+    underTest.indexOnAnalysis("THE_PROJECT_1", Collections.emptyList());
+    assertThat(esTester.getDocuments(IssueIndexDefinition.INDEX_TYPE_ISSUE, IssueDoc.class)).extracting(IssueDoc::severity).containsOnly("INFO");
+
+    underTest.indexOnAnalysis("THE_PROJECT_1", asList("ABCDE"));
+    assertThat(esTester.getDocuments(IssueIndexDefinition.INDEX_TYPE_ISSUE, IssueDoc.class)).extracting(IssueDoc::severity).containsOnly("BLOCKER");
+  }
+
+  @Test
+  public void indexOnAnalysis_indexes_whole_project_if_issues_are_missing_in_index() {
+    dbTester.prepareDbUnit(getClass(), "index_project.xml");
+
+    underTest.indexOnAnalysis("THE_PROJECT_1", Collections.emptyList());
+
+    verifyIssueKeys("ABCDE");
+  }
+
+  @Test
+  public void indexOnAnalysis_indexes_whole_project_if_index_contains_unknown_issues() throws Exception {
+    dbTester.prepareDbUnit(getClass(), "index_project.xml");
+    addIssue("THE_PROJECT_1", "UNKNOWN_1");
+    addIssue("THE_PROJECT_1", "UNKNOWN_2");
+    addIssue("THE_PROJECT_2", "EDCBA");
+
+    underTest.indexOnAnalysis("THE_PROJECT_1", asList("ABCDE"));
+
+    verifyIssueKeys("ABCDE", "EDCBA");
+  }
+
   @Test
   public void deleteProject_deletes_issues_of_a_specific_project() {
     dbTester.prepareDbUnit(getClass(), "index.xml");
@@ -187,7 +220,7 @@ public class IssueIndexerTest {
     issueDoc.setKey("key");
     issueDoc.setTechnicalUpdateDate(new Date());
     issueDoc.setProjectUuid("non-exitsing-parent");
-    new IssueIndexer(esTester.client(), new IssueIteratorFactory(dbTester.getDbClient()))
+    new IssueIndexer(esTester.client(), dbTester.getDbClient(), new IssueIteratorFactory(dbTester.getDbClient()))
       .index(Arrays.asList(issueDoc).iterator());
 
     assertThat(esTester.countDocuments(IssueIndexDefinition.INDEX_TYPE_ISSUE)).isEqualTo(1L);
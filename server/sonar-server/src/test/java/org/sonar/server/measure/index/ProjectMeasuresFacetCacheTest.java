@@ -0,0 +1,113 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure.index;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.junit.Test;
+import org.sonar.server.es.Facets;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termsQuery;
+
+public class ProjectMeasuresFacetCacheTest {
+
+  private static final Map<String, QueryBuilder> FILTERS = ImmutableMap.of("tags", termQuery("tags", "java"));
+
+  private TestTicker ticker = new TestTicker();
+  private ProjectMeasuresFacetCache underTest = new ProjectMeasuresFacetCache(ticker);
+
+  @Test
+  public void key_is_the_same_for_same_facets_and_filters() {
+    assertThat(ProjectMeasuresFacetCache.createKey(singletonList("ncloc"), FILTERS))
+      .isEqualTo(ProjectMeasuresFacetCache.createKey(singletonList("ncloc"), FILTERS));
+  }
+
+  @Test
+  public void key_depends_on_facets_and_filters() {
+    String key = ProjectMeasuresFacetCache.createKey(singletonList("ncloc"), FILTERS);
+
+    assertThat(ProjectMeasuresFacetCache.createKey(singletonList("coverage"), FILTERS)).isNotEqualTo(key);
+    assertThat(ProjectMeasuresFacetCache.createKey(singletonList("ncloc"), ImmutableMap.of("tags", termQuery("tags", "cobol")))).isNotEqualTo(key);
+  }
+
+  @Test
+  public void size_of_key_does_not_depend_on_filters() {
+    Object[] groupIds = new Object[1_000];
+    for (int i = 0; i < groupIds.length; i++) {
+      groupIds[i] = i;
+    }
+    String key = ProjectMeasuresFacetCache.createKey(singletonList("ncloc"), ImmutableMap.of("authorization", termsQuery("groupIds", groupIds)));
+
+    assertThat(key).hasSize(ProjectMeasuresFacetCache.createKey(singletonList("ncloc"), FILTERS).length());
+  }
+
+  @Test
+  public void entries_expire() {
+    underTest.put("key", newFacets());
+
+    ticker.advance(ProjectMeasuresFacetCache.TTL_SECONDS - 1);
+    assertThat(underTest.get("key")).isNotNull();
+
+    ticker.advance(1);
+    assertThat(underTest.get("key")).isNull();
+  }
+
+  @Test
+  public void cached_facets_can_not_be_altered() {
+    LinkedHashMap<String, Long> buckets = new LinkedHashMap<>();
+    buckets.put("java", 2L);
+    LinkedHashMap<String, LinkedHashMap<String, Long>> facetsByName = new LinkedHashMap<>();
+    facetsByName.put("languages", buckets);
+    underTest.put("key", new Facets(facetsByName));
+
+    buckets.put("cobol", 0L);
+    underTest.get("key").get("languages").put("xoo", 0L);
+
+    assertThat(underTest.get("key").get("languages")).containsOnlyKeys("java");
+    assertThat(underTest.get("unknown")).isNull();
+    assertThat(underTest.size()).isEqualTo(1);
+  }
+
+  private static Facets newFacets() {
+    LinkedHashMap<String, LinkedHashMap<String, Long>> facetsByName = new LinkedHashMap<>();
+    facetsByName.put("languages", new LinkedHashMap<>());
+    return new Facets(facetsByName);
+  }
+
+  private static class TestTicker extends Ticker {
+    private long nanos = 0L;
+
+    private void advance(long seconds) {
+      nanos += TimeUnit.SECONDS.toNanos(seconds);
+    }
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+  }
+}
@@ -22,6 +22,7 @@ package org.sonar.server.measure.index;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +32,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.config.MapSettings;
 import org.sonar.api.resources.Qualifiers;
+import org.sonar.core.util.stream.Collectors;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.organization.OrganizationTesting;
@@ -39,8 +41,8 @@ import org.sonar.db.user.UserDto;
 import org.sonar.server.component.ws.FilterParser.Operator;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.es.Facets;
-import org.sonar.server.es.SearchIdResult;
 import org.sonar.server.es.SearchOptions;
+import org.sonar.server.es.SearchResult;
 import org.sonar.server.measure.index.ProjectMeasuresQuery.MetricCriterion;
 import org.sonar.server.permission.index.AuthorizationTypeSupport;
 import org.sonar.server.permission.index.PermissionIndexerDao;
@@ -184,9 +186,9 @@ public class ProjectMeasuresIndexTest {
     IntStream.rangeClosed(1, 9)
       .forEach(i -> index(newDoc(newProjectDto(ORG, "P" + i))));
 
-    SearchIdResult<String> result = underTest.search(new ProjectMeasuresQuery(), new SearchOptions().setPage(2, 3));
+    SearchResult<ProjectMeasuresDoc> result = underTest.search(new ProjectMeasuresQuery(), new SearchOptions().setPage(2, 3));
 
-    assertThat(result.getIds()).containsExactly("P4", "P5", "P6");
+    assertThat(result.getDocs()).extracting(ProjectMeasuresDoc::getId).containsExactly("P4", "P5", "P6");
     assertThat(result.getTotal()).isEqualTo(9);
   }
 
@@ -397,6 +399,38 @@ public class ProjectMeasuresIndexTest {
     assertResults(new ProjectMeasuresQuery(), PROJECT1);
   }
 
+  @Test
+  public void return_fields_displayed_by_projects_page() {
+    Date analysisDate = new Date(1_500_000_000_000L);
+    index(newDoc(PROJECT1, NCLOC, 10d)
+      .setOrganizationKey("my-org")
+      .setTags(asList("java", "finance"))
+      .setAnalysedAt(analysisDate));
+
+    List<ProjectMeasuresDoc> docs = underTest.search(new ProjectMeasuresQuery(), new SearchOptions()).getDocs();
+
+    assertThat(docs).hasSize(1);
+    ProjectMeasuresDoc doc = docs.get(0);
+    assertThat(doc.getId()).isEqualTo(PROJECT1.uuid());
+    assertThat(doc.getOrganizationKey()).isEqualTo("my-org");
+    assertThat(doc.getKey()).isEqualTo(PROJECT1.key());
+    assertThat(doc.getName()).isEqualTo(PROJECT1.name());
+    assertThat(doc.getTags()).containsExactly("java", "finance");
+    assertThat(doc.getAnalysedAt()).isEqualTo(analysisDate);
+  }
+
+  @Test
+  public void facets_are_computed_again_when_index_is_refreshed() {
+    index(newDoc(NCLOC, 0d));
+    assertThat(underTest.search(new ProjectMeasuresQuery(), new SearchOptions().addFacets(NCLOC)).getFacets().get(NCLOC))
+      .containsEntry("*-1000.0", 1L);
+
+    index(newDoc(NCLOC, 10d));
+
+    assertThat(underTest.search(new ProjectMeasuresQuery(), new SearchOptions().addFacets(NCLOC)).getFacets().get(NCLOC))
+      .containsEntry("*-1000.0", 2L);
+  }
+
   @Test
   public void does_not_return_facet_when_no_facets_in_options() throws Exception {
     index(
@@ -1299,7 +1333,7 @@ public class ProjectMeasuresIndexTest {
   }
 
   private void assertResults(ProjectMeasuresQuery query, ComponentDto... expectedProjects) {
-    List<String> result = underTest.search(query, new SearchOptions()).getIds();
+    List<String> result = underTest.search(query, new SearchOptions()).getDocs().stream().map(ProjectMeasuresDoc::getId).collect(Collectors.toList());
     assertThat(result).containsExactly(Arrays.stream(expectedProjects).map(ComponentDto::uuid).toArray(String[]::new));
   }
 
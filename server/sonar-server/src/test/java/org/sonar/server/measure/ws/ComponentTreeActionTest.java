@@ -55,6 +55,7 @@ import org.sonarqube.ws.WsMeasures;
 import org.sonarqube.ws.WsMeasures.ComponentTreeWsResponse;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.sonar.api.measures.CoreMetrics.NEW_SECURITY_RATING_KEY;
 import static org.sonar.api.utils.DateUtils.parseDateTime;
 import static org.sonar.db.component.ComponentTesting.newDevProjectCopy;
@@ -316,6 +317,40 @@ public class ComponentTreeActionTest {
     assertThat(response.getPaging().getTotal()).isEqualTo(4);
   }
 
+  @Test
+  public void load_measures_of_other_metrics_on_page_sorted_by_metric() {
+    ComponentDto project = newProjectDto(db.getDefaultOrganization(), "project-uuid");
+    SnapshotDto projectSnapshot = componentDb.insertProjectAndSnapshot(project);
+    ComponentDto file1 = componentDb.insertComponent(newFileDto(project, null, "file-uuid-1"));
+    ComponentDto file2 = componentDb.insertComponent(newFileDto(project, null, "file-uuid-2"));
+    ComponentDto file3 = componentDb.insertComponent(newFileDto(project, null, "file-uuid-3"));
+    MetricDto ncloc = insertNclocMetric();
+    MetricDto coverage = insertCoverageMetric();
+    dbClient.measureDao().insert(dbSession,
+      newMeasureDto(ncloc, project, projectSnapshot).setValue(60d),
+      newMeasureDto(ncloc, file1, projectSnapshot).setValue(30d),
+      newMeasureDto(ncloc, file2, projectSnapshot).setValue(10d),
+      newMeasureDto(ncloc, file3, projectSnapshot).setValue(20d),
+      newMeasureDto(coverage, file1, projectSnapshot).setValue(1d),
+      newMeasureDto(coverage, file2, projectSnapshot).setValue(2d),
+      newMeasureDto(coverage, file3, projectSnapshot).setValue(3d));
+    db.commit();
+
+    ComponentTreeWsResponse response = call(ws.newRequest()
+      .setParam(PARAM_BASE_COMPONENT_ID, project.uuid())
+      .setParam(Param.SORT, METRIC_SORT)
+      .setParam(PARAM_METRIC_SORT, "ncloc")
+      .setParam(PARAM_METRIC_KEYS, "ncloc,coverage")
+      .setParam(Param.PAGE, "2")
+      .setParam(Param.PAGE_SIZE, "1"));
+
+    assertThat(response.getPaging().getTotal()).isEqualTo(3);
+    assertThat(response.getBaseComponent().getMeasuresList()).extracting("metric", "value").containsExactly(tuple("ncloc", "60"));
+    assertThat(response.getComponentsList()).extracting("id").containsExactly(file3.uuid());
+    assertThat(response.getComponents(0).getMeasuresList()).extracting("metric", "value")
+      .containsOnly(tuple("ncloc", "20"), tuple("coverage", "3.0"));
+  }
+
   @Test
   public void remove_components_without_measure_on_the_metric_sort() {
     ComponentDto project = newProjectDto(db.getDefaultOrganization(), "project-uuid");
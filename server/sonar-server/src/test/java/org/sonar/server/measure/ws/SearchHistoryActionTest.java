@@ -39,6 +39,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.SnapshotDto;
+import org.sonar.db.measure.MeasureHistoryDto;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.exceptions.ForbiddenException;
@@ -173,6 +174,57 @@ public class SearchHistoryActionTest {
       .containsExactly(tuple(analysisDate, "5"), tuple(laterAnalysisDate, "10"));
   }
 
+  @Test
+  public void return_measures_of_project_from_history() {
+    SnapshotDto laterAnalysis = dbClient.snapshotDao().insert(dbSession, newAnalysis(project).setCreatedAt(analysis.getCreatedAt() + 42_000));
+    List<MeasureHistoryDto.Point> complexityHistory = Arrays.asList(
+      // analysis deleted by housekeeping
+      new MeasureHistoryDto.Point("deleted", analysis.getCreatedAt() - 42_000, 99d),
+      new MeasureHistoryDto.Point(analysis.getUuid(), analysis.getCreatedAt(), 101d),
+      new MeasureHistoryDto.Point(laterAnalysis.getUuid(), laterAnalysis.getCreatedAt(), 100d));
+    List<MeasureHistoryDto.Point> newViolationHistory = singletonList(
+      new MeasureHistoryDto.Point(laterAnalysis.getUuid(), laterAnalysis.getCreatedAt(), 10d));
+    dbClient.measureHistoryDao().insert(dbSession, new MeasureHistoryDto()
+      .setComponentUuid(project.uuid()).setMetricId(complexityMetric.getId()).setHistory(complexityHistory).setUpdatedAt(1_000L));
+    dbClient.measureHistoryDao().insert(dbSession, new MeasureHistoryDto()
+      .setComponentUuid(project.uuid()).setMetricId(newViolationMetric.getId()).setHistory(newViolationHistory).setUpdatedAt(1_000L));
+    // not read, as the history of the metric exists
+    dbClient.measureDao().insert(dbSession, newMeasureDto(complexityMetric, project, analysis).setValue(42d));
+    // no history for this metric
+    dbClient.measureDao().insert(dbSession, newMeasureDto(nclocMetric, project, analysis).setValue(201d));
+    db.commit();
+
+    SearchHistoryResponse result = call();
+
+    String analysisDate = formatDateTime(analysis.getCreatedAt());
+    String laterAnalysisDate = formatDateTime(laterAnalysis.getCreatedAt());
+    assertThat(result.getMeasuresList()).extracting(HistoryMeasure::getMetric)
+      .containsExactly(complexityMetric.getKey(), nclocMetric.getKey(), newViolationMetric.getKey());
+    assertThat(result.getMeasures(0).getHistoryList()).extracting(HistoryValue::getDate, HistoryValue::getValue)
+      .containsExactly(tuple(analysisDate, "101"), tuple(laterAnalysisDate, "100"));
+    assertThat(result.getMeasures(1).getHistoryList()).extracting(HistoryValue::getDate, HistoryValue::getValue)
+      .containsExactly(tuple(analysisDate, "201"));
+    assertThat(result.getMeasures(2).getHistoryList()).extracting(HistoryValue::getDate, HistoryValue::getValue)
+      .containsExactly(tuple(laterAnalysisDate, "10"));
+  }
+
+  @Test
+  public void return_history_of_analyses_with_same_date() {
+    SnapshotDto otherAnalysis = dbClient.snapshotDao().insert(dbSession, newAnalysis(project).setCreatedAt(analysis.getCreatedAt()));
+    dbClient.measureHistoryDao().insert(dbSession, new MeasureHistoryDto()
+      .setComponentUuid(project.uuid()).setMetricId(complexityMetric.getId())
+      .setHistory(Arrays.asList(
+        new MeasureHistoryDto.Point(analysis.getUuid(), analysis.getCreatedAt(), 101d),
+        new MeasureHistoryDto.Point(otherAnalysis.getUuid(), otherAnalysis.getCreatedAt(), 102d)))
+      .setUpdatedAt(1_000L));
+    db.commit();
+    wsRequest.setMetrics(singletonList(complexityMetric.getKey()));
+
+    SearchHistoryResponse result = call();
+
+    assertThat(result.getMeasures(0).getHistoryList()).extracting(HistoryValue::getValue).containsOnly("101", "102");
+  }
+
   @Test
   public void pagination_applies_to_analyses() {
     project = db.components().insertProject();
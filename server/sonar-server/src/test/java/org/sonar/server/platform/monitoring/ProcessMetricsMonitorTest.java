@@ -0,0 +1,68 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.io.File;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.config.MapSettings;
+import org.sonar.process.DefaultProcessCommands;
+import org.sonar.process.ProcessId;
+import org.sonar.process.ProcessMetric;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.sonar.process.ProcessEntryPoint.PROPERTY_SHARED_PATH;
+
+public class ProcessMetricsMonitorTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private MapSettings settings = new MapSettings();
+  private ProcessMetricsMonitor underTest = new ProcessMetricsMonitor(settings);
+
+  @Test
+  public void name_is_not_empty() {
+    assertThat(underTest.name()).isNotEmpty();
+  }
+
+  @Test
+  public void no_attributes_if_shared_dir_is_not_defined() {
+    assertThat(underTest.attributes()).isEmpty();
+  }
+
+  @Test
+  public void return_metrics_of_processes_which_published_them() throws Exception {
+    File sharedDir = temp.newFolder();
+    settings.setProperty(PROPERTY_SHARED_PATH, sharedDir.getAbsolutePath());
+    try (DefaultProcessCommands commands = DefaultProcessCommands.main(sharedDir, ProcessId.COMPUTE_ENGINE.getIpcIndex())) {
+      commands.setMetric(ProcessMetric.HEAP_USED_BYTES, 1_000L);
+      commands.setMetric(ProcessMetric.UPDATED_AT, 1_500_000_000L);
+    }
+
+    Map<String, Object> attributes = underTest.attributes();
+
+    assertThat(attributes).containsOnlyKeys("ce");
+    assertThat((Map<String, Object>) attributes.get("ce")).contains(entry("HEAP_USED_BYTES", 1_000L), entry("UPDATED_AT", 1_500_000_000L), entry("THREADS", 0L));
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.Map;
+import org.junit.Test;
+import org.sonar.api.config.MapSettings;
+import org.sonar.server.source.SourceCache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class SourceCacheMonitorTest {
+
+  private MapSettings settings = new MapSettings().setProperty("sonar.web.sourceCache.sizeInMb", "10");
+  private SourceCacheMonitor underTest = new SourceCacheMonitor(new SourceCache(settings));
+
+  @Test
+  public void name_is_not_empty() {
+    assertThat(underTest.name()).isNotEmpty();
+  }
+
+  @Test
+  public void attributes_contain_size_and_statistics_of_cache() {
+    Map<String, Object> attributes = underTest.attributes();
+
+    assertThat(attributes).containsOnlyKeys("Files", "Max Size (MB)", "Hits", "Misses", "Hit Rate (%)", "Evictions");
+    assertThat(attributes).contains(entry("Files", 0L), entry("Max Size (MB)", 10L), entry("Hits", 0L), entry("Misses", 0L));
+  }
+}
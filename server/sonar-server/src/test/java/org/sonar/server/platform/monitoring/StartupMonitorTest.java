@@ -0,0 +1,68 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.Map;
+import org.junit.Test;
+import org.picocontainer.Startable;
+import org.sonar.core.platform.ComponentContainer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class StartupMonitorTest {
+
+  private ComponentContainer container = new ComponentContainer();
+  private StartupMonitor underTest = new StartupMonitor(container);
+
+  @Test
+  public void name_is_not_empty() {
+    assertThat(underTest.name()).isNotEmpty();
+  }
+
+  @Test
+  public void attributes_are_empty_when_no_components_are_started() {
+    assertThat(underTest.attributes()).containsExactly(entry("Started Components", 0));
+  }
+
+  @Test
+  public void attributes_contain_start_duration_of_components() {
+    container.add(FakeStartable.class);
+    container.startComponents();
+
+    Map<String, Object> attributes = underTest.attributes();
+
+    assertThat(attributes).containsEntry("Started Components", 1);
+    assertThat(attributes).containsKey(FakeStartable.class.getName());
+    assertThat((String) attributes.get(FakeStartable.class.getName())).endsWith(" ms");
+  }
+
+  public static class FakeStartable implements Startable {
+    @Override
+    public void start() {
+      // nothing to do
+    }
+
+    @Override
+    public void stop() {
+      // nothing to do
+    }
+  }
+}
@@ -921,6 +921,31 @@ public class RuleActivatorMediumTest {
     assertThat(result.countFailed()).isEqualTo(0);
   }
 
+  @Test
+  public void bulk_activation_propagates_to_descendant_profiles() {
+    createChildProfiles();
+    // x1 is overridden on child profile P2
+    RuleActivation activation = new RuleActivation(XOO_X1);
+    activation.setSeverity(BLOCKER);
+    activate(activation, XOO_P2_KEY);
+    userSessionRule.logIn();
+
+    BulkChangeResult result = ruleActivator.bulkActivate(new RuleQuery().setKey(XOO_X1.toString()), XOO_P1_KEY, MINOR);
+    ruleActivator.bulkActivate(new RuleQuery().setKey(XOO_X2.toString()), XOO_P1_KEY, MINOR);
+
+    dbSession.clearCache();
+    assertThat(result.countSucceeded()).isEqualTo(1);
+    verifyHasActiveRuleInDbAndIndex(ActiveRuleKey.of(XOO_P1_KEY, XOO_X1), MINOR, null, ImmutableMap.of("max", "10"));
+    verifyHasActiveRuleInDbAndIndex(ActiveRuleKey.of(XOO_P2_KEY, XOO_X1), BLOCKER, OVERRIDES, ImmutableMap.of("max", "10"));
+    verifyHasActiveRuleInDbAndIndex(ActiveRuleKey.of(XOO_P3_KEY, XOO_X1), BLOCKER, INHERITED, ImmutableMap.of("max", "10"));
+    verifyHasActiveRuleInDbAndIndex(ActiveRuleKey.of(XOO_P1_KEY, XOO_X2), MINOR, null, Collections.emptyMap());
+    verifyHasActiveRuleInDbAndIndex(ActiveRuleKey.of(XOO_P2_KEY, XOO_X2), MINOR, INHERITED, Collections.emptyMap());
+    verifyHasActiveRuleInDbAndIndex(ActiveRuleKey.of(XOO_P3_KEY, XOO_X2), MINOR, INHERITED, Collections.emptyMap());
+    assertProfileHasBeenUpdatedManually(XOO_P1_KEY);
+    assertProfileHasBeenUpdatedManually(XOO_P2_KEY);
+    assertProfileHasBeenUpdatedManually(XOO_P3_KEY);
+  }
+
   @Test
   public void bulk_activation_ignores_errors() {
     // 1. bulk activate all the rules, even non xoo-rules and xoo templates
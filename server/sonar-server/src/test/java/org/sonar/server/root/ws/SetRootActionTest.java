@@ -19,10 +19,12 @@
  */
 package org.sonar.server.root.ws;
 
+import java.util.Optional;
 import javax.annotation.Nullable;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.config.MapSettings;
 import org.sonar.api.server.ws.WebService;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbSession;
@@ -30,6 +32,7 @@ import org.sonar.db.DbTester;
 import org.sonar.db.user.UserDao;
 import org.sonar.db.user.UserDto;
 import org.sonar.db.user.UserTesting;
+import org.sonar.server.authentication.AuthenticationCache;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.tester.UserSessionRule;
@@ -50,7 +53,8 @@ public class SetRootActionTest {
 
   private UserDao userDao = dbTester.getDbClient().userDao();
   private DbSession dbSession = dbTester.getSession();
-  private SetRootAction underTest = new SetRootAction(userSessionRule, dbTester.getDbClient());
+  private AuthenticationCache authenticationCache = new AuthenticationCache(new MapSettings(), System2.INSTANCE);
+  private SetRootAction underTest = new SetRootAction(userSessionRule, dbTester.getDbClient(), authenticationCache);
   private WsActionTester wsTester = new WsActionTester(underTest);
 
   @Test
@@ -103,6 +107,18 @@ public class SetRootActionTest {
     executeRequest(null);
   }
 
+  @Test
+  public void execute_evicts_user_from_authentication_cache() {
+    userDao.insert(dbSession, UserTesting.newUserDto(SOME_LOGIN, "name", "email"));
+    dbSession.commit();
+    assertThat(authenticateUser().isRoot()).isFalse();
+    logInAsRoot();
+
+    executeRequest(SOME_LOGIN);
+
+    assertThat(authenticateUser().isRoot()).isTrue();
+  }
+
   @Test
   public void execute_makes_user_with_specified_login_root_when_it_is_not() {
     UserDto otherUser = UserTesting.newUserDto();
@@ -155,6 +171,10 @@ public class SetRootActionTest {
     executeRequest(userDto.getLogin());
   }
 
+  private UserDto authenticateUser() {
+    return authenticationCache.getActiveUser(SOME_LOGIN, () -> Optional.ofNullable(userDao.selectByLogin(dbSession, SOME_LOGIN))).get();
+  }
+
   private void logInAsRoot() {
     userSessionRule.logIn().setRoot();
   }
@@ -19,16 +19,19 @@
  */
 package org.sonar.server.root.ws;
 
+import java.util.Optional;
 import javax.annotation.Nullable;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.config.MapSettings;
 import org.sonar.api.server.ws.WebService;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.user.UserDao;
 import org.sonar.db.user.UserDto;
+import org.sonar.server.authentication.AuthenticationCache;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.NotFoundException;
@@ -51,7 +54,8 @@ public class UnsetRootActionTest {
 
   private UserDao userDao = dbTester.getDbClient().userDao();
   private DbSession dbSession = dbTester.getSession();
-  private UnsetRootAction underTest = new UnsetRootAction(userSessionRule, dbTester.getDbClient());
+  private AuthenticationCache authenticationCache = new AuthenticationCache(new MapSettings(), System2.INSTANCE);
+  private UnsetRootAction underTest = new UnsetRootAction(userSessionRule, dbTester.getDbClient(), authenticationCache);
   private WsActionTester wsTester = new WsActionTester(underTest);
 
   @Test
@@ -116,6 +120,18 @@ public class UnsetRootActionTest {
     assertThat(userDao.selectByLogin(dbSession, otherUser.getLogin()).isRoot()).isTrue();
   }
 
+  @Test
+  public void execute_evicts_user_from_authentication_cache() {
+    insertRootUser(newUserDto());
+    insertRootUser(newUserDto(SOME_LOGIN, "name", "email"));
+    assertThat(authenticateUser().isRoot()).isTrue();
+    logInAsRoot();
+
+    executeRequest(SOME_LOGIN);
+
+    assertThat(authenticateUser().isRoot()).isFalse();
+  }
+
   @Test
   public void execute_has_no_effect_when_user_is_already_not_root() {
     UserDto otherUser = insertRootUser(newUserDto());
@@ -179,6 +195,10 @@ public class UnsetRootActionTest {
     return dto;
   }
 
+  private UserDto authenticateUser() {
+    return authenticationCache.getActiveUser(SOME_LOGIN, () -> Optional.ofNullable(userDao.selectByLogin(dbSession, SOME_LOGIN))).get();
+  }
+
   private UserDto insertRootUser(UserDto dto) {
     insertNonRootUser(dto);
     userDao.setRoot(dbSession, dto.getLogin(), true);
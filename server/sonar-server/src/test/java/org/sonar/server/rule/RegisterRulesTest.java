@@ -24,6 +24,7 @@ import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
 import org.sonar.api.config.MapSettings;
+import org.sonar.api.platform.Server;
 import org.sonar.api.resources.Language;
 import org.sonar.api.resources.Languages;
 import org.sonar.api.rule.RuleKey;
@@ -41,6 +42,7 @@ import org.sonar.db.rule.RuleParamDto;
 import org.sonar.db.rule.RuleRepositoryDto;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.es.SearchOptions;
+import org.sonar.server.property.InternalProperties;
 import org.sonar.server.qualityprofile.RuleActivator;
 import org.sonar.server.qualityprofile.index.ActiveRuleIndexer;
 import org.sonar.server.rule.index.RuleIndex;
@@ -51,6 +53,7 @@ import org.sonar.server.rule.index.RuleQuery;
 import static com.google.common.collect.Sets.newHashSet;
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.sonar.api.rule.Severity.BLOCKER;
@@ -67,6 +70,7 @@ public class RegisterRulesTest {
   private static final RuleKey RULE_KEY3 = RuleKey.of("fake", "rule3");
 
   private System2 system = mock(System2.class);
+  private Server server = mock(Server.class);
 
   @org.junit.Rule
   public DbTester dbTester = DbTester.create(system);
@@ -329,6 +333,66 @@ public class RegisterRulesTest {
     assertThat(rule1.getUpdatedAt()).isEqualTo(DATE1.getTime());
   }
 
+  @Test
+  public void do_not_synchronize_repositories_whose_definitions_did_not_change() {
+    execute(new FakeRepositoryV1());
+    assertThat(dbClient.internalPropertiesDao().selectByKey(dbTester.getSession(), InternalProperties.RULE_REPOSITORY_FINGERPRINTS).get()).startsWith("fake=");
+
+    // db is not read again when definitions did not change
+    RuleDto rule1 = dbClient.ruleDao().selectOrFailByKey(dbTester.getSession(), RULE_KEY1);
+    rule1.setName("Changed in db");
+    dbClient.ruleDao().update(dbTester.getSession(), rule1);
+    dbTester.getSession().commit();
+    when(system.now()).thenReturn(DATE2.getTime());
+    execute(new FakeRepositoryV1());
+
+    rule1 = dbClient.ruleDao().selectOrFailByKey(dbTester.getSession(), RULE_KEY1);
+    assertThat(rule1.getName()).isEqualTo("Changed in db");
+    assertThat(dbClient.ruleDao().selectOrFailByKey(dbTester.getSession(), RULE_KEY2).getStatus()).isEqualTo(RuleStatus.READY);
+
+    // definitions changed
+    when(system.now()).thenReturn(DATE3.getTime());
+    execute(new FakeRepositoryV2());
+
+    rule1 = dbClient.ruleDao().selectOrFailByKey(dbTester.getSession(), RULE_KEY1);
+    assertThat(rule1.getName()).isEqualTo("One v2");
+    assertThat(rule1.getUpdatedAt()).isEqualTo(DATE3.getTime());
+  }
+
+  @Test
+  public void synchronize_all_repositories_when_server_is_upgraded() {
+    when(server.getVersion()).thenReturn("6.3");
+    execute(new FakeRepositoryV1());
+    RuleDto rule1 = dbClient.ruleDao().selectOrFailByKey(dbTester.getSession(), RULE_KEY1);
+    rule1.setName("Changed in db");
+    dbClient.ruleDao().update(dbTester.getSession(), rule1);
+    dbTester.getSession().commit();
+
+    when(server.getVersion()).thenReturn("6.4");
+    execute(new FakeRepositoryV1());
+
+    rule1 = dbClient.ruleDao().selectOrFailByKey(dbTester.getSession(), RULE_KEY1);
+    assertThat(rule1.getName()).isEqualTo("One");
+  }
+
+  @Test
+  public void keep_rules_of_unchanged_repositories_when_other_repositories_change() {
+    execute(new FakeRepositoryV1(), new FindbugsRepository());
+
+    when(system.now()).thenReturn(DATE2.getTime());
+    execute(new FakeRepositoryV1(), new FindbugsRepository(), new FbContribRepository());
+
+    assertThat(dbClient.ruleDao().selectAll(dbTester.getSession()))
+      .extracting(RuleDto::getKey, RuleDto::getStatus)
+      .containsOnly(
+        tuple(RULE_KEY1, RuleStatus.BETA),
+        tuple(RULE_KEY2, RuleStatus.READY),
+        tuple(RuleKey.of("findbugs", "rule1"), RuleStatus.READY),
+        tuple(RuleKey.of("findbugs", "rule2"), RuleStatus.READY));
+    assertThat(dbClient.ruleDao().selectOrFailByKey(dbTester.getSession(), RULE_KEY1).getUpdatedAt()).isEqualTo(DATE1.getTime());
+    assertThat(dbClient.ruleDao().selectRuleParamsByRuleKey(dbTester.getSession(), RULE_KEY1)).hasSize(2);
+  }
+
   @Test
   public void do_not_update_already_removed_rules() {
     execute(new FakeRepositoryV1());
@@ -409,7 +473,7 @@ public class RegisterRulesTest {
     Languages languages = mock(Languages.class);
     when(languages.get("java")).thenReturn(mock(Language.class));
 
-    RegisterRules task = new RegisterRules(loader, ruleActivator, dbClient, ruleIndexer, activeRuleIndexer, languages, system);
+    RegisterRules task = new RegisterRules(loader, ruleActivator, dbClient, ruleIndexer, activeRuleIndexer, languages, system, server);
     task.start();
     // Execute a commit to refresh session state as the task is using its own session
     dbTester.getSession().commit();
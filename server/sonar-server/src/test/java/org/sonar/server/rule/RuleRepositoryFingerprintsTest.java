@@ -0,0 +1,93 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.rule;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Collections;
+import java.util.Optional;
+import org.junit.Test;
+import org.sonar.api.rule.Severity;
+import org.sonar.api.server.rule.RulesDefinition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class RuleRepositoryFingerprintsTest {
+
+  @Test
+  public void fingerprint_does_not_depend_on_declaration_order() {
+    assertThat(RuleRepositoryFingerprints.compute("6.4", repository("r1", "r2").repositories()))
+      .isEqualTo(RuleRepositoryFingerprints.compute("6.4", repository("r2", "r1").repositories()));
+  }
+
+  @Test
+  public void fingerprint_changes_when_a_rule_changes() {
+    RulesDefinition.Context context = new RulesDefinition.Context();
+    RulesDefinition.NewRepository repo = context.createRepository("java", "java");
+    repo.createRule("r1").setName("r1").setHtmlDescription("desc").setSeverity(Severity.BLOCKER);
+    repo.createRule("r2").setName("r2").setHtmlDescription("desc");
+    repo.done();
+
+    assertThat(RuleRepositoryFingerprints.compute("6.4", context.repositories()))
+      .isNotEqualTo(RuleRepositoryFingerprints.compute("6.4", repository("r1", "r2").repositories()));
+  }
+
+  @Test
+  public void fingerprint_changes_when_server_version_changes() {
+    assertThat(RuleRepositoryFingerprints.compute("6.3", repository("r1", "r2").repositories()))
+      .isNotEqualTo(RuleRepositoryFingerprints.compute("6.4", repository("r1", "r2").repositories()));
+  }
+
+  @Test
+  public void fingerprint_includes_rules_of_extensions() {
+    RulesDefinition.Context context = new RulesDefinition.Context();
+    RulesDefinition.NewRepository repo = context.createRepository("java", "java");
+    repo.createRule("r1").setName("r1").setHtmlDescription("desc");
+    repo.done();
+    RulesDefinition.NewRepository extension = context.extendRepository("java", "java");
+    extension.createRule("r2").setName("r2").setHtmlDescription("desc");
+    extension.done();
+
+    assertThat(RuleRepositoryFingerprints.compute("6.4", context.repositories()))
+      .isEqualTo(RuleRepositoryFingerprints.compute("6.4", repository("r1", "r2").repositories()));
+  }
+
+  @Test
+  public void format_and_parse_fingerprints() {
+    String value = RuleRepositoryFingerprints.format(ImmutableMap.of("java", "abc", "common-java", "def"));
+
+    assertThat(value).isEqualTo("common-java=def\njava=abc\n");
+    assertThat(RuleRepositoryFingerprints.parse(Optional.of(value))).containsOnly(
+      entry("java", "abc"), entry("common-java", "def"));
+    assertThat(RuleRepositoryFingerprints.parse(Optional.of(""))).isEmpty();
+    assertThat(RuleRepositoryFingerprints.parse(Optional.empty())).isEmpty();
+    assertThat(RuleRepositoryFingerprints.format(Collections.emptyMap())).isEmpty();
+  }
+
+  private static RulesDefinition.Context repository(String... ruleKeys) {
+    RulesDefinition.Context context = new RulesDefinition.Context();
+    RulesDefinition.NewRepository repo = context.createRepository("java", "java");
+    for (String ruleKey : ruleKeys) {
+      repo.createRule(ruleKey).setName(ruleKey).setHtmlDescription("desc");
+    }
+    repo.done();
+    return context;
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.source;
+
+import java.util.List;
+import org.junit.Test;
+import org.sonar.api.config.MapSettings;
+import org.sonar.db.protobuf.DbFileSources;
+import org.sonar.server.source.SourceCache.DecodedSource;
+import org.sonar.server.source.index.FileSourceTesting;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SourceCacheTest {
+
+  @Test
+  public void weight_of_source_is_bigger_than_serialized_lines() {
+    List<DbFileSources.Line> lines = FileSourceTesting.newFakeData(100).build().getLinesList();
+    int serializedSize = lines.stream().mapToInt(DbFileSources.Line::getSerializedSize).sum();
+
+    DecodedSource source = new DecodedSource(lines);
+
+    assertThat(source.weight()).isGreaterThan(2 * serializedSize);
+    // the constant overhead of lines prevails for short lines
+    assertThat(source.weight()).isGreaterThan(100 * 384);
+  }
+
+  @Test
+  public void weight_increases_with_length_of_source() {
+    DbFileSources.Data.Builder shortLines = FileSourceTesting.newFakeData(1);
+    DbFileSources.Data.Builder longLines = FileSourceTesting.newFakeData(1);
+    longLines.getLinesBuilder(0).setSource(new String(new char[1_000]).replace('\0', 'a'));
+
+    int shortWeight = new DecodedSource(shortLines.build().getLinesList()).weight();
+    int longWeight = new DecodedSource(longLines.build().getLinesList()).weight();
+
+    // UTF-16 chars of the source and of its HTML decoration
+    assertThat(longWeight - shortWeight).isGreaterThanOrEqualTo(4 * (1_000 - "SOURCE_1".length()));
+  }
+
+  @Test
+  public void accepts_files_which_take_at_most_a_tenth_of_the_cache_once_decoded() {
+    SourceCache underTest = new SourceCache(new MapSettings().setProperty("sonar.web.sourceCache.sizeInMb", "3"));
+
+    assertThat(underTest.maxWeight()).isEqualTo(3L * 1024 * 1024);
+    assertThat(underTest.accepts(10_000)).isTrue();
+    assertThat(underTest.accepts(10_485)).isTrue();
+    assertThat(underTest.accepts(10_486)).isFalse();
+  }
+
+  @Test
+  public void does_not_accept_very_large_files() {
+    SourceCache underTest = new SourceCache(new MapSettings());
+
+    // estimated weight would overflow int
+    assertThat(underTest.accepts(100_000_000)).isFalse();
+    assertThat(underTest.accepts(Integer.MAX_VALUE)).isFalse();
+  }
+}
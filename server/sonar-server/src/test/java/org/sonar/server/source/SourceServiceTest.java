@@ -27,6 +27,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.config.MapSettings;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbTester;
 import org.sonar.db.protobuf.DbFileSources;
@@ -35,6 +36,8 @@ import org.sonar.server.source.index.FileSourceTesting;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class SourceServiceTest {
@@ -49,7 +52,9 @@ public class SourceServiceTest {
 
   HtmlSourceDecorator htmlDecorator = mock(HtmlSourceDecorator.class);
 
-  SourceService underTest = new SourceService(dbTester.getDbClient(), htmlDecorator);
+  SourceCache sourceCache = new SourceCache(new MapSettings());
+
+  SourceService underTest = new SourceService(dbTester.getDbClient(), htmlDecorator, sourceCache);
 
   @Before
   public void injectFakeLines() throws IOException {
@@ -71,6 +76,21 @@ public class SourceServiceTest {
     assertThat(lines.get(2).getLine()).isEqualTo(7);
   }
 
+  @Test
+  public void get_range_of_lines_overlapping_chunks_of_big_file() throws Exception {
+    FileSourceDto dto = new FileSourceDto()
+      .setFileUuid("BIG_FILE_UUID")
+      .setProjectUuid("PROJECT_UUID")
+      .setSourceData(FileSourceTesting.newFakeData(1_000).build());
+    dbTester.getDbClient().fileSourceDao().insert(dbTester.getSession(), dto);
+    dbTester.commit();
+
+    Optional<Iterable<String>> linesOpt = underTest.getLinesAsRawText(dbTester.getSession(), "BIG_FILE_UUID", 399, 401);
+
+    assertThat(linesOpt.isPresent()).isTrue();
+    assertThat(linesOpt.get()).containsExactly("SOURCE_399", "SOURCE_400", "SOURCE_401");
+  }
+
   @Test
   public void get_range_of_lines_as_raw_text() throws Exception {
     Optional<Iterable<String>> linesOpt = underTest.getLinesAsRawText(dbTester.getSession(), FILE_UUID, 5, 7);
@@ -120,4 +140,42 @@ public class SourceServiceTest {
     assertThat(lines.isPresent()).isFalse();
   }
 
+  @Test
+  public void lines_and_their_html_are_cached_until_data_hash_changes() throws Exception {
+    when(htmlDecorator.getDecoratedSourceAsHtml("SOURCE_1", "HIGHLIGHTING_1", "SYMBOLS_1")).thenReturn("HTML_1");
+    FileSourceDto dto = new FileSourceDto()
+      .setFileUuid("CACHED_FILE_UUID")
+      .setProjectUuid("PROJECT_UUID")
+      .setDataHash("HASH_1")
+      .setSourceData(FileSourceTesting.newFakeData(3).build());
+    dbTester.getDbClient().fileSourceDao().insert(dbTester.getSession(), dto);
+    dbTester.commit();
+
+    assertThat(underTest.getLinesAsHtml(dbTester.getSession(), "CACHED_FILE_UUID", 1, 1).get()).containsExactly("HTML_1");
+    assertThat(underTest.getLinesAsHtml(dbTester.getSession(), "CACHED_FILE_UUID", 1, 1).get()).containsExactly("HTML_1");
+
+    verify(htmlDecorator, times(1)).getDecoratedSourceAsHtml("SOURCE_1", "HIGHLIGHTING_1", "SYMBOLS_1");
+    assertThat(sourceCache.size()).isEqualTo(1);
+    assertThat(sourceCache.stats().hitCount()).isEqualTo(1);
+    assertThat(sourceCache.stats().missCount()).isEqualTo(1);
+
+    // new analysis of the file
+    FileSourceDto updated = dbTester.getDbClient().fileSourceDao().selectSourceByFileUuid(dbTester.getSession(), "CACHED_FILE_UUID");
+    DbFileSources.Data.Builder newData = FileSourceTesting.newFakeData(3);
+    newData.getLinesBuilder(0).setSource("NEW_SOURCE_1");
+    updated.setSourceData(newData.build()).setDataHash("HASH_2");
+    dbTester.getDbClient().fileSourceDao().update(dbTester.getSession(), updated);
+    dbTester.commit();
+
+    assertThat(underTest.getLinesAsRawText(dbTester.getSession(), "CACHED_FILE_UUID", 1, 1).get()).containsExactly("NEW_SOURCE_1");
+    assertThat(sourceCache.stats().missCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void lines_of_file_without_data_hash_are_not_cached() throws Exception {
+    underTest.getLines(dbTester.getSession(), FILE_UUID, 1, 2);
+
+    assertThat(sourceCache.size()).isEqualTo(0);
+  }
+
 }
@@ -23,6 +23,7 @@ import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Multimap;
 import java.util.List;
+import java.util.Optional;
 import org.elasticsearch.search.SearchHit;
 import org.junit.Before;
 import org.junit.Rule;
@@ -40,6 +41,7 @@ import org.sonar.db.user.GroupDto;
 import org.sonar.db.user.GroupTesting;
 import org.sonar.db.user.UserDto;
 import org.sonar.db.user.UserTesting;
+import org.sonar.server.authentication.AuthenticationCache;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.ServerException;
@@ -88,7 +90,9 @@ public class UserUpdaterTest {
   private DbSession session = db.getSession();
   private UserIndexer userIndexer = new UserIndexer(dbClient, es.client());
   private OrganizationCreation organizationCreation = mock(OrganizationCreation.class);
-  private UserUpdater underTest = new UserUpdater(newUserNotifier, settings, dbClient, userIndexer, system2, TestDefaultOrganizationProvider.from(db), organizationCreation);
+  private AuthenticationCache authenticationCache = new AuthenticationCache(settings, system2);
+  private UserUpdater underTest = new UserUpdater(newUserNotifier, settings, dbClient, userIndexer, system2, TestDefaultOrganizationProvider.from(db), organizationCreation,
+    authenticationCache);
 
   @Before
   public void setUp() {
@@ -606,6 +610,22 @@ public class UserUpdaterTest {
     assertThat(groups.get(DEFAULT_LOGIN).stream().anyMatch(g -> g.equals(DEFAULT_GROUP))).isTrue();
   }
 
+  @Test
+  public void update_user_evicts_it_from_authentication_cache() {
+    db.users().insertUser(newLocalUser(DEFAULT_LOGIN, "Marius", "marius@email.com"));
+    createDefaultGroup();
+    assertThat(authenticateUser().getName()).isEqualTo("Marius");
+
+    underTest.update(session, UpdateUser.create(DEFAULT_LOGIN)
+      .setName("Marius2")
+      .setEmail("marius2@mail.com"));
+    session.commit();
+
+    UserDto authenticatedUser = authenticateUser();
+    assertThat(authenticatedUser.getName()).isEqualTo("Marius2");
+    assertThat(authenticatedUser.getEmail()).isEqualTo("marius2@mail.com");
+  }
+
   @Test
   public void update_user() {
     UserDto user = db.users().insertUser(newLocalUser(DEFAULT_LOGIN, "Marius", "marius@email.com")
@@ -1062,4 +1082,7 @@ public class UserUpdaterTest {
     return groupDto;
   }
 
+  private UserDto authenticateUser() {
+    return authenticationCache.getActiveUser(DEFAULT_LOGIN, () -> Optional.ofNullable(dbClient.userDao().selectByLogin(session, DEFAULT_LOGIN))).get();
+  }
 }
@@ -28,10 +28,12 @@ import java.util.Optional;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.config.MapSettings;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
+import org.sonar.server.authentication.AuthenticationCache;
 
 public class UserTokenAuthenticatorTest {
   static final String GRACE_HOPPER = "grace.hopper";
@@ -46,7 +48,9 @@ public class UserTokenAuthenticatorTest {
   DbSession dbSession = db.getSession();
   TokenGenerator tokenGenerator = mock(TokenGenerator.class);
 
-  UserTokenAuthenticator underTest = new UserTokenAuthenticator(tokenGenerator, db.getDbClient());
+  AuthenticationCache authenticationCache = new AuthenticationCache(new MapSettings(), System2.INSTANCE);
+
+  UserTokenAuthenticator underTest = new UserTokenAuthenticator(tokenGenerator, db.getDbClient(), authenticationCache);
 
   @Test
   public void return_login_when_token_hash_found_in_db() {
@@ -68,4 +72,21 @@ public class UserTokenAuthenticatorTest {
     Optional<String> login = underTest.authenticate("unknown-token");
     assertThat(login.isPresent()).isFalse();
   }
+
+  @Test
+  public void login_of_token_is_cached() {
+    String token = "known-token";
+    String tokenHash = "123456789";
+    when(tokenGenerator.hash(token)).thenReturn(tokenHash);
+    dbClient.userTokenDao().insert(dbSession, newUserToken().setLogin(GRACE_HOPPER).setTokenHash(tokenHash));
+    db.commit();
+    underTest.authenticate(token);
+
+    dbClient.userTokenDao().deleteByLogin(dbSession, GRACE_HOPPER);
+    db.commit();
+    assertThat(underTest.authenticate(token)).contains(GRACE_HOPPER);
+
+    authenticationCache.invalidateTokensOf(GRACE_HOPPER);
+    assertThat(underTest.authenticate(token)).isEmpty();
+  }
 }
@@ -24,8 +24,10 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.config.MapSettings;
 import org.sonar.api.utils.System2;
-import org.sonar.db.DbClient;
+import org.sonar.db.user.UserTokenDto;
+import org.sonar.server.authentication.AuthenticationCache;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.user.UserTokenDto;
@@ -60,7 +62,7 @@ public class RevokeActionTest {
   @Before
   public void setUp() {
     ws = new WsActionTester(
-      new RevokeAction(dbClient, userSession));
+      new RevokeAction(dbClient, userSession, new AuthenticationCache(new MapSettings(), System2.INSTANCE)));
   }
 
   @Test
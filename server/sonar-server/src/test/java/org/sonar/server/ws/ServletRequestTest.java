@@ -60,6 +60,14 @@ public class ServletRequestTest {
     assertThat(underTest.getMediaType()).isEqualTo(MediaTypes.JSON);
   }
 
+  @Test
+  public void header() {
+    when(source.getHeader(HttpHeaders.IF_NONE_MATCH)).thenReturn("\"abc\"");
+
+    assertThat(underTest.header(HttpHeaders.IF_NONE_MATCH)).hasValue("\"abc\"");
+    assertThat(underTest.header(HttpHeaders.ETAG)).isEmpty();
+  }
+
   @Test
   public void default_media_type_is_octet_stream() throws Exception {
     when(source.getRequestURI()).thenReturn("/path/to/resource/search");
@@ -0,0 +1,172 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.core.util.ProtobufJsonFormat;
+import org.sonarqube.ws.Issues;
+import org.sonarqube.ws.Issues.SearchWsResponse;
+import org.sonarqube.ws.MediaTypes;
+import org.sonarqube.ws.WsBatch.WsProjectResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.test.JsonAssert.assertJson;
+
+public class StreamingProtobufWriterTest {
+
+  private static final SearchWsResponse SEARCH_RESPONSE = SearchWsResponse.newBuilder()
+    .setTotal(2)
+    .addIssues(Issues.Issue.newBuilder().setKey("I1"))
+    .addIssues(Issues.Issue.newBuilder().setKey("I2"))
+    .build();
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private TestRequest request = new TestRequest();
+  private DumbResponse response = new DumbResponse();
+
+  @Test
+  public void stream_repeated_field_as_protobuf() throws Exception {
+    request.setMediaType(MediaTypes.PROTOBUF);
+
+    streamSearchResponse();
+
+    assertThat(response.stream().mediaType()).isEqualTo(MediaTypes.PROTOBUF);
+    assertThat(SearchWsResponse.parseFrom(response.getFlushedOutput())).isEqualTo(SEARCH_RESPONSE);
+  }
+
+  @Test
+  public void stream_repeated_field_as_json() throws Exception {
+    streamSearchResponse();
+
+    assertThat(response.stream().mediaType()).isEqualTo(MediaTypes.JSON);
+    assertJson(response.outputAsString()).isSimilarTo(ProtobufJsonFormat.toJson(SEARCH_RESPONSE));
+  }
+
+  @Test
+  public void stream_map_field_as_protobuf() throws Exception {
+    request.setMediaType(MediaTypes.PROTOBUF);
+
+    WsProjectResponse expected = streamProjectResponse();
+
+    assertThat(WsProjectResponse.parseFrom(response.getFlushedOutput())).isEqualTo(expected);
+  }
+
+  @Test
+  public void stream_map_field_as_json() throws Exception {
+    WsProjectResponse expected = streamProjectResponse();
+
+    assertJson(response.outputAsString()).isSimilarTo(ProtobufJsonFormat.toJson(expected));
+  }
+
+  @Test
+  public void repeated_fields_which_are_not_streamed_are_empty_in_json() throws Exception {
+    try (StreamingProtobufWriter writer = StreamingProtobufWriter.create(SearchWsResponse.getDescriptor(), request, response)) {
+      writer.writeFields(SearchWsResponse.newBuilder().setTotal(0).build());
+    }
+
+    assertThat(response.outputAsString())
+      .contains("\"total\":0")
+      .contains("\"issues\":[]")
+      .contains("\"components\":[]");
+  }
+
+  @Test
+  public void fail_if_field_is_not_repeated() {
+    StreamingProtobufWriter writer = StreamingProtobufWriter.create(SearchWsResponse.getDescriptor(), request, response);
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Field 1 of sonarqube.ws.issues.SearchWsResponse is not a repeated field");
+
+    writer.beginRepeated(SearchWsResponse.TOTAL_FIELD_NUMBER);
+  }
+
+  @Test
+  public void fail_if_repeated_field_is_written_twice() {
+    StreamingProtobufWriter writer = StreamingProtobufWriter.create(SearchWsResponse.getDescriptor(), request, response);
+    writer.writeFields(SEARCH_RESPONSE);
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Field 'issues' is already written");
+
+    writer.beginRepeated(SearchWsResponse.ISSUES_FIELD_NUMBER);
+  }
+
+  @Test
+  public void fail_if_element_is_not_of_the_type_of_the_field() {
+    StreamingProtobufWriter writer = StreamingProtobufWriter.create(SearchWsResponse.getDescriptor(), request, response);
+    writer.beginRepeated(SearchWsResponse.COMPONENTS_FIELD_NUMBER);
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Message sonarqube.ws.issues.Issue can't be added to field 'components'");
+
+    writer.writeElement(Issues.Issue.newBuilder().setKey("I1").build());
+  }
+
+  @Test
+  public void fail_to_write_element_if_no_repeated_field_is_started() {
+    StreamingProtobufWriter writer = StreamingProtobufWriter.create(SearchWsResponse.getDescriptor(), request, response);
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("No repeated field is started");
+
+    writer.writeElement(Issues.Issue.newBuilder().setKey("I1").build());
+  }
+
+  private void streamSearchResponse() {
+    try (StreamingProtobufWriter writer = StreamingProtobufWriter.create(SearchWsResponse.getDescriptor(), request, response)) {
+      writer.writeFields(SearchWsResponse.newBuilder().setTotal(2).build());
+      writer.beginRepeated(SearchWsResponse.ISSUES_FIELD_NUMBER);
+      for (Issues.Issue issue : SEARCH_RESPONSE.getIssuesList()) {
+        writer.writeElement(issue);
+      }
+      writer.endRepeated();
+    }
+  }
+
+  private WsProjectResponse streamProjectResponse() {
+    WsProjectResponse.FileDataByPath.Builder filesBuilder = WsProjectResponse.FileDataByPath.newBuilder();
+    filesBuilder.getMutableFileDataByPath().put("src/Foo.java", WsProjectResponse.FileData.newBuilder().setHash("h1").setRevision("r1").build());
+    WsProjectResponse.FileDataByPath files = filesBuilder.build();
+    WsProjectResponse.Settings.Builder settingsBuilder = WsProjectResponse.Settings.newBuilder();
+    settingsBuilder.getMutableSettings().put("sonar.foo", "bar");
+    WsProjectResponse.Settings settings = settingsBuilder.build();
+
+    try (StreamingProtobufWriter writer = StreamingProtobufWriter.create(WsProjectResponse.getDescriptor(), request, response)) {
+      writer.writeFields(WsProjectResponse.newBuilder().setTimestamp(1_000L).build());
+      writer.beginRepeated(WsProjectResponse.FILEDATABYMODULEANDPATH_FIELD_NUMBER)
+        .writeMapEntry("module-1", files)
+        .writeMapEntry("module-2", WsProjectResponse.FileDataByPath.getDefaultInstance())
+        .endRepeated();
+      writer.beginRepeated(WsProjectResponse.SETTINGSBYMODULE_FIELD_NUMBER)
+        .writeMapEntry("module-1", settings)
+        .endRepeated();
+    }
+
+    WsProjectResponse.Builder expected = WsProjectResponse.newBuilder().setTimestamp(1_000L);
+    expected.getMutableFileDataByModuleAndPath().put("module-1", files);
+    expected.getMutableFileDataByModuleAndPath().put("module-2", WsProjectResponse.FileDataByPath.getDefaultInstance());
+    expected.getMutableSettingsByModule().put("module-1", settings);
+    return expected.build();
+  }
+}
@@ -46,4 +46,8 @@ public class TestResponse {
   public int getStatus() {
     return dumbResponse.stream().status();
   }
+
+  public String getHeader(String headerKey) {
+    return dumbResponse.getHeader(headerKey);
+  }
 }
@@ -100,6 +100,17 @@ public final class PurgeProperties {
         .category(CoreProperties.CATEGORY_GENERAL)
         .subCategory(CoreProperties.SUBCATEGORY_DATABASE_CLEANER)
         .index(6)
+        .build(),
+
+      PropertyDefinition.builder(PurgeConstants.BACKGROUND_PURGE)
+        .defaultValue("false")
+        .name("Purge in background")
+        .description("If set to true, the history of projects is purged by a dedicated Compute Engine task, queued at the end of the analysis. "
+          + "Deletions are committed by small chunks in order to limit the locks held on database tables.")
+        .type(PropertyType.BOOLEAN)
+        .category(CoreProperties.CATEGORY_GENERAL)
+        .subCategory(CoreProperties.SUBCATEGORY_DATABASE_CLEANER)
+        .index(7)
         .build()
       );
   }
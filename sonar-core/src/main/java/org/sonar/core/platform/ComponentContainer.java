@@ -25,6 +25,7 @@ import java.lang.annotation.Annotation;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 import javax.annotation.Nullable;
 import org.picocontainer.Characteristics;
 import org.picocontainer.ComponentAdapter;
@@ -35,14 +36,10 @@ import org.picocontainer.LifecycleStrategy;
 import org.picocontainer.MutablePicoContainer;
 import org.picocontainer.PicoContainer;
 import org.picocontainer.behaviors.OptInCaching;
-import org.picocontainer.lifecycle.ReflectionLifecycleStrategy;
-import org.picocontainer.monitors.NullComponentMonitor;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.config.PropertyDefinitions;
 import org.sonar.api.server.ServerSide;
-import org.sonar.api.utils.log.Loggers;
-import org.sonar.api.utils.log.Profiler;
 
 import static com.google.common.collect.ImmutableList.copyOf;
 import static java.util.Objects.requireNonNull;
@@ -72,6 +69,10 @@ public class ComponentContainer implements ContainerPopulator.Container {
       }
     }
 
+    private LifecycleStrategy getLifecycleStrategy() {
+      return lifecycleStrategy;
+    }
+
     @Override
     public MutablePicoContainer makeChildContainer() {
       DefaultPicoContainer pc = new ExtendedDefaultPicoContainer(componentFactory, lifecycleStrategy, this, componentMonitor);
@@ -141,6 +142,7 @@ public class ComponentContainer implements ContainerPopulator.Container {
     try {
       doBeforeStart();
       pico.start();
+      getLifecycleStrategy().ifPresent(ComponentLifecycleStrategy::awaitPendingStarts);
       doAfterStart();
       return this;
     } catch (Exception e) {
@@ -312,16 +314,25 @@ public class ComponentContainer implements ContainerPopulator.Container {
   }
 
   public static MutablePicoContainer createPicoContainer() {
-    ReflectionLifecycleStrategy lifecycleStrategy = new ReflectionLifecycleStrategy(new NullComponentMonitor(), "start", "stop", "close") {
-      @Override
-      public void start(Object component) {
-        Profiler profiler = Profiler.createIfTrace(Loggers.get(ComponentContainer.class));
-        profiler.start();
-        super.start(component);
-        profiler.stopTrace(component.getClass().getCanonicalName() + " started");
+    return new ExtendedDefaultPicoContainer(new OptInCaching(), new ComponentLifecycleStrategy(), null);
+  }
+
+  /**
+   * Durations of the start of the components of this container, of its parents and of its children.
+   * Empty if the container has not been created by {@link #createPicoContainer()}.
+   */
+  public StartupTimeline getStartupTimeline() {
+    return getLifecycleStrategy().map(ComponentLifecycleStrategy::getTimeline).orElseGet(StartupTimeline::new);
+  }
+
+  private Optional<ComponentLifecycleStrategy> getLifecycleStrategy() {
+    if (pico instanceof ExtendedDefaultPicoContainer) {
+      LifecycleStrategy lifecycleStrategy = ((ExtendedDefaultPicoContainer) pico).getLifecycleStrategy();
+      if (lifecycleStrategy instanceof ComponentLifecycleStrategy) {
+        return Optional.of((ComponentLifecycleStrategy) lifecycleStrategy);
       }
-    };
-    return new ExtendedDefaultPicoContainer(new OptInCaching(), lifecycleStrategy, null);
+    }
+    return Optional.empty();
   }
 
   public ComponentContainer getParent() {
@@ -0,0 +1,174 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.platform;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.picocontainer.lifecycle.ReflectionLifecycleStrategy;
+import org.picocontainer.monitors.NullComponentMonitor;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import static java.lang.String.format;
+
+/**
+ * Lifecycle of the components of {@link ComponentContainer}, shared by a container and its children. Records
+ * the duration of each start into a {@link StartupTimeline} and starts the components annotated with
+ * {@link ParallelStart} in background.
+ */
+class ComponentLifecycleStrategy extends ReflectionLifecycleStrategy {
+
+  private static final Logger LOG = Loggers.get(ComponentContainer.class);
+  private static final int MAX_PARALLEL_STARTS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+  private final StartupTimeline timeline = new StartupTimeline();
+  private final Map<Object, Future<?>> pendingStarts = new IdentityHashMap<>();
+  private ThreadPoolExecutor executor;
+
+  ComponentLifecycleStrategy() {
+    super(new NullComponentMonitor(), "start", "stop", "close");
+  }
+
+  StartupTimeline getTimeline() {
+    return timeline;
+  }
+
+  @Override
+  public void start(Object component) {
+    awaitDependencies(component);
+    if (component.getClass().isAnnotationPresent(ParallelStart.class)) {
+      synchronized (pendingStarts) {
+        pendingStarts.put(component, executor().submit(() -> timedStart(component, true)));
+      }
+    } else {
+      timedStart(component, false);
+    }
+  }
+
+  @Override
+  public void stop(Object component) {
+    Future<?> pendingStart;
+    synchronized (pendingStarts) {
+      pendingStart = pendingStarts.remove(component);
+    }
+    if (pendingStart != null) {
+      try {
+        await(component, pendingStart);
+      } catch (RuntimeException e) {
+        // the container is being stopped before the end of its start, a component which failed to start is not stopped
+        LOG.debug("Component {} failed to start: {}", component.getClass().getName(), e.getMessage());
+        return;
+      }
+    }
+    super.stop(component);
+  }
+
+  /**
+   * Waits for the end of the components being started in background.
+   *
+   * @throws RuntimeException the failure of the first start which failed
+   */
+  void awaitPendingStarts() {
+    List<Map.Entry<Object, Future<?>>> pending;
+    synchronized (pendingStarts) {
+      pending = new ArrayList<>(pendingStarts.entrySet());
+      pendingStarts.clear();
+    }
+    for (Map.Entry<Object, Future<?>> entry : pending) {
+      await(entry.getKey(), entry.getValue());
+    }
+  }
+
+  private void timedStart(Object component, boolean parallel) {
+    long startedAt = System.currentTimeMillis();
+    super.start(component);
+    long duration = System.currentTimeMillis() - startedAt;
+    timeline.add(component.getClass(), duration, parallel);
+    LOG.trace("{} started in {} ms", component.getClass().getCanonicalName(), duration);
+  }
+
+  private void awaitDependencies(Object component) {
+    List<Map.Entry<Object, Future<?>>> dependencies = new ArrayList<>();
+    synchronized (pendingStarts) {
+      if (pendingStarts.isEmpty()) {
+        return;
+      }
+      Set<Class<?>> dependencyTypes = constructorParameterTypes(component.getClass());
+      for (Map.Entry<Object, Future<?>> entry : pendingStarts.entrySet()) {
+        if (dependencyTypes.stream().anyMatch(type -> type.isInstance(entry.getKey()))) {
+          dependencies.add(entry);
+        }
+      }
+    }
+    for (Map.Entry<Object, Future<?>> dependency : dependencies) {
+      await(dependency.getKey(), dependency.getValue());
+    }
+  }
+
+  private static Set<Class<?>> constructorParameterTypes(Class<?> componentClass) {
+    Set<Class<?>> types = new HashSet<>();
+    for (Constructor<?> constructor : componentClass.getConstructors()) {
+      for (Class<?> type : constructor.getParameterTypes()) {
+        types.add(type.isArray() ? type.getComponentType() : type);
+      }
+    }
+    return types;
+  }
+
+  private static void await(Object component, Future<?> start) {
+    try {
+      start.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(format("Interrupted while waiting for the start of %s", component.getClass().getName()), e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(format("Fail to start %s", component.getClass().getName()), cause);
+    }
+  }
+
+  private synchronized ThreadPoolExecutor executor() {
+    if (executor == null) {
+      executor = new ThreadPoolExecutor(MAX_PARALLEL_STARTS, MAX_PARALLEL_STARTS, 10L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+        Thread thread = new Thread(runnable, "Component start");
+        thread.setDaemon(true);
+        return thread;
+      });
+      executor.allowCoreThreadTimeOut(true);
+    }
+    return executor;
+  }
+}
@@ -20,23 +20,83 @@
 package org.sonar.core.platform;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Optional;
 import java.util.function.Predicate;
 import java.util.zip.ZipEntry;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.sonar.api.utils.ZipUtils;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.commons.io.FileUtils.listFiles;
 
 public abstract class PluginJarExploder {
 
   protected static final String LIB_RELATIVE_PATH_IN_JAR = "META-INF/lib";
 
+  /**
+   * File written in the directory of an exploded plugin once it is completely exploded. It contains
+   * the MD5 hash of the exploded JAR, so that the directory can be reused as long as the JAR does not change.
+   */
+  static final String HASH_FILENAME = ".exploded-plugin.md5";
+
   public abstract ExplodedPlugin explode(PluginInfo info);
 
   protected Predicate<ZipEntry> newLibFilter() {
     return ze -> ze.getName().startsWith(LIB_RELATIVE_PATH_IN_JAR);
   }
 
+  /**
+   * Copies the JAR of plugin into {@code toDir} and unzips its libraries, unless the directory already contains
+   * the result of a previous explosion of the same JAR.
+   */
+  protected ExplodedPlugin explodeIfChanged(PluginInfo pluginInfo, File toDir) throws IOException {
+    return explodeIfChanged(pluginInfo, toDir, hash(pluginInfo.getNonNullJarFile()));
+  }
+
+  /**
+   * @see #explodeIfChanged(PluginInfo, File)
+   * @param hash the MD5 hash of the plugin JAR, as returned by {@link #hash(File)}
+   */
+  protected ExplodedPlugin explodeIfChanged(PluginInfo pluginInfo, File toDir, String hash) throws IOException {
+    File jarSource = pluginInfo.getNonNullJarFile();
+    Optional<ExplodedPlugin> exploded = getUpToDateExplosion(pluginInfo, toDir, hash);
+    if (exploded.isPresent()) {
+      return exploded.get();
+    }
+
+    org.sonar.core.util.FileUtils.cleanDirectory(toDir);
+    File jarTarget = new File(toDir, jarSource.getName());
+    FileUtils.copyFile(jarSource, jarTarget);
+    ZipUtils.unzip(jarSource, toDir, newLibFilter());
+    // written last, so that a partial explosion is never reused
+    FileUtils.write(new File(toDir, HASH_FILENAME), hash, UTF_8);
+    return explodeFromUnzippedDir(pluginInfo.getKey(), jarTarget, toDir);
+  }
+
+  /**
+   * The plugin exploded in {@code dir}, if it has been completely exploded from a JAR with the given hash.
+   */
+  protected Optional<ExplodedPlugin> getUpToDateExplosion(PluginInfo pluginInfo, File dir, String jarHash) throws IOException {
+    File hashFile = new File(dir, HASH_FILENAME);
+    File jarTarget = new File(dir, pluginInfo.getNonNullJarFile().getName());
+    if (hashFile.isFile() && jarTarget.isFile() && jarHash.equals(FileUtils.readFileToString(hashFile, UTF_8))) {
+      return Optional.of(explodeFromUnzippedDir(pluginInfo.getKey(), jarTarget, dir));
+    }
+    return Optional.empty();
+  }
+
+  protected static String hash(File jar) throws IOException {
+    try (InputStream input = Files.newInputStream(jar.toPath())) {
+      return DigestUtils.md5Hex(input);
+    }
+  }
+
   protected ExplodedPlugin explodeFromUnzippedDir(String pluginKey, File jarFile, File unzippedDir) {
     File libDir = new File(unzippedDir, PluginJarExploder.LIB_RELATIVE_PATH_IN_JAR);
     Collection<File> libs;
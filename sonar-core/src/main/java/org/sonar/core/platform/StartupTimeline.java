@@ -0,0 +1,87 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.platform;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static java.util.Collections.synchronizedList;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Durations of the start of the components of a {@link ComponentContainer} and of its children.
+ */
+public class StartupTimeline {
+
+  private final List<Entry> entries = synchronizedList(new ArrayList<>());
+
+  void add(Class<?> componentClass, long durationMs, boolean parallel) {
+    entries.add(new Entry(componentClass.getName(), durationMs, parallel));
+  }
+
+  /**
+   * @return the {@code limit} components which took the longest to start, the slowest first
+   */
+  public List<Entry> getSlowest(int limit) {
+    synchronized (entries) {
+      return entries.stream()
+        .sorted(Comparator.comparingLong(Entry::getDurationMs).reversed())
+        .limit(limit)
+        .collect(toList());
+    }
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public static final class Entry {
+    private final String component;
+    private final long durationMs;
+    private final boolean parallel;
+
+    private Entry(String component, long durationMs, boolean parallel) {
+      this.component = component;
+      this.durationMs = durationMs;
+      this.parallel = parallel;
+    }
+
+    public String getComponent() {
+      return component;
+    }
+
+    public long getDurationMs() {
+      return durationMs;
+    }
+
+    /**
+     * Whether the component has been started in background, see {@link ParallelStart}
+     */
+    public boolean isParallel() {
+      return parallel;
+    }
+
+    @Override
+    public String toString() {
+      return component + " (" + durationMs + " ms" + (parallel ? ", parallel" : "") + ")";
+    }
+  }
+}
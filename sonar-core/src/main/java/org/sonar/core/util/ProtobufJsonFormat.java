@@ -170,18 +170,29 @@ public class ProtobufJsonFormat {
   private static void writeMessage(Message message, JsonWriter writer) {
     MessageType type = MessageType.of(message);
     for (Descriptors.FieldDescriptor fieldDescriptor : type.fieldDescriptors) {
-      if (fieldDescriptor.isRepeated()) {
-        writer.name(fieldDescriptor.getName());
-        if (fieldDescriptor.isMapField()) {
-          writeMap((Collection<MapEntry>) message.getField(fieldDescriptor), writer);
-        } else {
-          writeArray(writer, fieldDescriptor, (Collection) message.getField(fieldDescriptor));
-        }
-      } else if (message.hasField(fieldDescriptor)) {
-        writer.name(fieldDescriptor.getName());
-        Object fieldValue = message.getField(fieldDescriptor);
-        writeFieldValue(fieldDescriptor, fieldValue, writer);
+      writeField(message, fieldDescriptor, writer);
+    }
+  }
+
+  /**
+   * Writes the name and the value of a field of a message, if the field is present. Repeated fields
+   * are always present. The writer must be in the context of the JSON object representing the message.
+   * Used to stream large messages field by field.
+   *
+   * @since 6.4
+   */
+  public static void writeField(Message message, Descriptors.FieldDescriptor fieldDescriptor, JsonWriter writer) {
+    if (fieldDescriptor.isRepeated()) {
+      writer.name(fieldDescriptor.getName());
+      if (fieldDescriptor.isMapField()) {
+        writeMap((Collection<MapEntry>) message.getField(fieldDescriptor), writer);
+      } else {
+        writeArray(writer, fieldDescriptor, (Collection) message.getField(fieldDescriptor));
       }
+    } else if (message.hasField(fieldDescriptor)) {
+      writer.name(fieldDescriptor.getName());
+      Object fieldValue = message.getField(fieldDescriptor);
+      writeFieldValue(fieldDescriptor, fieldValue, writer);
     }
   }
 
@@ -204,7 +215,13 @@ public class ProtobufJsonFormat {
     writer.endObject();
   }
 
-  private static void writeFieldValue(Descriptors.FieldDescriptor fieldDescriptor, Object value, JsonWriter writer) {
+  /**
+   * Writes a single value of a field, for example an element of a repeated field or the value
+   * of an entry of a map field.
+   *
+   * @since 6.4
+   */
+  public static void writeFieldValue(Descriptors.FieldDescriptor fieldDescriptor, Object value, JsonWriter writer) {
     switch (fieldDescriptor.getJavaType()) {
       case INT:
         writer.value((Integer) value);
@@ -30,6 +30,7 @@ import org.sonar.api.config.PropertyDefinitions;
 import static junit.framework.Assert.assertTrue;
 import static junit.framework.Assert.fail;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
@@ -338,6 +339,59 @@ public class ComponentContainerTest {
     assertThat(component.isClosedAfterStop).isTrue();
   }
 
+  @Test
+  public void parallel_components_are_started_in_background_before_end_of_container_start() {
+    ComponentContainer container = new ComponentContainer();
+    container.add(SlowParallelComponent.class, SimpleComponent.class);
+
+    container.startComponents();
+
+    SlowParallelComponent component = container.getComponentByType(SlowParallelComponent.class);
+    assertThat(component.started).isTrue();
+    assertThat(component.startThread).isNotSameAs(Thread.currentThread());
+    container.stopComponents();
+    assertThat(component.stopped).isTrue();
+  }
+
+  @Test
+  public void start_of_component_waits_for_parallel_components_it_depends_on() {
+    ComponentContainer container = new ComponentContainer();
+    container.add(SlowParallelComponent.class, ComponentDependingOnParallelComponent.class);
+
+    container.startComponents();
+
+    assertThat(container.getComponentByType(ComponentDependingOnParallelComponent.class).dependencyStartedFirst).isTrue();
+  }
+
+  @Test
+  public void failure_of_parallel_component_fails_start_of_container() {
+    ComponentContainer container = new ComponentContainer();
+    container.add(UnstartableParallelComponent.class);
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Fail to start");
+
+    container.startComponents();
+  }
+
+  @Test
+  public void duration_of_starts_is_recorded_in_timeline_shared_with_children() {
+    ComponentContainer parent = new ComponentContainer();
+    parent.add(SlowParallelComponent.class);
+    parent.startComponents();
+    ComponentContainer child = parent.createChild();
+    child.add(StartableComponent.class);
+    child.startComponents();
+
+    StartupTimeline timeline = child.getStartupTimeline();
+    assertThat(timeline).isSameAs(parent.getStartupTimeline());
+    assertThat(timeline.getSlowest(10)).extracting("component", "parallel").contains(
+      tuple(SlowParallelComponent.class.getName(), true),
+      tuple(StartableComponent.class.getName(), false));
+    assertThat(timeline.getSlowest(1).get(0).getComponent()).isEqualTo(SlowParallelComponent.class.getName());
+    assertThat(timeline.getSlowest(1).get(0).getDurationMs()).isGreaterThanOrEqualTo(50L);
+  }
+
   public static class StartableComponent {
     public boolean started = false;
     public boolean stopped = false;
@@ -351,6 +405,43 @@ public class ComponentContainerTest {
     }
   }
 
+  @ParallelStart
+  public static class SlowParallelComponent {
+    public volatile boolean started = false;
+    public volatile boolean stopped = false;
+    public volatile Thread startThread;
+
+    public void start() throws InterruptedException {
+      Thread.sleep(50L);
+      startThread = Thread.currentThread();
+      started = true;
+    }
+
+    public void stop() {
+      stopped = true;
+    }
+  }
+
+  @ParallelStart
+  public static class UnstartableParallelComponent {
+    public void start() {
+      throw new IllegalStateException("Fail to start");
+    }
+  }
+
+  public static class ComponentDependingOnParallelComponent {
+    private final SlowParallelComponent dependency;
+    public boolean dependencyStartedFirst = false;
+
+    public ComponentDependingOnParallelComponent(SlowParallelComponent dependency) {
+      this.dependency = dependency;
+    }
+
+    public void start() {
+      dependencyStartedFirst = dependency.started;
+    }
+  }
+
   public static class UnstartableComponent {
     public void start() {
       throw new IllegalStateException("Fail to start");
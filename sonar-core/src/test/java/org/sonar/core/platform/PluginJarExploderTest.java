@@ -20,6 +20,9 @@
 package org.sonar.core.platform;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 import org.apache.commons.io.FileUtils;
 import org.junit.Rule;
 import org.junit.Test;
@@ -74,6 +77,67 @@ public class PluginJarExploderTest {
     assertThat(exploded.getMain()).isSameAs(jarFile);
   }
 
+  @Test
+  public void explodeIfChanged_reuses_directory_exploded_from_same_jar() throws Exception {
+    File jarFile = temp.newFile("checkstyle.jar");
+    FileUtils.copyFile(getFile("sonar-checkstyle-plugin-2.8.jar"), jarFile);
+    File toDir = temp.newFolder();
+    PluginInfo pluginInfo = new PluginInfo("checkstyle").setJarFile(jarFile);
+    PluginJarExploder exploder = new ExplodeIfChangedExploder(toDir);
+
+    ExplodedPlugin exploded = exploder.explode(pluginInfo);
+    assertThat(exploded.getMain()).hasParent(toDir).hasName("checkstyle.jar");
+    assertThat(exploded.getLibs()).extracting("name").containsOnly("antlr-2.7.6.jar", "checkstyle-5.1.jar", "commons-cli-1.0.jar");
+    assertThat(new File(toDir, PluginJarExploder.HASH_FILENAME)).isFile();
+
+    // a file added to the directory is kept if the directory is reused
+    File marker = new File(toDir, "marker");
+    FileUtils.touch(marker);
+    exploded = exploder.explode(pluginInfo);
+    assertThat(marker).exists();
+    assertThat(exploded.getLibs()).extracting("name").containsOnly("antlr-2.7.6.jar", "checkstyle-5.1.jar", "commons-cli-1.0.jar");
+
+    // directory is exploded again when the JAR changes
+    try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(jarFile))) {
+      zip.putNextEntry(new ZipEntry("META-INF/lib/other.jar"));
+      zip.closeEntry();
+    }
+    exploded = exploder.explode(pluginInfo);
+    assertThat(marker).doesNotExist();
+    assertThat(exploded.getLibs()).extracting("name").containsOnly("other.jar");
+  }
+
+  @Test
+  public void explodeIfChanged_does_not_reuse_partially_exploded_directory() throws Exception {
+    File jarFile = getFile("sonar-checkstyle-plugin-2.8.jar");
+    File toDir = temp.newFolder();
+    FileUtils.copyFile(jarFile, new File(toDir, jarFile.getName()));
+    File marker = new File(toDir, "marker");
+    FileUtils.touch(marker);
+
+    ExplodedPlugin exploded = new ExplodeIfChangedExploder(toDir).explode(new PluginInfo("checkstyle").setJarFile(jarFile));
+
+    assertThat(marker).doesNotExist();
+    assertThat(exploded.getLibs()).hasSize(3);
+  }
+
+  private static class ExplodeIfChangedExploder extends PluginJarExploder {
+    private final File toDir;
+
+    private ExplodeIfChangedExploder(File toDir) {
+      this.toDir = toDir;
+    }
+
+    @Override
+    public ExplodedPlugin explode(PluginInfo info) {
+      try {
+        return explodeIfChanged(info, toDir);
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
   private File getFile(String filename) {
     return FileUtils.toFile(getClass().getResource("/org/sonar/core/platform/" + filename));
   }
@@ -43,6 +43,18 @@ public abstract class BlameCommand {
    */
   public abstract void blame(BlameInput input, BlameOutput output);
 
+  /**
+   * Whether {@link #blame(BlameInput, BlameOutput)} can safely be called concurrently from several
+   * threads, each call receiving a distinct subset of the files to blame. When {@code true}, the
+   * scanner splits the files in batches and blames them with a bounded pool of workers
+   * (see property {@code sonar.scm.threads}).
+   * Default implementation returns {@code false}.
+   * @since 6.4
+   */
+  public boolean isThreadSafe() {
+    return false;
+  }
+
   /**
    * Callback for the provider to report results of blame per file.
    */
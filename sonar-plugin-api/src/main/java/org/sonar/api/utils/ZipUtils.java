@@ -198,6 +198,20 @@ public final class ZipUtils {
     }
   }
 
+  /**
+   * Compress the content of a directory and write the zip to a stream. The stream is
+   * flushed but not closed, so that the caller can keep on writing to it, for example
+   * when the zip is sent as part of a HTTP request body.
+   *
+   * @since 6.4
+   */
+  public static void zipDir(File dir, OutputStream out) throws IOException {
+    ZipOutputStream zout = new ZipOutputStream(out);
+    doZipDir(dir, zout);
+    zout.finish();
+    zout.flush();
+  }
+
   private static void doZip(String entryName, InputStream in, ZipOutputStream out) throws IOException {
     ZipEntry entry = new ZipEntry(entryName);
     out.putNextEntry(entry);
@@ -35,6 +35,7 @@ public abstract class AbstractPatternInitializer {
   private Settings settings;
 
   private List<IssuePattern> multicriteriaPatterns;
+  private ResourcePatternIndex multicriteriaPatternIndex;
 
   protected AbstractPatternInitializer(Settings settings) {
     this.settings = settings;
@@ -49,6 +50,13 @@ public abstract class AbstractPatternInitializer {
     return multicriteriaPatterns;
   }
 
+  /**
+   * Multicriteria patterns whose resource pattern may match the given path, in configuration order.
+   */
+  protected List<IssuePattern> getMulticriteriaPatternCandidates(String relativePath) {
+    return multicriteriaPatternIndex.candidates(relativePath);
+  }
+
   public boolean hasConfiguredPatterns() {
     return hasMulticriteriaPatterns();
   }
@@ -75,6 +83,7 @@ public abstract class AbstractPatternInitializer {
       PatternDecoder.decodeRangeOfLines(pattern, firstNonNull(lineRange, "*"));
       multicriteriaPatterns.add(pattern);
     }
+    multicriteriaPatternIndex = new ResourcePatternIndex(multicriteriaPatterns);
   }
 
   protected abstract String getMulticriteriaConfigurationKey();
@@ -52,7 +52,7 @@ public class IssueExclusionPatternInitializer extends AbstractPatternInitializer
 
   @Override
   public void initializePatternsForPath(String relativePath, String componentKey) {
-    for (IssuePattern pattern : getMulticriteriaPatterns()) {
+    for (IssuePattern pattern : getMulticriteriaPatternCandidates(relativePath)) {
       if (pattern.matchResource(relativePath)) {
         getPatternMatcher().addPatternForComponent(componentKey, pattern);
       }
@@ -0,0 +1,84 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.issue.ignore.pattern;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Index of {@link IssuePattern} by the literal prefix of their resource pattern, that is the characters
+ * preceding the first wildcard. Only the patterns whose prefix is a prefix of a given path can
+ * match this path, so that a path is compared to a small subset of the configured patterns,
+ * instead of all of them.
+ */
+class ResourcePatternIndex {
+
+  private final List<IssuePattern> patterns;
+  private final Map<String, BitSet> patternIndexesByPrefix = new HashMap<>();
+  private final TreeSet<Integer> prefixLengths = new TreeSet<>();
+
+  ResourcePatternIndex(List<IssuePattern> patterns) {
+    this.patterns = patterns;
+    for (int i = 0; i < patterns.size(); i++) {
+      String prefix = literalPrefix(patterns.get(i).getResourcePattern().toString());
+      patternIndexesByPrefix.computeIfAbsent(prefix, k -> new BitSet()).set(i);
+      prefixLengths.add(prefix.length());
+    }
+  }
+
+  /**
+   * Patterns which may match the given path, in the order they were configured.
+   */
+  List<IssuePattern> candidates(String path) {
+    BitSet indexes = new BitSet(patterns.size());
+    for (Integer length : prefixLengths.headSet(path.length(), true)) {
+      BitSet candidates = patternIndexesByPrefix.get(path.substring(0, length));
+      if (candidates != null) {
+        indexes.or(candidates);
+      }
+    }
+    List<IssuePattern> result = new ArrayList<>(indexes.cardinality());
+    for (int i = indexes.nextSetBit(0); i >= 0; i = indexes.nextSetBit(i + 1)) {
+      result.add(patterns.get(i));
+    }
+    return result;
+  }
+
+  /**
+   * Same rules as {@link org.sonar.api.utils.WildcardPattern}: a leading slash is ignored and
+   * both '/' and '\' stand for the directory separator.
+   */
+  static String literalPrefix(String wildcardPattern) {
+    int start = wildcardPattern.startsWith("/") || wildcardPattern.startsWith("\\") ? 1 : 0;
+    StringBuilder prefix = new StringBuilder();
+    for (int i = start; i < wildcardPattern.length(); i++) {
+      char c = wildcardPattern.charAt(i);
+      if (c == '*' || c == '?') {
+        break;
+      }
+      prefix.append(c == '\\' ? '/' : c);
+    }
+    return prefix.toString();
+  }
+}
@@ -31,18 +31,26 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.regex.PatternSyntaxException;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 
 @ScannerSide
 public class IssueExclusionsRegexpScanner {
 
   private static final Logger LOG = LoggerFactory.getLogger(IssueExclusionsRegexpScanner.class);
+  private static final java.util.regex.Pattern BACK_REFERENCE = java.util.regex.Pattern.compile("\\\\(\\d|k<)");
 
   private IssueExclusionPatternInitializer exclusionPatternInitializer;
   private List<java.util.regex.Pattern> allFilePatterns;
   private List<DoubleRegexpMatcher> blockMatchers;
+  // union of all the patterns above, used to skip in a single pass the lines matching none of them
+  private java.util.regex.Pattern allFilePatternsUnion;
+  private java.util.regex.Pattern blockBeginPatternsUnion;
 
   // fields to be reset at every new scan
   private DoubleRegexpMatcher currentMatcher;
@@ -65,6 +73,12 @@ public class IssueExclusionsRegexpScanner {
         java.util.regex.Pattern.compile(pattern.getBeginBlockRegexp()),
         java.util.regex.Pattern.compile(pattern.getEndBlockRegexp())));
     }
+    allFilePatternsUnion = union(allFilePatterns);
+    List<java.util.regex.Pattern> blockBeginPatterns = new ArrayList<>();
+    for (DoubleRegexpMatcher matcher : blockMatchers) {
+      blockBeginPatterns.add(matcher.firstPattern);
+    }
+    blockBeginPatternsUnion = union(blockBeginPatterns);
 
     init();
   }
@@ -89,7 +103,7 @@ public class IssueExclusionsRegexpScanner {
       }
 
       // first check the single regexp patterns that can be used to totally exclude a file
-      for (java.util.regex.Pattern pattern : allFilePatterns) {
+      for (java.util.regex.Pattern pattern : candidates(allFilePatterns, allFilePatternsUnion, line)) {
         if (pattern.matcher(line).find()) {
           exclusionPatternInitializer.getPatternMatcher().addPatternToExcludeResource(resource);
           // nothing more to do on this file
@@ -126,6 +140,9 @@ public class IssueExclusionsRegexpScanner {
 
   private void checkDoubleRegexps(String line, int lineIndex) {
     if (currentMatcher == null) {
+      if (blockBeginPatternsUnion != null && !blockBeginPatternsUnion.matcher(line).find()) {
+        return;
+      }
       for (DoubleRegexpMatcher matcher : blockMatchers) {
         if (matcher.matchesFirstPattern(line)) {
           startExclusion(lineIndex);
@@ -141,6 +158,45 @@ public class IssueExclusionsRegexpScanner {
     }
   }
 
+  private static List<java.util.regex.Pattern> candidates(List<java.util.regex.Pattern> patterns, @Nullable java.util.regex.Pattern union, String line) {
+    if (union != null && !union.matcher(line).find()) {
+      return Collections.emptyList();
+    }
+    return patterns;
+  }
+
+  /**
+   * Single pattern matching a line if and only if at least one of the given patterns matches it. It is used
+   * as a pre-filter: when it matches, patterns are still evaluated one by one and in order, so that the first
+   * matching pattern is the same as without pre-filter.
+   *
+   * @return {@code null} if there are less than two patterns, or if they can't be safely combined, for example
+   * because of back references to numbered groups which would be shifted in the union.
+   */
+  @CheckForNull
+  static java.util.regex.Pattern union(List<java.util.regex.Pattern> patterns) {
+    if (patterns.size() < 2) {
+      return null;
+    }
+    StringBuilder union = new StringBuilder();
+    for (java.util.regex.Pattern pattern : patterns) {
+      if (pattern.flags() != 0 || BACK_REFERENCE.matcher(pattern.pattern()).find()) {
+        return null;
+      }
+      if (union.length() > 0) {
+        union.append('|');
+      }
+      union.append("(?:").append(pattern.pattern()).append(')');
+    }
+    try {
+      return java.util.regex.Pattern.compile(union.toString());
+    } catch (PatternSyntaxException e) {
+      // for example same named group declared in several patterns
+      LOG.debug("Exclusion patterns can't be combined", e);
+      return null;
+    }
+  }
+
   private void startExclusion(int lineIndex) {
     currentLineExclusion = new LineExclusion(lineIndex);
     lineExclusions.add(currentLineExclusion);
@@ -65,6 +65,11 @@ public class ReportPublisher implements Startable {
   public static final String KEEP_REPORT_PROP_KEY = "sonar.batch.keepReport";
   public static final String VERBOSE_KEY = "sonar.verbose";
   public static final String METADATA_DUMP_FILENAME = "report-task.txt";
+  /**
+   * When enabled, the report directory is compressed on the fly while being uploaded,
+   * instead of being zipped into a temporary file first.
+   */
+  public static final String STREAM_REPORT_PROP_KEY = "sonar.scanner.streamReport";
 
   private final Settings settings;
   private final ScannerWsClient wsClient;
@@ -123,12 +128,22 @@ public class ReportPublisher implements Startable {
     // If this is a issues mode analysis then we should not upload reports
     String taskId = null;
     if (!analysisMode.isIssues()) {
-      File report = generateReportFile();
-      if (shouldKeepReport()) {
-        LOG.info("Analysis report generated in " + reportDir);
-      }
-      if (!analysisMode.isMediumTest()) {
-        taskId = upload(report);
+      if (settings.getBoolean(STREAM_REPORT_PROP_KEY)) {
+        generateReport();
+        if (shouldKeepReport()) {
+          LOG.info("Analysis report generated in " + reportDir);
+        }
+        if (!analysisMode.isMediumTest()) {
+          taskId = upload(new PostRequest.Part(MediaTypes.ZIP, output -> ZipUtils.zipDir(reportDir, output)));
+        }
+      } else {
+        File report = generateReportFile();
+        if (shouldKeepReport()) {
+          LOG.info("Analysis report generated in " + reportDir);
+        }
+        if (!analysisMode.isMediumTest()) {
+          taskId = upload(report);
+        }
       }
     }
     logSuccess(taskId);
@@ -138,19 +153,23 @@ public class ReportPublisher implements Startable {
     return settings.getBoolean(KEEP_REPORT_PROP_KEY) || settings.getBoolean(VERBOSE_KEY);
   }
 
+  private void generateReport() {
+    long startTime = System.currentTimeMillis();
+    for (ReportPublisherStep publisher : publishers) {
+      publisher.publish(writer);
+    }
+    long stopTime = System.currentTimeMillis();
+    LOG.info("Analysis report generated in {}ms, dir size={}", stopTime - startTime, FileUtils.byteCountToDisplaySize(FileUtils.sizeOfDirectory(reportDir)));
+  }
+
   private File generateReportFile() {
     try {
-      long startTime = System.currentTimeMillis();
-      for (ReportPublisherStep publisher : publishers) {
-        publisher.publish(writer);
-      }
-      long stopTime = System.currentTimeMillis();
-      LOG.info("Analysis report generated in {}ms, dir size={}", stopTime - startTime, FileUtils.byteCountToDisplaySize(FileUtils.sizeOfDirectory(reportDir)));
+      generateReport();
 
-      startTime = System.currentTimeMillis();
+      long startTime = System.currentTimeMillis();
       File reportZip = temp.newFile("batch-report", ".zip");
       ZipUtils.zipDir(reportDir, reportZip);
-      stopTime = System.currentTimeMillis();
+      long stopTime = System.currentTimeMillis();
       LOG.info("Analysis reports compressed in {}ms, zip size={}", stopTime - startTime, FileUtils.byteCountToDisplaySize(FileUtils.sizeOf(reportZip)));
       return reportZip;
     } catch (IOException e) {
@@ -163,10 +182,18 @@ public class ReportPublisher implements Startable {
    */
   @VisibleForTesting
   String upload(File report) {
+    return upload(new PostRequest.Part(MediaTypes.ZIP, report));
+  }
+
+  /**
+   * Uploads the report part, either an existing zip file or a zip streamed on the fly, and returns
+   * the generated task id
+   */
+  @VisibleForTesting
+  String upload(PostRequest.Part filePart) {
     LOG.debug("Upload report");
     long startTime = System.currentTimeMillis();
     ProjectDefinition projectDefinition = projectReactor.getRoot();
-    PostRequest.Part filePart = new PostRequest.Part(MediaTypes.ZIP, report);
     PostRequest post = new PostRequest("api/ce/submit")
       .setMediaType(MediaTypes.PROTOBUF)
       .setParam("organization", settings.getString(CoreProperties.PROJECT_ORGANIZATION_PROPERTY))
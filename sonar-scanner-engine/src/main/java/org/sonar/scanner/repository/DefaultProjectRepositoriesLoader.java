@@ -22,15 +22,29 @@ package org.sonar.scanner.repository;
 import com.google.common.base.Throwables;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Table;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
 import java.util.Date;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.CheckForNull;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.utils.MessageException;
+import org.sonar.home.cache.FileCache;
 import org.sonar.scanner.bootstrap.ScannerWsClient;
 import org.sonar.scanner.util.ScannerUtils;
 import org.sonarqube.ws.WsBatch;
@@ -44,18 +58,21 @@ import org.sonarqube.ws.client.WsResponse;
 public class DefaultProjectRepositoriesLoader implements ProjectRepositoriesLoader {
   private static final Logger LOG = LoggerFactory.getLogger(DefaultProjectRepositoriesLoader.class);
   private static final String BATCH_PROJECT_URL = "/batch/project.protobuf";
+  private static final String CACHE_DIR = "_project_repositories";
+  private static final long CACHE_EXPIRATION_MS = TimeUnit.DAYS.toMillis(30);
   private ScannerWsClient wsClient;
+  private FileCache fileCache;
 
-  public DefaultProjectRepositoriesLoader(ScannerWsClient wsClient) {
+  public DefaultProjectRepositoriesLoader(ScannerWsClient wsClient, FileCache fileCache) {
     this.wsClient = wsClient;
+    this.fileCache = fileCache;
   }
 
   @Override
   public ProjectRepositories load(String projectKey, boolean issuesMode) {
-    GetRequest request = new GetRequest(getUrl(projectKey, issuesMode));
-    try (WsResponse response = wsClient.call(request)) {
-      InputStream is = response.contentStream();
-      return processStream(is, projectKey);
+    String url = getUrl(projectKey, issuesMode);
+    try {
+      return toProjectRepositories(call(url, cachedFile(url), true, projectKey));
     } catch (RuntimeException e) {
       if (shouldThrow(e)) {
         throw e;
@@ -66,6 +83,126 @@ public class DefaultProjectRepositoriesLoader implements ProjectRepositoriesLoad
     }
   }
 
+  private WsProjectResponse call(String url, Path cachedFile, boolean useCache, String projectKey) {
+    GetRequest request = new GetRequest(url);
+    String cachedETag = useCache ? readETag(cachedFile) : null;
+    if (cachedETag != null) {
+      request.setHeader("If-None-Match", cachedETag);
+    }
+    try (WsResponse response = wsClient.call(request)) {
+      if (cachedETag != null && response.code() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+        Optional<WsProjectResponse> cached = readCache(cachedFile);
+        if (cached.isPresent()) {
+          LOG.debug("Project repository not modified since previous download - using cache");
+          return cached.get();
+        }
+        // cache has been deleted or corrupted since ETag was read
+        LOG.debug("Cached project repository is not readable - downloading it again");
+        return call(url, cachedFile, false, projectKey);
+      }
+      WsProjectResponse data = parse(response.contentStream(), projectKey);
+      Optional<String> eTag = response.header("ETag");
+      if (eTag.isPresent() && !hasSecuredSettings(data)) {
+        writeCache(cachedFile, eTag.get(), data);
+      } else {
+        deleteQuietly(cachedFile);
+      }
+      return data;
+    }
+  }
+
+  /**
+   * The cache is shared by the projects and servers used by the OS user, so file name
+   * depends on both server URL and request.
+   */
+  private Path cachedFile(String url) {
+    return fileCache.getDir().toPath().resolve(CACHE_DIR).resolve(DigestUtils.sha1Hex(wsClient.baseUrl() + url));
+  }
+
+  /**
+   * Cached file contains the ETag returned by server, followed by the protobuf response.
+   */
+  @CheckForNull
+  private static String readETag(Path cachedFile) {
+    if (!Files.exists(cachedFile)) {
+      return null;
+    }
+    try (DataInputStream input = new DataInputStream(Files.newInputStream(cachedFile))) {
+      return input.readUTF();
+    } catch (IOException e) {
+      LOG.debug("Fail to read cached project repository " + cachedFile, e);
+      return null;
+    }
+  }
+
+  private static Optional<WsProjectResponse> readCache(Path cachedFile) {
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(cachedFile)))) {
+      // skip ETag
+      input.readUTF();
+      WsProjectResponse data = WsProjectResponse.parseFrom(input);
+      // cache is still in use, see deleteExpiredFiles()
+      Files.setLastModifiedTime(cachedFile, FileTime.fromMillis(System.currentTimeMillis()));
+      return Optional.of(data);
+    } catch (IOException e) {
+      LOG.debug("Fail to read cached project repository " + cachedFile, e);
+      deleteQuietly(cachedFile);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Settings of the user cache are readable by any process of the OS user, so responses containing
+   * secured settings are never cached.
+   */
+  private static boolean hasSecuredSettings(WsProjectResponse data) {
+    return data.getSettingsByModule().values().stream()
+      .flatMap(settings -> settings.getSettings().keySet().stream())
+      .anyMatch(key -> key.contains(".secured"));
+  }
+
+  /**
+   * Cache is an optimization, so failures are ignored
+   */
+  private static void writeCache(Path cachedFile, String eTag, WsProjectResponse data) {
+    try {
+      Files.createDirectories(cachedFile.getParent());
+      deleteExpiredFiles(cachedFile.getParent());
+      // write to a temporary file then rename it, so that concurrent analyses never read partial files
+      Path tempFile = Files.createTempFile(cachedFile.getParent(), cachedFile.getFileName().toString(), null);
+      try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+        output.writeUTF(eTag);
+        data.writeTo(output);
+      }
+      Files.move(tempFile, cachedFile, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      LOG.debug("Fail to cache project repository to " + cachedFile, e);
+      deleteQuietly(cachedFile);
+    }
+  }
+
+  /**
+   * Deletes the responses of projects which have not been analyzed for a while, as well as the temporary
+   * files left by interrupted analyses.
+   */
+  private static void deleteExpiredFiles(Path cacheDir) throws IOException {
+    long expiredBefore = System.currentTimeMillis() - CACHE_EXPIRATION_MS;
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDir)) {
+      for (Path file : files) {
+        if (Files.getLastModifiedTime(file).toMillis() < expiredBefore) {
+          deleteQuietly(file);
+        }
+      }
+    }
+  }
+
+  private static void deleteQuietly(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      LOG.debug("Fail to delete cached project repository " + file, e);
+    }
+  }
+
   private static String getUrl(String projectKey, boolean issuesMode) {
     StringBuilder builder = new StringBuilder();
 
@@ -91,33 +228,35 @@ public class DefaultProjectRepositoriesLoader implements ProjectRepositoriesLoad
     return false;
   }
 
-  private static ProjectRepositories processStream(InputStream is, String projectKey) {
+  private static WsProjectResponse parse(InputStream is, String projectKey) {
     try {
-      WsProjectResponse response = WsProjectResponse.parseFrom(is);
+      return WsProjectResponse.parseFrom(is);
+    } catch (IOException e) {
+      throw new IllegalStateException("Couldn't load project repository for " + projectKey, e);
+    } finally {
+      IOUtils.closeQuietly(is);
+    }
+  }
 
-      Table<String, String, FileData> fileDataTable = HashBasedTable.create();
-      Table<String, String, String> settings = HashBasedTable.create();
+  private static ProjectRepositories toProjectRepositories(WsProjectResponse response) {
+    Table<String, String, FileData> fileDataTable = HashBasedTable.create();
+    Table<String, String, String> settings = HashBasedTable.create();
 
-      Map<String, Settings> settingsByModule = response.getSettingsByModule();
-      for (Map.Entry<String, Settings> e1 : settingsByModule.entrySet()) {
-        for (Map.Entry<String, String> e2 : e1.getValue().getSettings().entrySet()) {
-          settings.put(e1.getKey(), e2.getKey(), e2.getValue());
-        }
+    Map<String, Settings> settingsByModule = response.getSettingsByModule();
+    for (Map.Entry<String, Settings> e1 : settingsByModule.entrySet()) {
+      for (Map.Entry<String, String> e2 : e1.getValue().getSettings().entrySet()) {
+        settings.put(e1.getKey(), e2.getKey(), e2.getValue());
       }
+    }
 
-      Map<String, FileDataByPath> fileDataByModuleAndPath = response.getFileDataByModuleAndPath();
-      for (Map.Entry<String, FileDataByPath> e1 : fileDataByModuleAndPath.entrySet()) {
-        for (Map.Entry<String, WsBatch.WsProjectResponse.FileData> e2 : e1.getValue().getFileDataByPath().entrySet()) {
-          FileData fd = new FileData(e2.getValue().getHash(), e2.getValue().getRevision());
-          fileDataTable.put(e1.getKey(), e2.getKey(), fd);
-        }
+    Map<String, FileDataByPath> fileDataByModuleAndPath = response.getFileDataByModuleAndPath();
+    for (Map.Entry<String, FileDataByPath> e1 : fileDataByModuleAndPath.entrySet()) {
+      for (Map.Entry<String, WsBatch.WsProjectResponse.FileData> e2 : e1.getValue().getFileDataByPath().entrySet()) {
+        FileData fd = new FileData(e2.getValue().getHash(), e2.getValue().getRevision());
+        fileDataTable.put(e1.getKey(), e2.getKey(), fd);
       }
-
-      return new ProjectRepositories(settings, fileDataTable, new Date(response.getLastAnalysisDate()));
-    } catch (IOException e) {
-      throw new IllegalStateException("Couldn't load project repository for " + projectKey, e);
-    } finally {
-      IOUtils.closeQuietly(is);
     }
+
+    return new ProjectRepositories(settings, fileDataTable, new Date(response.getLastAnalysisDate()));
   }
 }
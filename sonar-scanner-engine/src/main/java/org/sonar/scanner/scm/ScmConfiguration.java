@@ -47,7 +47,16 @@ import org.sonar.scanner.scan.ImmutableProjectReactor;
     project = false,
     module = false,
     global = false,
-    type = PropertyType.BOOLEAN)
+    type = PropertyType.BOOLEAN),
+  @Property(
+    key = ScmConfiguration.THREADS_KEY,
+    name = "Number of threads used to blame files",
+    description = "Only used by SCM providers supporting concurrent blame. By default the number of available processors minus one.",
+    category = CoreProperties.CATEGORY_SCM,
+    project = false,
+    module = false,
+    global = false,
+    type = PropertyType.INTEGER)
 })
 @InstantiationStrategy(InstantiationStrategy.PER_BATCH)
 @ScannerSide
@@ -55,6 +64,7 @@ public final class ScmConfiguration implements Startable {
   private static final Logger LOG = Loggers.get(ScmConfiguration.class);
 
   public static final String FORCE_RELOAD_KEY = "sonar.scm.forceReloadAll";
+  public static final String THREADS_KEY = "sonar.scm.threads";
 
   private final ImmutableProjectReactor projectReactor;
   private final Settings settings;
@@ -147,6 +157,16 @@ public final class ScmConfiguration implements Startable {
     return settings.getBoolean(FORCE_RELOAD_KEY);
   }
 
+  /**
+   * Maximum number of concurrent blame executions, always greater than or equal to 1.
+   */
+  public int threads() {
+    if (settings.hasKey(THREADS_KEY)) {
+      return Math.max(1, settings.getInt(THREADS_KEY));
+    }
+    return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+  }
+
   @Override
   public void stop() {
     // Nothing to do
@@ -19,16 +19,26 @@
  */
 package org.sonar.scanner.scm;
 
-import java.util.LinkedList;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.InstantiationStrategy;
 import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.InputFile.Status;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
+import org.sonar.api.batch.scm.BlameCommand;
+import org.sonar.api.batch.scm.BlameCommand.BlameOutput;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.scanner.protocol.output.ScannerReport;
@@ -45,6 +55,7 @@ import org.sonar.scanner.scan.filesystem.ModuleInputComponentStore;
 public final class ScmPublisher {
 
   private static final Logger LOG = Loggers.get(ScmPublisher.class);
+  private static final int BATCH_SIZE = 50;
 
   private final DefaultInputModule inputModule;
   private final ScmConfiguration configuration;
@@ -79,7 +90,13 @@ public final class ScmPublisher {
       LOG.info("SCM provider for this project is: " + key);
       DefaultBlameOutput output = new DefaultBlameOutput(writer, filesToBlame);
       try {
-        configuration.provider().blameCommand().blame(new DefaultBlameInput(fs, filesToBlame), output);
+        BlameCommand blameCommand = configuration.provider().blameCommand();
+        int threads = configuration.threads();
+        if (blameCommand.isThreadSafe() && threads > 1 && filesToBlame.size() > BATCH_SIZE) {
+          blameConcurrently(blameCommand, fs, filesToBlame, output, threads);
+        } else {
+          blameCommand.blame(new DefaultBlameInput(fs, filesToBlame), output);
+        }
       } catch (Exception e) {
         output.finish(false);
         throw e;
@@ -88,11 +105,38 @@ public final class ScmPublisher {
     }
   }
 
+  /**
+   * Files are split in batches of {@link #BATCH_SIZE} which are blamed by a bounded pool of workers.
+   * Results are written to the report by {@link DefaultBlameOutput} as soon as each file is blamed.
+   */
+  @VisibleForTesting
+  static void blameConcurrently(BlameCommand blameCommand, FileSystem fs, List<InputFile> filesToBlame, BlameOutput output, int threads) {
+    LOG.debug("Blame files with {} threads", threads);
+    ExecutorService executorService = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("ScmBlame-%d").build());
+    try {
+      List<Future<?>> tasks = new ArrayList<>();
+      for (List<InputFile> batch : Lists.partition(filesToBlame, BATCH_SIZE)) {
+        tasks.add(executorService.submit(() -> blameCommand.blame(new DefaultBlameInput(fs, batch), output)));
+      }
+      for (Future<?> task : tasks) {
+        task.get();
+      }
+    } catch (ExecutionException e) {
+      // Unwrap ExecutionException
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
   private List<InputFile> collectFilesToBlame(ScannerReportWriter writer) {
     if (configuration.forceReloadAll()) {
       LOG.warn("Forced reloading of SCM data for all files.");
     }
-    List<InputFile> filesToBlame = new LinkedList<>();
+    List<InputFile> filesToBlame = new ArrayList<>();
     for (InputFile f : componentStore.inputFiles()) {
       DefaultInputFile inputFile = (DefaultInputFile) f;
       if (!inputFile.publish()) {
@@ -26,9 +26,10 @@ public class ProgressReport implements Runnable {
 
   private static final Logger LOG = Loggers.get(ProgressReport.class);
   private final long period;
-  private String message = "";
+  // updated by the threads doing the work, read by the reporting thread
+  private volatile String message = "";
   private final Thread thread;
-  private String stopMessage = "";
+  private volatile String stopMessage = "";
 
   public ProgressReport(String threadName, long period) {
     this.period = period;
@@ -0,0 +1,59 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.issue.ignore.pattern;
+
+import java.util.Arrays;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResourcePatternIndexTest {
+
+  @Test
+  public void literal_prefix() {
+    assertThat(ResourcePatternIndex.literalPrefix("src/main/java/Foo.java")).isEqualTo("src/main/java/Foo.java");
+    assertThat(ResourcePatternIndex.literalPrefix("/src/main/**/*.java")).isEqualTo("src/main/");
+    assertThat(ResourcePatternIndex.literalPrefix("src\\gen\\?oo.java")).isEqualTo("src/gen/");
+    assertThat(ResourcePatternIndex.literalPrefix("**/*.java")).isEmpty();
+  }
+
+  @Test
+  public void return_candidates_in_configuration_order() {
+    IssuePattern all = new IssuePattern("**/*", "*");
+    IssuePattern generated = new IssuePattern("src/gen/**", "*");
+    IssuePattern other = new IssuePattern("src/other/**", "*");
+    IssuePattern foo = new IssuePattern("src/gen/Foo.java", "*");
+    ResourcePatternIndex underTest = new ResourcePatternIndex(Arrays.asList(foo, all, generated, other));
+
+    assertThat(underTest.candidates("src/gen/Foo.java")).containsExactly(foo, all, generated);
+    assertThat(underTest.candidates("src/gen/Bar.java")).containsExactly(all, generated);
+    assertThat(underTest.candidates("src")).containsExactly(all);
+  }
+
+  @Test
+  public void candidates_are_consistent_with_pattern_matching() {
+    IssuePattern pattern = new IssuePattern("/src/gen/*.java", "*");
+    ResourcePatternIndex underTest = new ResourcePatternIndex(Arrays.asList(pattern));
+
+    assertThat(pattern.matchResource("src/gen/Foo.java")).isTrue();
+    assertThat(underTest.candidates("src/gen/Foo.java")).containsExactly(pattern);
+    assertThat(underTest.candidates("src/main/Foo.java")).isEmpty();
+  }
+}
@@ -33,8 +33,10 @@ import org.sonar.scanner.issue.ignore.scanner.IssueExclusionsRegexpScanner;
 import java.io.File;
 import java.util.Arrays;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -165,4 +167,20 @@ public class IssueExclusionsRegexpScannerTest {
     verifyNoMoreInteractions(patternsInitializer);
   }
 
+  @Test
+  public void union_of_patterns_matches_if_one_pattern_matches() {
+    Pattern union = IssueExclusionsRegexpScanner.union(Arrays.asList(Pattern.compile("// SONAR-OFF"), Pattern.compile("@Generated\\b")));
+
+    assertThat(union.matcher("  // SONAR-OFF").find()).isTrue();
+    assertThat(union.matcher("@Generated class Foo").find()).isTrue();
+    assertThat(union.matcher("class Foo").find()).isFalse();
+  }
+
+  @Test
+  public void patterns_are_not_combined_if_they_can_not_be_safely_merged() {
+    assertThat(IssueExclusionsRegexpScanner.union(Arrays.asList(Pattern.compile("foo")))).isNull();
+    assertThat(IssueExclusionsRegexpScanner.union(Arrays.asList(Pattern.compile("(a)\\1"), Pattern.compile("bar")))).isNull();
+    assertThat(IssueExclusionsRegexpScanner.union(Arrays.asList(Pattern.compile("(?<x>a)"), Pattern.compile("(?<x>b)")))).isNull();
+  }
+
 }
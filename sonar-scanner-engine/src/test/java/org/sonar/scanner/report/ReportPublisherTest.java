@@ -19,6 +19,8 @@
  */
 package org.sonar.scanner.report;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.PipedInputStream;
@@ -40,6 +42,7 @@ import org.sonar.api.config.Settings;
 import org.sonar.api.platform.Server;
 import org.sonar.api.utils.MessageException;
 import org.sonar.api.utils.TempFolder;
+import org.sonar.api.utils.ZipUtils;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.core.config.CorePropertyDefinitions;
@@ -48,6 +51,7 @@ import org.sonar.scanner.bootstrap.ScannerWsClient;
 import org.sonar.scanner.scan.ImmutableProjectReactor;
 import org.sonarqube.ws.WsCe;
 import org.sonarqube.ws.client.HttpException;
+import org.sonarqube.ws.client.PostRequest;
 import org.sonarqube.ws.client.WsRequest;
 import org.sonarqube.ws.client.WsResponse;
 
@@ -57,6 +61,7 @@ import static org.assertj.core.api.Assertions.entry;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 public class ReportPublisherTest {
@@ -219,4 +224,33 @@ public class ReportPublisherTest {
       entry("projectKey", "struts"));
   }
 
+  @Test
+  public void stream_report_without_temporary_zip_file() throws Exception {
+    settings.setProperty(ReportPublisher.STREAM_REPORT_PROP_KEY, true);
+    TempFolder tempFolder = mock(TempFolder.class);
+    ReportPublisher underTest = new ReportPublisher(settings, wsClient, server, contextPublisher, reactor, mode, tempFolder, new ReportPublisherStep[0]);
+
+    WsResponse response = mock(WsResponse.class);
+    PipedOutputStream out = new PipedOutputStream();
+    PipedInputStream in = new PipedInputStream(out);
+    WsCe.SubmitResponse.newBuilder().setTaskId("TASK-123").build().writeTo(out);
+    out.close();
+    when(response.failIfNotSuccessful()).thenReturn(response);
+    when(response.contentStream()).thenReturn(in);
+    when(wsClient.call(any(WsRequest.class))).thenReturn(response);
+
+    underTest.start();
+    Files.write(underTest.getReportDir().toPath().resolve("metadata.pb"), new byte[] {1, 2, 3});
+    underTest.execute();
+
+    ArgumentCaptor<PostRequest> capture = ArgumentCaptor.forClass(PostRequest.class);
+    verify(wsClient).call(capture.capture());
+    PostRequest.Part part = capture.getValue().getParts().get("report");
+    assertThat(part.getFile()).isNull();
+    ByteArrayOutputStream zip = new ByteArrayOutputStream();
+    part.getWriter().writeTo(zip);
+    File unzipped = ZipUtils.unzip(new ByteArrayInputStream(zip.toByteArray()), temp.newFolder());
+    assertThat(new File(unzipped, "metadata.pb")).exists();
+    verifyZeroInteractions(tempFolder);
+  }
 }
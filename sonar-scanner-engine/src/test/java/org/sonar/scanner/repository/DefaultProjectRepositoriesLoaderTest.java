@@ -22,38 +22,57 @@ package org.sonar.scanner.repository;
 import com.google.common.io.Resources;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
 import org.sonar.api.utils.MessageException;
+import org.sonar.home.cache.FileCache;
 import org.sonar.scanner.WsTestUtil;
 import org.sonar.scanner.bootstrap.ScannerWsClient;
 import org.sonarqube.ws.WsBatch.WsProjectResponse;
 import org.sonarqube.ws.client.HttpException;
 import org.sonarqube.ws.client.WsRequest;
+import org.sonarqube.ws.client.WsResponse;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class DefaultProjectRepositoriesLoaderTest {
   private final static String PROJECT_KEY = "foo?";
   @Rule
   public ExpectedException thrown = ExpectedException.none();
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
 
   private DefaultProjectRepositoriesLoader loader;
   private ScannerWsClient wsClient;
+  private FileCache fileCache = mock(FileCache.class);
+  private File cacheDir;
 
   @Before
   public void prepare() throws IOException {
     wsClient = mock(ScannerWsClient.class);
     InputStream is = mockData();
     WsTestUtil.mockStream(wsClient, "/batch/project.protobuf?key=foo%3F", is);
-    loader = new DefaultProjectRepositoriesLoader(wsClient);
+    cacheDir = temp.newFolder();
+    when(fileCache.getDir()).thenReturn(cacheDir);
+    loader = new DefaultProjectRepositoriesLoader(wsClient, fileCache);
   }
 
   @Test
@@ -110,6 +129,116 @@ public class DefaultProjectRepositoriesLoaderTest {
     WsTestUtil.verifyCall(wsClient, "/batch/project.protobuf?key=foo%3F");
   }
 
+  @Test
+  public void use_cached_response_if_not_modified() throws IOException {
+    WsProjectResponse.FileDataByPath.Builder fileDataByPath = WsProjectResponse.FileDataByPath.newBuilder();
+    fileDataByPath.getMutableFileDataByPath().put("src/Foo.java", WsProjectResponse.FileData.newBuilder().setHash("h1").setRevision("r1").build());
+    WsProjectResponse.Builder projectResponse = WsProjectResponse.newBuilder();
+    projectResponse.getMutableFileDataByModuleAndPath().put("foo", fileDataByPath.build());
+    WsResponse downloaded = mockResponse(HttpURLConnection.HTTP_OK, "\"v1\"", new ByteArrayInputStream(projectResponse.build().toByteArray()));
+    WsResponse notModified = mockResponse(HttpURLConnection.HTTP_NOT_MODIFIED, "\"v1\"", null);
+    when(wsClient.call(any(WsRequest.class))).thenReturn(downloaded, notModified);
+
+    assertThat(loader.load("foo", false).fileData("foo", "src/Foo.java").hash()).isEqualTo("h1");
+    ProjectRepositories proj = loader.load("foo", false);
+
+    assertThat(proj.fileData("foo", "src/Foo.java").hash()).isEqualTo("h1");
+    assertThat(proj.fileData("foo", "src/Foo.java").revision()).isEqualTo("r1");
+    ArgumentCaptor<WsRequest> requests = ArgumentCaptor.forClass(WsRequest.class);
+    verify(wsClient, times(2)).call(requests.capture());
+    assertThat(requests.getAllValues().get(0).getHeaders()).isEmpty();
+    assertThat(requests.getAllValues().get(1).getHeaders()).containsEntry("If-None-Match", "\"v1\"");
+  }
+
+  @Test
+  public void do_not_send_etag_of_other_project() throws IOException {
+    WsResponse foo = mockResponse(HttpURLConnection.HTTP_OK, "\"v1\"", mockData());
+    WsResponse bar = mockResponse(HttpURLConnection.HTTP_OK, null, mockData());
+    when(wsClient.call(any(WsRequest.class))).thenReturn(foo, bar);
+
+    loader.load("foo", false);
+    loader.load("bar", false);
+
+    ArgumentCaptor<WsRequest> requests = ArgumentCaptor.forClass(WsRequest.class);
+    verify(wsClient, times(2)).call(requests.capture());
+    assertThat(requests.getAllValues().get(1).getHeaders()).isEmpty();
+  }
+
+  @Test
+  public void download_again_if_cache_is_deleted_after_etag_is_sent() throws IOException {
+    WsResponse downloaded = mockResponse(HttpURLConnection.HTTP_OK, "\"v1\"", newData("h1"));
+    WsResponse notModified = mockResponse(HttpURLConnection.HTTP_NOT_MODIFIED, "\"v1\"", null);
+    WsResponse downloadedAgain = mockResponse(HttpURLConnection.HTTP_OK, "\"v2\"", newData("h2"));
+    when(wsClient.call(any(WsRequest.class))).thenReturn(downloaded)
+      .thenAnswer(invocation -> {
+        // cache is deleted by another process
+        FileUtils.cleanDirectory(cacheDir);
+        return notModified;
+      })
+      .thenReturn(downloadedAgain);
+
+    loader.load("foo", false);
+    ProjectRepositories proj = loader.load("foo", false);
+
+    assertThat(proj.fileData("foo", "src/Foo.java").hash()).isEqualTo("h2");
+    ArgumentCaptor<WsRequest> requests = ArgumentCaptor.forClass(WsRequest.class);
+    verify(wsClient, times(3)).call(requests.capture());
+    assertThat(requests.getAllValues().get(1).getHeaders()).containsEntry("If-None-Match", "\"v1\"");
+    assertThat(requests.getAllValues().get(2).getHeaders()).isEmpty();
+  }
+
+  @Test
+  public void do_not_cache_response_with_secured_settings() throws IOException {
+    WsProjectResponse.Settings.Builder settings = WsProjectResponse.Settings.newBuilder();
+    settings.getMutableSettings().put("sonar.foo.secured", "secret");
+    WsProjectResponse.Builder projectResponse = WsProjectResponse.newBuilder();
+    projectResponse.getMutableSettingsByModule().put("foo", settings.build());
+    WsResponse first = mockResponse(HttpURLConnection.HTTP_OK, "\"v1\"", new ByteArrayInputStream(projectResponse.build().toByteArray()));
+    WsResponse second = mockResponse(HttpURLConnection.HTTP_OK, "\"v1\"", new ByteArrayInputStream(projectResponse.build().toByteArray()));
+    when(wsClient.call(any(WsRequest.class))).thenReturn(first, second);
+
+    assertThat(loader.load("foo", false).settings("foo")).containsEntry("sonar.foo.secured", "secret");
+    loader.load("foo", false);
+
+    ArgumentCaptor<WsRequest> requests = ArgumentCaptor.forClass(WsRequest.class);
+    verify(wsClient, times(2)).call(requests.capture());
+    assertThat(requests.getAllValues().get(1).getHeaders()).isEmpty();
+    assertThat(FileUtils.listFiles(cacheDir, null, true)).isEmpty();
+  }
+
+  @Test
+  public void delete_expired_cached_responses() throws IOException {
+    File expired = new File(cacheDir, "_project_repositories/expired");
+    FileUtils.write(expired, "old");
+    assertThat(expired.setLastModified(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(31))).isTrue();
+    File recent = new File(cacheDir, "_project_repositories/recent");
+    FileUtils.write(recent, "new");
+    WsResponse downloaded = mockResponse(HttpURLConnection.HTTP_OK, "\"v1\"", newData("h1"));
+    when(wsClient.call(any(WsRequest.class))).thenReturn(downloaded);
+
+    loader.load("foo", false);
+
+    assertThat(expired).doesNotExist();
+    assertThat(recent).exists();
+  }
+
+  private static InputStream newData(String hash) {
+    WsProjectResponse.FileDataByPath.Builder fileDataByPath = WsProjectResponse.FileDataByPath.newBuilder();
+    fileDataByPath.getMutableFileDataByPath().put("src/Foo.java", WsProjectResponse.FileData.newBuilder().setHash(hash).build());
+    WsProjectResponse.Builder projectResponse = WsProjectResponse.newBuilder();
+    projectResponse.getMutableFileDataByModuleAndPath().put("foo", fileDataByPath.build());
+    return new ByteArrayInputStream(projectResponse.build().toByteArray());
+  }
+
+  private static WsResponse mockResponse(int code, @Nullable String eTag, @Nullable InputStream content) {
+    WsResponse response = mock(WsResponse.class);
+    when(response.code()).thenReturn(code);
+    when(response.header(anyString())).thenReturn(Optional.empty());
+    when(response.header("ETag")).thenReturn(Optional.ofNullable(eTag));
+    when(response.contentStream()).thenReturn(content);
+    return response;
+  }
+
   private InputStream mockData() throws IOException {
     ByteArrayOutputStream os = new ByteArrayOutputStream();
     WsProjectResponse.Builder projectResponseBuilder = WsProjectResponse.newBuilder();
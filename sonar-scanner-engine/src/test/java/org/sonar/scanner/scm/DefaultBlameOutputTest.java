@@ -19,15 +19,27 @@
  */
 package org.sonar.scanner.scm;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.batch.scm.BlameLine;
-import org.sonar.scanner.scm.DefaultBlameOutput;
+import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.scanner.protocol.output.ScannerReportWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 public class DefaultBlameOutputTest {
 
@@ -74,4 +86,24 @@ public class DefaultBlameOutputTest {
       .blameResult(file, Arrays.asList(new BlameLine().date(new Date()).author("guy")));
   }
 
+  @Test
+  public void acceptConcurrentResults() throws Exception {
+    ScannerReportWriter writer = mock(ScannerReportWriter.class);
+    List<InputFile> files = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      files.add(new TestInputFileBuilder("foo", "src/main/java/Foo" + i + ".java").setLines(1).build());
+    }
+    DefaultBlameOutput output = new DefaultBlameOutput(writer, files);
+
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    for (InputFile file : files) {
+      executorService.submit(() -> output.blameResult(file, Arrays.asList(new BlameLine().date(new Date()).revision("1").author("guy"))));
+    }
+    executorService.shutdown();
+    assertThat(executorService.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+    output.finish(true);
+
+    verify(writer, times(100)).writeComponentChangesets(any(ScannerReport.Changesets.class));
+  }
+
 }
@@ -0,0 +1,112 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.scm.BlameCommand;
+import org.sonar.api.batch.scm.BlameLine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class ScmPublisherTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private FileSystem fs = mock(FileSystem.class);
+  private Map<InputFile, String> blamingThreadByFile = new ConcurrentHashMap<>();
+  private BlameCommand.BlameOutput output = (file, lines) -> blamingThreadByFile.put(file, Thread.currentThread().getName());
+
+  @Test
+  public void blame_batches_of_files_concurrently() {
+    List<InputFile> files = newFiles(150);
+    // the three batches of 50 files must be blamed at the same time to cross the barrier
+    CyclicBarrier barrier = new CyclicBarrier(3);
+
+    ScmPublisher.blameConcurrently(new FakeBlameCommand(barrier), fs, files, output, 3);
+
+    assertThat(blamingThreadByFile).containsOnlyKeys(files.toArray(new InputFile[0]));
+    assertThat(new HashSet<>(blamingThreadByFile.values())).hasSize(3);
+  }
+
+  @Test
+  public void fail_if_blame_of_a_batch_fails() {
+    BlameCommand failingCommand = new BlameCommand() {
+      @Override
+      public void blame(BlameInput input, BlameOutput output) {
+        throw new IllegalStateException("SCM is not available");
+      }
+    };
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("SCM is not available");
+
+    ScmPublisher.blameConcurrently(failingCommand, fs, newFiles(150), output, 3);
+  }
+
+  private static List<InputFile> newFiles(int count) {
+    List<InputFile> files = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      files.add(new TestInputFileBuilder("foo", "src/Foo" + i + ".java").setLines(1).build());
+    }
+    return files;
+  }
+
+  private static class FakeBlameCommand extends BlameCommand {
+    private final CyclicBarrier barrier;
+
+    private FakeBlameCommand(CyclicBarrier barrier) {
+      this.barrier = barrier;
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+      return true;
+    }
+
+    @Override
+    public void blame(BlameInput input, BlameOutput output) {
+      try {
+        barrier.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+        throw new IllegalStateException("Batches are not blamed concurrently", e);
+      }
+      for (InputFile file : input.filesToBlame()) {
+        output.blameResult(file, Collections.singletonList(new BlameLine().revision("1").author("guy")));
+      }
+    }
+  }
+}
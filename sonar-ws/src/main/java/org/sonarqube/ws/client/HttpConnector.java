@@ -37,6 +37,7 @@ import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okio.BufferedSink;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.isNullOrEmpty;
@@ -136,7 +137,7 @@ public class HttpConnector implements WsConnector {
         PostRequest.Part part = param.getValue();
         bodyBuilder.addPart(
           Headers.of("Content-Disposition", format("form-data; name=\"%s\"", param.getKey())),
-          RequestBody.create(MediaType.parse(part.getMediaType()), part.getFile()));
+          toRequestBody(part));
       });
       body = bodyBuilder.build();
     }
@@ -144,6 +145,31 @@ public class HttpConnector implements WsConnector {
     return doCall(reqBuilder.post(body).build());
   }
 
+  private static RequestBody toRequestBody(PostRequest.Part part) {
+    MediaType mediaType = MediaType.parse(part.getMediaType());
+    PostRequest.ContentWriter writer = part.getWriter();
+    if (writer == null) {
+      return RequestBody.create(mediaType, part.getFile());
+    }
+    return new RequestBody() {
+      @Override
+      public MediaType contentType() {
+        return mediaType;
+      }
+
+      @Override
+      public long contentLength() {
+        // unknown length, content is sent with chunked transfer encoding
+        return -1L;
+      }
+
+      @Override
+      public void writeTo(BufferedSink sink) throws IOException {
+        writer.writeTo(sink.outputStream());
+      }
+    };
+  }
+
   private HttpUrl.Builder prepareUrlBuilder(WsRequest wsRequest) {
     String path = wsRequest.getPath();
     return baseUrl
@@ -162,6 +188,7 @@ public class HttpConnector implements WsConnector {
       .url(urlBuilder.build())
       .addHeader("Accept", getRequest.getMediaType())
       .addHeader("Accept-Charset", "UTF-8");
+    getRequest.getHeaders().forEach(okHttpRequestBuilder::header);
     if (credentials != null) {
       okHttpRequestBuilder.header("Authorization", credentials);
     }
@@ -24,7 +24,10 @@ import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import org.sonar.api.server.ws.LocalConnector;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -99,12 +102,16 @@ class LocalWsConnector implements WsConnector {
     private final byte[] bytes;
     private final String contentType;
     private final int code;
+    private final Map<String, String> headers = new HashMap<>();
 
     ByteArrayResponse(String path, LocalConnector.LocalResponse localResponse) {
       this.path = path;
       this.bytes = localResponse.getBytes();
       this.contentType = localResponse.getMediaType();
       this.code = localResponse.getStatus();
+      for (String name : localResponse.getHeaderNames()) {
+        headers.put(name, localResponse.getHeader(name));
+      }
     }
 
     @Override
@@ -122,6 +129,11 @@ class LocalWsConnector implements WsConnector {
       return contentType;
     }
 
+    @Override
+    public Optional<String> header(String name) {
+      return Optional.ofNullable(headers.get(name));
+    }
+
     @Override
     public InputStream contentStream() {
       return new ByteArrayInputStream(bytes);
@@ -20,8 +20,11 @@
 package org.sonarqube.ws.client;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import javax.annotation.CheckForNull;
 
 /**
  * @since 5.3
@@ -51,19 +54,53 @@ public class PostRequest extends BaseRequest<PostRequest> {
   public static class Part {
     private final String mediaType;
     private final File file;
+    private final ContentWriter writer;
 
     public Part(String mediaType, File file) {
       this.mediaType = mediaType;
       this.file = file;
+      this.writer = null;
+    }
+
+    /**
+     * Content is not known in advance but is written on the fly to the request body,
+     * using chunked transfer encoding.
+     *
+     * @since 6.4
+     */
+    public Part(String mediaType, ContentWriter writer) {
+      this.mediaType = mediaType;
+      this.file = null;
+      this.writer = writer;
     }
 
     public String getMediaType() {
       return mediaType;
     }
 
+    @CheckForNull
     public File getFile() {
       return file;
     }
+
+    /**
+     * @since 6.4
+     */
+    @CheckForNull
+    public ContentWriter getWriter() {
+      return writer;
+    }
+  }
+
+  /**
+   * Writes the content of a {@link Part}. It may be called multiple times
+   * if the request is retried, so the content must be reproducible.
+   *
+   * @since 6.4
+   */
+  @FunctionalInterface
+  public interface ContentWriter {
+    void writeTo(OutputStream output) throws IOException;
   }
 
 }
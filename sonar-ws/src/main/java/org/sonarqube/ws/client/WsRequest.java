@@ -43,6 +43,12 @@ public interface WsRequest {
 
   Parameters getParameters();
 
+  /**
+   * HTTP headers added to the request, for example {@code If-None-Match}
+   * @since 6.4
+   */
+  Map<String, String> getHeaders();
+
   enum Method {
     GET, POST
   }
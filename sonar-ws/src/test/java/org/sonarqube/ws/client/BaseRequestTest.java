@@ -46,6 +46,13 @@ public class BaseRequestTest {
     assertThat(underTest.getParams()).isEmpty();
     assertThat(underTest.getMediaType()).isEqualTo(MediaTypes.JSON);
     assertThat(underTest.getPath()).isEqualTo("api/foo");
+    assertThat(underTest.getHeaders()).isEmpty();
+  }
+
+  @Test
+  public void setHeader() {
+    underTest.setHeader("If-None-Match", "\"abc\"");
+    assertThat(underTest.getHeaders()).containsExactly(entry("If-None-Match", "\"abc\""));
   }
 
   @Test